@@ -38,6 +38,20 @@ public class OverrideUtilTest {
                         "jdbc.password",
                         "jdbc.url",
                         "jdbc.autoCreateTables",
+                        "jdbc.writeBatchSize",
+                        "jdbc.writeBatchLingerMillis",
+                        "jdbc.payloadCacheMaxBytes",
+                        "jdbc.compressPayloads",
+                        "jdbc.entityCacheSize",
+                        "jdbc.statementCacheSize",
+                        "jdbc.readReplicas",
+                        "jdbc.readReplicaCheckIntervalMillis",
+                        "jdbc.storageType",
+                        "jdbc.logStorePath",
+                        "jdbc.rawTransactionRetention.maxAgeMillis",
+                        "jdbc.rawTransactionRetention.batchSize",
+                        "jdbc.rawTransactionRetention.intervalMillis",
+                        "jdbc.rawTransactionRetention.archivePath",
                         "peer.url",
                         "keys.passwordFile",
                         "keys.passwords",
@@ -163,7 +177,11 @@ public class OverrideUtilTest {
                         "server.influxConfig.sslConfig.generateKeyStoreIfNotExisted",
                         "server.influxConfig.sslConfig.serverKeyStorePassword",
                         "server.influxConfig.sslConfig.sslConfigType",
-                        "features.enableRemoteKeyValidation");
+                        "features.enableRemoteKeyValidation",
+                        "enclave.parallelSealThreshold",
+                        "enclave.parallelSealThreads",
+                        "publish.threads",
+                        "publish.awaitDelivery");
 
         final Map<String, Class> results = OverrideUtil.buildConfigOptions();
 
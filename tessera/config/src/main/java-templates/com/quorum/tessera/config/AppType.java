@@ -14,7 +14,7 @@ public enum AppType {
     @XmlEnumValue("ThirdParty")
     THIRD_PARTY(CommunicationType.REST),
 
-    ENCLAVE(CommunicationType.REST),
+    ENCLAVE(CommunicationType.REST, CommunicationType.GRPC, CommunicationType.WEB_SOCKET),
 
     ADMIN(CommunicationType.REST);
 
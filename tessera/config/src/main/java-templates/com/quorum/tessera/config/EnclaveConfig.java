@@ -0,0 +1,34 @@
+package com.quorum.tessera.config;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+
+/** Tuning of the enclave that encrypts and decrypts transactions */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class EnclaveConfig extends ConfigItem {
+
+    /** Number of recipients from which their boxes are sealed in parallel, 0 always seals them one by one */
+    @XmlElement(defaultValue = "50")
+    private int parallelSealThreshold = 50;
+
+    /** Number of threads recipient boxes are sealed with, 0 uses one per available processor */
+    @XmlElement(defaultValue = "0")
+    private int parallelSealThreads;
+
+    public int getParallelSealThreshold() {
+        return parallelSealThreshold;
+    }
+
+    public void setParallelSealThreshold(int parallelSealThreshold) {
+        this.parallelSealThreshold = parallelSealThreshold;
+    }
+
+    public int getParallelSealThreads() {
+        return parallelSealThreads;
+    }
+
+    public void setParallelSealThreads(int parallelSealThreads) {
+        this.parallelSealThreads = parallelSealThreads;
+    }
+}
@@ -0,0 +1,5 @@
+package com.quorum.tessera.config;
+
+public enum StorageType {
+    JDBC, LOG
+}
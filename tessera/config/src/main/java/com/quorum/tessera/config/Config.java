@@ -57,6 +57,12 @@ public class Config extends ConfigItem {
 
     @XmlElement private FeatureToggles features = new FeatureToggles();
 
+    @XmlElement(name = "enclave")
+    private EnclaveConfig enclaveConfig = new EnclaveConfig();
+
+    @XmlElement(name = "publish")
+    private PublishConfig publishConfig = new PublishConfig();
+
     @Deprecated
     public Config(
             final JdbcConfig jdbcConfig,
@@ -193,4 +199,20 @@ public class Config extends ConfigItem {
     public void setFeatures(final FeatureToggles features) {
         this.features = features;
     }
+
+    public EnclaveConfig getEnclaveConfig() {
+        return enclaveConfig;
+    }
+
+    public void setEnclaveConfig(final EnclaveConfig enclaveConfig) {
+        this.enclaveConfig = enclaveConfig;
+    }
+
+    public PublishConfig getPublishConfig() {
+        return publishConfig;
+    }
+
+    public void setPublishConfig(final PublishConfig publishConfig) {
+        this.publishConfig = publishConfig;
+    }
 }
@@ -1,9 +1,16 @@
 package com.quorum.tessera.config;
 
+import com.quorum.tessera.config.adapters.PathAdapter;
+
+import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 @XmlAccessorType(XmlAccessType.FIELD)
 public class JdbcConfig extends ConfigItem {
@@ -20,6 +27,55 @@ public class JdbcConfig extends ConfigItem {
     @XmlElement(defaultValue = "false")
     private boolean autoCreateTables;
 
+    /**
+     * Maximum number of transactions saved in one database commit, values greater than 1 enable group commit. Batched
+     * saves are committed outside the caller's database transaction and are kept even if it rolls back.
+     */
+    @XmlElement(defaultValue = "1")
+    private int writeBatchSize = 1;
+
+    /** Maximum time in milliseconds a save waits for others to join its batch before being committed */
+    @XmlElement(defaultValue = "5")
+    private long writeBatchLingerMillis = 5;
+
+    /** Approximate memory ceiling in bytes of the cache of recently received payloads, 0 disables the cache */
+    @XmlElement(defaultValue = "0")
+    private long payloadCacheMaxBytes;
+
+    /** Compress encoded payloads stored in the database, rows stored uncompressed remain readable either way */
+    @XmlElement(defaultValue = "false")
+    private boolean compressPayloads;
+
+    /** Number of stored transactions kept in the shared entity cache across requests, 0 disables the cache */
+    @XmlElement(defaultValue = "0")
+    private int entityCacheSize;
+
+    /** Number of prepared statements the JDBC driver caches per connection, 0 leaves the driver defaults */
+    @XmlElement(defaultValue = "0")
+    private int statementCacheSize;
+
+    /** JDBC urls of read replicas of the database at the url, which lookups are spread across when given */
+    @XmlElement(name = "readReplicas")
+    private List<String> readReplicas = new ArrayList<>();
+
+    /** Time in milliseconds between checks of the read replicas, a replica that fails is not used until it passes */
+    @XmlElement(defaultValue = "5000")
+    private long readReplicaCheckIntervalMillis = 5000;
+
+    /** Where transactions are stored, either the database at the url or an append-only log at the logStorePath */
+    @XmlElement(defaultValue = "JDBC")
+    private StorageType storageType = StorageType.JDBC;
+
+    /** Directory that holds the log segment files when the storage type is LOG */
+    @XmlElement(type = String.class)
+    @XmlJavaTypeAdapter(PathAdapter.class)
+    private Path logStorePath;
+
+    /** Expiry of raw transactions that were stored but never sent, they are kept forever if not set */
+    @Valid
+    @XmlElement
+    private RetentionConfig rawTransactionRetention;
+
     public JdbcConfig(String username, String password, String url) {
         this.username = username;
         this.password = password;
@@ -61,4 +117,92 @@ public class JdbcConfig extends ConfigItem {
     public void setAutoCreateTables(boolean autoCreateTables) {
         this.autoCreateTables = autoCreateTables;
     }
+
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public void setWriteBatchSize(int writeBatchSize) {
+        this.writeBatchSize = writeBatchSize;
+    }
+
+    public long getWriteBatchLingerMillis() {
+        return writeBatchLingerMillis;
+    }
+
+    public void setWriteBatchLingerMillis(long writeBatchLingerMillis) {
+        this.writeBatchLingerMillis = writeBatchLingerMillis;
+    }
+
+    public long getPayloadCacheMaxBytes() {
+        return payloadCacheMaxBytes;
+    }
+
+    public void setPayloadCacheMaxBytes(long payloadCacheMaxBytes) {
+        this.payloadCacheMaxBytes = payloadCacheMaxBytes;
+    }
+
+    public boolean isCompressPayloads() {
+        return compressPayloads;
+    }
+
+    public void setCompressPayloads(boolean compressPayloads) {
+        this.compressPayloads = compressPayloads;
+    }
+
+    public int getEntityCacheSize() {
+        return entityCacheSize;
+    }
+
+    public void setEntityCacheSize(int entityCacheSize) {
+        this.entityCacheSize = entityCacheSize;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public List<String> getReadReplicas() {
+        return readReplicas;
+    }
+
+    public void setReadReplicas(List<String> readReplicas) {
+        this.readReplicas = readReplicas;
+    }
+
+    public long getReadReplicaCheckIntervalMillis() {
+        return readReplicaCheckIntervalMillis;
+    }
+
+    public void setReadReplicaCheckIntervalMillis(long readReplicaCheckIntervalMillis) {
+        this.readReplicaCheckIntervalMillis = readReplicaCheckIntervalMillis;
+    }
+
+    public StorageType getStorageType() {
+        return storageType;
+    }
+
+    public void setStorageType(StorageType storageType) {
+        this.storageType = storageType;
+    }
+
+    public Path getLogStorePath() {
+        return logStorePath;
+    }
+
+    public void setLogStorePath(Path logStorePath) {
+        this.logStorePath = logStorePath;
+    }
+
+    public RetentionConfig getRawTransactionRetention() {
+        return rawTransactionRetention;
+    }
+
+    public void setRawTransactionRetention(RetentionConfig rawTransactionRetention) {
+        this.rawTransactionRetention = rawTransactionRetention;
+    }
 }
@@ -0,0 +1,34 @@
+package com.quorum.tessera.config;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+
+/** Tuning of how sent transactions are published to their recipients */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class PublishConfig extends ConfigItem {
+
+    /** Number of threads transactions are published with, 0 publishes to one recipient after another */
+    @XmlElement(defaultValue = "16")
+    private int threads = 16;
+
+    /** Whether a send waits for every recipient to be published to, or returns once stored locally */
+    @XmlElement(defaultValue = "true")
+    private boolean awaitDelivery = true;
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public boolean isAwaitDelivery() {
+        return awaitDelivery;
+    }
+
+    public void setAwaitDelivery(boolean awaitDelivery) {
+        this.awaitDelivery = awaitDelivery;
+    }
+}
@@ -0,0 +1,63 @@
+package com.quorum.tessera.config;
+
+import com.quorum.tessera.config.adapters.PathAdapter;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import java.nio.file.Path;
+
+/** How long stored transactions are kept, and what happens to them once they expire */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class RetentionConfig extends ConfigItem {
+
+    /** Age in milliseconds after which a transaction expires, 0 keeps transactions forever */
+    @XmlElement(defaultValue = "0")
+    private long maxAgeMillis;
+
+    /** Maximum number of expired transactions removed in one database commit */
+    @XmlElement(defaultValue = "100")
+    private int batchSize = 100;
+
+    /** Time in milliseconds between checks for expired transactions */
+    @XmlElement(defaultValue = "60000")
+    private long intervalMillis = 60000;
+
+    /** Directory expired transactions are written to before they are deleted, they are only deleted if not set */
+    @XmlElement(type = String.class)
+    @XmlJavaTypeAdapter(PathAdapter.class)
+    private Path archivePath;
+
+    public long getMaxAgeMillis() {
+        return maxAgeMillis;
+    }
+
+    public void setMaxAgeMillis(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public void setIntervalMillis(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    public Path getArchivePath() {
+        return archivePath;
+    }
+
+    public void setArchivePath(Path archivePath) {
+        this.archivePath = archivePath;
+    }
+}
@@ -0,0 +1 @@
+CREATE INDEX ENCRYPTED_RAW_TRANSACTION_TIMESTAMP ON ENCRYPTED_RAW_TRANSACTION (TIMESTAMP);
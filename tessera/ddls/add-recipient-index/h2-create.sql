@@ -0,0 +1,2 @@
+CREATE TABLE TRANSACTION_RECIPIENT (HASH BLOB NOT NULL, PUBLIC_KEY BLOB NOT NULL, PRIMARY KEY (HASH, PUBLIC_KEY));
+CREATE INDEX TRANSACTION_RECIPIENT_KEY ON TRANSACTION_RECIPIENT (PUBLIC_KEY);
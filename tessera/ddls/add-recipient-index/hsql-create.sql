@@ -0,0 +1,2 @@
+CREATE TABLE TRANSACTION_RECIPIENT (HASH LONGVARBINARY NOT NULL, PUBLIC_KEY LONGVARBINARY NOT NULL, PRIMARY KEY (HASH, PUBLIC_KEY));
+CREATE INDEX TRANSACTION_RECIPIENT_KEY ON TRANSACTION_RECIPIENT (PUBLIC_KEY);
@@ -0,0 +1,2 @@
+CREATE TABLE TRANSACTION_RECIPIENT (HASH RAW(100) NOT NULL, PUBLIC_KEY RAW(100) NOT NULL, PRIMARY KEY (HASH, PUBLIC_KEY));
+CREATE INDEX TRANSACTION_RECIPIENT_KEY ON TRANSACTION_RECIPIENT (PUBLIC_KEY);
@@ -0,0 +1,2 @@
+CREATE TABLE TRANSACTION_RECIPIENT (HASH BYTEA NOT NULL, PUBLIC_KEY BYTEA NOT NULL, PRIMARY KEY (HASH, PUBLIC_KEY));
+CREATE INDEX TRANSACTION_RECIPIENT_KEY ON TRANSACTION_RECIPIENT (PUBLIC_KEY);
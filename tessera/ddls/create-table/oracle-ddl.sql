@@ -1,2 +1,5 @@
 CREATE TABLE ENCRYPTED_TRANSACTION (ENCODED_PAYLOAD BLOB NOT NULL, HASH RAW(100) NOT NULL, TIMESTAMP NUMBER(19), PRIMARY KEY (HASH));
-CREATE TABLE ENCRYPTED_RAW_TRANSACTION (ENCRYPTED_KEY BLOB NOT NULL, ENCRYPTED_PAYLOAD BLOB NOT NULL, NONCE BLOB NOT NULL, SENDER BLOB NOT NULL, TIMESTAMP NUMBER(19), HASH RAW(100) NOT NULL, PRIMARY KEY (HASH));
\ No newline at end of file
+CREATE TABLE ENCRYPTED_RAW_TRANSACTION (ENCRYPTED_KEY BLOB NOT NULL, ENCRYPTED_PAYLOAD BLOB NOT NULL, NONCE BLOB NOT NULL, SENDER BLOB NOT NULL, TIMESTAMP NUMBER(19), HASH RAW(100) NOT NULL, PRIMARY KEY (HASH));
+CREATE TABLE TRANSACTION_RECIPIENT (HASH RAW(100) NOT NULL, PUBLIC_KEY RAW(100) NOT NULL, PRIMARY KEY (HASH, PUBLIC_KEY));
+CREATE INDEX TRANSACTION_RECIPIENT_KEY ON TRANSACTION_RECIPIENT (PUBLIC_KEY);
+CREATE INDEX ENCRYPTED_RAW_TRANSACTION_TIMESTAMP ON ENCRYPTED_RAW_TRANSACTION (TIMESTAMP);
@@ -0,0 +1,199 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.service.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * An {@link EnclaveClient} that remembers the keys of a remote enclave, so that looking up the default, forwarding and
+ * public keys does not cost a round trip to the enclave every time.
+ *
+ * <p>The keys are fetched together the first time any of them is needed and kept until {@link #refresh()} fetches
+ * them again. The remote transports carry no version of the keys, so this client relies on being refreshed
+ * periodically instead, and drops the keys as soon as the enclave is found to be stopped, since it may come back with
+ * different keys. The transports also report errors raised by the enclave itself, such as a payload that cannot be
+ * decrypted, as the enclave being unavailable, so after such a failure the status of the enclave is checked and the
+ * keys are only dropped if it is stopped. Every other call is passed on to the remote enclave.
+ */
+public class CachingEnclaveClient implements EnclaveClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingEnclaveClient.class);
+
+    private final EnclaveClient delegate;
+
+    private volatile EnclaveKeys keys;
+
+    public CachingEnclaveClient(final EnclaveClient delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    @Override
+    public PublicKey defaultPublicKey() {
+        return keys().defaultPublicKey;
+    }
+
+    @Override
+    public Set<PublicKey> getForwardingKeys() {
+        return keys().forwardingKeys;
+    }
+
+    @Override
+    public Set<PublicKey> getPublicKeys() {
+        return keys().publicKeys;
+    }
+
+    /**
+     * Fetches the keys from the remote enclave again. The keys fetched previously are kept if the enclave cannot
+     * provide new ones, unless it is unavailable.
+     */
+    public void refresh() {
+        final EnclaveKeys fetched = fetch();
+        final EnclaveKeys previous = this.keys;
+
+        if (fetched.equals(previous)) {
+            return;
+        }
+
+        if (previous != null) {
+            LOGGER.info("Keys of the remote enclave have changed");
+        }
+        this.keys = fetched;
+    }
+
+    /** Drops the remembered keys, so they are fetched again the next time they are needed. */
+    public void invalidate() {
+        this.keys = null;
+    }
+
+    @Override
+    public EncodedPayload encryptPayload(
+            final byte[] message, final PublicKey senderPublicKey, final List<PublicKey> recipientPublicKeys) {
+        return call(() -> delegate.encryptPayload(message, senderPublicKey, recipientPublicKeys));
+    }
+
+    @Override
+    public EncodedPayload encryptPayload(
+            final RawTransaction rawTransaction, final List<PublicKey> recipientPublicKeys) {
+        return call(() -> delegate.encryptPayload(rawTransaction, recipientPublicKeys));
+    }
+
+    @Override
+    public RawTransaction encryptRawPayload(final byte[] message, final PublicKey sender) {
+        return call(() -> delegate.encryptRawPayload(message, sender));
+    }
+
+    @Override
+    public byte[] unencryptTransaction(final EncodedPayload payload, final PublicKey providedKey) {
+        return call(() -> delegate.unencryptTransaction(payload, providedKey));
+    }
+
+    @Override
+    public byte[] createNewRecipientBox(final EncodedPayload payload, final PublicKey recipientKey) {
+        return call(() -> delegate.createNewRecipientBox(payload, recipientKey));
+    }
+
+    @Override
+    public List<EncodedPayload> encryptPayloads(
+            final List<byte[]> messages, final PublicKey senderPublicKey, final List<PublicKey> recipientPublicKeys) {
+        return call(() -> delegate.encryptPayloads(messages, senderPublicKey, recipientPublicKeys));
+    }
+
+    @Override
+    public List<byte[]> unencryptTransactions(
+            final List<EncodedPayload> payloads, final List<PublicKey> providedKeys) {
+        return call(() -> delegate.unencryptTransactions(payloads, providedKeys));
+    }
+
+    @Override
+    public Service.Status status() {
+        final Service.Status status = delegate.status();
+        if (status == Service.Status.STOPPED) {
+            invalidate();
+        }
+        return status;
+    }
+
+    @Override
+    public void start() {
+        delegate.start();
+    }
+
+    @Override
+    public void stop() {
+        invalidate();
+        delegate.stop();
+    }
+
+    private EnclaveKeys keys() {
+        final EnclaveKeys current = this.keys;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (this.keys == null) {
+                this.keys = fetch();
+            }
+            return this.keys;
+        }
+    }
+
+    private EnclaveKeys fetch() {
+        return call(
+                () ->
+                        new EnclaveKeys(
+                                delegate.defaultPublicKey(), delegate.getForwardingKeys(), delegate.getPublicKeys()));
+    }
+
+    private <T> T call(final Supplier<T> operation) {
+        try {
+            return operation.get();
+        } catch (final EnclaveNotAvailableException ex) {
+            // drops the keys if the enclave cannot be reached
+            status();
+            throw ex;
+        }
+    }
+
+    private static final class EnclaveKeys {
+
+        private final PublicKey defaultPublicKey;
+
+        private final Set<PublicKey> forwardingKeys;
+
+        private final Set<PublicKey> publicKeys;
+
+        private EnclaveKeys(
+                final PublicKey defaultPublicKey,
+                final Set<PublicKey> forwardingKeys,
+                final Set<PublicKey> publicKeys) {
+            this.defaultPublicKey = defaultPublicKey;
+            this.forwardingKeys = Collections.unmodifiableSet(new HashSet<>(forwardingKeys));
+            this.publicKeys = Collections.unmodifiableSet(new HashSet<>(publicKeys));
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof EnclaveKeys)) {
+                return false;
+            }
+            final EnclaveKeys other = (EnclaveKeys) obj;
+            return Objects.equals(defaultPublicKey, other.defaultPublicKey)
+                    && forwardingKeys.equals(other.forwardingKeys)
+                    && publicKeys.equals(other.publicKeys);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(defaultPublicKey, forwardingKeys, publicKeys);
+        }
+    }
+}
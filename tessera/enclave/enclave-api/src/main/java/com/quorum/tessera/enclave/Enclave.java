@@ -3,6 +3,7 @@ package com.quorum.tessera.enclave;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.service.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -90,6 +91,54 @@ public interface Enclave extends Service {
      */
     byte[] createNewRecipientBox(EncodedPayload payload, PublicKey recipientKey);
 
+    /**
+     * Encrypts each of the messages for the same sender and recipients, as
+     * {@link #encryptPayload(byte[], PublicKey, List)} would. Each message is
+     * given its own master key and nonces.
+     *
+     * @param messages            the messages to be encrypted
+     * @param senderPublicKey     the public key which this enclave manages
+     * @param recipientPublicKeys the recipients to encrypt the messages for
+     * @return the encrypted messages, in the order they were given
+     */
+    default List<EncodedPayload> encryptPayloads(List<byte[]> messages,
+                                                 PublicKey senderPublicKey,
+                                                 List<PublicKey> recipientPublicKeys) {
+        final List<EncodedPayload> payloads = new ArrayList<>(messages.size());
+        for (final byte[] message : messages) {
+            payloads.add(encryptPayload(message, senderPublicKey, recipientPublicKeys));
+        }
+        return payloads;
+    }
+
+    /**
+     * Decrypts each of the payloads with the key at the same position, as
+     * {@link #unencryptTransaction(EncodedPayload, PublicKey)} would. Fails as
+     * a whole if any one of the payloads cannot be decrypted.
+     *
+     * @param payloads     the encrypted payloads
+     * @param providedKeys the keys to use for decryption, one per payload, which may be null for payloads sent by
+     *                     this Enclave
+     * @return the original, decrypted messages, in the order of the payloads
+     */
+    default List<byte[]> unencryptTransactions(List<EncodedPayload> payloads, List<PublicKey> providedKeys) {
+        requireSameSize(payloads, providedKeys);
+
+        final List<byte[]> messages = new ArrayList<>(payloads.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            messages.add(unencryptTransaction(payloads.get(i), providedKeys.get(i)));
+        }
+        return messages;
+    }
+
+    static void requireSameSize(List<EncodedPayload> payloads, List<PublicKey> keys) {
+        if (payloads.size() != keys.size()) {
+            throw new IllegalArgumentException(
+                "Expected one key per payload but got " + keys.size() + " keys for " + payloads.size() + " payloads"
+            );
+        }
+    }
+
     @Override
     default void start() {
     }
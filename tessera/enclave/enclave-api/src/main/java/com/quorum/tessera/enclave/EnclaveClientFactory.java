@@ -1,6 +1,7 @@
 package com.quorum.tessera.enclave;
 
 import com.quorum.tessera.ServiceLoaderUtil;
+import com.quorum.tessera.config.CommunicationType;
 import com.quorum.tessera.config.Config;
 
 /**
@@ -12,8 +13,20 @@ public interface EnclaveClientFactory<T extends EnclaveClient> {
 
     T create(Config config);
 
+    /**
+     * @return the transport the created clients use to reach the enclave
+     */
+    CommunicationType communicationType();
+
     static EnclaveClientFactory create() {
         // TODO: return the stream and let the caller deal with it
         return ServiceLoaderUtil.loadAll(EnclaveClientFactory.class).findAny().get();
     }
+
+    static EnclaveClientFactory create(CommunicationType communicationType) {
+        return ServiceLoaderUtil.loadAll(EnclaveClientFactory.class)
+                .filter(f -> f.communicationType() == communicationType)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No enclave client found for " + communicationType));
+    }
 }
@@ -3,6 +3,7 @@ package com.quorum.tessera.enclave;
 import com.quorum.tessera.ServiceLoaderUtil;
 import com.quorum.tessera.config.AppType;
 import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.EnclaveConfig;
 import com.quorum.tessera.config.ServerConfig;
 import com.quorum.tessera.config.util.EnvironmentVariableProvider;
 import com.quorum.tessera.encryption.KeyManagerImpl;
@@ -30,15 +31,26 @@ public interface EnclaveFactory {
 
         final Collection<PublicKey> forwardKeys = keyPairConverter.convert(config.getAlwaysSendTo());
 
-        return new EnclaveImpl(NaclFacadeFactory.newFactory().create(), new KeyManagerImpl(keys, forwardKeys));
+        final EnclaveConfig enclaveConfig
+            = Optional.ofNullable(config.getEnclaveConfig()).orElseGet(EnclaveConfig::new);
+
+        return new EnclaveImpl(
+            NaclFacadeFactory.newFactory().create(),
+            new KeyManagerImpl(keys, forwardKeys),
+            SharedKeyCache.DEFAULT_MAX_SIZE,
+            enclaveConfig.getParallelSealThreshold(),
+            enclaveConfig.getParallelSealThreads()
+        );
     }
 
     /**
      * Determines from the provided configuration whether to construct a client
      * to a remote service, or to create a local instance.
      * <p>
-     * If a remote instance is requested, it is constructed from a
-     * {@link EnclaveClientFactory}.
+     * If a remote instance is requested, it is constructed from the
+     * {@link EnclaveClientFactory} for the communication type of the enclave
+     * server configuration and wrapped in a {@link CachingEnclaveClient}
+     * so that its keys are not fetched on every use.
      *
      * @param config the global configuration to use to create a remote enclave connection
      * @return the {@link Enclave}, which may be either local or remote
@@ -51,7 +63,9 @@ public interface EnclaveFactory {
             .findAny();
 
         if (enclaveServerConfig.isPresent()) {
-            return EnclaveClientFactory.create().create(config);
+            final EnclaveClientFactory clientFactory
+                = EnclaveClientFactory.create(enclaveServerConfig.get().getCommunicationType());
+            return new CachingEnclaveClient(clientFactory.create(config));
         }
 
         return createServer(config);
@@ -4,10 +4,13 @@ import com.quorum.tessera.encryption.*;
 import com.quorum.tessera.nacl.NaclFacade;
 import com.quorum.tessera.nacl.Nonce;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static java.util.Collections.singletonList;
 
@@ -17,9 +20,39 @@ public class EnclaveImpl implements Enclave {
 
     private final KeyManager keyManager;
 
+    private final SharedKeyCache sharedKeys;
+
+    private final RecipientBoxSealer sealer;
+
     public EnclaveImpl(NaclFacade nacl, KeyManager keyManager) {
+        this(nacl, keyManager, 0);
+    }
+
+    /**
+     * @param sharedKeyCacheSize the number of keys shared with other parties that are kept rather than computed
+     *                           for every transaction, 0 computes them every time
+     */
+    public EnclaveImpl(NaclFacade nacl, KeyManager keyManager, int sharedKeyCacheSize) {
+        this(nacl, keyManager, sharedKeyCacheSize, 0, 0);
+    }
+
+    /**
+     * @param sharedKeyCacheSize the number of keys shared with other parties that are kept rather than computed
+     *                           for every transaction, 0 computes them every time
+     * @param parallelSealThreshold the number of recipients from which their boxes are sealed in parallel,
+     *                              0 always seals them one by one
+     * @param parallelSealThreads the number of threads to seal boxes with, 0 uses one per available processor. With
+     *                            a single thread boxes are sealed one by one
+     */
+    public EnclaveImpl(NaclFacade nacl,
+                       KeyManager keyManager,
+                       int sharedKeyCacheSize,
+                       int parallelSealThreshold,
+                       int parallelSealThreads) {
         this.nacl = Objects.requireNonNull(nacl);
         this.keyManager = Objects.requireNonNull(keyManager);
+        this.sharedKeys = new SharedKeyCache(nacl, sharedKeyCacheSize);
+        this.sealer = new RecipientBoxSealer(parallelSealThreshold, parallelSealThreads);
     }
 
     @Override
@@ -39,6 +72,41 @@ public class EnclaveImpl implements Enclave {
         );
     }
 
+    /*
+    The keys shared with the recipients are the same for every message, so they are computed once for the whole batch
+    rather than once per message.
+    */
+    @Override
+    public List<EncodedPayload> encryptPayloads(final List<byte[]> messages,
+                                                final PublicKey senderPublicKey,
+                                                final List<PublicKey> recipientPublicKeys) {
+        final PrivateKey privateKey = keyManager.getPrivateKeyForPublicKey(senderPublicKey);
+
+        final List<SharedKey> recipientSharedKeys = sealer.seal(
+            recipientPublicKeys, publicKey -> sharedKeys.get(senderPublicKey, privateKey, publicKey)
+        );
+
+        final List<EncodedPayload> payloads = new ArrayList<>(messages.size());
+        for (final byte[] message : messages) {
+            final MasterKey masterKey = nacl.createMasterKey();
+            final Nonce nonce = nacl.randomNonce();
+            final Nonce recipientNonce = nacl.randomNonce();
+
+            final byte[] cipherText = nacl.sealAfterPrecomputation(message, nonce, masterKey);
+
+            final List<byte[]> encryptedMasterKeys = sealer.seal(
+                recipientSharedKeys,
+                sharedKey -> nacl.sealAfterPrecomputation(masterKey.getKeyBytes(), recipientNonce, sharedKey)
+            );
+
+            payloads.add(new EncodedPayload(
+                senderPublicKey, cipherText, nonce, encryptedMasterKeys, recipientNonce,
+                new ArrayList<>(recipientPublicKeys)
+            ));
+        }
+        return payloads;
+    }
+
     @Override
     public byte[] createNewRecipientBox(final EncodedPayload payload, final PublicKey publicKey) {
 
@@ -82,11 +150,10 @@ public class EnclaveImpl implements Enclave {
                                                   final MasterKey masterKey){
         final PrivateKey privateKey = keyManager.getPrivateKeyForPublicKey(senderPublicKey);
 
-        return recipientPublicKeys
-            .stream()
-            .map(publicKey -> nacl.computeSharedKey(publicKey, privateKey))
-            .map(sharedKey -> nacl.sealAfterPrecomputation(masterKey.getKeyBytes(), recipientNonce, sharedKey))
-            .collect(Collectors.toList());
+        return sealer.seal(recipientPublicKeys, publicKey -> {
+            final SharedKey sharedKey = sharedKeys.get(senderPublicKey, privateKey, publicKey);
+            return nacl.sealAfterPrecomputation(masterKey.getKeyBytes(), recipientNonce, sharedKey);
+        });
     }
 
     @Override
@@ -99,7 +166,7 @@ public class EnclaveImpl implements Enclave {
         final PrivateKey privateKey = keyManager.getPrivateKeyForPublicKey(sender);
 
         // TODO NL - check if it makes sense to compute a shared key from the public and private parts of the same key
-        SharedKey sharedKey = nacl.computeSharedKey(sender, privateKey);
+        SharedKey sharedKey = sharedKeys.get(sender, privateKey, sender);
         final byte[] encryptedMasterKey = nacl.sealAfterPrecomputation(masterKey.getKeyBytes(), nonce, sharedKey);
 
         return new RawTransaction(cipherText, encryptedMasterKey, nonce, sender);
@@ -124,7 +191,7 @@ public class EnclaveImpl implements Enclave {
 
         final PrivateKey senderPrivKey = keyManager.getPrivateKeyForPublicKey(senderPubKey);
 
-        final SharedKey sharedKey = nacl.computeSharedKey(recipientPubKey, senderPrivKey);
+        final SharedKey sharedKey = sharedKeys.get(senderPubKey, senderPrivKey, recipientPubKey);
 
         final byte[] recipientBox = payload.getRecipientBoxes().iterator().next();
 
@@ -141,9 +208,39 @@ public class EnclaveImpl implements Enclave {
 
     }
 
+    @Override
+    public List<byte[]> unencryptTransactions(final List<EncodedPayload> payloads,
+                                              final List<PublicKey> providedKeys) {
+        Enclave.requireSameSize(payloads, providedKeys);
+
+        final Set<PublicKey> localKeys = this.getPublicKeys();
+        final BatchKeys keys = new BatchKeys();
+
+        final List<byte[]> messages = new ArrayList<>(payloads.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            final EncodedPayload payload = payloads.get(i);
+
+            final SharedKey sharedKey;
+            if (!localKeys.contains(payload.getSenderKey())) {
+                sharedKey = keys.sharedKey(providedKeys.get(i), payload.getSenderKey());
+            } else {
+                sharedKey = keys.sharedKey(payload.getSenderKey(), payload.getRecipientKeys().get(0));
+            }
+
+            final byte[] recipientBox = payload.getRecipientBoxes().iterator().next();
+            final byte[] masterKeyBytes
+                = nacl.openAfterPrecomputation(recipientBox, payload.getRecipientNonce(), sharedKey);
+
+            messages.add(nacl.openAfterPrecomputation(
+                payload.getCipherText(), payload.getCipherTextNonce(), MasterKey.from(masterKeyBytes)
+            ));
+        }
+        return messages;
+    }
+
     private MasterKey getMasterKey(PublicKey recipient, PublicKey sender, Nonce nonce, byte[] encryptedKey) {
 
-        final SharedKey sharedKey = nacl.computeSharedKey(recipient, keyManager.getPrivateKeyForPublicKey(sender));
+        final SharedKey sharedKey = sharedKeys.get(sender, keyManager.getPrivateKeyForPublicKey(sender), recipient);
 
         final byte[] masterKeyBytes = nacl.openAfterPrecomputation(encryptedKey, nonce, sharedKey);
 
@@ -165,8 +262,39 @@ public class EnclaveImpl implements Enclave {
         return keyManager.getPublicKeys();
     }
 
+    @Override
+    public void stop() {
+        sealer.shutdown();
+        sharedKeys.clear();
+    }
+
     @Override
     public Status status() {
         return Status.STARTED;
     }
+
+    /*
+    The keys used by one batch, so that each private key is fetched and each shared key computed once per batch
+    even when the shared keys are not cached across transactions.
+    */
+    private final class BatchKeys {
+
+        private final Map<PublicKey, PrivateKey> privateKeys = new HashMap<>();
+
+        private final Map<List<PublicKey>, SharedKey> batchSharedKeys = new HashMap<>();
+
+        private SharedKey sharedKey(final PublicKey localKey, final PublicKey remoteKey) {
+            final List<PublicKey> parties = Arrays.asList(localKey, remoteKey);
+
+            final SharedKey existing = batchSharedKeys.get(parties);
+            if (existing != null) {
+                return existing;
+            }
+
+            final PrivateKey privateKey = privateKeys.computeIfAbsent(localKey, keyManager::getPrivateKeyForPublicKey);
+            final SharedKey computed = sharedKeys.get(localKey, privateKey, remoteKey);
+            batchSharedKeys.put(parties, computed);
+            return computed;
+        }
+    }
 }
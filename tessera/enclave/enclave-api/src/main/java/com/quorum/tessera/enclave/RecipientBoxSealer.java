@@ -0,0 +1,52 @@
+package com.quorum.tessera.enclave;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Seals the boxes of a transaction's recipients, spreading them across a dedicated {@link ForkJoinPool} once there
+ * are at least a threshold number of them. The boxes are always returned in the order of the recipients.
+ *
+ * <p>A threshold of 0 disables the pool, and every box is sealed on the calling thread. So does a single thread, as a
+ * pool of one only adds the cost of handing the boxes over to it.
+ */
+class RecipientBoxSealer {
+
+    private final int threshold;
+
+    private final ForkJoinPool pool;
+
+    RecipientBoxSealer(final int threshold, final int threads) {
+        this.threshold = threshold;
+        final int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        if (threshold > 0 && parallelism > 1) {
+            this.pool = new ForkJoinPool(parallelism, RecipientBoxSealer::newThread, null, false);
+        } else {
+            this.pool = null;
+        }
+    }
+
+    <T, R> List<R> seal(final List<T> recipients, final Function<T, R> sealer) {
+        if (pool == null || recipients.size() < threshold || pool.isShutdown()) {
+            return recipients.stream().map(sealer).collect(Collectors.toList());
+        }
+
+        // a parallel stream started from inside a pool runs its tasks in that pool
+        return pool.submit(() -> recipients.parallelStream().map(sealer).collect(Collectors.toList())).join();
+    }
+
+    void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("enclave-sealer-" + thread.getPoolIndex());
+        return thread;
+    }
+}
@@ -0,0 +1,130 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PrivateKey;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.encryption.SharedKey;
+import com.quorum.tessera.nacl.NaclFacade;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded cache of the keys shared between one of this node's keys and the key of another party, so that
+ * transactions between the same parties do not each pay for a Curve25519 scalar multiplication.
+ *
+ * <p>Each entry remembers the private key it was computed with and is computed again if the key manager returns a
+ * different private key for the same public key. Callers are given copies of the cached keys, which lets the cache
+ * zero the bytes of a key as soon as it is evicted or replaced. A maximum size of 0 disables the cache.
+ */
+class SharedKeyCache {
+
+    static final int DEFAULT_MAX_SIZE = 256;
+
+    private final NaclFacade nacl;
+
+    private final int maxSize;
+
+    private final Map<Parties, CachedKey> entries;
+
+    SharedKeyCache(final NaclFacade nacl, final int maxSize) {
+        this.nacl = Objects.requireNonNull(nacl);
+        this.maxSize = maxSize;
+        this.entries =
+                new LinkedHashMap<Parties, CachedKey>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(final Map.Entry<Parties, CachedKey> eldest) {
+                        if (size() <= maxSize) {
+                            return false;
+                        }
+                        eldest.getValue().wipe();
+                        return true;
+                    }
+                };
+    }
+
+    /**
+     * @param localKey one of this node's public keys
+     * @param privateKey the private key of the local key
+     * @param remoteKey the public key of the other party
+     * @return the key shared between the two parties, which the caller is free to keep or wipe
+     */
+    SharedKey get(final PublicKey localKey, final PrivateKey privateKey, final PublicKey remoteKey) {
+        if (maxSize <= 0) {
+            return nacl.computeSharedKey(remoteKey, privateKey);
+        }
+
+        final Parties parties = new Parties(localKey, remoteKey);
+        synchronized (this) {
+            final CachedKey cached = entries.get(parties);
+            if (cached != null && cached.privateKey.equals(privateKey)) {
+                return cached.copy();
+            }
+        }
+
+        final CachedKey computed = new CachedKey(privateKey, nacl.computeSharedKey(remoteKey, privateKey));
+        synchronized (this) {
+            final CachedKey previous = entries.put(parties, computed);
+            if (previous != null) {
+                previous.wipe();
+            }
+            return computed.copy();
+        }
+    }
+
+    /** Wipes and removes every cached key */
+    synchronized void clear() {
+        entries.values().forEach(CachedKey::wipe);
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Parties {
+
+        private final PublicKey localKey;
+
+        private final PublicKey remoteKey;
+
+        private Parties(final PublicKey localKey, final PublicKey remoteKey) {
+            this.localKey = Objects.requireNonNull(localKey);
+            this.remoteKey = Objects.requireNonNull(remoteKey);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return (obj instanceof Parties)
+                    && localKey.equals(((Parties) obj).localKey)
+                    && remoteKey.equals(((Parties) obj).remoteKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * localKey.hashCode() + remoteKey.hashCode();
+        }
+    }
+
+    private static final class CachedKey {
+
+        private final PrivateKey privateKey;
+
+        private final SharedKey sharedKey;
+
+        private CachedKey(final PrivateKey privateKey, final SharedKey sharedKey) {
+            this.privateKey = privateKey;
+            this.sharedKey = sharedKey;
+        }
+
+        private SharedKey copy() {
+            final byte[] keyBytes = sharedKey.getKeyBytes();
+            return SharedKey.from(Arrays.copyOf(keyBytes, keyBytes.length));
+        }
+
+        private void wipe() {
+            Arrays.fill(sharedKey.getKeyBytes(), (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.service.Service;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+public class CachingEnclaveClientTest {
+
+    private static final PublicKey DEFAULT_KEY = PublicKey.from("default".getBytes());
+
+    private static final PublicKey FORWARDING_KEY = PublicKey.from("forwarding".getBytes());
+
+    private EnclaveClient delegate;
+
+    private CachingEnclaveClient client;
+
+    @Before
+    public void onSetUp() {
+        this.delegate = mock(EnclaveClient.class);
+        when(delegate.defaultPublicKey()).thenReturn(DEFAULT_KEY);
+        when(delegate.getForwardingKeys()).thenReturn(singleton(FORWARDING_KEY));
+        when(delegate.getPublicKeys()).thenReturn(singleton(DEFAULT_KEY));
+
+        this.client = new CachingEnclaveClient(delegate);
+    }
+
+    @After
+    public void onTearDown() {
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    public void keysAreFetchedOnceTogether() {
+        assertThat(client.defaultPublicKey()).isEqualTo(DEFAULT_KEY);
+        assertThat(client.getForwardingKeys()).containsExactly(FORWARDING_KEY);
+        assertThat(client.getPublicKeys()).containsExactly(DEFAULT_KEY);
+        assertThat(client.getPublicKeys()).containsExactly(DEFAULT_KEY);
+
+        verifyKeysFetched(1);
+    }
+
+    @Test
+    public void refreshReplacesChangedKeys() {
+        final PublicKey newKey = PublicKey.from("new".getBytes());
+        assertThat(client.getPublicKeys()).containsExactly(DEFAULT_KEY);
+
+        when(delegate.getPublicKeys()).thenReturn(singleton(newKey));
+        client.refresh();
+
+        assertThat(client.getPublicKeys()).containsExactly(newKey);
+
+        verifyKeysFetched(2);
+    }
+
+    @Test
+    public void failedRefreshKeepsPreviousKeys() {
+        assertThat(client.getPublicKeys()).containsExactly(DEFAULT_KEY);
+
+        when(delegate.getPublicKeys()).thenThrow(new EnclaveException("failed"));
+        final Throwable throwable = catchThrowable(client::refresh);
+
+        assertThat(throwable).isInstanceOf(EnclaveException.class);
+        assertThat(client.getPublicKeys()).containsExactly(DEFAULT_KEY);
+
+        verifyKeysFetched(2);
+    }
+
+    @Test
+    public void unavailableEnclaveDropsKeys() {
+        final EncodedPayload payload = mock(EncodedPayload.class);
+        when(delegate.unencryptTransaction(payload, DEFAULT_KEY)).thenThrow(new EnclaveNotAvailableException());
+        when(delegate.status()).thenReturn(Service.Status.STOPPED);
+
+        assertThat(client.getPublicKeys()).containsExactly(DEFAULT_KEY);
+
+        final Throwable throwable = catchThrowable(() -> client.unencryptTransaction(payload, DEFAULT_KEY));
+        assertThat(throwable).isInstanceOf(EnclaveNotAvailableException.class);
+
+        assertThat(client.getPublicKeys()).containsExactly(DEFAULT_KEY);
+
+        verify(delegate).unencryptTransaction(payload, DEFAULT_KEY);
+        verify(delegate).status();
+        verifyKeysFetched(2);
+    }
+
+    @Test
+    public void failureReportedByRunningEnclaveKeepsKeys() {
+        final EncodedPayload payload = mock(EncodedPayload.class);
+        final String message = "Remote enclave instance threw an error 500  Internal Server Error";
+        when(delegate.unencryptTransaction(payload, DEFAULT_KEY)).thenThrow(new EnclaveNotAvailableException(message));
+        when(delegate.status()).thenReturn(Service.Status.STARTED);
+
+        assertThat(client.getPublicKeys()).containsExactly(DEFAULT_KEY);
+
+        final Throwable throwable = catchThrowable(() -> client.unencryptTransaction(payload, DEFAULT_KEY));
+        assertThat(throwable).isInstanceOf(EnclaveNotAvailableException.class);
+
+        assertThat(client.getPublicKeys()).containsExactly(DEFAULT_KEY);
+
+        verify(delegate).unencryptTransaction(payload, DEFAULT_KEY);
+        verify(delegate).status();
+        verifyKeysFetched(1);
+    }
+
+    @Test
+    public void stoppedStatusDropsKeys() {
+        when(delegate.status()).thenReturn(Service.Status.STOPPED);
+
+        assertThat(client.getPublicKeys()).containsExactly(DEFAULT_KEY);
+        assertThat(client.status()).isEqualTo(Service.Status.STOPPED);
+        assertThat(client.getPublicKeys()).containsExactly(DEFAULT_KEY);
+
+        verify(delegate).status();
+        verifyKeysFetched(2);
+    }
+
+    @Test
+    public void otherCallsAreDelegated() {
+        final byte[] message = "message".getBytes();
+        final List<PublicKey> recipients = singletonList(FORWARDING_KEY);
+        final EncodedPayload payload = mock(EncodedPayload.class);
+        final RawTransaction rawTransaction = mock(RawTransaction.class);
+        final List<EncodedPayload> payloads = singletonList(payload);
+
+        client.encryptPayload(message, DEFAULT_KEY, recipients);
+        client.encryptPayload(rawTransaction, recipients);
+        client.encryptRawPayload(message, DEFAULT_KEY);
+        client.unencryptTransaction(payload, DEFAULT_KEY);
+        client.createNewRecipientBox(payload, FORWARDING_KEY);
+        client.encryptPayloads(singletonList(message), DEFAULT_KEY, recipients);
+        client.unencryptTransactions(payloads, Collections.singletonList(DEFAULT_KEY));
+        client.start();
+        client.stop();
+
+        verify(delegate).encryptPayload(message, DEFAULT_KEY, recipients);
+        verify(delegate).encryptPayload(rawTransaction, recipients);
+        verify(delegate).encryptRawPayload(message, DEFAULT_KEY);
+        verify(delegate).unencryptTransaction(payload, DEFAULT_KEY);
+        verify(delegate).createNewRecipientBox(payload, FORWARDING_KEY);
+        verify(delegate).encryptPayloads(singletonList(message), DEFAULT_KEY, recipients);
+        verify(delegate).unencryptTransactions(payloads, singletonList(DEFAULT_KEY));
+        verify(delegate).start();
+        verify(delegate).stop();
+    }
+
+    private void verifyKeysFetched(final int times) {
+        verify(delegate, times(times)).defaultPublicKey();
+        verify(delegate, times(times)).getForwardingKeys();
+        verify(delegate, times(times)).getPublicKeys();
+    }
+}
@@ -40,7 +40,22 @@ public class EnclaveFactoryTest {
 
         Enclave result = enclaveFactory.create(config);
 
-        assertThat(result).isInstanceOf(EnclaveClient.class);
+        assertThat(result).isInstanceOf(CachingEnclaveClient.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void createRemoteWithNoClientForCommunicationType() {
+        final Config config = new Config();
+
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setEnabled(true);
+        serverConfig.setApp(AppType.ENCLAVE);
+        serverConfig.setCommunicationType(CommunicationType.GRPC);
+        serverConfig.setServerAddress("http://bogus:9898");
+
+        config.setServerConfigs(singletonList(serverConfig));
+
+        enclaveFactory.create(config);
     }
 
     @Test
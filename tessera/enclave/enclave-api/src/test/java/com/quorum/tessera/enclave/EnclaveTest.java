@@ -8,8 +8,10 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
@@ -358,4 +360,177 @@ public class EnclaveTest {
         verify(keyManager, times(2)).getPrivateKeyForPublicKey(senderKey);
     }
 
+    @Test
+    public void sharedKeysAreOnlyComputedOnceWhenCached() {
+        final Enclave cachingEnclave = new EnclaveImpl(nacl, keyManager, 10);
+
+        final PublicKey publicKey = PublicKey.from("recipient".getBytes());
+        final PublicKey senderKey = PublicKey.from("sender".getBytes());
+        final PrivateKey privateKey = PrivateKey.from("sender-priv".getBytes());
+        final SharedKey recipientSenderShared = SharedKey.from("shared-one".getBytes());
+        final SharedKey senderShared = SharedKey.from("shared-two".getBytes());
+        final byte[] closedbox = "closed".getBytes();
+        final byte[] openbox = "open".getBytes();
+        final Nonce nonce = new Nonce("nonce".getBytes());
+
+        final EncodedPayload payload
+            = new EncodedPayload(senderKey, null, null, singletonList(closedbox), nonce, singletonList(publicKey));
+
+        when(nacl.computeSharedKey(publicKey, privateKey)).thenReturn(recipientSenderShared);
+        when(nacl.computeSharedKey(senderKey, privateKey)).thenReturn(senderShared);
+        when(nacl.openAfterPrecomputation(closedbox, nonce, recipientSenderShared)).thenReturn(openbox);
+        when(nacl.sealAfterPrecomputation(openbox, nonce, senderShared)).thenReturn("newbox".getBytes());
+        when(keyManager.getPrivateKeyForPublicKey(senderKey)).thenReturn(privateKey);
+
+        cachingEnclave.createNewRecipientBox(payload, senderKey);
+        final byte[] newRecipientBox = cachingEnclave.createNewRecipientBox(payload, senderKey);
+
+        assertThat(newRecipientBox).containsExactly("newbox".getBytes());
+
+        verify(nacl).computeSharedKey(publicKey, privateKey);
+        verify(nacl).computeSharedKey(senderKey, privateKey);
+        verify(nacl, times(2)).openAfterPrecomputation(closedbox, nonce, recipientSenderShared);
+        verify(nacl, times(2)).sealAfterPrecomputation(openbox, nonce, senderShared);
+        verify(keyManager, times(4)).getPrivateKeyForPublicKey(senderKey);
+
+        cachingEnclave.stop();
+
+        assertThat(recipientSenderShared.getKeyBytes()).isEqualTo(new byte["shared-one".length()]);
+    }
+
+    @Test
+    public void encryptPayloadSealsRecipientBoxesInParallelInRecipientOrder() {
+        final Enclave parallelEnclave = new EnclaveImpl(nacl, keyManager, 0, 2, 2);
+
+        final byte[] message = "MESSAGE".getBytes();
+        final PublicKey senderPublicKey = PublicKey.from("sender".getBytes());
+        final PrivateKey senderPrivateKey = PrivateKey.from("sender-priv".getBytes());
+        final MasterKey masterKey = MasterKey.from("masterKeyBytes".getBytes());
+        final Nonce cipherNonce = new Nonce("cipherNonce".getBytes());
+        final Nonce recipientNonce = new Nonce("recipientNonce".getBytes());
+
+        when(nacl.createMasterKey()).thenReturn(masterKey);
+        when(nacl.randomNonce()).thenReturn(cipherNonce, recipientNonce);
+        when(nacl.sealAfterPrecomputation(message, cipherNonce, masterKey)).thenReturn("cipherText".getBytes());
+        when(keyManager.getPrivateKeyForPublicKey(senderPublicKey)).thenReturn(senderPrivateKey);
+
+        final List<PublicKey> recipients = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final PublicKey recipient = PublicKey.from(("recipient" + i).getBytes());
+            final SharedKey sharedKey = SharedKey.from(("shared" + i).getBytes());
+            when(nacl.computeSharedKey(recipient, senderPrivateKey)).thenReturn(sharedKey);
+            when(nacl.sealAfterPrecomputation(masterKey.getKeyBytes(), recipientNonce, sharedKey))
+                .thenReturn(("box" + i).getBytes());
+            recipients.add(recipient);
+        }
+
+        final EncodedPayload result = parallelEnclave.encryptPayload(message, senderPublicKey, recipients);
+        parallelEnclave.stop();
+
+        assertThat(result.getRecipientKeys()).containsExactlyElementsOf(recipients);
+        assertThat(result.getRecipientBoxes()).containsExactly(
+            "box0".getBytes(), "box1".getBytes(), "box2".getBytes(), "box3".getBytes(), "box4".getBytes()
+        );
+
+        verify(nacl).createMasterKey();
+        verify(nacl, times(2)).randomNonce();
+        verify(nacl).sealAfterPrecomputation(message, cipherNonce, masterKey);
+        verify(nacl, times(5)).computeSharedKey(any(PublicKey.class), eq(senderPrivateKey));
+        verify(nacl, times(5))
+            .sealAfterPrecomputation(eq(masterKey.getKeyBytes()), eq(recipientNonce), any(SharedKey.class));
+        verify(keyManager).getPrivateKeyForPublicKey(senderPublicKey);
+    }
+
+    @Test
+    public void encryptPayloadsComputesSharedKeysOnceForTheBatch() {
+        final PublicKey senderPublicKey = PublicKey.from("sender".getBytes());
+        final PublicKey recipientPublicKey = PublicKey.from("recipient".getBytes());
+        final PrivateKey senderPrivateKey = PrivateKey.from("sender-priv".getBytes());
+        final SharedKey sharedKey = SharedKey.from("shared".getBytes());
+        final MasterKey firstMasterKey = MasterKey.from("first-master".getBytes());
+        final MasterKey secondMasterKey = MasterKey.from("second-master".getBytes());
+        final Nonce nonce = new Nonce("nonce".getBytes());
+
+        when(keyManager.getPrivateKeyForPublicKey(senderPublicKey)).thenReturn(senderPrivateKey);
+        when(nacl.computeSharedKey(recipientPublicKey, senderPrivateKey)).thenReturn(sharedKey);
+        when(nacl.createMasterKey()).thenReturn(firstMasterKey, secondMasterKey);
+        when(nacl.randomNonce()).thenReturn(nonce);
+        when(nacl.sealAfterPrecomputation(any(byte[].class), eq(nonce), any(MasterKey.class)))
+            .thenReturn("cipherText".getBytes());
+        when(nacl.sealAfterPrecomputation(firstMasterKey.getKeyBytes(), nonce, sharedKey))
+            .thenReturn("first-box".getBytes());
+        when(nacl.sealAfterPrecomputation(secondMasterKey.getKeyBytes(), nonce, sharedKey))
+            .thenReturn("second-box".getBytes());
+
+        final List<EncodedPayload> result = enclave.encryptPayloads(
+            Arrays.asList("first".getBytes(), "second".getBytes()), senderPublicKey, singletonList(recipientPublicKey)
+        );
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getRecipientBoxes()).containsExactly("first-box".getBytes());
+        assertThat(result.get(1).getRecipientBoxes()).containsExactly("second-box".getBytes());
+        assertThat(result.get(0).getRecipientKeys()).containsExactly(recipientPublicKey);
+        assertThat(result.get(0).getRecipientKeys()).isNotSameAs(result.get(1).getRecipientKeys());
+
+        verify(keyManager).getPrivateKeyForPublicKey(senderPublicKey);
+        verify(nacl).computeSharedKey(recipientPublicKey, senderPrivateKey);
+        verify(nacl, times(2)).createMasterKey();
+        verify(nacl, times(4)).randomNonce();
+        verify(nacl).sealAfterPrecomputation("first".getBytes(), nonce, firstMasterKey);
+        verify(nacl).sealAfterPrecomputation("second".getBytes(), nonce, secondMasterKey);
+        verify(nacl).sealAfterPrecomputation(firstMasterKey.getKeyBytes(), nonce, sharedKey);
+        verify(nacl).sealAfterPrecomputation(secondMasterKey.getKeyBytes(), nonce, sharedKey);
+    }
+
+    @Test
+    public void unencryptTransactionsFetchesKeysOnceForTheBatch() {
+        final PublicKey localKey = PublicKey.from("local".getBytes());
+        final PublicKey remoteKey = PublicKey.from("remote".getBytes());
+        final PrivateKey privateKey = PrivateKey.from("local-priv".getBytes());
+        final SharedKey sharedKey = SharedKey.from("shared".getBytes());
+        final Nonce nonce = new Nonce("nonce".getBytes());
+
+        final EncodedPayload fromRemote = new EncodedPayload(
+            remoteKey, "remote-cipher".getBytes(), nonce, singletonList("remote-box".getBytes()), nonce, emptyList()
+        );
+        final EncodedPayload fromUs = new EncodedPayload(
+            localKey, "own-cipher".getBytes(), nonce, singletonList("own-box".getBytes()), nonce,
+            singletonList(remoteKey)
+        );
+
+        when(keyManager.getPublicKeys()).thenReturn(Collections.singleton(localKey));
+        when(keyManager.getPrivateKeyForPublicKey(localKey)).thenReturn(privateKey);
+        when(nacl.computeSharedKey(remoteKey, privateKey)).thenReturn(sharedKey);
+        when(nacl.openAfterPrecomputation(any(byte[].class), eq(nonce), eq(sharedKey)))
+            .thenReturn("master".getBytes());
+        when(nacl.openAfterPrecomputation(eq("remote-cipher".getBytes()), eq(nonce), any(MasterKey.class)))
+            .thenReturn("first".getBytes());
+        when(nacl.openAfterPrecomputation(eq("own-cipher".getBytes()), eq(nonce), any(MasterKey.class)))
+            .thenReturn("second".getBytes());
+
+        final List<byte[]> result =
+            enclave.unencryptTransactions(Arrays.asList(fromRemote, fromUs), Arrays.asList(localKey, null));
+
+        assertThat(result).containsExactly("first".getBytes(), "second".getBytes());
+
+        verify(keyManager).getPublicKeys();
+        verify(keyManager).getPrivateKeyForPublicKey(localKey);
+        verify(nacl).computeSharedKey(remoteKey, privateKey);
+        verify(nacl, times(2)).openAfterPrecomputation(any(byte[].class), eq(nonce), eq(sharedKey));
+        verify(nacl, times(2)).openAfterPrecomputation(any(byte[].class), eq(nonce), any(MasterKey.class));
+    }
+
+    @Test
+    public void batchWithOneKeyPerPayloadMissingIsRejected() {
+        final EncodedPayload payload = mock(EncodedPayload.class);
+
+        final Throwable throwable = catchThrowable(
+            () -> enclave.unencryptTransactions(Arrays.asList(payload, payload), singletonList(null))
+        );
+
+        assertThat(throwable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Expected one key per payload but got 1 keys for 2 payloads");
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.quorum.tessera.enclave;
 
+import com.quorum.tessera.config.CommunicationType;
 import com.quorum.tessera.config.Config;
 import static org.mockito.Mockito.mock;
 
@@ -10,5 +11,10 @@ public class MockEnclaveClientFactory implements EnclaveClientFactory {
     public EnclaveClient create(Config config) {
         return mock(EnclaveClient.class);
     }
+
+    @Override
+    public CommunicationType communicationType() {
+        return CommunicationType.REST;
+    }
     
 }
@@ -0,0 +1,96 @@
+package com.quorum.tessera.enclave;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class RecipientBoxSealerTest {
+
+    private final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+    private RecipientBoxSealer sealer;
+
+    @After
+    public void onTearDown() {
+        if (sealer != null) {
+            sealer.shutdown();
+        }
+    }
+
+    @Test
+    public void boxesAreInRecipientOrderWhenSealedInParallel() {
+        sealer = new RecipientBoxSealer(10, 4);
+
+        final List<Integer> recipients = IntStream.range(0, 200).boxed().collect(Collectors.toList());
+
+        final List<byte[]> boxes = sealer.seal(recipients, this::box);
+
+        assertThat(boxes).hasSize(200);
+        IntStream.range(0, 200).forEach(i -> assertThat(boxes.get(i)).containsExactly(i));
+        assertThat(threadNames).allMatch(name -> name.startsWith("enclave-sealer-"));
+    }
+
+    @Test
+    public void fewerRecipientsThanThresholdAreSealedOnCallingThread() {
+        sealer = new RecipientBoxSealer(10, 4);
+
+        final List<byte[]> boxes = sealer.seal(IntStream.range(0, 9).boxed().collect(Collectors.toList()), this::box);
+
+        assertThat(boxes).hasSize(9);
+        assertThat(threadNames).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void zeroThresholdAlwaysSealsOnCallingThread() {
+        sealer = new RecipientBoxSealer(0, 4);
+
+        sealer.seal(IntStream.range(0, 200).boxed().collect(Collectors.toList()), this::box);
+
+        assertThat(threadNames).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void singleThreadSealsOnCallingThread() {
+        sealer = new RecipientBoxSealer(1, 1);
+
+        sealer.seal(IntStream.range(0, 200).boxed().collect(Collectors.toList()), this::box);
+
+        assertThat(threadNames).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void boxesAreSealedOnCallingThreadAfterShutdown() {
+        sealer = new RecipientBoxSealer(1, 4);
+        sealer.shutdown();
+
+        sealer.seal(IntStream.range(0, 20).boxed().collect(Collectors.toList()), this::box);
+
+        assertThat(threadNames).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void failureToSealIsRethrown() {
+        sealer = new RecipientBoxSealer(1, 4);
+
+        final List<Integer> recipients = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+
+        final Throwable throwable = catchThrowable(() -> sealer.seal(recipients, i -> {
+            throw new EnclaveException("no key for recipient " + i);
+        }));
+
+        assertThat(throwable).isInstanceOf(EnclaveException.class);
+    }
+
+    private byte[] box(final Integer recipient) {
+        threadNames.add(Thread.currentThread().getName());
+        return new byte[] {recipient.byteValue()};
+    }
+}
@@ -0,0 +1,111 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PrivateKey;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.encryption.SharedKey;
+import com.quorum.tessera.nacl.NaclFacade;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class SharedKeyCacheTest {
+
+    private static final PublicKey LOCAL_KEY = PublicKey.from("local".getBytes());
+
+    private static final PrivateKey PRIVATE_KEY = PrivateKey.from("local-priv".getBytes());
+
+    private NaclFacade nacl;
+
+    @Before
+    public void onSetUp() {
+        this.nacl = mock(NaclFacade.class);
+        when(nacl.computeSharedKey(any(PublicKey.class), any(PrivateKey.class)))
+            .thenAnswer(invocation -> SharedKey.from(invocation.<PublicKey>getArgument(0).getKeyBytes().clone()));
+    }
+
+    @After
+    public void onTearDown() {
+        verifyNoMoreInteractions(nacl);
+    }
+
+    @Test
+    public void sharedKeyIsComputedOnceAndCopiesAreHandedOut() {
+        final SharedKeyCache cache = new SharedKeyCache(nacl, 2);
+        final PublicKey remoteKey = PublicKey.from("remote".getBytes());
+
+        final SharedKey first = cache.get(LOCAL_KEY, PRIVATE_KEY, remoteKey);
+        final SharedKey second = cache.get(LOCAL_KEY, PRIVATE_KEY, remoteKey);
+
+        assertThat(second).isEqualTo(first).isNotSameAs(first);
+        assertThat(second.getKeyBytes()).isNotSameAs(first.getKeyBytes());
+        assertThat(cache.size()).isEqualTo(1);
+
+        verify(nacl).computeSharedKey(remoteKey, PRIVATE_KEY);
+    }
+
+    @Test
+    public void leastRecentlyUsedKeyIsWipedWhenEvicted() {
+        final SharedKey evicted = SharedKey.from("evicted".getBytes());
+        final PublicKey firstRemote = PublicKey.from("first".getBytes());
+        when(nacl.computeSharedKey(firstRemote, PRIVATE_KEY)).thenReturn(evicted);
+
+        final SharedKeyCache cache = new SharedKeyCache(nacl, 1);
+
+        final SharedKey handedOut = cache.get(LOCAL_KEY, PRIVATE_KEY, firstRemote);
+        cache.get(LOCAL_KEY, PRIVATE_KEY, PublicKey.from("second".getBytes()));
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(evicted.getKeyBytes()).isEqualTo(new byte["evicted".length()]);
+        assertThat(handedOut.getKeyBytes()).isEqualTo("evicted".getBytes());
+
+        verify(nacl, times(2)).computeSharedKey(any(PublicKey.class), eq(PRIVATE_KEY));
+    }
+
+    @Test
+    public void keyIsComputedAgainWhenThePrivateKeyChanges() {
+        final SharedKeyCache cache = new SharedKeyCache(nacl, 2);
+        final PublicKey remoteKey = PublicKey.from("remote".getBytes());
+        final PrivateKey replacement = PrivateKey.from("replacement".getBytes());
+
+        cache.get(LOCAL_KEY, PRIVATE_KEY, remoteKey);
+        cache.get(LOCAL_KEY, replacement, remoteKey);
+
+        assertThat(cache.size()).isEqualTo(1);
+
+        verify(nacl).computeSharedKey(remoteKey, PRIVATE_KEY);
+        verify(nacl).computeSharedKey(remoteKey, replacement);
+    }
+
+    @Test
+    public void clearWipesEveryKey() {
+        final SharedKey cached = SharedKey.from("cached".getBytes());
+        final PublicKey remoteKey = PublicKey.from("remote".getBytes());
+        when(nacl.computeSharedKey(remoteKey, PRIVATE_KEY)).thenReturn(cached);
+
+        final SharedKeyCache cache = new SharedKeyCache(nacl, 2);
+        cache.get(LOCAL_KEY, PRIVATE_KEY, remoteKey);
+
+        cache.clear();
+
+        assertThat(cache.size()).isZero();
+        assertThat(cached.getKeyBytes()).isEqualTo(new byte["cached".length()]);
+
+        verify(nacl).computeSharedKey(remoteKey, PRIVATE_KEY);
+    }
+
+    @Test
+    public void zeroSizeComputesEveryTime() {
+        final SharedKeyCache cache = new SharedKeyCache(nacl, 0);
+        final PublicKey remoteKey = PublicKey.from("remote".getBytes());
+
+        cache.get(LOCAL_KEY, PRIVATE_KEY, remoteKey);
+        cache.get(LOCAL_KEY, PRIVATE_KEY, remoteKey);
+
+        assertThat(cache.size()).isZero();
+
+        verify(nacl, times(2)).computeSharedKey(remoteKey, PRIVATE_KEY);
+    }
+}
@@ -0,0 +1,231 @@
+package com.quorum.tessera.enclave.grpc;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Empty;
+import com.quorum.tessera.enclave.Enclave;
+import com.quorum.tessera.enclave.EnclaveNotAvailableException;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.service.Service;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.quorum.tessera.enclave.grpc.GrpcConverter.*;
+
+/**
+ * Serves a local {@link Enclave} over gRPC.
+ * <p>
+ * The streaming calls collect every request of the stream and make a single
+ * batch call to the enclave once the client completes it, then stream the
+ * results back in the order of the requests. Every request of an
+ * {@code encryptPayloads} stream must have the same sender and recipients,
+ * and a stream where they differ fails with {@code INVALID_ARGUMENT}.
+ */
+public class EnclaveGrpcService extends EnclaveServiceGrpc.EnclaveServiceImplBase {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EnclaveGrpcService.class);
+
+    private final Enclave enclave;
+
+    public EnclaveGrpcService(Enclave enclave) {
+        this.enclave = Objects.requireNonNull(enclave);
+    }
+
+    @Override
+    public void defaultPublicKey(Empty request, StreamObserver<KeyMessage> responseObserver) {
+        respond(responseObserver, () -> KeyMessage.newBuilder()
+                .setKey(fromKey(enclave.defaultPublicKey()))
+                .build());
+    }
+
+    @Override
+    public void getForwardingKeys(Empty request, StreamObserver<KeysMessage> responseObserver) {
+        respond(responseObserver, () -> KeysMessage.newBuilder()
+                .addAllKeys(fromKeys(enclave.getForwardingKeys()))
+                .build());
+    }
+
+    @Override
+    public void getPublicKeys(Empty request, StreamObserver<KeysMessage> responseObserver) {
+        respond(responseObserver, () -> KeysMessage.newBuilder()
+                .addAllKeys(fromKeys(enclave.getPublicKeys()))
+                .build());
+    }
+
+    @Override
+    public void encryptPayload(EncryptRequest request, StreamObserver<PayloadMessage> responseObserver) {
+        respond(responseObserver, () -> {
+            EncodedPayload payload = enclave.encryptPayload(
+                    request.getMessage().toByteArray(),
+                    toKey(request.getSender()),
+                    toKeyList(request.getRecipientsList()));
+            return PayloadMessage.newBuilder().setPayload(fromPayload(payload)).build();
+        });
+    }
+
+    @Override
+    public void encryptRawTransactionPayload(EncryptRawTransactionRequest request,
+                                             StreamObserver<PayloadMessage> responseObserver) {
+        respond(responseObserver, () -> {
+            EncodedPayload payload = enclave.encryptPayload(
+                    toRawTransaction(request.getRawTransaction()),
+                    toKeyList(request.getRecipientsList()));
+            return PayloadMessage.newBuilder().setPayload(fromPayload(payload)).build();
+        });
+    }
+
+    @Override
+    public void encryptRawPayload(EncryptRawPayloadRequest request,
+                                  StreamObserver<RawTransactionMessage> responseObserver) {
+        respond(responseObserver, () -> fromRawTransaction(
+                enclave.encryptRawPayload(request.getMessage().toByteArray(), toKey(request.getSender()))));
+    }
+
+    @Override
+    public void unencryptTransaction(PayloadWithKey request, StreamObserver<DataMessage> responseObserver) {
+        respond(responseObserver, () -> dataOf(
+                enclave.unencryptTransaction(toPayload(request.getPayload()), toKey(request.getKey()))));
+    }
+
+    @Override
+    public void createNewRecipientBox(PayloadWithKey request, StreamObserver<DataMessage> responseObserver) {
+        respond(responseObserver, () -> dataOf(
+                enclave.createNewRecipientBox(toPayload(request.getPayload()), toKey(request.getKey()))));
+    }
+
+    @Override
+    public void status(Empty request, StreamObserver<StatusMessage> responseObserver) {
+        respond(responseObserver, () -> StatusMessage.newBuilder()
+                .setStatus(enclave.status() == Service.Status.STARTED ? EnclaveStatus.STARTED : EnclaveStatus.STOPPED)
+                .build());
+    }
+
+    @Override
+    public StreamObserver<EncryptRequest> encryptPayloads(StreamObserver<PayloadMessage> responseObserver) {
+        return new BatchObserver<>(responseObserver, requests -> {
+            if (requests.isEmpty()) {
+                return new ArrayList<>();
+            }
+            EncryptRequest first = requests.get(0);
+
+            boolean sameSenderAndRecipients = requests.stream()
+                    .allMatch(r -> r.getSender().equals(first.getSender())
+                            && r.getRecipientsList().equals(first.getRecipientsList()));
+            if (!sameSenderAndRecipients) {
+                throw new IllegalArgumentException(
+                        "Every payload of a batch must have the same sender and recipients");
+            }
+
+            List<byte[]> messages = requests.stream()
+                    .map(EncryptRequest::getMessage)
+                    .map(ByteString::toByteArray)
+                    .collect(Collectors.toList());
+
+            return enclave.encryptPayloads(messages, toKey(first.getSender()), toKeyList(first.getRecipientsList()))
+                    .stream()
+                    .map(p -> PayloadMessage.newBuilder().setPayload(fromPayload(p)).build())
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Override
+    public StreamObserver<PayloadWithKey> unencryptTransactions(StreamObserver<DataMessage> responseObserver) {
+        return new BatchObserver<>(responseObserver, requests -> enclave
+                .unencryptTransactions(payloadsOf(requests), keysOf(requests))
+                .stream()
+                .map(EnclaveGrpcService::dataOf)
+                .collect(Collectors.toList()));
+    }
+
+    private static DataMessage dataOf(byte[] data) {
+        return DataMessage.newBuilder().setData(ByteString.copyFrom(data)).build();
+    }
+
+    private static List<EncodedPayload> payloadsOf(List<PayloadWithKey> requests) {
+        return requests.stream().map(PayloadWithKey::getPayload).map(GrpcConverter::toPayload)
+                .collect(Collectors.toList());
+    }
+
+    private static List<PublicKey> keysOf(List<PayloadWithKey> requests) {
+        return requests.stream().map(PayloadWithKey::getKey).map(GrpcConverter::toKey)
+                .collect(Collectors.toList());
+    }
+
+    private static <T> void respond(StreamObserver<T> responseObserver, Supplier<T> result) {
+        final T response;
+        try {
+            response = result.get();
+        } catch (RuntimeException ex) {
+            responseObserver.onError(statusOf(ex));
+            return;
+        }
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    private static StatusRuntimeException statusOf(RuntimeException ex) {
+        LOGGER.debug("Enclave call failed", ex);
+
+        final Status status;
+        if (ex instanceof IllegalArgumentException) {
+            status = Status.INVALID_ARGUMENT;
+        } else if (ex instanceof EnclaveNotAvailableException) {
+            status = Status.UNAVAILABLE;
+        } else {
+            status = Status.INTERNAL;
+        }
+        return status.withDescription(ex.getMessage()).asRuntimeException();
+    }
+
+    /**
+     * Collects the requests of a stream and answers them with one batch call
+     * when the client completes the stream.
+     */
+    private static class BatchObserver<Q, R> implements StreamObserver<Q> {
+
+        private final List<Q> requests = new ArrayList<>();
+
+        private final StreamObserver<R> responseObserver;
+
+        private final Function<List<Q>, List<R>> batch;
+
+        BatchObserver(StreamObserver<R> responseObserver, Function<List<Q>, List<R>> batch) {
+            this.responseObserver = responseObserver;
+            this.batch = batch;
+        }
+
+        @Override
+        public void onNext(Q request) {
+            requests.add(request);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            LOGGER.debug("Client cancelled a batch of {} requests", requests.size(), t);
+        }
+
+        @Override
+        public void onCompleted() {
+            final List<R> responses;
+            try {
+                responses = batch.apply(requests);
+            } catch (RuntimeException ex) {
+                responseObserver.onError(statusOf(ex));
+                return;
+            }
+            responses.forEach(responseObserver::onNext);
+            responseObserver.onCompleted();
+        }
+
+    }
+
+}
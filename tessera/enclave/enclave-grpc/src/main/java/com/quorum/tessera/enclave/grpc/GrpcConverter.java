@@ -0,0 +1,70 @@
+package com.quorum.tessera.enclave.grpc;
+
+import com.google.protobuf.ByteString;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.RawTransaction;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.nacl.Nonce;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Converts between the enclave types and the messages of the enclave gRPC
+ * service. A missing key is sent as an empty byte string.
+ */
+final class GrpcConverter {
+
+    private static final PayloadEncoder PAYLOAD_ENCODER = PayloadEncoder.create();
+
+    private GrpcConverter() {
+    }
+
+    static ByteString fromKey(PublicKey key) {
+        return key == null ? ByteString.EMPTY : ByteString.copyFrom(key.getKeyBytes());
+    }
+
+    static PublicKey toKey(ByteString key) {
+        return key.isEmpty() ? null : PublicKey.from(key.toByteArray());
+    }
+
+    static List<ByteString> fromKeys(Collection<PublicKey> keys) {
+        return keys.stream().map(GrpcConverter::fromKey).collect(Collectors.toList());
+    }
+
+    static List<PublicKey> toKeyList(List<ByteString> keys) {
+        return keys.stream().map(GrpcConverter::toKey).collect(Collectors.toList());
+    }
+
+    static Set<PublicKey> toKeySet(List<ByteString> keys) {
+        return keys.stream().map(GrpcConverter::toKey).collect(Collectors.toSet());
+    }
+
+    static ByteString fromPayload(EncodedPayload payload) {
+        return ByteString.copyFrom(PAYLOAD_ENCODER.encode(payload));
+    }
+
+    static EncodedPayload toPayload(ByteString payload) {
+        return PAYLOAD_ENCODER.decode(payload.toByteArray());
+    }
+
+    static RawTransactionMessage fromRawTransaction(RawTransaction rawTransaction) {
+        return RawTransactionMessage.newBuilder()
+                .setEncryptedPayload(ByteString.copyFrom(rawTransaction.getEncryptedPayload()))
+                .setEncryptedKey(ByteString.copyFrom(rawTransaction.getEncryptedKey()))
+                .setNonce(ByteString.copyFrom(rawTransaction.getNonce().getNonceBytes()))
+                .setFrom(fromKey(rawTransaction.getFrom()))
+                .build();
+    }
+
+    static RawTransaction toRawTransaction(RawTransactionMessage message) {
+        return new RawTransaction(
+                message.getEncryptedPayload().toByteArray(),
+                message.getEncryptedKey().toByteArray(),
+                new Nonce(message.getNonce().toByteArray()),
+                toKey(message.getFrom()));
+    }
+
+}
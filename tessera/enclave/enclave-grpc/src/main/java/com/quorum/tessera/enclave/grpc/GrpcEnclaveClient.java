@@ -0,0 +1,253 @@
+package com.quorum.tessera.enclave.grpc;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Empty;
+import com.quorum.tessera.enclave.Enclave;
+import com.quorum.tessera.enclave.EnclaveClient;
+import com.quorum.tessera.enclave.EnclaveException;
+import com.quorum.tessera.enclave.EnclaveNotAvailableException;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.RawTransaction;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.service.Service;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.quorum.tessera.enclave.grpc.GrpcConverter.*;
+
+/**
+ * A client to a remote {@link Enclave} served by {@link EnclaveGrpcService}.
+ * <p>
+ * All calls share one channel, which multiplexes them over a single HTTP/2
+ * connection. Each call is given a deadline, after which it fails with an
+ * {@link EnclaveNotAvailableException}. The batch operations stream their
+ * items so that the enclave answers them with a single batch call.
+ */
+public class GrpcEnclaveClient implements EnclaveClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GrpcEnclaveClient.class);
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5000L;
+
+    private final ManagedChannel channel;
+
+    private final long timeoutMillis;
+
+    public GrpcEnclaveClient(URI uri) {
+        this(ManagedChannelBuilder.forAddress(uri.getHost(), uri.getPort()).usePlaintext().build(),
+                DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public GrpcEnclaveClient(ManagedChannel channel, long timeoutMillis) {
+        this.channel = Objects.requireNonNull(channel);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public PublicKey defaultPublicKey() {
+        return call(() -> toKey(blockingStub().defaultPublicKey(Empty.getDefaultInstance()).getKey()));
+    }
+
+    @Override
+    public Set<PublicKey> getForwardingKeys() {
+        return call(() -> toKeySet(blockingStub().getForwardingKeys(Empty.getDefaultInstance()).getKeysList()));
+    }
+
+    @Override
+    public Set<PublicKey> getPublicKeys() {
+        return call(() -> toKeySet(blockingStub().getPublicKeys(Empty.getDefaultInstance()).getKeysList()));
+    }
+
+    @Override
+    public EncodedPayload encryptPayload(byte[] message,
+                                         PublicKey senderPublicKey,
+                                         List<PublicKey> recipientPublicKeys) {
+        EncryptRequest request = encryptRequest(message, senderPublicKey, recipientPublicKeys);
+
+        return call(() -> toPayload(blockingStub().encryptPayload(request).getPayload()));
+    }
+
+    @Override
+    public EncodedPayload encryptPayload(RawTransaction rawTransaction, List<PublicKey> recipientPublicKeys) {
+        EncryptRawTransactionRequest request = EncryptRawTransactionRequest.newBuilder()
+                .setRawTransaction(fromRawTransaction(rawTransaction))
+                .addAllRecipients(fromKeys(recipientPublicKeys))
+                .build();
+
+        return call(() -> toPayload(blockingStub().encryptRawTransactionPayload(request).getPayload()));
+    }
+
+    @Override
+    public RawTransaction encryptRawPayload(byte[] message, PublicKey sender) {
+        EncryptRawPayloadRequest request = EncryptRawPayloadRequest.newBuilder()
+                .setMessage(ByteString.copyFrom(message))
+                .setSender(fromKey(sender))
+                .build();
+
+        return call(() -> toRawTransaction(blockingStub().encryptRawPayload(request)));
+    }
+
+    @Override
+    public byte[] unencryptTransaction(EncodedPayload payload, PublicKey providedKey) {
+        PayloadWithKey request = payloadWithKey(payload, providedKey);
+
+        return call(() -> blockingStub().unencryptTransaction(request).getData().toByteArray());
+    }
+
+    @Override
+    public byte[] createNewRecipientBox(EncodedPayload payload, PublicKey recipientKey) {
+        PayloadWithKey request = payloadWithKey(payload, recipientKey);
+
+        return call(() -> blockingStub().createNewRecipientBox(request).getData().toByteArray());
+    }
+
+    @Override
+    public List<EncodedPayload> encryptPayloads(List<byte[]> messages,
+                                                PublicKey senderPublicKey,
+                                                List<PublicKey> recipientPublicKeys) {
+        // the sender and recipients are only read from the first request
+        List<EncryptRequest> requests = IntStream.range(0, messages.size())
+                .mapToObj(i -> i == 0
+                        ? encryptRequest(messages.get(i), senderPublicKey, recipientPublicKeys)
+                        : EncryptRequest.newBuilder().setMessage(ByteString.copyFrom(messages.get(i))).build())
+                .collect(Collectors.toList());
+
+        return stream(asyncStub()::encryptPayloads, requests, r -> toPayload(r.getPayload()));
+    }
+
+    @Override
+    public List<byte[]> unencryptTransactions(List<EncodedPayload> payloads, List<PublicKey> providedKeys) {
+        return stream(asyncStub()::unencryptTransactions, payloadsWithKeys(payloads, providedKeys),
+                r -> r.getData().toByteArray());
+    }
+
+    @Override
+    public Service.Status status() {
+        try {
+            EnclaveStatus status = blockingStub().status(Empty.getDefaultInstance()).getStatus();
+            return status == EnclaveStatus.STARTED ? Service.Status.STARTED : Service.Status.STOPPED;
+        } catch (StatusRuntimeException ex) {
+            LOGGER.trace(null, ex);
+            return Service.Status.STOPPED;
+        }
+    }
+
+    @Override
+    public void stop() {
+        channel.shutdown();
+    }
+
+    private EnclaveServiceGrpc.EnclaveServiceBlockingStub blockingStub() {
+        return EnclaveServiceGrpc.newBlockingStub(channel).withDeadlineAfter(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private EnclaveServiceGrpc.EnclaveServiceStub asyncStub() {
+        return EnclaveServiceGrpc.newStub(channel).withDeadlineAfter(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static EncryptRequest encryptRequest(byte[] message, PublicKey sender, List<PublicKey> recipients) {
+        return EncryptRequest.newBuilder()
+                .setMessage(ByteString.copyFrom(message))
+                .setSender(fromKey(sender))
+                .addAllRecipients(fromKeys(recipients))
+                .build();
+    }
+
+    private static PayloadWithKey payloadWithKey(EncodedPayload payload, PublicKey key) {
+        return PayloadWithKey.newBuilder()
+                .setPayload(fromPayload(payload))
+                .setKey(fromKey(key))
+                .build();
+    }
+
+    private static List<PayloadWithKey> payloadsWithKeys(List<EncodedPayload> payloads, List<PublicKey> keys) {
+        Enclave.requireSameSize(payloads, keys);
+
+        return IntStream.range(0, payloads.size())
+                .mapToObj(i -> payloadWithKey(payloads.get(i), keys.get(i)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sends each of the requests on one stream and waits for all of the
+     * responses, which the deadline of the stub bounds.
+     */
+    private static <Q, R, T> List<T> stream(Function<StreamObserver<R>, StreamObserver<Q>> method,
+                                            List<Q> requests,
+                                            Function<R, T> converter) {
+
+        final CompletableFuture<List<T>> result = new CompletableFuture<>();
+        final List<T> responses = new ArrayList<>(requests.size());
+
+        final StreamObserver<Q> requestObserver = method.apply(new StreamObserver<R>() {
+            @Override
+            public void onNext(R response) {
+                responses.add(converter.apply(response));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                result.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                result.complete(responses);
+            }
+        });
+
+        try {
+            requests.forEach(requestObserver::onNext);
+            requestObserver.onCompleted();
+        } catch (RuntimeException ex) {
+            requestObserver.onError(ex);
+            throw ex;
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EnclaveNotAvailableException("Interrupted waiting for the enclave");
+        } catch (ExecutionException ex) {
+            throw translate(ex.getCause());
+        }
+    }
+
+    private static <T> T call(Supplier<T> callback) {
+        try {
+            return callback.get();
+        } catch (StatusRuntimeException ex) {
+            throw translate(ex);
+        }
+    }
+
+    private static EnclaveException translate(Throwable cause) {
+        Status status = Status.fromThrowable(cause);
+
+        if (status.getCode() == Status.Code.UNAVAILABLE || status.getCode() == Status.Code.DEADLINE_EXCEEDED) {
+            return new EnclaveNotAvailableException(status.toString());
+        }
+
+        return new EnclaveException(String.format(
+                "Remote enclave instance threw an error %s %s", status.getCode(), status.getDescription()));
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.quorum.tessera.enclave.grpc;
+
+import com.quorum.tessera.config.AppType;
+import com.quorum.tessera.config.CommunicationType;
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.ServerConfig;
+import com.quorum.tessera.enclave.EnclaveClientFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class GrpcEnclaveClientFactory implements EnclaveClientFactory<GrpcEnclaveClient> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GrpcEnclaveClientFactory.class);
+
+    @Override
+    public GrpcEnclaveClient create(Config config) {
+        ServerConfig serverConfig = config.getServerConfigs().stream()
+                .filter(sc -> sc.getApp() == AppType.ENCLAVE)
+                .filter(sc -> sc.getCommunicationType() == CommunicationType.GRPC)
+                .findAny()
+                .get();
+
+        LOGGER.info("Creating remoted enclave for {}", serverConfig.getServerUri());
+        return new GrpcEnclaveClient(serverConfig.getServerUri());
+    }
+
+    @Override
+    public CommunicationType communicationType() {
+        return CommunicationType.GRPC;
+    }
+
+}
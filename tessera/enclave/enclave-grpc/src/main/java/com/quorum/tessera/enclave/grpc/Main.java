@@ -0,0 +1,55 @@
+package com.quorum.tessera.enclave.grpc;
+
+import com.quorum.tessera.cli.CliDelegate;
+import com.quorum.tessera.cli.CliResult;
+import com.quorum.tessera.config.AppType;
+import com.quorum.tessera.config.CommunicationType;
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.ServerConfig;
+import com.quorum.tessera.enclave.Enclave;
+import com.quorum.tessera.enclave.EnclaveFactory;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class Main {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
+
+    public static void main(String... args) throws Exception {
+
+        System.setProperty("javax.xml.bind.JAXBContextFactory", "org.eclipse.persistence.jaxb.JAXBContextFactory");
+        System.setProperty("javax.xml.bind.context.factory", "org.eclipse.persistence.jaxb.JAXBContextFactory");
+        CliResult cliResult = CliDelegate.INSTANCE.execute(args);
+        if (!cliResult.getConfig().isPresent()) {
+            System.exit(cliResult.getStatus());
+        }
+
+        Config config = cliResult.getConfig().get();
+
+        Enclave enclave = EnclaveFactory.createServer(config);
+
+        ServerConfig serverConfig = config.getServerConfigs().stream()
+                .filter(s -> s.getApp() == AppType.ENCLAVE)
+                .filter(s -> s.getCommunicationType() == CommunicationType.GRPC)
+                .findAny().get();
+
+        Server server = ServerBuilder.forPort(serverConfig.getServerUri().getPort())
+                .addService(new EnclaveGrpcService(enclave))
+                .build()
+                .start();
+
+        LOGGER.info("gRPC enclave started, listening on {}", serverConfig.getServerUri().getPort());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.shutdown();
+            } catch (Exception ex) {
+                LOGGER.error(null, ex);
+            }
+        }));
+
+        server.awaitTermination();
+    }
+}
@@ -0,0 +1,48 @@
+package com.quorum.tessera.enclave.grpc;
+
+import com.quorum.tessera.config.AppType;
+import com.quorum.tessera.config.CommunicationType;
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.ServerConfig;
+import com.quorum.tessera.enclave.EnclaveClientFactory;
+import java.util.Arrays;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+public class GrpcEnclaveClientFactoryTest {
+
+    private GrpcEnclaveClientFactory grpcEnclaveClientFactory = new GrpcEnclaveClientFactory();
+
+    @Test
+    public void create() {
+        final Config config = new Config();
+        final ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setApp(AppType.ENCLAVE);
+        serverConfig.setCommunicationType(CommunicationType.GRPC);
+        serverConfig.setServerAddress("http://bogushost:99");
+        config.setServerConfigs(Arrays.asList(serverConfig));
+
+        GrpcEnclaveClient result = grpcEnclaveClientFactory.create(config);
+
+        assertThat(result).isNotNull();
+        result.stop();
+    }
+
+    @Test(expected = java.util.NoSuchElementException.class)
+    public void createWithRestCommunicationType() {
+        final Config config = new Config();
+        final ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setApp(AppType.ENCLAVE);
+        serverConfig.setCommunicationType(CommunicationType.REST);
+        serverConfig.setServerAddress("http://bogushost:99");
+        config.setServerConfigs(Arrays.asList(serverConfig));
+
+        grpcEnclaveClientFactory.create(config);
+    }
+
+    @Test
+    public void isSelectedForGrpc() {
+        assertThat(EnclaveClientFactory.create(CommunicationType.GRPC)).isInstanceOf(GrpcEnclaveClientFactory.class);
+    }
+
+}
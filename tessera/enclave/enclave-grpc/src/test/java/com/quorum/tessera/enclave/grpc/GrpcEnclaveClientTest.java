@@ -0,0 +1,217 @@
+package com.quorum.tessera.enclave.grpc;
+
+import com.google.protobuf.ByteString;
+import com.quorum.tessera.enclave.Enclave;
+import com.quorum.tessera.enclave.EnclaveException;
+import com.quorum.tessera.enclave.EnclaveNotAvailableException;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadBuilder;
+import com.quorum.tessera.enclave.RawTransaction;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.nacl.Nonce;
+import com.quorum.tessera.service.Service;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.grpc.testing.GrpcCleanupRule;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class GrpcEnclaveClientTest {
+
+    private static final PublicKey KEY = PublicKey.from("PublicKey".getBytes());
+
+    private static final PublicKey OTHER_KEY = PublicKey.from("OtherKey".getBytes());
+
+    @Rule
+    public final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+
+    private Enclave enclave;
+
+    private ManagedChannel channel;
+
+    private GrpcEnclaveClient client;
+
+    @Before
+    public void onSetUp() throws Exception {
+        enclave = mock(Enclave.class);
+
+        String serverName = InProcessServerBuilder.generateName();
+
+        grpcCleanup.register(InProcessServerBuilder
+                .forName(serverName)
+                .directExecutor()
+                .addService(new EnclaveGrpcService(enclave))
+                .build()
+                .start());
+
+        channel = grpcCleanup.register(
+                InProcessChannelBuilder.forName(serverName).directExecutor().build());
+
+        client = new GrpcEnclaveClient(channel, 5000L);
+    }
+
+    @After
+    public void onTearDown() {
+        verifyNoMoreInteractions(enclave);
+    }
+
+    @Test
+    public void keys() {
+        when(enclave.defaultPublicKey()).thenReturn(KEY);
+        when(enclave.getForwardingKeys()).thenReturn(Collections.singleton(OTHER_KEY));
+        when(enclave.getPublicKeys()).thenReturn(Collections.singleton(KEY));
+
+        assertThat(client.defaultPublicKey()).isEqualTo(KEY);
+        assertThat(client.getForwardingKeys()).containsExactly(OTHER_KEY);
+        assertThat(client.getPublicKeys()).containsExactly(KEY);
+
+        verify(enclave).defaultPublicKey();
+        verify(enclave).getForwardingKeys();
+        verify(enclave).getPublicKeys();
+    }
+
+    @Test
+    public void encryptPayload() {
+        EncodedPayload payload = payload();
+        when(enclave.encryptPayload(any(byte[].class), any(PublicKey.class), anyList())).thenReturn(payload);
+
+        EncodedPayload result = client.encryptPayload("MESSAGE".getBytes(), KEY, Arrays.asList(OTHER_KEY));
+
+        assertThat(result.getCipherText()).isEqualTo(payload.getCipherText());
+        verify(enclave).encryptPayload("MESSAGE".getBytes(), KEY, Arrays.asList(OTHER_KEY));
+    }
+
+    @Test
+    public void encryptRawPayloadRoundTrip() {
+        RawTransaction rawTransaction = new RawTransaction(
+                "payload".getBytes(), "key".getBytes(), new Nonce("nonce".getBytes()), KEY);
+        when(enclave.encryptRawPayload(any(byte[].class), any(PublicKey.class))).thenReturn(rawTransaction);
+
+        RawTransaction result = client.encryptRawPayload("MESSAGE".getBytes(), KEY);
+
+        assertThat(result).isEqualTo(rawTransaction);
+        verify(enclave).encryptRawPayload("MESSAGE".getBytes(), KEY);
+    }
+
+    @Test
+    public void unencryptTransactionWithoutProvidedKey() {
+        when(enclave.unencryptTransaction(any(EncodedPayload.class), isNull())).thenReturn("OUTCOME".getBytes());
+
+        byte[] result = client.unencryptTransaction(payload(), null);
+
+        assertThat(result).isEqualTo("OUTCOME".getBytes());
+        verify(enclave).unencryptTransaction(any(EncodedPayload.class), isNull());
+    }
+
+    @Test
+    public void batchesAreStreamedToOneEnclaveCall() {
+        when(enclave.encryptPayloads(anyList(), any(PublicKey.class), anyList()))
+                .thenReturn(Arrays.asList(payload(), payload()));
+        when(enclave.unencryptTransactions(anyList(), anyList()))
+                .thenReturn(Arrays.asList("first".getBytes(), "second".getBytes()));
+
+        List<EncodedPayload> payloads = client.encryptPayloads(
+                Arrays.asList("first".getBytes(), "second".getBytes()), KEY, Arrays.asList(OTHER_KEY));
+
+        List<byte[]> messages = client.unencryptTransactions(payloads, Arrays.asList(KEY, null));
+
+        assertThat(payloads).hasSize(2);
+        assertThat(messages).containsExactly("first".getBytes(), "second".getBytes());
+        verify(enclave).encryptPayloads(anyList(), eq(KEY), eq(Arrays.asList(OTHER_KEY)));
+        verify(enclave).unencryptTransactions(anyList(), eq(Arrays.asList(KEY, null)));
+    }
+
+    @Test
+    public void encryptBatchWithDifferentSendersIsRejected() {
+        List<Throwable> errors = new ArrayList<>();
+
+        StreamObserver<EncryptRequest> requests = EnclaveServiceGrpc.newStub(channel)
+                .encryptPayloads(new StreamObserver<PayloadMessage>() {
+                    @Override
+                    public void onNext(PayloadMessage value) {
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        errors.add(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                });
+
+        requests.onNext(encryptRequest("first", KEY));
+        requests.onNext(encryptRequest("second", OTHER_KEY));
+        requests.onCompleted();
+
+        assertThat(errors).hasSize(1);
+        assertThat(Status.fromThrowable(errors.get(0)).getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+    }
+
+    @Test
+    public void enclaveErrorsAreRaisedOnTheClient() {
+        when(enclave.createNewRecipientBox(any(EncodedPayload.class), any(PublicKey.class)))
+                .thenThrow(new IllegalArgumentException("bad recipient"));
+        when(enclave.unencryptTransactions(anyList(), anyList()))
+                .thenThrow(new EnclaveNotAvailableException());
+
+        Throwable single = catchThrowable(() -> client.createNewRecipientBox(payload(), KEY));
+        Throwable batch = catchThrowable(() -> client.unencryptTransactions(
+                Arrays.asList(payload()), Arrays.asList(KEY)));
+
+        assertThat(single).isExactlyInstanceOf(EnclaveException.class)
+                .hasMessageContaining("INVALID_ARGUMENT")
+                .hasMessageContaining("bad recipient");
+        assertThat(batch).isInstanceOf(EnclaveNotAvailableException.class);
+        verify(enclave).createNewRecipientBox(any(EncodedPayload.class), eq(KEY));
+        verify(enclave).unencryptTransactions(anyList(), eq(Arrays.asList(KEY)));
+    }
+
+    @Test
+    public void statusIsStoppedOnceTheChannelIsShutDown() {
+        when(enclave.status()).thenReturn(Service.Status.STARTED);
+
+        assertThat(client.status()).isEqualTo(Service.Status.STARTED);
+
+        client.stop();
+
+        assertThat(client.status()).isEqualTo(Service.Status.STOPPED);
+        verify(enclave).status();
+    }
+
+    private static EncodedPayload payload() {
+        return EncodedPayloadBuilder.create()
+                .withSenderKey(KEY)
+                .withCipherText("cipherText".getBytes())
+                .withCipherTextNonce("cipherTextNonce".getBytes())
+                .withRecipientBoxes(Arrays.asList("recipientBox".getBytes()))
+                .withRecipientNonce("recipientNonce".getBytes())
+                .withRecipientKeys(OTHER_KEY)
+                .build();
+    }
+
+    private static EncryptRequest encryptRequest(String message, PublicKey sender) {
+        return EncryptRequest.newBuilder()
+                .setMessage(ByteString.copyFromUtf8(message))
+                .setSender(ByteString.copyFrom(sender.getKeyBytes()))
+                .addRecipients(ByteString.copyFrom(KEY.getKeyBytes()))
+                .build();
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.quorum.tessera.enclave.rest;
+
+import java.io.Serializable;
+import java.util.List;
+import javax.xml.bind.annotation.XmlMimeType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@XmlRootElement
+public class EnclaveBatchPayload implements Serializable {
+
+    @XmlMimeType("base64Binary")
+    private List<byte[]> data;
+
+    @XmlMimeType("base64Binary")
+    private byte[] senderKey;
+
+    @XmlMimeType("base64Binary")
+    private List<byte[]> recipientPublicKeys;
+
+    public List<byte[]> getData() {
+        return data;
+    }
+
+    public void setData(List<byte[]> data) {
+        this.data = data;
+    }
+
+    public byte[] getSenderKey() {
+        return senderKey;
+    }
+
+    public void setSenderKey(byte[] senderKey) {
+        this.senderKey = senderKey;
+    }
+
+    public List<byte[]> getRecipientPublicKeys() {
+        return recipientPublicKeys;
+    }
+
+    public void setRecipientPublicKeys(List<byte[]> recipientPublicKeys) {
+        this.recipientPublicKeys = recipientPublicKeys;
+    }
+
+}
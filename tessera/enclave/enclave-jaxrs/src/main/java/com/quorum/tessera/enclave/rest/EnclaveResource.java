@@ -12,6 +12,7 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.StreamingOutput;
+import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -102,6 +103,26 @@ public class EnclaveResource {
                 .build();
     }
 
+    @POST
+    @Path("encrypt/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response encryptPayloads(EnclaveBatchPayload payload) {
+
+        PublicKey senderKey = PublicKey.from(payload.getSenderKey());
+
+        List<PublicKey> recipientPublicKeys = payload.getRecipientPublicKeys()
+                .stream()
+                .map(PublicKey::from)
+                .collect(Collectors.toList());
+
+        List<EncodedPayload> outcome = enclave.encryptPayloads(payload.getData(), senderKey, recipientPublicKeys);
+
+        List<byte[]> body = outcome.stream().map(payloadEncoder::encode).collect(Collectors.toList());
+
+        return toJsonArray(body);
+    }
+
     @POST
     @Path("encrypt/raw")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -162,6 +183,21 @@ public class EnclaveResource {
 
     }
 
+    @POST
+    @Path("unencrypt/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response unencryptTransactions(EnclaveUnencryptBatchPayload enclaveUnencryptBatchPayload) {
+
+        List<EncodedPayload> payloads = payloadsOf(enclaveUnencryptBatchPayload);
+        List<PublicKey> providedKeys = enclaveUnencryptBatchPayload.getPayloads()
+            .stream()
+            .map(p -> Optional.ofNullable(p.getProvidedKey()).map(PublicKey::from).orElse(null))
+            .collect(Collectors.toList());
+
+        return toJsonArray(enclave.unencryptTransactions(payloads, providedKeys));
+    }
+
     @POST
     @Path("addRecipient")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -178,4 +214,22 @@ public class EnclaveResource {
 
     }
 
+    private List<EncodedPayload> payloadsOf(EnclaveUnencryptBatchPayload enclaveUnencryptBatchPayload) {
+        return enclaveUnencryptBatchPayload.getPayloads()
+            .stream()
+            .map(EnclaveUnencryptPayload::getData)
+            .map(payloadEncoder::decode)
+            .collect(Collectors.toList());
+    }
+
+    private static Response toJsonArray(List<byte[]> values) {
+
+        List<String> body = values.stream()
+                .map(Base64.getEncoder()::encodeToString)
+                .collect(Collectors.toList());
+
+        return Response.ok(Json.createArrayBuilder(body).build().toString(), MediaType.APPLICATION_JSON_TYPE)
+                .build();
+    }
+
 }
@@ -0,0 +1,19 @@
+package com.quorum.tessera.enclave.rest;
+
+import java.util.List;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@XmlRootElement
+public class EnclaveUnencryptBatchPayload {
+
+    private List<EnclaveUnencryptPayload> payloads;
+
+    public List<EnclaveUnencryptPayload> getPayloads() {
+        return payloads;
+    }
+
+    public void setPayloads(List<EnclaveUnencryptPayload> payloads) {
+        this.payloads = payloads;
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.quorum.tessera.enclave.rest;
 
+import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.EnclaveClient;
 import com.quorum.tessera.enclave.EnclaveNotAvailableException;
 import com.quorum.tessera.enclave.EncodedPayload;
@@ -132,6 +133,36 @@ public class RestfulEnclaveClient implements EnclaveClient {
         });
     }
 
+    @Override
+    public List<EncodedPayload> encryptPayloads(List<byte[]> messages,
+                                                PublicKey senderPublicKey,
+                                                List<PublicKey> recipientPublicKeys) {
+
+        return ClientCallback.execute(() -> {
+
+            EnclaveBatchPayload enclaveBatchPayload = new EnclaveBatchPayload();
+            enclaveBatchPayload.setData(messages);
+            enclaveBatchPayload.setSenderKey(senderPublicKey.getKeyBytes());
+            enclaveBatchPayload.setRecipientPublicKeys(recipientPublicKeys.stream()
+                .map(PublicKey::getKeyBytes)
+                .collect(Collectors.toList()));
+
+            Response response = client.target(uri)
+                .path("encrypt")
+                .path("batch")
+                .request()
+                .post(Entity.json(enclaveBatchPayload));
+
+            validateResponseIsOk(response);
+
+            PayloadEncoder payloadEncoder = PayloadEncoder.create();
+
+            return readByteArrays(response).stream()
+                .map(payloadEncoder::decode)
+                .collect(Collectors.toList());
+        });
+    }
+
     @Override
     public EncodedPayload encryptPayload(RawTransaction rawTransaction, List<PublicKey> recipientPublicKeys) {
 
@@ -236,6 +267,55 @@ public class RestfulEnclaveClient implements EnclaveClient {
         });
     }
 
+    @Override
+    public List<byte[]> unencryptTransactions(List<EncodedPayload> payloads, List<PublicKey> providedKeys) {
+
+        return ClientCallback.execute(() -> {
+
+            Response response = client.target(uri)
+                .path("unencrypt")
+                .path("batch")
+                .request()
+                .post(Entity.json(batchOf(payloads, providedKeys)));
+
+            validateResponseIsOk(response);
+
+            return readByteArrays(response);
+        });
+    }
+
+    private static EnclaveUnencryptBatchPayload batchOf(List<EncodedPayload> payloads, List<PublicKey> keys) {
+
+        Enclave.requireSameSize(payloads, keys);
+
+        PayloadEncoder payloadEncoder = PayloadEncoder.create();
+
+        List<EnclaveUnencryptPayload> dtos = IntStream.range(0, payloads.size())
+            .mapToObj(i -> {
+                EnclaveUnencryptPayload dto = new EnclaveUnencryptPayload();
+                dto.setData(payloadEncoder.encode(payloads.get(i)));
+                if (keys.get(i) != null) {
+                    dto.setProvidedKey(keys.get(i).getKeyBytes());
+                }
+                return dto;
+            })
+            .collect(Collectors.toList());
+
+        EnclaveUnencryptBatchPayload batch = new EnclaveUnencryptBatchPayload();
+        batch.setPayloads(dtos);
+        return batch;
+    }
+
+    private static List<byte[]> readByteArrays(Response response) {
+
+        JsonArray results = response.readEntity(JsonArray.class);
+
+        return IntStream.range(0, results.size())
+            .mapToObj(results::getString)
+            .map(Base64.getDecoder()::decode)
+            .collect(Collectors.toList());
+    }
+
     /**
      * In the case of a stateless client there is no start/stop all the run
      * status logic is handled in the status command itself
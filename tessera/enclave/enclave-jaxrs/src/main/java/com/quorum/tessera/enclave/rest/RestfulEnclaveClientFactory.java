@@ -30,7 +30,10 @@ public class RestfulEnclaveClientFactory implements EnclaveClientFactory<Restful
         LOGGER.info("Creating remoted enclave for {}", serverConfig.getServerUri());
         return new RestfulEnclaveClient(client, serverConfig.getServerUri());
     }
-    
-    
-    
+
+    @Override
+    public CommunicationType communicationType() {
+        return CommunicationType.REST;
+    }
+
 }
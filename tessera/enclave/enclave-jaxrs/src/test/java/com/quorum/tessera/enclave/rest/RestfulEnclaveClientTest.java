@@ -13,6 +13,7 @@ import org.glassfish.jersey.test.JerseyTest;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -221,6 +222,54 @@ public class RestfulEnclaveClientTest {
 
     }
 
+    @Test
+    public void encryptPayloads() {
+
+        List<byte[]> messages = Arrays.asList("FIRST".getBytes(), "SECOND".getBytes());
+
+        PublicKey senderPublicKey = PublicKey.from("PublicKey".getBytes());
+        List<PublicKey> recipientPublicKeys = Arrays.asList(PublicKey.from("RecipientPublicKey".getBytes()));
+
+        EncodedPayload encodedPayload = Fixtures.createSample();
+
+        when(enclave.encryptPayloads(anyList(), any(PublicKey.class), anyList()))
+            .thenReturn(Arrays.asList(encodedPayload, encodedPayload));
+
+        List<EncodedPayload> result = enclaveClient.encryptPayloads(messages, senderPublicKey, recipientPublicKeys);
+
+        assertThat(result).hasSize(2);
+
+        byte[] encodedResult = PayloadEncoder.create().encode(result.get(1));
+        byte[] encodedEncodedPayload = PayloadEncoder.create().encode(encodedPayload);
+
+        assertThat(encodedResult).isEqualTo(encodedEncodedPayload);
+
+        ArgumentCaptor<List<byte[]>> sentMessages = ArgumentCaptor.forClass(List.class);
+        verify(enclave).encryptPayloads(sentMessages.capture(), eq(senderPublicKey), eq(recipientPublicKeys));
+
+        assertThat(sentMessages.getValue()).containsExactly("FIRST".getBytes(), "SECOND".getBytes());
+
+    }
+
+    @Test
+    public void unencryptTransactions() {
+
+        EncodedPayload payload = Fixtures.createSample();
+
+        PublicKey providedKey = PublicKey.from("ProvidedKey".getBytes());
+
+        when(enclave.unencryptTransactions(anyList(), anyList()))
+            .thenReturn(Arrays.asList("FIRST".getBytes(), "SECOND".getBytes()));
+
+        List<byte[]> result =
+            enclaveClient.unencryptTransactions(Arrays.asList(payload, payload), Arrays.asList(providedKey, null));
+
+        assertThat(result).containsExactly("FIRST".getBytes(), "SECOND".getBytes());
+
+        verify(enclave).unencryptTransactions(anyList(), eq(Arrays.asList(providedKey, null)));
+
+    }
+
     @Test
     public void statusStarted() {
         when(enclave.status())
@@ -7,6 +7,8 @@ public enum ArgType {
     STRING,
     PUBLIC_KEY_LIST,
     RAW_TRANSACTION,
-    ENCODED_PAYLOAD
+    ENCODED_PAYLOAD,
+    BYTE_ARRAY_LIST,
+    ENCODED_PAYLOAD_LIST
     
 }
@@ -0,0 +1,212 @@
+package com.quorum.tessera.enclave.websockets;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.RawTransaction;
+import com.quorum.tessera.enclave.RawTransactionBuilder;
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.websocket.DecodeException;
+import javax.websocket.Decoder;
+import javax.websocket.EncodeException;
+import javax.websocket.Encoder;
+import javax.websocket.EndpointConfig;
+import javax.websocket.Session;
+
+/**
+ * Encodes enclave messages as binary websocket messages, which carry raw
+ * bytes where the JSON codecs carry base64 strings.
+ * <p>
+ * Every value is a field in the layout of
+ * {@link com.quorum.tessera.enclave.BinaryEncoder}: 8 bytes for its length
+ * followed by its bytes. A list is 8 bytes for the number of elements followed
+ * by each element as a field, and a length of -1 marks a missing value.
+ * Encoded payloads are fields holding the output of {@link PayloadEncoder}.
+ * <p>
+ * Lengths and counts are checked against the bytes left in the message
+ * before anything is allocated for them, so a corrupt or hostile message
+ * fails to decode rather than exhausting the heap.
+ * <p>
+ * The binary codecs are only used on sessions that negotiated the
+ * {@link #SUBPROTOCOL}, so an enclave or client without them falls back to
+ * JSON.
+ */
+public abstract class BinaryCodec<T> implements Decoder.Binary<T>, Encoder.Binary<T> {
+
+    public static final String SUBPROTOCOL = "tessera-enclave-binary";
+
+    private static final PayloadEncoder PAYLOAD_ENCODER = PayloadEncoder.create();
+
+    private static final long MISSING = -1L;
+
+    public static boolean isNegotiated(Session session) {
+        return SUBPROTOCOL.equals(session.getNegotiatedSubprotocol());
+    }
+
+    @Override
+    public final void init(EndpointConfig config) {
+    }
+
+    @Override
+    public final void destroy() {
+    }
+
+    @Override
+    public final ByteBuffer encode(T object) throws EncodeException {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            doEncode(object, out);
+            out.flush();
+            return ByteBuffer.wrap(bytes.toByteArray());
+        } catch (IOException | RuntimeException ex) {
+            throw new EncodeException(object, "Encoding error", ex);
+        }
+    }
+
+    @Override
+    public final T decode(ByteBuffer bytes) throws DecodeException {
+        try {
+            return doDecode(bytes);
+        } catch (RuntimeException ex) {
+            throw new DecodeException(bytes, "Decoding error", ex);
+        }
+    }
+
+    @Override
+    public boolean willDecode(ByteBuffer bytes) {
+        return bytes.remaining() >= Long.BYTES;
+    }
+
+    protected abstract void doEncode(T object, DataOutputStream out) throws IOException;
+
+    protected abstract T doDecode(ByteBuffer bytes);
+
+    protected static void writeField(DataOutputStream out, byte[] data) throws IOException {
+        if (data == null) {
+            out.writeLong(MISSING);
+            return;
+        }
+        out.writeLong(data.length);
+        out.write(data);
+    }
+
+    protected static byte[] readField(ByteBuffer bytes) {
+        long length = bytes.getLong();
+        if (length == MISSING) {
+            return null;
+        }
+        byte[] data = new byte[checkSize(length, bytes.remaining(), "Field length")];
+        bytes.get(data);
+        return data;
+    }
+
+    private static int readCount(ByteBuffer bytes) {
+        // every element takes at least the 8 bytes of its length
+        return checkSize(bytes.getLong(), bytes.remaining() / Long.BYTES, "Element count");
+    }
+
+    private static int checkSize(long size, int limit, String name) {
+        if (size < 0 || size > limit) {
+            throw new IllegalArgumentException(name + " " + size + " does not fit in the remaining message");
+        }
+        return (int) size;
+    }
+
+    protected static void writeFields(DataOutputStream out, List<byte[]> data) throws IOException {
+        out.writeLong(data.size());
+        for (byte[] field : data) {
+            writeField(out, field);
+        }
+    }
+
+    protected static List<byte[]> readFields(ByteBuffer bytes) {
+        int size = readCount(bytes);
+        List<byte[]> data = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            data.add(readField(bytes));
+        }
+        return data;
+    }
+
+    protected static void writeString(DataOutputStream out, String value) throws IOException {
+        writeField(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected static String readString(ByteBuffer bytes) {
+        byte[] data = readField(bytes);
+        return data == null ? null : new String(data, StandardCharsets.UTF_8);
+    }
+
+    protected static void writeKey(DataOutputStream out, PublicKey key) throws IOException {
+        writeField(out, key == null ? null : key.getKeyBytes());
+    }
+
+    protected static PublicKey readKey(ByteBuffer bytes) {
+        byte[] data = readField(bytes);
+        return data == null ? null : PublicKey.from(data);
+    }
+
+    protected static void writeKeys(DataOutputStream out, Collection<PublicKey> keys) throws IOException {
+        out.writeLong(keys.size());
+        for (PublicKey key : keys) {
+            writeKey(out, key);
+        }
+    }
+
+    protected static List<PublicKey> readKeys(ByteBuffer bytes) {
+        int size = readCount(bytes);
+        List<PublicKey> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            keys.add(readKey(bytes));
+        }
+        return keys;
+    }
+
+    protected static void writePayload(DataOutputStream out, EncodedPayload payload) throws IOException {
+        writeField(out, PAYLOAD_ENCODER.encode(payload));
+    }
+
+    protected static EncodedPayload readPayload(ByteBuffer bytes) {
+        return PAYLOAD_ENCODER.decode(readField(bytes));
+    }
+
+    protected static void writePayloads(DataOutputStream out, List<EncodedPayload> payloads) throws IOException {
+        out.writeLong(payloads.size());
+        for (EncodedPayload payload : payloads) {
+            writePayload(out, payload);
+        }
+    }
+
+    protected static List<EncodedPayload> readPayloads(ByteBuffer bytes) {
+        int size = readCount(bytes);
+        List<EncodedPayload> payloads = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            payloads.add(readPayload(bytes));
+        }
+        return payloads;
+    }
+
+    protected static void writeRawTransaction(DataOutputStream out, RawTransaction txn) throws IOException {
+        writeField(out, txn.getEncryptedPayload());
+        writeField(out, txn.getEncryptedKey());
+        writeField(out, txn.getNonce().getNonceBytes());
+        writeKey(out, txn.getFrom());
+    }
+
+    protected static RawTransaction readRawTransaction(ByteBuffer bytes) {
+        return RawTransactionBuilder.create()
+                .withEncryptedPayload(readField(bytes))
+                .withEncryptedKey(readField(bytes))
+                .withNonce(readField(bytes))
+                .withFrom(readKey(bytes))
+                .build();
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.quorum.tessera.enclave.websockets;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Base64.Decoder;
+import java.util.Base64.Encoder;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+public class ByteArrayListCodec extends JsonCodec<byte[][]> {
+
+    @Override
+    public JsonObjectBuilder doEncode(byte[][] object) throws Exception {
+
+        Encoder base64Encoder = Base64.getEncoder();
+
+        JsonArrayBuilder jsonArrayBuilder = Json.createArrayBuilder();
+
+        Arrays.stream(object)
+                .map(base64Encoder::encodeToString)
+                .forEach(jsonArrayBuilder::add);
+
+        return Json.createObjectBuilder()
+                .add("values", jsonArrayBuilder);
+    }
+
+    @Override
+    public byte[][] doDecode(JsonObject json) throws Exception {
+
+        Decoder base64Decoder = Base64.getDecoder();
+        JsonArray values = json.getJsonArray("values");
+        byte[][] data = new byte[values.size()][];
+        for (int i = 0; i < values.size(); i++) {
+            data[i] = base64Decoder.decode(values.getString(i));
+        }
+        return data;
+
+    }
+
+}
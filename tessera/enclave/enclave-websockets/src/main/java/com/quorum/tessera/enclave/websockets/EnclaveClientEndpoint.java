@@ -1,9 +1,13 @@
 package com.quorum.tessera.enclave.websockets;
 
-import java.util.Optional;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.TimeUnit;
+import com.quorum.tessera.enclave.EnclaveException;
+import com.quorum.tessera.enclave.EnclaveNotAvailableException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.websocket.ClientEndpoint;
+import javax.websocket.DecodeException;
 import javax.websocket.Session;
 import javax.websocket.OnClose;
 import javax.websocket.OnMessage;
@@ -11,7 +15,15 @@ import javax.websocket.OnOpen;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Receives the responses to requests sent to a remote enclave, and completes
+ * the pending call each one answers by the id of its request, failing it with
+ * an {@link EnclaveException} if the enclave failed the request. One endpoint
+ * may serve several sessions. Responses arrive as binary messages on sessions
+ * that negotiated the {@link BinaryCodec#SUBPROTOCOL}, and as JSON otherwise.
+ */
 @ClientEndpoint(
+        subprotocols = {BinaryCodec.SUBPROTOCOL, JsonCodec.SUBPROTOCOL},
         encoders = {EnclaveRequestCodec.class},
         decoders = {
             EnclaveResponseCodec.class
@@ -21,7 +33,9 @@ public class EnclaveClientEndpoint {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EnclaveClientEndpoint.class);
 
-    private SynchronousQueue result = new SynchronousQueue<>();
+    private static final EnclaveResponseBinaryCodec RESPONSE_CODEC = new EnclaveResponseBinaryCodec();
+
+    private final Map<String, CompletableFuture<Object>> pending = new ConcurrentHashMap<>();
 
     @OnOpen
     public void onOpen(Session session) {
@@ -32,15 +46,38 @@ public class EnclaveClientEndpoint {
     public <T> void onResult(Session session, EnclaveResponse<T> response) {
         LOGGER.debug("Response : {}", response);
 
-        InterruptableCallback.execute(() -> {
-            result.put(response.getPayload());
-            return true;
-        });
+        String requestId = response.getRequestId();
+        CompletableFuture<Object> result = requestId == null ? null : pending.remove(requestId);
+        if (result == null) {
+            LOGGER.warn("Ignoring {} response to unknown request {}", response.getRequestType(), requestId);
+            return;
+        }
+        if (response.isFailed()) {
+            result.completeExceptionally(new EnclaveException(
+                    "Remote enclave instance threw an error " + response.getError()));
+            return;
+        }
+        result.complete(response.getPayload());
+    }
+
+    @OnMessage
+    public void onBinaryResult(Session session, ByteBuffer message) throws DecodeException {
+        onResult(session, RESPONSE_CODEC.decode(message));
+    }
+
+    /**
+     * @param requestId the id of a request about to be sent
+     * @return the result of the request, completed when its response arrives
+     */
+    public CompletableFuture<Object> register(String requestId) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        pending.put(requestId, result);
+        result.whenComplete((r, ex) -> pending.remove(requestId, result));
+        return result;
     }
 
-    public <T> Optional<T> pollForResult(Class<T> type) {
-        Object o = InterruptableCallback.execute(() -> result.poll(5, TimeUnit.SECONDS));
-        return Optional.ofNullable(type.cast(o));
+    public int pendingCount() {
+        return pending.size();
     }
 
     @OnClose
@@ -48,4 +85,13 @@ public class EnclaveClientEndpoint {
         LOGGER.debug("Closing session {}", session.getId());
     }
 
+    /**
+     * Fails every call still waiting for a response, which will not arrive once
+     * the sessions they were sent on are closed.
+     */
+    public void failPending() {
+        pending.values().forEach(r -> r.completeExceptionally(
+                new EnclaveNotAvailableException("Connection to the enclave was closed")));
+    }
+
 }
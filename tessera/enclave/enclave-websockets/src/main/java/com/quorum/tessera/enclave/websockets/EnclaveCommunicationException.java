@@ -6,5 +6,9 @@ public class EnclaveCommunicationException extends RuntimeException {
     public EnclaveCommunicationException(Throwable cause) {
         super(cause);
     }
+
+    public EnclaveCommunicationException(String message) {
+        super(message);
+    }
     
 }
@@ -8,6 +8,7 @@ import com.quorum.tessera.service.Service.Status;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.websocket.DecodeException;
 import javax.websocket.OnClose;
 import javax.websocket.OnMessage;
 import javax.websocket.OnOpen;
@@ -15,15 +16,32 @@ import javax.websocket.Session;
 import javax.websocket.server.ServerEndpoint;
 import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @ServerEndpoint(value = "/enclave",
+        subprotocols = {BinaryCodec.SUBPROTOCOL, JsonCodec.SUBPROTOCOL},
         encoders = {EnclaveResponseCodec.class},
         decoders = {EnclaveRequestCodec.class})
 public class EnclaveEndpoint {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EnclaveEndpoint.class);
 
+    static final int REQUEST_THREADS = Runtime.getRuntime().availableProcessors();
+
+    static final int REQUEST_QUEUE_SIZE = 1000;
+
+    private static final EnclaveRequestBinaryCodec REQUEST_CODEC = new EnclaveRequestBinaryCodec();
+
+    private static final EnclaveResponseBinaryCodec RESPONSE_CODEC = new EnclaveResponseBinaryCodec();
+
+    private final ExecutorService executor;
+
     private final ThreadLocal<Enclave> enclaveThreadLocal = new ThreadLocal<Enclave>() {
         @Override
         protected Enclave initialValue() {
@@ -32,47 +50,102 @@ public class EnclaveEndpoint {
 
     };
 
+    public EnclaveEndpoint() {
+        this(requestExecutor());
+    }
+
+    EnclaveEndpoint(ExecutorService executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /*
+     * An endpoint serves a single session, so each session has a fixed number of
+     * threads and requests that can wait for one. Idle threads are let go.
+     */
+    private static ExecutorService requestExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(REQUEST_THREADS, REQUEST_THREADS,
+                60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(REQUEST_QUEUE_SIZE), r -> {
+                    Thread thread = new Thread(r, "enclave-websocket-request");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     @OnOpen
     public void onOpen(final Session session) {
         LOGGER.info("Opening session {}", session.getId());
     }
 
+    /*
+     * Requests with an id are answered on the executor, so that a client can have
+     * many of them in flight over one session, and are answered with the failure
+     * if the enclave cannot handle them or too many are already waiting. Requests
+     * without one are answered in the order they arrive.
+     */
     @OnMessage
     public void onRequest(Session session, EnclaveRequest request) {
 
         LOGGER.info("Request {}", request.getClass());
 
+        if (request.getType() == null) {
+            throw new UnsupportedOperationException("Unsupported operation");
+        }
+
+        if (request.getId() == null) {
+            handle(session, request);
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    handle(session, request);
+                } catch (RuntimeException ex) {
+                    LOGGER.error("Unable to handle {} request {}", request.getType(), request.getId());
+                    LOGGER.debug(null, ex);
+                    respondWithFailure(session, request, ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            LOGGER.warn("Rejecting {} request {}, too many requests are waiting", request.getType(), request.getId());
+            respondWithFailure(session, request, new RejectedExecutionException("Too many requests are waiting"));
+        }
+    }
+
+    @OnMessage
+    public void onBinaryRequest(Session session, ByteBuffer message) throws DecodeException {
+        onRequest(session, REQUEST_CODEC.decode(message));
+    }
+
+    private void handle(Session session, EnclaveRequest request) {
+
         EnclaveRequestType type = request.getType();
 
         final WebSocketTemplate webSocketTemplate = new WebSocketTemplate(session);
 
-        if (type == null) {
-            throw new UnsupportedOperationException("Unsupported operation");
-        }
-        
         Enclave enclave = enclaveThreadLocal.get();
         switch (type) {
             case STATUS:
                 Status status = enclave.status();
-                webSocketTemplate.execute(s -> s.getBasicRemote().sendObject(new EnclaveResponse(type, status)));
+                respond(webSocketTemplate, request, status);
                 break;
 
             case DEFAULT_PUBLIC_KEY:
                 PublicKey publicKey = enclave.defaultPublicKey();
-                webSocketTemplate.execute(session1 -> session1.getBasicRemote().sendObject(new EnclaveResponse(type, publicKey)));
+                respond(webSocketTemplate, request, publicKey);
                 break;
 
             case FORWARDING_KEYS:
                 Set<PublicKey> forwardingKeys = enclave.getForwardingKeys();
 
-                webSocketTemplate.execute(s -> s.getBasicRemote().sendObject(
-                        new EnclaveResponse(type, forwardingKeys.toArray(new PublicKey[0]))));
+                respond(webSocketTemplate, request, forwardingKeys.toArray(new PublicKey[0]));
                 break;
 
             case PUBLIC_KEYS:
                 Set<PublicKey> publicKeys = enclave.getPublicKeys();
-                webSocketTemplate.execute(s -> s.getBasicRemote().sendObject(
-                        new EnclaveResponse(type, publicKeys.toArray(new PublicKey[0]))));
+                respond(webSocketTemplate, request, publicKeys.toArray(new PublicKey[0]));
                 break;
 
             case ENCRYPT_PAYLOAD:
@@ -82,7 +155,7 @@ public class EnclaveEndpoint {
                 List<PublicKey> recipientPublicKeys = (List<PublicKey>) request.getArgs().get(2);
 
                 EncodedPayload payload = enclave.encryptPayload(message, senderPublicKey, recipientPublicKeys);
-                webSocketTemplate.execute((s) -> s.getBasicRemote().sendObject(new EnclaveResponse(type, payload)));
+                respond(webSocketTemplate, request, payload);
 
                 break;
 
@@ -91,7 +164,7 @@ public class EnclaveEndpoint {
                 List<PublicKey> recipients = (List<PublicKey>) request.getArgs().get(1);
 
                 EncodedPayload encRawPayload = enclave.encryptPayload(txn, recipients);
-                webSocketTemplate.execute(s -> s.getBasicRemote().sendObject(new EnclaveResponse(type, encRawPayload)));
+                respond(webSocketTemplate, request, encRawPayload);
                 break;
 
             case ENCRYPT_RAW_PAYLOAD:
@@ -101,14 +174,14 @@ public class EnclaveEndpoint {
 
                 RawTransaction rawTransaction = enclave.encryptRawPayload(rawMessage, from);
 
-                webSocketTemplate.execute(s -> s.getBasicRemote().sendObject(new EnclaveResponse(type, rawTransaction)));
+                respond(webSocketTemplate, request, rawTransaction);
                 break;
 
             case UNENCRYPT_TXN:
                 EncodedPayload unencryptPayload = (EncodedPayload) request.getArgs().get(0);
                 PublicKey providedKey = (PublicKey) request.getArgs().get(1);
                 byte[] txnData = enclave.unencryptTransaction(unencryptPayload, providedKey);
-                webSocketTemplate.execute(s -> s.getBasicRemote().sendObject(new EnclaveResponse(type, ByteBuffer.wrap(txnData))));
+                respond(webSocketTemplate, request, ByteBuffer.wrap(txnData));
                 break;
 
             case CREATE_NEW_RECIPIENT_BOX:
@@ -116,15 +189,62 @@ public class EnclaveEndpoint {
                 PublicKey recipientKey = (PublicKey) request.getArgs().get(1);
 
                 byte[] boxData = enclave.createNewRecipientBox(createNewRecipientPayload, recipientKey);
-                webSocketTemplate.execute(s -> s.getBasicRemote().sendObject(new EnclaveResponse(type, ByteBuffer.wrap(boxData))));
+                respond(webSocketTemplate, request, ByteBuffer.wrap(boxData));
+                break;
+
+            case ENCRYPT_PAYLOADS:
+                List<byte[]> messages = (List<byte[]>) request.getArgs().get(0);
+                PublicKey batchSenderKey = (PublicKey) request.getArgs().get(1);
+                List<PublicKey> batchRecipientKeys = (List<PublicKey>) request.getArgs().get(2);
+
+                EncodedPayload[] payloads = enclave.encryptPayloads(messages, batchSenderKey, batchRecipientKeys)
+                        .toArray(new EncodedPayload[0]);
+                respond(webSocketTemplate, request, payloads);
+                break;
+
+            case UNENCRYPT_TXNS:
+                List<EncodedPayload> unencryptPayloads = (List<EncodedPayload>) request.getArgs().get(0);
+                List<PublicKey> providedKeys = (List<PublicKey>) request.getArgs().get(1);
+
+                byte[][] txnsData = enclave.unencryptTransactions(unencryptPayloads, providedKeys)
+                        .toArray(new byte[0][]);
+                respond(webSocketTemplate, request, txnsData);
                 break;
         }
 
     }
 
+    private static void respond(WebSocketTemplate webSocketTemplate, EnclaveRequest request, Object payload) {
+        send(webSocketTemplate, new EnclaveResponse<>(request.getType(), request.getId(), payload));
+    }
+
+    private static void respondWithFailure(Session session, EnclaveRequest request, RuntimeException failure) {
+        String error = failure.getMessage() == null ? failure.getClass().getName() : failure.getMessage();
+        try {
+            send(new WebSocketTemplate(session), EnclaveResponse.failed(request.getType(), request.getId(), error));
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Unable to send failure of {} request {}", request.getType(), request.getId());
+            LOGGER.debug(null, ex);
+        }
+    }
+
+    private static void send(WebSocketTemplate webSocketTemplate, EnclaveResponse<?> response) {
+        webSocketTemplate.execute(s -> {
+            if (BinaryCodec.isNegotiated(s)) {
+                s.getBasicRemote().sendBinary(RESPONSE_CODEC.encode(response));
+            } else {
+                s.getBasicRemote().sendObject(response);
+            }
+        });
+    }
+
+    /*
+     * Requests still waiting are dropped, as their responses can no longer be sent.
+     */
     @OnClose
     public void onClose(final Session session) {
         LOGGER.info("Closing session {}", session.getId());
+        executor.shutdownNow();
     }
 
 }
@@ -8,10 +8,13 @@ public class EnclaveRequest implements Serializable {
     
     private EnclaveRequestType type;
 
+    private String id;
+
     private List<?> args;
 
-    private EnclaveRequest(EnclaveRequestType type, List<?> args) {
+    private EnclaveRequest(EnclaveRequestType type, String id, List<?> args) {
         this.type = type;
+        this.id = id;
         this.args = args;
     }
 
@@ -19,6 +22,14 @@ public class EnclaveRequest implements Serializable {
         return type;
     }
 
+    /**
+     * @return the id the response to this request is correlated by, or null
+     * if the request is answered on its session before the next one is read
+     */
+    public String getId() {
+        return id;
+    }
+
     public List<?> getArgs() {
         return args;
     }
@@ -27,6 +38,8 @@ public class EnclaveRequest implements Serializable {
 
         private EnclaveRequestType type;
 
+        private String id;
+
         private List<Object> args = new ArrayList<>();
 
         private Builder() {
@@ -41,6 +54,11 @@ public class EnclaveRequest implements Serializable {
             return this;
         }
 
+        public Builder withId(String id) {
+            this.id = id;
+            return this;
+        }
+
         public <T> Builder withArg(T arg) {
             this.args.add(arg);
             return this;
@@ -52,7 +70,7 @@ public class EnclaveRequest implements Serializable {
                 throw new IllegalStateException("Param types and args are not of equal length:" + type + " "+ args);
             }
             
-            return new EnclaveRequest(type, args);
+            return new EnclaveRequest(type, id, args);
         }
 
     }
@@ -0,0 +1,110 @@
+package com.quorum.tessera.enclave.websockets;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.RawTransaction;
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Writes the type and id of a request followed by its args, each in the form
+ * given by its {@link ArgType}.
+ */
+public class EnclaveRequestBinaryCodec extends BinaryCodec<EnclaveRequest> {
+
+    @Override
+    protected void doEncode(EnclaveRequest request, DataOutputStream out) throws IOException {
+        EnclaveRequestType enclaveRequestType = request.getType();
+
+        writeString(out, enclaveRequestType.name());
+        writeString(out, request.getId());
+
+        for (int i = 0; i < enclaveRequestType.getParamTypes().size(); i++) {
+            Object value = request.getArgs().get(i);
+
+            switch (enclaveRequestType.getParamTypes().get(i)) {
+                case BYTE_ARRAY:
+                    writeField(out, (byte[]) value);
+                    break;
+
+                case STRING:
+                    writeString(out, (String) value);
+                    break;
+
+                case PUBLIC_KEY:
+                    writeKey(out, (PublicKey) value);
+                    break;
+
+                case PUBLIC_KEY_LIST:
+                    writeKeys(out, (List<PublicKey>) value);
+                    break;
+
+                case BYTE_ARRAY_LIST:
+                    writeFields(out, (List<byte[]>) value);
+                    break;
+
+                case RAW_TRANSACTION:
+                    writeRawTransaction(out, (RawTransaction) value);
+                    break;
+
+                case ENCODED_PAYLOAD:
+                    writePayload(out, (EncodedPayload) value);
+                    break;
+
+                case ENCODED_PAYLOAD_LIST:
+                    writePayloads(out, (List<EncodedPayload>) value);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    protected EnclaveRequest doDecode(ByteBuffer bytes) {
+        EnclaveRequestType enclaveRequestType = EnclaveRequestType.valueOf(readString(bytes));
+
+        EnclaveRequest.Builder requestBuilder = EnclaveRequest.Builder.create()
+                .withType(enclaveRequestType)
+                .withId(readString(bytes));
+
+        for (ArgType type : enclaveRequestType.getParamTypes()) {
+            switch (type) {
+                case BYTE_ARRAY:
+                    requestBuilder.withArg(readField(bytes));
+                    break;
+
+                case STRING:
+                    requestBuilder.withArg(readString(bytes));
+                    break;
+
+                case PUBLIC_KEY:
+                    requestBuilder.withArg(readKey(bytes));
+                    break;
+
+                case PUBLIC_KEY_LIST:
+                    requestBuilder.withArg(readKeys(bytes));
+                    break;
+
+                case BYTE_ARRAY_LIST:
+                    requestBuilder.withArg(readFields(bytes));
+                    break;
+
+                case RAW_TRANSACTION:
+                    requestBuilder.withArg(readRawTransaction(bytes));
+                    break;
+
+                case ENCODED_PAYLOAD:
+                    requestBuilder.withArg(readPayload(bytes));
+                    break;
+
+                case ENCODED_PAYLOAD_LIST:
+                    requestBuilder.withArg(readPayloads(bytes));
+                    break;
+            }
+        }
+
+        return requestBuilder.build();
+    }
+
+}
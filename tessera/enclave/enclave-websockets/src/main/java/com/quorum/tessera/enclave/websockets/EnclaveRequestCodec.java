@@ -5,6 +5,7 @@ import com.quorum.tessera.enclave.RawTransaction;
 import com.quorum.tessera.encryption.PublicKey;
 
 import javax.json.*;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Base64.Decoder;
 import java.util.Base64.Encoder;
@@ -33,10 +34,35 @@ public class EnclaveRequestCodec extends JsonCodec<EnclaveRequest> {
                     JsonArrayBuilder nestedBuilder = Json.createArrayBuilder();
                     List<PublicKey> publicKeys = List.class.cast(value);
 
-                    publicKeys.forEach(k -> nestedBuilder.add(BASE64_ENCODER.encodeToString(k.getKeyBytes())));
+                    // a batch decryption has no key for the payloads this enclave sent
+                    publicKeys.forEach(k -> {
+                        if (k == null) {
+                            nestedBuilder.addNull();
+                        } else {
+                            nestedBuilder.add(BASE64_ENCODER.encodeToString(k.getKeyBytes()));
+                        }
+                    });
                     jsonArrayBuilder.add(nestedBuilder);
                     break;
 
+                case BYTE_ARRAY_LIST:
+                    JsonArrayBuilder valuesBuilder = Json.createArrayBuilder();
+                    List<byte[]> values = List.class.cast(value);
+
+                    values.forEach(v -> valuesBuilder.add(BASE64_ENCODER.encodeToString(v)));
+                    jsonArrayBuilder.add(valuesBuilder);
+                    break;
+
+                case ENCODED_PAYLOAD_LIST:
+                    JsonArrayBuilder payloadsBuilder = Json.createArrayBuilder();
+                    List<EncodedPayload> payloads = List.class.cast(value);
+
+                    for (EncodedPayload payload : payloads) {
+                        payloadsBuilder.add(new EncodedPayloadCodec().doEncode(payload));
+                    }
+                    jsonArrayBuilder.add(payloadsBuilder);
+                    break;
+
                 case BYTE_ARRAY:
                     String encodedValue = BASE64_ENCODER.encodeToString((byte[]) value);
                     jsonArrayBuilder.add(encodedValue);
@@ -63,9 +89,14 @@ public class EnclaveRequestCodec extends JsonCodec<EnclaveRequest> {
 
         }
 
-        return Json.createObjectBuilder()
+        JsonObjectBuilder builder = Json.createObjectBuilder()
                 .add("type", request.getType().name())
                 .add("args", jsonArrayBuilder);
+
+        if (request.getId() != null) {
+            builder.add("id", request.getId());
+        }
+        return builder;
     }
 
     @Override
@@ -76,7 +107,8 @@ public class EnclaveRequestCodec extends JsonCodec<EnclaveRequest> {
         JsonArray args = json.getJsonArray("args");
 
         EnclaveRequest.Builder requestBuilder = EnclaveRequest.Builder.create()
-                .withType(enclaveRequestType);
+                .withType(enclaveRequestType)
+                .withId(json.getString("id", null));
 
         for (int i = 0; i < args.size(); i++) {
 
@@ -97,13 +129,29 @@ public class EnclaveRequestCodec extends JsonCodec<EnclaveRequest> {
 
                 case PUBLIC_KEY_LIST:
                     List<PublicKey> publicKeys = args.getJsonArray(i).stream()
+                        .map(v -> v.getValueType() == JsonValue.ValueType.NULL ? null : decodeKey((JsonString) v))
+                        .collect(Collectors.toList());
+
+                    requestBuilder.withArg(publicKeys);
+                    break;
+
+                case BYTE_ARRAY_LIST:
+                    List<byte[]> values = args.getJsonArray(i).stream()
                         .map(JsonString.class::cast)
                         .map(JsonString::getString)
                         .map(BASE64_DECODER::decode)
-                        .map(PublicKey::from)
                         .collect(Collectors.toList());
 
-                    requestBuilder.withArg(publicKeys);
+                    requestBuilder.withArg(values);
+                    break;
+
+                case ENCODED_PAYLOAD_LIST:
+                    List<EncodedPayload> payloads = new ArrayList<>();
+                    for (JsonObject payload : args.getJsonArray(i).getValuesAs(JsonObject.class)) {
+                        payloads.add(new EncodedPayloadCodec().doDecode(payload));
+                    }
+
+                    requestBuilder.withArg(payloads);
                     break;
 
                 case RAW_TRANSACTION:
@@ -120,6 +168,10 @@ public class EnclaveRequestCodec extends JsonCodec<EnclaveRequest> {
 
     }
 
+    private static PublicKey decodeKey(JsonString encodedKey) {
+        return PublicKey.from(BASE64_DECODER.decode(encodedKey.getString()));
+    }
+
 
     
     
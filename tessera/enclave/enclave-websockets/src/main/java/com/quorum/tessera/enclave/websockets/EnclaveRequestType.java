@@ -12,7 +12,10 @@ public enum EnclaveRequestType {
     ENCRYPT_RAWTXN_PAYLOAD(EnclaveResponseType.ENCODED_PAYLOAD,ArgType.RAW_TRANSACTION,ArgType.PUBLIC_KEY_LIST),
     ENCRYPT_RAW_PAYLOAD(EnclaveResponseType.RAW_TXN,ArgType.BYTE_ARRAY,ArgType.PUBLIC_KEY),
     UNENCRYPT_TXN(EnclaveResponseType.BYTES,ArgType.ENCODED_PAYLOAD,ArgType.PUBLIC_KEY),
-    CREATE_NEW_RECIPIENT_BOX(EnclaveResponseType.BYTES,ArgType.ENCODED_PAYLOAD,ArgType.PUBLIC_KEY);
+    CREATE_NEW_RECIPIENT_BOX(EnclaveResponseType.BYTES,ArgType.ENCODED_PAYLOAD,ArgType.PUBLIC_KEY),
+    ENCRYPT_PAYLOADS(
+        EnclaveResponseType.ENCODED_PAYLOADS,ArgType.BYTE_ARRAY_LIST,ArgType.PUBLIC_KEY,ArgType.PUBLIC_KEY_LIST),
+    UNENCRYPT_TXNS(EnclaveResponseType.BYTES_LIST,ArgType.ENCODED_PAYLOAD_LIST,ArgType.PUBLIC_KEY_LIST);
     
 
     private EnclaveResponseType responseType;
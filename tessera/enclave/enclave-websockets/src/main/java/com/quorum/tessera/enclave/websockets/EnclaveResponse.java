@@ -1,23 +1,56 @@
 package com.quorum.tessera.enclave.websockets;
 
-
+/**
+ * The answer to an {@link EnclaveRequest}, carrying either the result of the
+ * request or, if the enclave failed to handle it, a description of the failure.
+ */
 public class EnclaveResponse<T> {
     
     private final EnclaveRequestType requestType;
 
+    private final String requestId;
+
     private final T payload;
 
+    private final String error;
+
     public EnclaveResponse(EnclaveRequestType requestType, T payload) {
+        this(requestType, null, payload);
+    }
+
+    public EnclaveResponse(EnclaveRequestType requestType, String requestId, T payload) {
+        this(requestType, requestId, payload, null);
+    }
+
+    private EnclaveResponse(EnclaveRequestType requestType, String requestId, T payload, String error) {
         this.requestType = requestType;
+        this.requestId = requestId;
         this.payload = payload;
+        this.error = error;
+    }
+
+    public static <T> EnclaveResponse<T> failed(EnclaveRequestType requestType, String requestId, String error) {
+        return new EnclaveResponse<>(requestType, requestId, null, error);
     }
 
     public EnclaveRequestType getRequestType() {
         return requestType;
     }
 
+    public String getRequestId() {
+        return requestId;
+    }
+
     public T getPayload() {
         return payload;
     }
 
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
 }
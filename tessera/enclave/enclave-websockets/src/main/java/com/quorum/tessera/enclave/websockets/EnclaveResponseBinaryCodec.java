@@ -0,0 +1,121 @@
+package com.quorum.tessera.enclave.websockets;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.RawTransaction;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.service.Service;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Writes the request type and request id of a response followed by its error,
+ * which is missing unless the request failed, and then its payload, in the
+ * form given by the {@link EnclaveResponseType} of the request. A failed
+ * response has no payload.
+ */
+public class EnclaveResponseBinaryCodec extends BinaryCodec<EnclaveResponse> {
+
+    @Override
+    protected void doEncode(EnclaveResponse response, DataOutputStream out) throws IOException {
+        EnclaveRequestType enclaveRequestType = response.getRequestType();
+
+        writeString(out, enclaveRequestType.name());
+        writeString(out, response.getRequestId());
+        writeString(out, response.getError());
+
+        if (response.isFailed()) {
+            return;
+        }
+
+        Object payload = response.getPayload();
+
+        switch (enclaveRequestType.getResponseType()) {
+            case STATUS:
+                writeString(out, ((Service.Status) payload).name());
+                break;
+
+            case PUBLIC_KEY:
+                writeKey(out, (PublicKey) payload);
+                break;
+
+            case PUBLIC_KEYS:
+                writeKeys(out, Arrays.asList((PublicKey[]) payload));
+                break;
+
+            case BYTES:
+                writeField(out, ((ByteBuffer) payload).array());
+                break;
+
+            case BYTES_LIST:
+                writeFields(out, Arrays.asList((byte[][]) payload));
+                break;
+
+            case RAW_TXN:
+                writeRawTransaction(out, (RawTransaction) payload);
+                break;
+
+            case ENCODED_PAYLOAD:
+                writePayload(out, (EncodedPayload) payload);
+                break;
+
+            case ENCODED_PAYLOADS:
+                writePayloads(out, Arrays.asList((EncodedPayload[]) payload));
+                break;
+        }
+    }
+
+    @Override
+    protected EnclaveResponse doDecode(ByteBuffer bytes) {
+        EnclaveRequestType enclaveRequestType = EnclaveRequestType.valueOf(readString(bytes));
+
+        String requestId = readString(bytes);
+
+        String error = readString(bytes);
+        if (error != null) {
+            return EnclaveResponse.failed(enclaveRequestType, requestId, error);
+        }
+
+        final Object payload;
+        switch (enclaveRequestType.getResponseType()) {
+            case STATUS:
+                payload = Service.Status.valueOf(readString(bytes));
+                break;
+
+            case PUBLIC_KEY:
+                payload = readKey(bytes);
+                break;
+
+            case PUBLIC_KEYS:
+                payload = readKeys(bytes).toArray(new PublicKey[0]);
+                break;
+
+            case BYTES:
+                payload = ByteBuffer.wrap(readField(bytes));
+                break;
+
+            case BYTES_LIST:
+                payload = readFields(bytes).toArray(new byte[0][]);
+                break;
+
+            case RAW_TXN:
+                payload = readRawTransaction(bytes);
+                break;
+
+            case ENCODED_PAYLOAD:
+                payload = readPayload(bytes);
+                break;
+
+            case ENCODED_PAYLOADS:
+                payload = readPayloads(bytes).toArray(new EncodedPayload[0]);
+                break;
+
+            default:
+                throw new UnsupportedOperationException("Unsupported response type " + enclaveRequestType);
+        }
+
+        return new EnclaveResponse<>(enclaveRequestType, requestId, payload);
+    }
+
+}
@@ -22,11 +22,23 @@ public class EnclaveResponseCodec extends JsonCodec<EnclaveResponse> {
         lookup.put(EnclaveResponseType.STATUS, new StatusCodec());
         lookup.put(EnclaveResponseType.RAW_TXN, new RawTransactionCodec());
         lookup.put(EnclaveResponseType.ENCODED_PAYLOAD, new EncodedPayloadCodec());
+        lookup.put(EnclaveResponseType.ENCODED_PAYLOADS, new EncodedPayloadListCodec());
+        lookup.put(EnclaveResponseType.BYTES_LIST, new ByteArrayListCodec());
     }
 
     @Override
     protected JsonObjectBuilder doEncode(EnclaveResponse response) throws Exception {
 
+        if (response.isFailed()) {
+            JsonObjectBuilder builder = Json.createObjectBuilder()
+                    .add("requestType", response.getRequestType().name())
+                    .add("error", response.getError());
+            if (response.getRequestId() != null) {
+                builder.add("requestId", response.getRequestId());
+            }
+            return builder;
+        }
+
         EnclaveResponseType enclaveResponseType = response.getRequestType().getResponseType();
 
         final String payload;
@@ -37,10 +49,15 @@ public class EnclaveResponseCodec extends JsonCodec<EnclaveResponse> {
             payload = lookup.get(enclaveResponseType).encode(response.getPayload());
         }
 
-        return Json.createObjectBuilder()
+        JsonObjectBuilder builder = Json.createObjectBuilder()
                 .add("requestType", response.getRequestType().name())
                 .add("payload", payload);
 
+        if (response.getRequestId() != null) {
+            builder.add("requestId", response.getRequestId());
+        }
+        return builder;
+
     }
 
     @Override
@@ -50,14 +67,20 @@ public class EnclaveResponseCodec extends JsonCodec<EnclaveResponse> {
 
         EnclaveResponseType enclaveResponseType = enclaveRequestType.getResponseType();
 
+        String requestId = json.getString("requestId", null);
+
+        if (json.containsKey("error")) {
+            return EnclaveResponse.failed(enclaveRequestType, requestId, json.getString("error"));
+        }
+
         String encodedPayload = json.getString("payload");
 
         if (enclaveResponseType == EnclaveResponseType.BYTES) {
             byte[] data = BASE64_DECODER.decode(encodedPayload);
-            return new EnclaveResponse(enclaveRequestType, ByteBuffer.wrap(data));
+            return new EnclaveResponse(enclaveRequestType, requestId, ByteBuffer.wrap(data));
         } else {
             Object o = lookup.get(enclaveResponseType).decode(encodedPayload);
-            return new EnclaveResponse(enclaveRequestType, o);
+            return new EnclaveResponse(enclaveRequestType, requestId, o);
         }
     }
 
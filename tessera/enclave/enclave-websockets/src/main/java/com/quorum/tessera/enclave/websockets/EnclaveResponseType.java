@@ -7,5 +7,7 @@ public enum EnclaveResponseType {
     PUBLIC_KEYS,
     BYTES,
     ENCODED_PAYLOAD,
-    RAW_TXN
+    RAW_TXN,
+    ENCODED_PAYLOADS,
+    BYTES_LIST
 }
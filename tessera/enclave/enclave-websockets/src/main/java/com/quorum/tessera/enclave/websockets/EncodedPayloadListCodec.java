@@ -0,0 +1,39 @@
+package com.quorum.tessera.enclave.websockets;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+public class EncodedPayloadListCodec extends JsonCodec<EncodedPayload[]> {
+
+    private final EncodedPayloadCodec encodedPayloadCodec = new EncodedPayloadCodec();
+
+    @Override
+    public JsonObjectBuilder doEncode(EncodedPayload[] object) throws Exception {
+
+        JsonArrayBuilder jsonArrayBuilder = Json.createArrayBuilder();
+
+        for (EncodedPayload payload : object) {
+            jsonArrayBuilder.add(encodedPayloadCodec.doEncode(payload));
+        }
+
+        return Json.createObjectBuilder()
+                .add("payloads", jsonArrayBuilder);
+    }
+
+    @Override
+    public EncodedPayload[] doDecode(JsonObject json) throws Exception {
+
+        JsonArray payloads = json.getJsonArray("payloads");
+        EncodedPayload[] encodedPayloads = new EncodedPayload[payloads.size()];
+        for (int i = 0; i < payloads.size(); i++) {
+            encodedPayloads[i] = encodedPayloadCodec.doDecode(payloads.getJsonObject(i));
+        }
+        return encodedPayloads;
+
+    }
+
+}
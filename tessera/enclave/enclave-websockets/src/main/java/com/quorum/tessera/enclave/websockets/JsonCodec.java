@@ -22,6 +22,13 @@ import javax.json.stream.JsonParser;
 
 public abstract class JsonCodec<T> implements Decoder.Text<T>, Encoder.Text<T> {
 
+    /**
+     * Negotiated by sessions that exchange JSON messages carrying request ids,
+     * where the {@link BinaryCodec#SUBPROTOCOL} is not accepted. An enclave
+     * that accepts neither predates request ids.
+     */
+    public static final String SUBPROTOCOL = "tessera-enclave-json";
+
     private transient Logger logger = LoggerFactory.getLogger(getClass());
 
     public static final String ENCODED_BY_KEY = "encodedBy";
@@ -18,10 +18,16 @@ public class WebSocketTemplate {
         this.session = session;
     }
     
+    /*
+     * A basic remote endpoint cannot be written to by more than one thread at a
+     * time, so callbacks on the same session take turns.
+     */
     public void execute(WebSocketCallback callback) {
         try{
             LOGGER.debug("Before {}",session.getId());
-            callback.execute(session);
+            synchronized (session) {
+                callback.execute(session);
+            }
             LOGGER.debug("After {}",session.getId());
         } catch (IOException | DeploymentException | EncodeException ex) {
             LOGGER.debug(null, ex);
@@ -1,16 +1,27 @@
 package com.quorum.tessera.enclave.websockets;
 
 import com.quorum.tessera.enclave.EnclaveClient;
+import com.quorum.tessera.enclave.EnclaveNotAvailableException;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.RawTransaction;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.service.Service;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import javax.websocket.CloseReason;
 import javax.websocket.ContainerProvider;
@@ -20,181 +31,313 @@ import javax.websocket.WebSocketContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * An {@link EnclaveClient} that talks to a remote enclave over one or more
+ * websocket sessions.
+ * <p>
+ * Every request carries an id that the enclave puts on its response, so many
+ * calls can be in flight at once over the same session. Each call is failed
+ * if its response does not arrive within the timeout. The {@code ...Async}
+ * methods return the pending result instead of waiting for it.
+ * <p>
+ * Sessions offer the {@link BinaryCodec#SUBPROTOCOL}, and fall back to JSON
+ * messages if the enclave does not accept it. An enclave that accepts neither
+ * it nor the {@link JsonCodec#SUBPROTOCOL} predates request ids and would
+ * leave every call to time out, so the client fails to start instead.
+ */
 public class WebsocketEnclaveClient implements EnclaveClient {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WebsocketEnclaveClient.class);
 
+    static final int DEFAULT_SESSIONS = 1;
+
+    static final long DEFAULT_TIMEOUT_MILLIS = 5000L;
+
+    private static final ScheduledThreadPoolExecutor TIMEOUTS = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "enclave-websocket-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        TIMEOUTS.setRemoveOnCancelPolicy(true);
+    }
+
+    private static final EnclaveRequestBinaryCodec REQUEST_CODEC = new EnclaveRequestBinaryCodec();
+
     private final WebSocketContainer container;
 
-    private EnclaveClientEndpoint client = new EnclaveClientEndpoint();
+    private final EnclaveClientEndpoint client = new EnclaveClientEndpoint();
 
     private final URI serverUri;
 
-    private Session session;
+    private final int sessionCount;
+
+    private final long timeoutMillis;
+
+    private final AtomicLong requestIds = new AtomicLong();
+
+    private final AtomicInteger nextSession = new AtomicInteger();
 
-    private WebSocketTemplate webSocketTemplate;
+    private volatile List<Session> sessions = Collections.emptyList();
+
+    private volatile List<WebSocketTemplate> webSocketTemplates = Collections.emptyList();
 
     public WebsocketEnclaveClient(URI serverUri) {
         this(ContainerProvider.getWebSocketContainer(), serverUri);
     }
 
     public WebsocketEnclaveClient(WebSocketContainer container, URI serverUri) {
+        this(container, serverUri, DEFAULT_SESSIONS, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public WebsocketEnclaveClient(WebSocketContainer container, URI serverUri, int sessionCount, long timeoutMillis) {
         this.serverUri = Objects.requireNonNull(serverUri);
         this.container = Objects.requireNonNull(container);
+        if (sessionCount < 1) {
+            throw new IllegalArgumentException("At least one session is required");
+        }
+        this.sessionCount = sessionCount;
+        this.timeoutMillis = timeoutMillis;
     }
 
     @Override
     public void start() {
+        List<Session> opened = new ArrayList<>(sessionCount);
         try{
-            session = container.connectToServer(client, serverUri);
-            webSocketTemplate = new WebSocketTemplate(session);
+            for (int i = 0; i < sessionCount; i++) {
+                opened.add(container.connectToServer(client, serverUri));
+            }
         } catch (IOException | DeploymentException ex) {
+            opened.forEach(WebsocketEnclaveClient::close);
             throw new EnclaveCommunicationException(ex);
         }
+
+        if (!opened.stream().allMatch(WebsocketEnclaveClient::supportsRequestIds)) {
+            opened.forEach(WebsocketEnclaveClient::close);
+            throw new EnclaveCommunicationException("Enclave at " + serverUri
+                    + " does not support request ids and needs to be upgraded");
+        }
+
+        sessions = opened;
+        webSocketTemplates = opened.stream().map(WebSocketTemplate::new).collect(Collectors.toList());
     }
-    
+
     @Override
     public void stop() {
+        List<Session> closing = sessions;
+        sessions = Collections.emptyList();
+        webSocketTemplates = Collections.emptyList();
+
+        closing.forEach(WebsocketEnclaveClient::close);
+        client.failPending();
+    }
+
+    private static boolean supportsRequestIds(Session session) {
+        return BinaryCodec.isNegotiated(session) || JsonCodec.SUBPROTOCOL.equals(session.getNegotiatedSubprotocol());
+    }
+
+    private static void close(Session session) {
         try{
             session.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "Bye"));
         } catch (IOException ex) {
-            LOGGER.warn("IOException while attempting to close remote session", ex.getMessage());
+            LOGGER.warn("IOException while attempting to close remote session {}", ex.getMessage());
             LOGGER.debug(null, ex);
         }
     }
 
     @Override
     public PublicKey defaultPublicKey() {
+        return await(defaultPublicKeyAsync());
+    }
 
-        webSocketTemplate.execute(s -> {
-            EnclaveRequest request = EnclaveRequest.Builder.create()
-                    .withType(EnclaveRequestType.DEFAULT_PUBLIC_KEY)
-                    .build();
-
-            s.getBasicRemote().sendObject(request);
-        });
-
-        return client.pollForResult(PublicKey.class).get();
+    public CompletableFuture<PublicKey> defaultPublicKeyAsync() {
+        return send(request(EnclaveRequestType.DEFAULT_PUBLIC_KEY), PublicKey.class);
     }
 
     @Override
     public Set<PublicKey> getForwardingKeys() {
-        webSocketTemplate.execute(s -> {
-            EnclaveRequest request = EnclaveRequest.Builder.create()
-                    .withType(EnclaveRequestType.FORWARDING_KEYS)
-                    .build();
-
-            s.getBasicRemote().sendObject(request);
-        });
+        return await(getForwardingKeysAsync());
+    }
 
-        PublicKey[] keys = client.pollForResult(PublicKey[].class).get();
-        return Arrays.stream(keys).collect(Collectors.toSet());
+    public CompletableFuture<Set<PublicKey>> getForwardingKeysAsync() {
+        return send(request(EnclaveRequestType.FORWARDING_KEYS), PublicKey[].class)
+                .thenApply(keys -> Arrays.stream(keys).collect(Collectors.toSet()));
     }
 
     @Override
     public Set<PublicKey> getPublicKeys() {
-        webSocketTemplate.execute(s -> {
-            EnclaveRequest request = EnclaveRequest.Builder.create()
-                    .withType(EnclaveRequestType.PUBLIC_KEYS)
-                    .build();
-
-            s.getBasicRemote().sendObject(request);
-        });
+        return await(getPublicKeysAsync());
+    }
 
-        PublicKey[] keys = client.pollForResult(PublicKey[].class).get();
-        return Arrays.stream(keys).collect(Collectors.toSet());
+    public CompletableFuture<Set<PublicKey>> getPublicKeysAsync() {
+        return send(request(EnclaveRequestType.PUBLIC_KEYS), PublicKey[].class)
+                .thenApply(keys -> Arrays.stream(keys).collect(Collectors.toSet()));
     }
 
     @Override
     public EncodedPayload encryptPayload(byte[] message, PublicKey senderPublicKey, List<PublicKey> recipientPublicKeys) {
+        return await(encryptPayloadAsync(message, senderPublicKey, recipientPublicKeys));
+    }
 
-        webSocketTemplate.execute(s -> {
-            EnclaveRequest request = EnclaveRequest.Builder.create()
-                    .withType(EnclaveRequestType.ENCRYPT_PAYLOAD)
-                    .withArg(message)
-                    .withArg(senderPublicKey)
-                    .withArg(recipientPublicKeys)
-                    .build();
-
-            s.getBasicRemote().sendObject(request);
-        });
+    public CompletableFuture<EncodedPayload> encryptPayloadAsync(byte[] message,
+                                                                 PublicKey senderPublicKey,
+                                                                 List<PublicKey> recipientPublicKeys) {
+        EnclaveRequest.Builder request = request(EnclaveRequestType.ENCRYPT_PAYLOAD)
+                .withArg(message)
+                .withArg(senderPublicKey)
+                .withArg(recipientPublicKeys);
 
-        return client.pollForResult(EncodedPayload.class).get();
+        return send(request, EncodedPayload.class);
     }
 
     @Override
     public EncodedPayload encryptPayload(RawTransaction rawTransaction, List<PublicKey> recipientPublicKeys) {
+        return await(encryptPayloadAsync(rawTransaction, recipientPublicKeys));
+    }
 
-        webSocketTemplate.execute(s -> {
-            EnclaveRequest request = EnclaveRequest.Builder.create()
-                    .withType(EnclaveRequestType.ENCRYPT_RAWTXN_PAYLOAD)
-                    .withArg(rawTransaction)
-                    .withArg(recipientPublicKeys)
-                    .build();
-
-            s.getBasicRemote().sendObject(request);
-        });
+    public CompletableFuture<EncodedPayload> encryptPayloadAsync(RawTransaction rawTransaction,
+                                                                 List<PublicKey> recipientPublicKeys) {
+        EnclaveRequest.Builder request = request(EnclaveRequestType.ENCRYPT_RAWTXN_PAYLOAD)
+                .withArg(rawTransaction)
+                .withArg(recipientPublicKeys);
 
-        return client.pollForResult(EncodedPayload.class).get();
+        return send(request, EncodedPayload.class);
     }
 
     @Override
     public RawTransaction encryptRawPayload(byte[] message, PublicKey sender) {
+        return await(encryptRawPayloadAsync(message, sender));
+    }
 
-        webSocketTemplate.execute(s -> {
-            EnclaveRequest request = EnclaveRequest.Builder.create()
-                    .withType(EnclaveRequestType.ENCRYPT_RAW_PAYLOAD)
-                    .withArg(message)
-                    .withArg(sender)
-                    .build();
-
-            s.getBasicRemote().sendObject(request);
+    public CompletableFuture<RawTransaction> encryptRawPayloadAsync(byte[] message, PublicKey sender) {
+        EnclaveRequest.Builder request = request(EnclaveRequestType.ENCRYPT_RAW_PAYLOAD)
+                .withArg(message)
+                .withArg(sender);
 
-        });
-        return client.pollForResult(RawTransaction.class).get();
+        return send(request, RawTransaction.class);
     }
 
     @Override
     public byte[] unencryptTransaction(EncodedPayload payload, PublicKey providedKey) {
-        webSocketTemplate.execute(s -> {
-            EnclaveRequest request = EnclaveRequest.Builder.create()
-                    .withType(EnclaveRequestType.UNENCRYPT_TXN)
-                    .withArg(payload)
-                    .withArg(providedKey).build();
-            
-            
-            s.getBasicRemote().sendObject(request);
-        });
-        
-        return client.pollForResult(ByteBuffer.class).get().array();        
+        return await(unencryptTransactionAsync(payload, providedKey));
+    }
+
+    public CompletableFuture<byte[]> unencryptTransactionAsync(EncodedPayload payload, PublicKey providedKey) {
+        EnclaveRequest.Builder request = request(EnclaveRequestType.UNENCRYPT_TXN)
+                .withArg(payload)
+                .withArg(providedKey);
+
+        return send(request, ByteBuffer.class).thenApply(ByteBuffer::array);
     }
 
     @Override
     public byte[] createNewRecipientBox(EncodedPayload payload, PublicKey recipientKey) {
-        webSocketTemplate.execute(s -> {
-            EnclaveRequest request = EnclaveRequest.Builder.create()
-                    .withType(EnclaveRequestType.CREATE_NEW_RECIPIENT_BOX)
-                    .withArg(payload)
-                    .withArg(recipientKey).build();  
-            s.getBasicRemote().sendObject(request);
-        });
-        
-        return client.pollForResult(ByteBuffer.class).get().array();  
+        return await(createNewRecipientBoxAsync(payload, recipientKey));
+    }
+
+    public CompletableFuture<byte[]> createNewRecipientBoxAsync(EncodedPayload payload, PublicKey recipientKey) {
+        EnclaveRequest.Builder request = request(EnclaveRequestType.CREATE_NEW_RECIPIENT_BOX)
+                .withArg(payload)
+                .withArg(recipientKey);
+
+        return send(request, ByteBuffer.class).thenApply(ByteBuffer::array);
     }
 
     @Override
-    public com.quorum.tessera.service.Service.Status status() {
-        webSocketTemplate.execute(s -> {
-            EnclaveRequest request = EnclaveRequest.Builder.create()
-                    .withType(EnclaveRequestType.STATUS).build();
-            
-            
-            s.getBasicRemote().sendObject(request);
-        });
-        
-        return client.pollForResult(com.quorum.tessera.service.Service.Status.class).get();       
+    public List<EncodedPayload> encryptPayloads(List<byte[]> messages,
+                                                PublicKey senderPublicKey,
+                                                List<PublicKey> recipientPublicKeys) {
+        return await(encryptPayloadsAsync(messages, senderPublicKey, recipientPublicKeys));
     }
 
+    public CompletableFuture<List<EncodedPayload>> encryptPayloadsAsync(List<byte[]> messages,
+                                                                        PublicKey senderPublicKey,
+                                                                        List<PublicKey> recipientPublicKeys) {
+        EnclaveRequest.Builder request = request(EnclaveRequestType.ENCRYPT_PAYLOADS)
+                .withArg(messages)
+                .withArg(senderPublicKey)
+                .withArg(recipientPublicKeys);
+
+        return send(request, EncodedPayload[].class).thenApply(Arrays::asList);
+    }
+
+    @Override
+    public List<byte[]> unencryptTransactions(List<EncodedPayload> payloads, List<PublicKey> providedKeys) {
+        return await(unencryptTransactionsAsync(payloads, providedKeys));
+    }
+
+    public CompletableFuture<List<byte[]>> unencryptTransactionsAsync(List<EncodedPayload> payloads,
+                                                                      List<PublicKey> providedKeys) {
+        EnclaveRequest.Builder request = request(EnclaveRequestType.UNENCRYPT_TXNS)
+                .withArg(payloads)
+                .withArg(providedKeys);
+
+        return send(request, byte[][].class).thenApply(Arrays::asList);
+    }
+
+    @Override
+    public Service.Status status() {
+        return await(statusAsync());
+    }
+
+    public CompletableFuture<Service.Status> statusAsync() {
+        return send(request(EnclaveRequestType.STATUS), Service.Status.class);
+    }
+
+    private EnclaveRequest.Builder request(EnclaveRequestType type) {
+        return EnclaveRequest.Builder.create()
+                .withType(type)
+                .withId(Long.toString(requestIds.incrementAndGet()));
+    }
+
+    private <T> CompletableFuture<T> send(EnclaveRequest.Builder builder, Class<T> type) {
+        EnclaveRequest request = builder.build();
+
+        List<WebSocketTemplate> templates = webSocketTemplates;
+        if (templates.isEmpty()) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new EnclaveNotAvailableException("Enclave client has not been started"));
+            return failed;
+        }
+
+        CompletableFuture<Object> result = client.register(request.getId());
+
+        ScheduledFuture<?> timeout = TIMEOUTS.schedule(() -> result.completeExceptionally(
+                new EnclaveNotAvailableException("No response from the enclave to " + request.getType()
+                        + " request " + request.getId() + " within " + timeoutMillis + "ms")),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((r, ex) -> timeout.cancel(false));
+
+        WebSocketTemplate webSocketTemplate =
+                templates.get(Math.floorMod(nextSession.getAndIncrement(), templates.size()));
+        try {
+            webSocketTemplate.execute(s -> {
+                if (BinaryCodec.isNegotiated(s)) {
+                    s.getBasicRemote().sendBinary(REQUEST_CODEC.encode(request));
+                } else {
+                    s.getBasicRemote().sendObject(request);
+                }
+            });
+        } catch (RuntimeException ex) {
+            result.completeExceptionally(ex);
+        }
+
+        return result.thenApply(type::cast);
+    }
+
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EnclaveCommunicationException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new EnclaveCommunicationException(ex.getCause());
+        }
+    }
 
-    
 }
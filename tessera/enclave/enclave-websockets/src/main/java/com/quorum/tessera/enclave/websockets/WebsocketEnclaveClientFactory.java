@@ -19,5 +19,10 @@ public class WebsocketEnclaveClientFactory implements EnclaveClientFactory<Webso
                 .map(WebsocketEnclaveClient::new)
                 .findAny().get();
     }
-    
+
+    @Override
+    public CommunicationType communicationType() {
+        return CommunicationType.WEB_SOCKET;
+    }
+
 }
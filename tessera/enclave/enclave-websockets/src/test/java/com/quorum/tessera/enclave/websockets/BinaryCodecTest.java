@@ -0,0 +1,201 @@
+package com.quorum.tessera.enclave.websockets;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadBuilder;
+import com.quorum.tessera.enclave.RawTransaction;
+import com.quorum.tessera.enclave.RawTransactionBuilder;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.service.Service;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import javax.websocket.DecodeException;
+import javax.websocket.Session;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BinaryCodecTest {
+
+    private static final PublicKey KEY = PublicKey.from("PublicKey".getBytes());
+
+    private EnclaveRequestBinaryCodec requestCodec = new EnclaveRequestBinaryCodec();
+
+    private EnclaveResponseBinaryCodec responseCodec = new EnclaveResponseBinaryCodec();
+
+    @Test
+    public void encryptRequestRoundTrip() throws Exception {
+
+        EnclaveRequest request = EnclaveRequest.Builder.create()
+                .withType(EnclaveRequestType.ENCRYPT_PAYLOAD)
+                .withId("1")
+                .withArg("ENCRYPT_THIS".getBytes())
+                .withArg(KEY)
+                .withArg(Arrays.asList(KEY, KEY))
+                .build();
+
+        EnclaveRequest result = requestCodec.decode(requestCodec.encode(request));
+
+        assertThat(result.getType()).isSameAs(EnclaveRequestType.ENCRYPT_PAYLOAD);
+        assertThat(result.getId()).isEqualTo("1");
+        assertThat(result.getArgs().get(0)).isEqualTo("ENCRYPT_THIS".getBytes());
+        assertThat(result.getArgs().get(1)).isEqualTo(KEY);
+        assertThat((List) result.getArgs().get(2)).containsExactly(KEY, KEY);
+    }
+
+    @Test
+    public void batchRequestRoundTripKeepsMissingKeysAndId() throws Exception {
+
+        EnclaveRequest request = EnclaveRequest.Builder.create()
+                .withType(EnclaveRequestType.UNENCRYPT_TXNS)
+                .withArg(Arrays.asList(payload(), payload()))
+                .withArg(Arrays.asList(KEY, null))
+                .build();
+
+        EnclaveRequest result = requestCodec.decode(requestCodec.encode(request));
+
+        assertThat(result.getId()).isNull();
+        List<EncodedPayload> payloads = (List<EncodedPayload>) result.getArgs().get(0);
+        assertThat(payloads).hasSize(2);
+        assertThat(payloads.get(1).getCipherText()).isEqualTo("cipherText".getBytes());
+        assertThat(payloads.get(1).getRecipientKeys()).containsExactly(KEY);
+        assertThat((List) result.getArgs().get(1)).containsExactly(KEY, null);
+    }
+
+    @Test
+    public void rawTransactionRequestRoundTrip() throws Exception {
+
+        RawTransaction rawTransaction = RawTransactionBuilder.create()
+                .withEncryptedPayload("encryptedPayload".getBytes())
+                .withEncryptedKey("encryptedKey".getBytes())
+                .withNonce("nonce".getBytes())
+                .withFrom(KEY)
+                .build();
+
+        EnclaveRequest request = EnclaveRequest.Builder.create()
+                .withType(EnclaveRequestType.ENCRYPT_RAWTXN_PAYLOAD)
+                .withId("2")
+                .withArg(rawTransaction)
+                .withArg(Arrays.asList(KEY))
+                .build();
+
+        EnclaveRequest result = requestCodec.decode(requestCodec.encode(request));
+
+        assertThat(result.getArgs().get(0)).isEqualTo(rawTransaction);
+    }
+
+    @Test
+    public void responsesRoundTrip() throws Exception {
+
+        EnclaveResponse status = responseCodec.decode(responseCodec.encode(
+                new EnclaveResponse<>(EnclaveRequestType.STATUS, "1", Service.Status.STARTED)));
+        assertThat(status.getRequestType()).isSameAs(EnclaveRequestType.STATUS);
+        assertThat(status.getRequestId()).isEqualTo("1");
+        assertThat(status.getPayload()).isEqualTo(Service.Status.STARTED);
+
+        EnclaveResponse keys = responseCodec.decode(responseCodec.encode(
+                new EnclaveResponse<>(EnclaveRequestType.PUBLIC_KEYS, "2", new PublicKey[] {KEY})));
+        assertThat((PublicKey[]) keys.getPayload()).containsExactly(KEY);
+
+        EnclaveResponse bytes = responseCodec.decode(responseCodec.encode(
+                new EnclaveResponse<>(EnclaveRequestType.UNENCRYPT_TXN, "3", ByteBuffer.wrap("OUTCOME".getBytes()))));
+        assertThat(((ByteBuffer) bytes.getPayload()).array()).isEqualTo("OUTCOME".getBytes());
+
+        EnclaveResponse texts = responseCodec.decode(responseCodec.encode(
+                new EnclaveResponse<>(EnclaveRequestType.UNENCRYPT_TXNS, "4",
+                        new byte[][] {"first".getBytes(), "second".getBytes()})));
+        assertThat((byte[][]) texts.getPayload()).containsExactly("first".getBytes(), "second".getBytes());
+
+        EnclaveResponse payloads = responseCodec.decode(responseCodec.encode(
+                new EnclaveResponse<>(EnclaveRequestType.ENCRYPT_PAYLOADS, "5", new EncodedPayload[] {payload()})));
+        assertThat(((EncodedPayload[]) payloads.getPayload())[0].getSenderKey()).isEqualTo(KEY);
+    }
+
+    @Test
+    public void failedResponseRoundTrip() throws Exception {
+
+        EnclaveResponse failed = responseCodec.decode(responseCodec.encode(
+                EnclaveResponse.failed(EnclaveRequestType.UNENCRYPT_TXN, "6", "Decryption failed")));
+
+        assertThat(failed.getRequestType()).isSameAs(EnclaveRequestType.UNENCRYPT_TXN);
+        assertThat(failed.getRequestId()).isEqualTo("6");
+        assertThat(failed.isFailed()).isTrue();
+        assertThat(failed.getError()).isEqualTo("Decryption failed");
+        assertThat(failed.getPayload()).isNull();
+    }
+
+    @Test
+    public void truncatedMessageCannotBeDecoded() throws Exception {
+
+        ByteBuffer encoded = requestCodec.encode(EnclaveRequest.Builder.create()
+                .withType(EnclaveRequestType.UNENCRYPT_TXN)
+                .withArg(payload())
+                .withArg(KEY)
+                .build());
+
+        ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(encoded.array(), encoded.remaining() - 1));
+
+        assertThat(requestCodec.willDecode(ByteBuffer.allocate(1))).isFalse();
+        assertThat(catchThrowable(() -> requestCodec.decode(truncated))).isInstanceOf(DecodeException.class);
+    }
+
+    @Test
+    public void lengthsAndCountsLargerThanTheMessageCannotBeDecoded() throws Exception {
+
+        ByteBuffer encoded = requestCodec.encode(EnclaveRequest.Builder.create()
+                .withType(EnclaveRequestType.ENCRYPT_PAYLOAD)
+                .withId("1")
+                .withArg("ENCRYPT_THIS".getBytes())
+                .withArg(KEY)
+                .withArg(Arrays.asList(KEY))
+                .build());
+
+        // type and id, each an 8 byte length followed by their bytes
+        int messageOffset = 2 * Long.BYTES + "ENCRYPT_PAYLOAD".length() + "1".length();
+        ByteBuffer hugeField = ByteBuffer.wrap(encoded.array().clone());
+        hugeField.putLong(messageOffset, Integer.MAX_VALUE - 8);
+
+        int keysOffset = messageOffset + 2 * Long.BYTES + "ENCRYPT_THIS".length() + KEY.getKeyBytes().length;
+        ByteBuffer hugeCount = ByteBuffer.wrap(encoded.array().clone());
+        hugeCount.putLong(keysOffset, Integer.MAX_VALUE - 8);
+
+        ByteBuffer negativeField = ByteBuffer.wrap(encoded.array().clone());
+        negativeField.putLong(messageOffset, -2);
+
+        assertThat(catchThrowable(() -> requestCodec.decode(hugeField)))
+                .isInstanceOf(DecodeException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> requestCodec.decode(hugeCount)))
+                .isInstanceOf(DecodeException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> requestCodec.decode(negativeField)))
+                .isInstanceOf(DecodeException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void binaryIsOnlyUsedWhenNegotiated() {
+        Session binary = mock(Session.class);
+        when(binary.getNegotiatedSubprotocol()).thenReturn(BinaryCodec.SUBPROTOCOL);
+
+        Session json = mock(Session.class);
+        when(json.getNegotiatedSubprotocol()).thenReturn("");
+
+        assertThat(BinaryCodec.isNegotiated(binary)).isTrue();
+        assertThat(BinaryCodec.isNegotiated(json)).isFalse();
+    }
+
+    private static EncodedPayload payload() {
+        return EncodedPayloadBuilder.create()
+                .withSenderKey(KEY)
+                .withCipherText("cipherText".getBytes())
+                .withCipherTextNonce("cipherTextNonce".getBytes())
+                .withRecipientBoxes(Arrays.asList("recipientBox".getBytes()))
+                .withRecipientNonce("recipientNonce".getBytes())
+                .withRecipientKeys(KEY)
+                .build();
+    }
+
+}
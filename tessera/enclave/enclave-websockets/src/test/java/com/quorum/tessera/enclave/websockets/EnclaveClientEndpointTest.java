@@ -1,8 +1,13 @@
 package com.quorum.tessera.enclave.websockets;
 
+import com.quorum.tessera.enclave.EnclaveException;
+import com.quorum.tessera.enclave.EnclaveNotAvailableException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import javax.websocket.Session;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import org.junit.Test;
 import static org.mockito.Mockito.*;
 
@@ -27,22 +32,63 @@ public class EnclaveClientEndpointTest {
     }
 
     @Test
-    public void onResult() {
+    public void onResult() throws Exception {
 
         Session session = mock(Session.class);
-        
-        EnclaveResponse<Boolean> response = mock(EnclaveResponse.class);
-        when(response.getPayload()).thenReturn(Boolean.TRUE);
-        
+
+        CompletableFuture<Object> first = enclaveClientEndpoint.register("1");
+        CompletableFuture<Object> second = enclaveClientEndpoint.register("2");
+
         Executors.newSingleThreadExecutor().submit(() -> {
-            
-            
-            enclaveClientEndpoint.onResult(session,response);
+            enclaveClientEndpoint.onResult(session, new EnclaveResponse<>(EnclaveRequestType.STATUS, "2", "SECOND"));
+            enclaveClientEndpoint.onResult(session, new EnclaveResponse<>(EnclaveRequestType.STATUS, "1", "FIRST"));
         });
-        
-        Boolean result = enclaveClientEndpoint.pollForResult(Boolean.class).get();
 
-        assertThat(result).isTrue();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("FIRST");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("SECOND");
+        assertThat(enclaveClientEndpoint.pendingCount()).isZero();
+    }
+
+    @Test
+    public void failedResponseFailsTheCall() {
+
+        Session session = mock(Session.class);
+
+        CompletableFuture<Object> result = enclaveClientEndpoint.register("1");
+
+        EnclaveResponse<Object> response = EnclaveResponse.failed(EnclaveRequestType.UNENCRYPT_TXN, "1", "Failed");
+        enclaveClientEndpoint.onResult(session, response);
+
+        Throwable throwable = catchThrowable(result::join);
+        assertThat(throwable).hasCauseExactlyInstanceOf(EnclaveException.class);
+        assertThat(throwable.getCause()).hasMessageContaining("Failed");
+        assertThat(enclaveClientEndpoint.pendingCount()).isZero();
+    }
+
+    @Test
+    public void responseToUnknownRequestIsIgnored() {
+
+        Session session = mock(Session.class);
+
+        CompletableFuture<Object> result = enclaveClientEndpoint.register("1");
+
+        enclaveClientEndpoint.onResult(session, new EnclaveResponse<>(EnclaveRequestType.STATUS, "2", "OTHER"));
+        enclaveClientEndpoint.onResult(session, new EnclaveResponse<>(EnclaveRequestType.STATUS, "OTHER"));
+
+        assertThat(result).isNotDone();
+        assertThat(enclaveClientEndpoint.pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void failPendingFailsEveryWaitingCall() {
+
+        CompletableFuture<Object> result = enclaveClientEndpoint.register("1");
+
+        enclaveClientEndpoint.failPending();
+
+        Throwable throwable = catchThrowable(result::join);
+        assertThat(throwable).hasCauseInstanceOf(EnclaveNotAvailableException.class);
+        assertThat(enclaveClientEndpoint.pendingCount()).isZero();
     }
 
 }
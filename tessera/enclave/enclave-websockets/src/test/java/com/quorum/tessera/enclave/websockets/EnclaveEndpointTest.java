@@ -4,6 +4,7 @@ import com.quorum.tessera.config.CommunicationType;
 import com.quorum.tessera.config.Config;
 import com.quorum.tessera.config.ServerConfig;
 import com.quorum.tessera.enclave.Enclave;
+import com.quorum.tessera.enclave.EnclaveException;
 import com.quorum.tessera.enclave.EnclaveFactory;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadBuilder;
@@ -20,14 +21,25 @@ import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.websocket.RemoteEndpoint;
 import javax.websocket.Session;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import org.mockito.ArgumentCaptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -212,6 +224,62 @@ public class EnclaveEndpointTest {
         assertThat(result).isEqualTo(outcome);
     }
 
+    @Test
+    public void failedRequestIsAnsweredWithTheFailure() {
+
+        PublicKey providedKey = PublicKey.from("providedKey".getBytes());
+
+        EncodedPayload encodedPayload = EncodedPayloadBuilder.create()
+                .withSenderKey(PublicKey.from("senderKey".getBytes()))
+                .withCipherText("cipherText".getBytes())
+                .withCipherTextNonce("cipherTextNonce".getBytes())
+                .withRecipientBoxes(Arrays.asList("recipientBox".getBytes()))
+                .withRecipientNonce("recipientNonce".getBytes())
+                .withRecipientKeys(PublicKey.from("recipientKey".getBytes()))
+                .build();
+
+        when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class)))
+                .thenThrow(new IllegalStateException("Decryption failed"));
+
+        long start = System.nanoTime();
+        Throwable throwable = catchThrowable(() -> enclaveAdapter.unencryptTransaction(encodedPayload, providedKey));
+
+        assertThat(throwable).isExactlyInstanceOf(EnclaveException.class).hasMessageContaining("Decryption failed");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5000);
+    }
+
+    @Test
+    public void callsInFlightTogetherAreAnsweredIndependently() throws Exception {
+
+        PublicKey slowKey = PublicKey.from("slowKey".getBytes());
+        PublicKey fastKey = PublicKey.from("fastKey".getBytes());
+
+        EncodedPayload encodedPayload = EncodedPayloadBuilder.create()
+                .withSenderKey(PublicKey.from("senderKey".getBytes()))
+                .withCipherText("cipherText".getBytes())
+                .withCipherTextNonce("cipherTextNonce".getBytes())
+                .withRecipientBoxes(Arrays.asList("recipientBox".getBytes()))
+                .withRecipientNonce("recipientNonce".getBytes())
+                .withRecipientKeys(PublicKey.from("recipientKey".getBytes()))
+                .build();
+
+        CountDownLatch fastAnswered = new CountDownLatch(1);
+
+        when(enclave.unencryptTransaction(any(EncodedPayload.class), eq(slowKey)))
+                .thenAnswer(invocation -> fastAnswered.await(4, TimeUnit.SECONDS) ? "SLOW".getBytes() : null);
+        when(enclave.unencryptTransaction(any(EncodedPayload.class), eq(fastKey)))
+                .thenAnswer(invocation -> {
+                    fastAnswered.countDown();
+                    return "FAST".getBytes();
+                });
+
+        CompletableFuture<byte[]> slow = enclaveAdapter.unencryptTransactionAsync(encodedPayload, slowKey);
+        CompletableFuture<byte[]> fast = enclaveAdapter.unencryptTransactionAsync(encodedPayload, fastKey);
+
+        assertThat(fast.get()).isEqualTo("FAST".getBytes());
+        assertThat(slow.get()).isEqualTo("SLOW".getBytes());
+    }
+
     @Test
     public void createBoxData() {
 
@@ -237,6 +305,55 @@ public class EnclaveEndpointTest {
         assertThat(result).isEqualTo(outcome);
     }
 
+    @Test
+    public void encryptPayloads() {
+
+        PublicKey senderKey = PublicKey.from("senderKey".getBytes());
+        List<PublicKey> recipientKeys = Arrays.asList(PublicKey.from("recipientKey".getBytes()));
+
+        EncodedPayload encodedPayload = EncodedPayloadBuilder.create()
+                .withSenderKey(senderKey)
+                .withCipherText("cipherText".getBytes())
+                .withCipherTextNonce("cipherTextNonce".getBytes())
+                .withRecipientBoxes(Arrays.asList("recipientBox".getBytes()))
+                .withRecipientNonce("recipientNonce".getBytes())
+                .withRecipientKeys(PublicKey.from("recipientKey".getBytes()))
+                .build();
+
+        when(enclave.encryptPayloads(any(List.class), any(PublicKey.class), any(List.class)))
+                .thenReturn(Arrays.asList(encodedPayload, encodedPayload));
+
+        List<EncodedPayload> result = enclaveAdapter.encryptPayloads(
+                Arrays.asList("first".getBytes(), "second".getBytes()), senderKey, recipientKeys);
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(1).getCipherText()).isEqualTo("cipherText".getBytes());
+        assertThat(result.get(1).getRecipientKeys()).containsExactlyElementsOf(recipientKeys);
+    }
+
+    @Test
+    public void unencryptTransactionsWithoutAKeyForOwnPayloads() {
+
+        PublicKey providedKey = PublicKey.from("providedKey".getBytes());
+
+        EncodedPayload encodedPayload = EncodedPayloadBuilder.create()
+                .withSenderKey(PublicKey.from("senderKey".getBytes()))
+                .withCipherText("cipherText".getBytes())
+                .withCipherTextNonce("cipherTextNonce".getBytes())
+                .withRecipientBoxes(Arrays.asList("recipientBox".getBytes()))
+                .withRecipientNonce("recipientNonce".getBytes())
+                .withRecipientKeys(PublicKey.from("recipientKey".getBytes()))
+                .build();
+
+        when(enclave.unencryptTransactions(any(List.class), eq(Arrays.asList(providedKey, null))))
+                .thenReturn(Arrays.asList("FIRST".getBytes(), "SECOND".getBytes()));
+
+        List<byte[]> result = enclaveAdapter.unencryptTransactions(
+                Arrays.asList(encodedPayload, encodedPayload), Arrays.asList(providedKey, null));
+
+        assertThat(result).containsExactly("FIRST".getBytes(), "SECOND".getBytes());
+    }
+
     //An impossible situation but for the last 0.01 coverage
     @Test(expected = UnsupportedOperationException.class)
     public void nullRequestType() {
@@ -250,6 +367,40 @@ public class EnclaveEndpointTest {
 
     }
 
+
+    @Test
+    public void requestRejectedByExecutorIsAnsweredWithFailure() throws Exception {
+        ExecutorService executor = mock(ExecutorService.class);
+        doThrow(new RejectedExecutionException()).when(executor).execute(any(Runnable.class));
+        EnclaveEndpoint enclaveEndpoint = new EnclaveEndpoint(executor);
+
+        Session session = mock(Session.class);
+        RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+        when(session.getBasicRemote()).thenReturn(remote);
+
+        EnclaveRequest request = EnclaveRequest.Builder.create()
+                .withType(EnclaveRequestType.STATUS)
+                .withId("1")
+                .build();
+
+        enclaveEndpoint.onRequest(session, request);
+
+        ArgumentCaptor<EnclaveResponse> response = ArgumentCaptor.forClass(EnclaveResponse.class);
+        verify(remote).sendObject(response.capture());
+        assertThat(response.getValue().isFailed()).isTrue();
+        assertThat(response.getValue().getRequestId()).isEqualTo("1");
+        assertThat(response.getValue().getError()).contains("Too many requests");
+    }
+
+    @Test
+    public void closingTheSessionStopsItsExecutor() {
+        ExecutorService executor = mock(ExecutorService.class);
+        EnclaveEndpoint enclaveEndpoint = new EnclaveEndpoint(executor);
+
+        enclaveEndpoint.onClose(mock(Session.class));
+
+        verify(executor).shutdownNow();
+    }
     
     @Test
     public void status() {
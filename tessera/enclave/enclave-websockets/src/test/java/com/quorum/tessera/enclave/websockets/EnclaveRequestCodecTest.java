@@ -1,6 +1,9 @@
 package com.quorum.tessera.enclave.websockets;
 
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadBuilder;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.service.Service;
 import java.io.StringReader;
 import java.util.Arrays;
 import java.util.Base64;
@@ -68,6 +71,7 @@ public class EnclaveRequestCodecTest {
 
         assertThat(result).isNotNull();
         assertThat(result.getType()).isSameAs(EnclaveRequestType.ENCRYPT_PAYLOAD);
+        assertThat(result.getId()).isNull();
         assertThat(result.getArgs()).hasSize(3);
         assertThat(result.getArgs().get(0)).isEqualTo("ENYCYTPT_THIS".getBytes());
         assertThat(result.getArgs().get(1)).isEqualTo(publicKey);
@@ -75,7 +79,72 @@ public class EnclaveRequestCodecTest {
         List keys = (List) result.getArgs().get(2);
         assertThat(keys).containsExactly(publicKey);
     }
-    
 
+    @Test
+    public void batchRequestRoundTripKeepsMissingKeys() throws Exception {
+
+        PublicKey publicKey = PublicKey.from("PublicKey".getBytes());
+
+        EncodedPayload payload = EncodedPayloadBuilder.create()
+                .withSenderKey(publicKey)
+                .withCipherText("cipherText".getBytes())
+                .withCipherTextNonce("cipherTextNonce".getBytes())
+                .withRecipientBoxes(Arrays.asList("recipientBox".getBytes()))
+                .withRecipientNonce("recipientNonce".getBytes())
+                .withRecipientKeys(publicKey)
+                .build();
+
+        EnclaveRequest enclaveRequest = EnclaveRequest.Builder.create()
+                .withType(EnclaveRequestType.UNENCRYPT_TXNS)
+                .withArg(Arrays.asList(payload, payload))
+                .withArg(Arrays.asList(publicKey, null))
+                .build();
+
+        EnclaveRequest result = enclaveRequestCodec.decode(enclaveRequestCodec.encode(enclaveRequest));
+
+        assertThat(result.getType()).isSameAs(EnclaveRequestType.UNENCRYPT_TXNS);
+        List<EncodedPayload> payloads = (List<EncodedPayload>) result.getArgs().get(0);
+        assertThat(payloads).hasSize(2);
+        assertThat(payloads.get(1).getCipherText()).isEqualTo("cipherText".getBytes());
+        List keys = (List) result.getArgs().get(1);
+        assertThat(keys).containsExactly(publicKey, null);
+    }
+
+    @Test
+    public void requestAndResponseIdsRoundTrip() throws Exception {
+
+        EnclaveRequest enclaveRequest = EnclaveRequest.Builder.create()
+                .withType(EnclaveRequestType.STATUS)
+                .withId("42")
+                .build();
+
+        EnclaveRequest result = enclaveRequestCodec.decode(enclaveRequestCodec.encode(enclaveRequest));
+
+        assertThat(result.getId()).isEqualTo("42");
+
+        EnclaveResponseCodec enclaveResponseCodec = new EnclaveResponseCodec();
+        EnclaveResponse<Service.Status> response =
+                new EnclaveResponse<>(EnclaveRequestType.STATUS, "42", Service.Status.STARTED);
+
+        EnclaveResponse decoded = enclaveResponseCodec.decode(enclaveResponseCodec.encode(response));
+
+        assertThat(decoded.getRequestId()).isEqualTo("42");
+        assertThat(decoded.getPayload()).isEqualTo(Service.Status.STARTED);
+        assertThat(decoded.isFailed()).isFalse();
+    }
+
+    @Test
+    public void failedResponseRoundTrip() throws Exception {
+
+        EnclaveResponseCodec enclaveResponseCodec = new EnclaveResponseCodec();
+        EnclaveResponse<Object> response = EnclaveResponse.failed(EnclaveRequestType.UNENCRYPT_TXN, "42", "Failed");
+
+        EnclaveResponse decoded = enclaveResponseCodec.decode(enclaveResponseCodec.encode(response));
+
+        assertThat(decoded.getRequestType()).isSameAs(EnclaveRequestType.UNENCRYPT_TXN);
+        assertThat(decoded.getRequestId()).isEqualTo("42");
+        assertThat(decoded.getError()).isEqualTo("Failed");
+        assertThat(decoded.getPayload()).isNull();
+    }
 
 }
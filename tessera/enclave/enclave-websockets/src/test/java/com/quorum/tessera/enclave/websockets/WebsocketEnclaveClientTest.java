@@ -0,0 +1,133 @@
+package com.quorum.tessera.enclave.websockets;
+
+import com.quorum.tessera.enclave.EnclaveNotAvailableException;
+import com.quorum.tessera.service.Service;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import javax.websocket.CloseReason;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+import javax.websocket.WebSocketContainer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class WebsocketEnclaveClientTest {
+
+    private static final URI SERVER_URI = URI.create("ws://localhost:8025/enclave");
+
+    private WebSocketContainer container;
+
+    private Session session;
+
+    private RemoteEndpoint.Basic remote;
+
+    @Before
+    public void onSetUp() throws Exception {
+        container = mock(WebSocketContainer.class);
+        session = mock(Session.class);
+        remote = mock(RemoteEndpoint.Basic.class);
+
+        when(session.getBasicRemote()).thenReturn(remote);
+        when(session.getNegotiatedSubprotocol()).thenReturn(JsonCodec.SUBPROTOCOL);
+        when(container.connectToServer(any(EnclaveClientEndpoint.class), eq(SERVER_URI))).thenReturn(session);
+    }
+
+    @Test
+    public void callWithoutResponseTimesOut() throws Exception {
+        WebsocketEnclaveClient client = new WebsocketEnclaveClient(container, SERVER_URI, 2, 50L);
+        client.start();
+
+        Throwable throwable = catchThrowable(client::status);
+
+        assertThat(throwable).isInstanceOf(EnclaveNotAvailableException.class).hasMessageContaining("STATUS");
+        verify(container, times(2)).connectToServer(any(EnclaveClientEndpoint.class), eq(SERVER_URI));
+        verify(remote).sendObject(any(EnclaveRequest.class));
+    }
+
+    @Test
+    public void requestsAreSpreadAcrossSessions() throws Exception {
+        Session other = mock(Session.class);
+        RemoteEndpoint.Basic otherRemote = mock(RemoteEndpoint.Basic.class);
+        when(other.getBasicRemote()).thenReturn(otherRemote);
+        when(other.getNegotiatedSubprotocol()).thenReturn(BinaryCodec.SUBPROTOCOL);
+        when(container.connectToServer(any(EnclaveClientEndpoint.class), eq(SERVER_URI))).thenReturn(session, other);
+
+        WebsocketEnclaveClient client = new WebsocketEnclaveClient(container, SERVER_URI, 2, 5000L);
+        client.start();
+
+        CompletableFuture<Service.Status> first = client.statusAsync();
+        CompletableFuture<Service.Status> second = client.statusAsync();
+
+        verify(remote).sendObject(any(EnclaveRequest.class));
+        verify(otherRemote).sendBinary(any(ByteBuffer.class));
+
+        client.stop();
+
+        assertThat(catchThrowable(first::join)).hasCauseInstanceOf(EnclaveNotAvailableException.class);
+        assertThat(catchThrowable(second::join)).hasCauseInstanceOf(EnclaveNotAvailableException.class);
+        verify(session).close(any(CloseReason.class));
+        verify(other).close(any(CloseReason.class));
+    }
+
+    @Test
+    public void failedSendFailsTheCall() throws Exception {
+        doThrow(new IOException("broken")).when(remote).sendObject(any(EnclaveRequest.class));
+
+        WebsocketEnclaveClient client = new WebsocketEnclaveClient(container, SERVER_URI);
+        client.start();
+
+        CompletableFuture<Service.Status> result = client.statusAsync();
+
+        assertThat(catchThrowable(result::join)).hasCauseInstanceOf(WebSocketException.class);
+    }
+
+    @Test
+    public void callBeforeStartFails() {
+        WebsocketEnclaveClient client = new WebsocketEnclaveClient(container, SERVER_URI);
+
+        Throwable throwable = catchThrowable(client::defaultPublicKey);
+
+        assertThat(throwable).isInstanceOf(EnclaveNotAvailableException.class);
+        verifyZeroInteractions(container);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOneSessionIsRequired() {
+        new WebsocketEnclaveClient(container, SERVER_URI, 0, 5000L);
+    }
+
+    @Test
+    public void sessionsOpenedBeforeAFailureAreClosed() throws Exception {
+        when(container.connectToServer(any(EnclaveClientEndpoint.class), eq(SERVER_URI)))
+                .thenReturn(session)
+                .thenThrow(new IOException("refused"));
+
+        WebsocketEnclaveClient client = new WebsocketEnclaveClient(container, SERVER_URI, 2, 5000L);
+
+        Throwable throwable = catchThrowable(client::start);
+
+        assertThat(throwable).isInstanceOf(EnclaveCommunicationException.class);
+        verify(session).close(any(CloseReason.class));
+    }
+
+    @Test
+    public void enclaveWithoutRequestIdsFailsToStart() throws Exception {
+        when(session.getNegotiatedSubprotocol()).thenReturn("");
+
+        WebsocketEnclaveClient client = new WebsocketEnclaveClient(container, SERVER_URI);
+
+        Throwable throwable = catchThrowable(client::start);
+
+        assertThat(throwable)
+                .isInstanceOf(EnclaveCommunicationException.class)
+                .hasMessageContaining("request ids");
+        verify(session).close(any(CloseReason.class));
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.quorum.tessera.nacl;
+
+import com.quorum.tessera.ServiceLoaderUtil;
+
+/** A source of the random bytes used for nonces and keys */
+@FunctionalInterface
+public interface RandomSource {
+
+    /**
+     * Fills the given array with random bytes
+     *
+     * @param bytes the array to fill
+     */
+    void nextBytes(byte[] bytes);
+
+    /**
+     * Retrieves the source provided through the service loader, or the one given by {@link
+     * ThreadLocalRandomSource#createDefault()} if none is provided
+     *
+     * @return the source to draw random bytes from
+     */
+    static RandomSource create() {
+        return ServiceLoaderUtil.load(RandomSource.class).orElseGet(ThreadLocalRandomSource::createDefault);
+    }
+}
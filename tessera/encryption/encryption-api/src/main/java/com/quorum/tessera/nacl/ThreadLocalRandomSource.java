@@ -0,0 +1,131 @@
+package com.quorum.tessera.nacl;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link RandomSource} that gives each thread its own generator, so that
+ * threads creating nonces and keys at the same time do not contend on the
+ * lock of one shared {@link SecureRandom}.
+ * <p>
+ * Each generator is the platform's {@code DRBG}, by default a Hash_DRBG
+ * over SHA-256 whose state is well over 256 bits. Once it has produced a
+ * set number of bytes it is reseeded with input from the non-blocking system
+ * source ({@code /dev/urandom} where it exists). Only the seeding reads from
+ * the shared source.
+ * <p>
+ * {@code DRBG} is only provided from Java 9, see {@link #createDefault()}
+ * for what is used when it is missing.
+ */
+public class ThreadLocalRandomSource implements RandomSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThreadLocalRandomSource.class);
+
+    public static final long DEFAULT_RESEED_INTERVAL_BYTES = 1024L * 1024L;
+
+    static final int SEED_BYTES = 32;
+
+    private static final String GENERATOR_ALGORITHM = "DRBG";
+
+    private static final String SEED_ALGORITHM = "NativePRNGNonBlocking";
+
+    private final SecureRandom seedSource;
+
+    private final long reseedIntervalBytes;
+
+    private final ThreadLocal<Generator> generators = ThreadLocal.withInitial(this::newGenerator);
+
+    public ThreadLocalRandomSource() {
+        this(defaultSeedSource(), DEFAULT_RESEED_INTERVAL_BYTES);
+    }
+
+    public ThreadLocalRandomSource(final SecureRandom seedSource, final long reseedIntervalBytes) {
+        if (reseedIntervalBytes <= 0) {
+            throw new IllegalArgumentException("The reseed interval must be positive");
+        }
+        this.seedSource = Objects.requireNonNull(seedSource);
+        this.reseedIntervalBytes = reseedIntervalBytes;
+    }
+
+    /**
+     * Creates a source that gives each thread its own generator if the
+     * {@code DRBG} algorithm is available. Otherwise every thread draws from
+     * the non-blocking system source directly, rather than from a weaker
+     * per-thread generator.
+     *
+     * @return the default source of random bytes
+     */
+    public static RandomSource createDefault() {
+        if (isGeneratorAvailable()) {
+            return new ThreadLocalRandomSource();
+        }
+
+        LOGGER.info("No {} generator is available, random bytes are drawn from the system source", GENERATOR_ALGORITHM);
+        return defaultSeedSource()::nextBytes;
+    }
+
+    static boolean isGeneratorAvailable() {
+        try {
+            SecureRandom.getInstance(GENERATOR_ALGORITHM);
+            return true;
+        } catch (final NoSuchAlgorithmException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public void nextBytes(final byte[] bytes) {
+        final Generator generator = generators.get();
+
+        if (generator.bytesSinceSeed >= reseedIntervalBytes) {
+            generator.random.setSeed(seed());
+            generator.bytesSinceSeed = 0;
+        }
+
+        generator.random.nextBytes(bytes);
+        generator.bytesSinceSeed += bytes.length;
+    }
+
+    private Generator newGenerator() {
+        final SecureRandom random;
+        try {
+            random = SecureRandom.getInstance(GENERATOR_ALGORITHM);
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new NaclException("No " + GENERATOR_ALGORITHM + " generator is available: " + ex.getMessage());
+        }
+
+        // the generator instantiates itself from its own entropy source, the seed is mixed in as additional input
+        random.setSeed(seed());
+
+        return new Generator(random);
+    }
+
+    private byte[] seed() {
+        return seedSource.generateSeed(SEED_BYTES);
+    }
+
+    private static SecureRandom defaultSeedSource() {
+        try {
+            return SecureRandom.getInstance(SEED_ALGORITHM);
+        } catch (final NoSuchAlgorithmException ex) {
+            LOGGER.debug("No {} source available, seeding from the default SecureRandom", SEED_ALGORITHM);
+            return new SecureRandom();
+        }
+    }
+
+    private static final class Generator {
+
+        private final SecureRandom random;
+
+        private long bytesSinceSeed;
+
+        private Generator(final SecureRandom random) {
+            this.random = random;
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.quorum.tessera.nacl;
+
+import java.security.SecureRandom;
+import java.util.concurrent.CompletableFuture;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ThreadLocalRandomSourceTest {
+
+    private SecureRandom seedSource;
+
+    private ThreadLocalRandomSource randomSource;
+
+    @Before
+    public void onSetUp() {
+        Assume.assumeTrue("DRBG is available from Java 9", ThreadLocalRandomSource.isGeneratorAvailable());
+
+        seedSource = mock(SecureRandom.class);
+        when(seedSource.generateSeed(ThreadLocalRandomSource.SEED_BYTES))
+                .thenAnswer(invocation -> new SecureRandom().generateSeed(ThreadLocalRandomSource.SEED_BYTES));
+
+        randomSource = new ThreadLocalRandomSource(seedSource, 64);
+    }
+
+    @After
+    public void onTearDown() {
+        verifyNoMoreInteractions(seedSource);
+    }
+
+    @Test
+    public void generatorIsSeededOnFirstUse() {
+        final byte[] first = new byte[32];
+        final byte[] second = new byte[32];
+
+        randomSource.nextBytes(first);
+        randomSource.nextBytes(second);
+
+        assertThat(first).isNotEqualTo(new byte[32]);
+        assertThat(second).isNotEqualTo(first);
+        verify(seedSource).generateSeed(ThreadLocalRandomSource.SEED_BYTES);
+    }
+
+    @Test
+    public void generatorIsReseededAfterTheInterval() {
+        for (int i = 0; i < 5; i++) {
+            randomSource.nextBytes(new byte[32]);
+        }
+
+        // seeded once at first use, then again before the third and fifth calls
+        verify(seedSource, times(3)).generateSeed(ThreadLocalRandomSource.SEED_BYTES);
+    }
+
+    @Test
+    public void eachThreadIsSeededSeparately() {
+        final byte[] local = new byte[32];
+        randomSource.nextBytes(local);
+
+        final byte[] other = CompletableFuture.supplyAsync(() -> {
+            final byte[] bytes = new byte[32];
+            randomSource.nextBytes(bytes);
+            return bytes;
+        }).join();
+
+        assertThat(other).isNotEqualTo(local);
+        verify(seedSource, times(2)).generateSeed(ThreadLocalRandomSource.SEED_BYTES);
+    }
+
+    @Test
+    public void defaultSourceProducesRandomBytes() {
+        final RandomSource source = RandomSource.create();
+        final byte[] bytes = new byte[32];
+
+        source.nextBytes(bytes);
+
+        assertThat(source).isExactlyInstanceOf(ThreadLocalRandomSource.class);
+        assertThat(bytes).isNotEqualTo(new byte[32]);
+    }
+
+    @Test
+    public void generatorIsHashDrbgOverSha256() throws Exception {
+        // the state of a Hash_DRBG over SHA-256 is two 440 bit values
+        assertThat(SecureRandom.getInstance("DRBG").toString()).startsWith("Hash_DRBG,SHA-256,");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reseedIntervalMustBePositive() {
+        new ThreadLocalRandomSource(seedSource, 0);
+    }
+
+}
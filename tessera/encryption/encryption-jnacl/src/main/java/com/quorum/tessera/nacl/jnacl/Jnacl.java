@@ -24,12 +24,16 @@ public class Jnacl implements NaclFacade {
 
     private static final String REDACTED = "REDACTED";
 
-    private final SecureRandom secureRandom;
+    private final RandomSource randomSource;
 
     private final SecretBox secretBox;
 
     public Jnacl(final SecureRandom secureRandom, final SecretBox secretBox) {
-        this.secureRandom = Objects.requireNonNull(secureRandom);
+        this(Objects.requireNonNull(secureRandom)::nextBytes, secretBox);
+    }
+
+    public Jnacl(final RandomSource randomSource, final SecretBox secretBox) {
+        this.randomSource = Objects.requireNonNull(randomSource);
         this.secretBox = Objects.requireNonNull(secretBox);
     }
 
@@ -120,10 +124,12 @@ public class Jnacl implements NaclFacade {
         final byte[] output = new byte[message.length + crypto_secretbox_ZEROBYTES];
 
         LOGGER.debug("Sealing message using public key {}", sharedKey);
-        LOGGER.debug(
-            "Sealing message {} using nonce {} and shared key {}",
-            Arrays.toString(message), nonce, sharedKey
-        );
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(
+                "Sealing message {} using nonce {} and shared key {}",
+                Arrays.toString(message), nonce, sharedKey
+            );
+        }
 
         System.arraycopy(message, 0, paddedMessage, crypto_secretbox_ZEROBYTES, message.length);
         final int jnaclResult = secretBox.cryptoBoxAfternm(
@@ -137,10 +143,12 @@ public class Jnacl implements NaclFacade {
         }
 
         LOGGER.debug("Created sealed payload for shared key {}", sharedKey);
-        LOGGER.debug(
-            "Created sealed payload {} using nonce {} and shared key {}",
-            Arrays.toString(output), nonce, sharedKey
-        );
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(
+                "Created sealed payload {} using nonce {} and shared key {}",
+                Arrays.toString(output), nonce, sharedKey
+            );
+        }
 
         return extract(output, crypto_secretbox_BOXZEROBYTES);
     }
@@ -148,10 +156,12 @@ public class Jnacl implements NaclFacade {
     @Override
     public byte[] openAfterPrecomputation(final byte[] cipherText, final Nonce nonce, final SharedKey sharedKey) {
         LOGGER.debug("Opening message using shared key {}", sharedKey);
-        LOGGER.debug(
-            "Opening message {} using nonce {} and shared key {}",
-            Arrays.toString(cipherText), nonce, sharedKey
-        );
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(
+                "Opening message {} using nonce {} and shared key {}",
+                Arrays.toString(cipherText), nonce, sharedKey
+            );
+        }
 
         final byte[] paddedInput = pad(cipherText, crypto_secretbox_BOXZEROBYTES);
         final byte[] paddedOutput = new byte[paddedInput.length];
@@ -167,10 +177,12 @@ public class Jnacl implements NaclFacade {
         }
 
         LOGGER.debug("Opened sealed payload for shared key {}", sharedKey);
-        LOGGER.debug(
-            "Opened payload {} using nonce {}, public key {} and private key {} to get result {}",
-            Arrays.toString(cipherText), nonce, sharedKey, REDACTED, Arrays.toString(paddedOutput)
-        );
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(
+                "Opened payload {} using nonce {}, public key {} and private key {} to get result {}",
+                Arrays.toString(cipherText), nonce, sharedKey, REDACTED, Arrays.toString(paddedOutput)
+            );
+        }
 
         return extract(paddedOutput, crypto_secretbox_ZEROBYTES);
     }
@@ -179,7 +191,7 @@ public class Jnacl implements NaclFacade {
     public Nonce randomNonce() {
         final byte[] nonceBytes = new byte[crypto_secretbox_NONCEBYTES];
 
-        this.secureRandom.nextBytes(nonceBytes);
+        this.randomSource.nextBytes(nonceBytes);
 
         final Nonce nonce = new Nonce(nonceBytes);
 
@@ -217,7 +229,7 @@ public class Jnacl implements NaclFacade {
 
         final byte[] keyBytes = new byte[crypto_secretbox_PUBLICKEYBYTES];
 
-        this.secureRandom.nextBytes(keyBytes);
+        this.randomSource.nextBytes(keyBytes);
 
         final SharedKey key = SharedKey.from(keyBytes);
 
@@ -2,11 +2,10 @@ package com.quorum.tessera.nacl.jnacl;
 
 import com.quorum.tessera.nacl.NaclFacade;
 import com.quorum.tessera.nacl.NaclFacadeFactory;
+import com.quorum.tessera.nacl.RandomSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.security.SecureRandom;
-
 /**
  * Provides the JNaCL implementation of the {@link NaclFacade}
  */
@@ -18,10 +17,10 @@ public class JnaclFactory implements NaclFacadeFactory {
     public NaclFacade create() {
         LOGGER.debug("Creating a JNaCL implementation of NaclFacadeFactory");
 
-        final SecureRandom secureRandom = new SecureRandom();
+        final RandomSource randomSource = RandomSource.create();
         final JnaclSecretBox secretBox = new JnaclSecretBox();
 
-        return new Jnacl(secureRandom, secretBox);
+        return new Jnacl(randomSource, secretBox);
     }
 
 }
@@ -3,6 +3,7 @@ package com.quorum.tessera.nacl.jnacl;
 import com.quorum.tessera.encryption.KeyPair;
 import com.quorum.tessera.nacl.NaclException;
 import com.quorum.tessera.nacl.Nonce;
+import com.quorum.tessera.nacl.RandomSource;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -252,4 +253,19 @@ public class JnaclTest {
         assertThat(key.getKeyBytes()).hasSize(expectedKeysize);
     }
 
+    @Test
+    public void nonceAndKeyAreDrawnFromTheRandomSource() {
+        final RandomSource randomSource = mock(RandomSource.class);
+        final Jnacl sourcedJnacl = new Jnacl(randomSource, this.secretBox);
+
+        final Nonce nonce = sourcedJnacl.randomNonce();
+        final SharedKey key = sourcedJnacl.createSingleKey();
+
+        assertThat(nonce.getNonceBytes()).hasSize(24);
+        assertThat(key.getKeyBytes()).hasSize(32);
+        verify(randomSource).nextBytes(nonce.getNonceBytes());
+        verify(randomSource).nextBytes(key.getKeyBytes());
+        verifyNoMoreInteractions(randomSource);
+    }
+
 }
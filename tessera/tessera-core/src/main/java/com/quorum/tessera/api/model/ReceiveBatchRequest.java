@@ -0,0 +1,44 @@
+package com.quorum.tessera.api.model;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * Model representation of a JSON body on incoming HTTP requests
+ *
+ * Contains the hashes of several transactions to retrieve and decrypt together, and optionally the public key to
+ * decrypt all of them with. At most {@link #MAX_KEYS} transactions can be asked for at once, the number the enclave
+ * decrypts in one call
+ */
+@ApiModel
+public class ReceiveBatchRequest {
+
+    public static final int MAX_KEYS = 100;
+
+    @Size(min = 1, max = MAX_KEYS)
+    @NotNull
+    @ApiModelProperty("Encoded transaction hashes, at most " + MAX_KEYS)
+    private String[] keys;
+
+    @ApiModelProperty("Encoded recipient public key")
+    private String to;
+
+    public String[] getKeys() {
+        return keys;
+    }
+
+    public void setKeys(final String... keys) {
+        this.keys = keys;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(final String to) {
+        this.to = to;
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.quorum.tessera.api.model;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Model representation of a JSON body on outgoing HTTP requests
+ *
+ * Contains the decrypted payload of each requested transaction, in the same order as the hashes in the request
+ */
+@ApiModel
+public class ReceiveBatchResponse {
+
+    @ApiModelProperty("Decrypted payloads in the order they were requested")
+    private ReceiveResponse[] transactions;
+
+    public ReceiveBatchResponse(final ReceiveResponse... transactions) {
+        this.transactions = transactions;
+    }
+
+    public ReceiveBatchResponse() {
+    }
+
+    public ReceiveResponse[] getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(final ReceiveResponse... transactions) {
+        this.transactions = transactions;
+    }
+}
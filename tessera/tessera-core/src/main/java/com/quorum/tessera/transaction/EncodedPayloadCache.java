@@ -0,0 +1,254 @@
+package com.quorum.tessera.transaction;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A read-through, least recently used cache of decoded payloads keyed by their hash.
+ *
+ * <p>The cache is bounded by an approximate memory ceiling, based on the size of each encoded payload, rather than by
+ * a number of entries. A ceiling of 0 disables caching so that every lookup is passed to the loader.
+ *
+ * <p>Cached payloads are shared between callers and must not be modified.
+ */
+public class EncodedPayloadCache implements EncodedPayloadCacheMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EncodedPayloadCache.class);
+
+    static final String OBJECT_NAME = "com.quorum.tessera:type=EncodedPayloadCache";
+
+    /* Approximate size of the map entry, hash and decoded payload objects on top of the payload data itself */
+    static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final PayloadEncoder payloadEncoder;
+
+    private final long maxSizeInBytes;
+
+    private final LinkedHashMap<MessageHash, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long sizeInBytes;
+
+    private long invalidations;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public EncodedPayloadCache(final long maxSizeInBytes) {
+        this(PayloadEncoder.create(), maxSizeInBytes);
+    }
+
+    public EncodedPayloadCache(final PayloadEncoder payloadEncoder, final long maxSizeInBytes) {
+        this.payloadEncoder = Objects.requireNonNull(payloadEncoder, "payloadEncoder is required");
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    @PostConstruct
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (final JMException ex) {
+            LOGGER.warn("Unable to register payload cache metrics as {}", OBJECT_NAME);
+            LOGGER.debug("Unable to register payload cache metrics", ex);
+        }
+    }
+
+    @PreDestroy
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (final JMException ex) {
+            LOGGER.debug("Unable to unregister payload cache metrics", ex);
+        }
+    }
+
+    /**
+     * Returns the decoded payload for the given hash, loading and decoding the transaction if it is not cached.
+     *
+     * @param hash the hash of the transaction to look up
+     * @param loader retrieves the stored transaction when the payload is not cached
+     * @return the decoded payload, or empty if the loader could not find the transaction
+     * @throws IllegalStateException if the stored transaction cannot be decoded
+     */
+    public Optional<EncodedPayload> get(
+            final MessageHash hash, final Function<MessageHash, Optional<EncryptedTransaction>> loader) {
+
+        final long generation;
+        synchronized (this) {
+            final Entry cached = entries.get(hash);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return Optional.of(cached.payload);
+            }
+            generation = invalidations;
+        }
+
+        misses.incrementAndGet();
+
+        final Optional<EncryptedTransaction> transaction = loader.apply(hash);
+        if (!transaction.isPresent()) {
+            return Optional.empty();
+        }
+
+        final byte[] encoded = transaction.get().getEncodedPayload();
+        final EncodedPayload payload =
+                Optional.ofNullable(encoded)
+                        .map(payloadEncoder::decode)
+                        .orElseThrow(() -> new IllegalStateException("Unable to decode previously encoded payload"));
+
+        put(hash, new Entry(payload, encoded.length + ENTRY_OVERHEAD_BYTES), generation);
+
+        return Optional.of(payload);
+    }
+
+    /**
+     * Returns the decoded payloads for the given hashes, loading all of those that are not cached with a single call
+     * to the loader.
+     *
+     * @param hashes the hashes of the transactions to look up
+     * @param loader retrieves the stored transactions for the hashes whose payloads are not cached
+     * @return the decoded payload for each hash that is cached or was loaded
+     * @throws IllegalStateException if a stored transaction cannot be decoded
+     */
+    public Map<MessageHash, EncodedPayload> getAll(
+            final Collection<MessageHash> hashes,
+            final Function<Collection<MessageHash>, List<EncryptedTransaction>> loader) {
+
+        final Map<MessageHash, EncodedPayload> payloads = new HashMap<>();
+        final Set<MessageHash> missing = new HashSet<>();
+        final long generation;
+        synchronized (this) {
+            for (final MessageHash hash : hashes) {
+                final Entry cached = entries.get(hash);
+                if (cached != null) {
+                    payloads.put(hash, cached.payload);
+                } else {
+                    missing.add(hash);
+                }
+            }
+            generation = invalidations;
+        }
+
+        hits.addAndGet(payloads.size());
+        if (missing.isEmpty()) {
+            return payloads;
+        }
+        misses.addAndGet(missing.size());
+
+        for (final EncryptedTransaction transaction : loader.apply(missing)) {
+            final byte[] encoded = transaction.getEncodedPayload();
+            final EncodedPayload payload =
+                    Optional.ofNullable(encoded)
+                            .map(payloadEncoder::decode)
+                            .orElseThrow(
+                                    () -> new IllegalStateException("Unable to decode previously encoded payload"));
+
+            put(transaction.getHash(), new Entry(payload, encoded.length + ENTRY_OVERHEAD_BYTES), generation);
+            payloads.put(transaction.getHash(), payload);
+        }
+
+        return payloads;
+    }
+
+    /**
+     * Removes the payload for the given hash, so the next lookup goes to the loader. Must be called whenever the stored
+     * transaction is changed or deleted.
+     */
+    public synchronized void invalidate(final MessageHash hash) {
+        invalidations++;
+
+        final Entry removed = entries.remove(hash);
+        if (removed != null) {
+            sizeInBytes -= removed.weight;
+        }
+    }
+
+    /*
+     * A payload loaded while an invalidation happened may be stale, so it is only added if nothing has been invalidated
+     * since the lookup started.
+     */
+    private synchronized void put(final MessageHash hash, final Entry entry, final long generation) {
+        if (entry.weight > maxSizeInBytes || generation != invalidations) {
+            return;
+        }
+
+        final Entry previous = entries.put(hash, entry);
+        if (previous != null) {
+            sizeInBytes -= previous.weight;
+        }
+        sizeInBytes += entry.weight;
+
+        final Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (sizeInBytes > maxSizeInBytes) {
+            sizeInBytes -= leastRecentlyUsed.next().weight;
+            leastRecentlyUsed.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    @Override
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    private static final class Entry {
+
+        private final EncodedPayload payload;
+
+        private final long weight;
+
+        private Entry(final EncodedPayload payload, final long weight) {
+            this.payload = payload;
+            this.weight = weight;
+        }
+    }
+}
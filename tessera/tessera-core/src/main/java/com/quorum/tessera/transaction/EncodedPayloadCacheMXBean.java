@@ -0,0 +1,17 @@
+package com.quorum.tessera.transaction;
+
+/** Hit, miss and size statistics of an {@link EncodedPayloadCache}, exposed over JMX */
+public interface EncodedPayloadCacheMXBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    long getEvictionCount();
+
+    int getEntryCount();
+
+    long getSizeInBytes();
+
+    long getMaxSizeInBytes();
+}
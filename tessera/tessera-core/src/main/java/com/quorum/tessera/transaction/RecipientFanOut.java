@@ -0,0 +1,183 @@
+package com.quorum.tessera.transaction;
+
+import com.quorum.tessera.encryption.PublicKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes a transaction to each of its recipients, spreading them across a fixed number of threads so that the
+ * time taken is that of the slowest recipient rather than the sum of all of them.
+ *
+ * <p>Every recipient is published to even if some fail. The failures are then thrown together, the first recipient's
+ * failure being thrown with those of the others added to it as suppressed exceptions.
+ *
+ * <p>If delivery is not awaited, publishing returns without waiting for the recipients to be published to, so that the
+ * sender can respond while they still are. Each recipient is first resolved on the calling thread, so that a
+ * recipient that cannot be published to, such as one with an unknown key, still fails the call. If the call is part of
+ * a transaction, publishing only starts once that transaction has committed, so recipients never receive a
+ * transaction that the sender has rolled back. Failures to publish are then only logged. When the queue is full,
+ * recipients are published to on the calling thread instead.
+ *
+ * <p>With 0 threads every recipient is published to on the calling thread, one after another, and delivery is always
+ * awaited.
+ */
+public class RecipientFanOut {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecipientFanOut.class);
+
+    static final int QUEUE_CAPACITY = 1000;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final ThreadPoolExecutor executor;
+
+    private final boolean awaitDelivery;
+
+    public RecipientFanOut(final int threads, final boolean awaitDelivery) {
+        if (threads > 0) {
+            this.executor =
+                    new ThreadPoolExecutor(
+                            threads,
+                            threads,
+                            0L,
+                            TimeUnit.MILLISECONDS,
+                            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                            RecipientFanOut::newThread,
+                            (task, pool) -> task.run());
+        } else {
+            this.executor = null;
+        }
+        this.awaitDelivery = awaitDelivery || executor == null;
+    }
+
+    /**
+     * @param recipients the recipients to publish to
+     * @param publisher publishes the transaction to a single recipient
+     */
+    public void publish(final List<PublicKey> recipients, final Consumer<PublicKey> publisher) {
+        publish(recipients, recipient -> {}, publisher);
+    }
+
+    /**
+     * @param recipients the recipients to publish to
+     * @param resolver checks that a single recipient can be published to, throwing if it cannot. It is only called
+     *     when delivery is not awaited, since the publisher is then expected to make the same check.
+     * @param publisher publishes the transaction to a single recipient
+     */
+    public void publish(
+            final List<PublicKey> recipients,
+            final Consumer<PublicKey> resolver,
+            final Consumer<PublicKey> publisher) {
+        if (executor == null || executor.isShutdown()) {
+            publishInTurn(recipients, publisher);
+            return;
+        }
+
+        if (!awaitDelivery) {
+            recipients.forEach(resolver);
+            afterCommit(() -> publishInBackground(recipients, publisher));
+            return;
+        }
+
+        final List<CompletableFuture<Void>> deliveries =
+                recipients.stream()
+                        .map(recipient -> CompletableFuture.runAsync(() -> publisher.accept(recipient), executor))
+                        .collect(Collectors.toList());
+
+        final List<RuntimeException> failures = new ArrayList<>();
+        for (final CompletableFuture<Void> delivery : deliveries) {
+            try {
+                delivery.join();
+            } catch (final CompletionException ex) {
+                failures.add(unwrap(ex));
+            }
+        }
+        throwFailures(failures);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private void publishInBackground(final List<PublicKey> recipients, final Consumer<PublicKey> publisher) {
+        for (final PublicKey recipient : recipients) {
+            CompletableFuture.runAsync(() -> publisher.accept(recipient), executor)
+                    .whenComplete((result, ex) -> logFailure(recipient, ex));
+        }
+    }
+
+    private static void afterCommit(final Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                });
+    }
+
+    private static void publishInTurn(final List<PublicKey> recipients, final Consumer<PublicKey> publisher) {
+        final List<RuntimeException> failures = new ArrayList<>();
+        for (final PublicKey recipient : recipients) {
+            try {
+                publisher.accept(recipient);
+            } catch (final RuntimeException ex) {
+                failures.add(ex);
+            }
+        }
+        throwFailures(failures);
+    }
+
+    private static void throwFailures(final List<RuntimeException> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        final RuntimeException first = failures.get(0);
+        failures.stream().skip(1).filter(ex -> ex != first).forEach(first::addSuppressed);
+        throw first;
+    }
+
+    private static RuntimeException unwrap(final CompletionException ex) {
+        if (ex.getCause() instanceof RuntimeException) {
+            return (RuntimeException) ex.getCause();
+        }
+        return ex;
+    }
+
+    private static void logFailure(final PublicKey recipient, final Throwable ex) {
+        if (ex != null) {
+            final Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+            LOGGER.warn("Unable to publish to {}: {}", recipient.encodeToBase64(), cause.getMessage());
+            LOGGER.debug(null, cause);
+        }
+    }
+
+    private static Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, "recipient-fan-out-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
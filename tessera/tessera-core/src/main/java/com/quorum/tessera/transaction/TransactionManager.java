@@ -19,5 +19,7 @@ public interface TransactionManager {
 
     ReceiveResponse receive(ReceiveRequest request);
 
+    ReceiveBatchResponse receiveBatch(ReceiveBatchRequest request);
+
     StoreRawResponse store(StoreRawRequest storeRequest);
 }
@@ -23,12 +23,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+
 /**
  * Delegate/Mediator object to normalise calls/interactions between Enclave and Base64Decoder
  *
@@ -39,6 +48,9 @@ public class TransactionManagerImpl implements TransactionManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TransactionManagerImpl.class);
 
+    /* The number of payloads sent to the enclave in one call while resending, as many as one batch receive asks for */
+    private static final int ENCLAVE_BATCH_SIZE = ReceiveBatchRequest.MAX_KEYS;
+
     private final PayloadEncoder payloadEncoder;
 
     private final Base64Decoder base64Decoder;
@@ -53,6 +65,10 @@ public class TransactionManagerImpl implements TransactionManager {
 
     private final ResendManager resendManager;
 
+    private final EncodedPayloadCache payloadCache;
+
+    private final RecipientFanOut recipientFanOut;
+
     private final MessageHashFactory messageHashFactory = MessageHashFactory.create();
 
     public TransactionManagerImpl(
@@ -60,7 +76,9 @@ public class TransactionManagerImpl implements TransactionManager {
             Enclave enclave,
             EncryptedRawTransactionDAO encryptedRawTransactionDAO,
             ResendManager resendManager,
-            PartyInfoService partyInfoService) {
+            PartyInfoService partyInfoService,
+            EncodedPayloadCache payloadCache,
+            RecipientFanOut recipientFanOut) {
         this(
                 Base64Decoder.create(),
                 PayloadEncoder.create(),
@@ -68,7 +86,9 @@ public class TransactionManagerImpl implements TransactionManager {
                 partyInfoService,
                 enclave,
                 encryptedRawTransactionDAO,
-                resendManager);
+                resendManager,
+                payloadCache,
+                recipientFanOut);
     }
 
     /*
@@ -81,7 +101,9 @@ public class TransactionManagerImpl implements TransactionManager {
             PartyInfoService partyInfoService,
             Enclave enclave,
             EncryptedRawTransactionDAO encryptedRawTransactionDAO,
-            ResendManager resendManager) {
+            ResendManager resendManager,
+            EncodedPayloadCache payloadCache,
+            RecipientFanOut recipientFanOut) {
 
         this.base64Decoder = Objects.requireNonNull(base64Decoder, "base64Decoder is required");
         this.payloadEncoder = Objects.requireNonNull(payloadEncoder, "payloadEncoder is required");
@@ -92,6 +114,8 @@ public class TransactionManagerImpl implements TransactionManager {
         this.encryptedRawTransactionDAO =
                 Objects.requireNonNull(encryptedRawTransactionDAO, "encryptedRawTransactionDAO is required");
         this.resendManager = Objects.requireNonNull(resendManager, "resendManager is required");
+        this.payloadCache = Objects.requireNonNull(payloadCache, "payloadCache is required");
+        this.recipientFanOut = Objects.requireNonNull(recipientFanOut, "recipientFanOut is required");
     }
 
     @Override
@@ -134,7 +158,9 @@ public class TransactionManagerImpl implements TransactionManager {
 
         this.encryptedTransactionDAO.save(newTransaction);
 
-        recipientList.forEach(
+        recipientFanOut.publish(
+                recipientList,
+                this::resolveRecipient,
                 recipient -> {
                     final EncodedPayload outgoing = payloadEncoder.forRecipient(payload, recipient);
                     partyInfoService.publishPayload(outgoing, recipient);
@@ -180,7 +206,9 @@ public class TransactionManagerImpl implements TransactionManager {
 
         this.encryptedTransactionDAO.save(newTransaction);
 
-        recipientList.forEach(
+        recipientFanOut.publish(
+                recipientList,
+                this::resolveRecipient,
                 recipient -> {
                     final EncodedPayload toPublish = payloadEncoder.forRecipient(payload, recipient);
                     partyInfoService.publishPayload(toPublish, recipient);
@@ -201,56 +229,32 @@ public class TransactionManagerImpl implements TransactionManager {
         PublicKey recipientPublicKey = PublicKey.from(publicKeyData);
         if (request.getType() == ResendRequestType.ALL) {
 
-            int offset = 0;
-            final int maxResult = 10000;
-
-            while (offset < encryptedTransactionDAO.transactionCount()) {
-
-                encryptedTransactionDAO.retrieveTransactions(offset, maxResult).stream()
-                        .map(EncryptedTransaction::getEncodedPayload)
-                        .map(payloadEncoder::decode)
-                        .filter(
-                                payload -> {
-                                    final boolean isRecipient = payload.getRecipientKeys().contains(recipientPublicKey);
-                                    final boolean isSender = Objects.equals(payload.getSenderKey(), recipientPublicKey);
-                                    return isRecipient || isSender;
-                                })
-                        .forEach(
-                                payload -> {
-                                    final EncodedPayload prunedPayload;
-
-                                    if (Objects.equals(payload.getSenderKey(), recipientPublicKey)) {
-                                        final PublicKey decryptedKey =
-                                                searchForRecipientKey(payload)
-                                                        .orElseThrow(
-                                                                () -> {
-                                                                    final MessageHash hash =
-                                                                            MessageHashFactory.create()
-                                                                                    .createFromCipherText(
-                                                                                            payload.getCipherText());
-                                                                    return new KeyNotFoundException(
-                                                                            "No key found as recipient of message "
-                                                                                    + hash);
-                                                                });
-                                        payload.getRecipientKeys().add(decryptedKey);
-
-                                        // This payload does not need to be pruned as it was not sent by this node and
-                                        // so does not contain any other node's data
-                                        prunedPayload = payload;
-                                    } else {
-                                        prunedPayload = payloadEncoder.forRecipient(payload, recipientPublicKey);
-                                    }
-
-                                    try {
-                                        partyInfoService.publishPayload(prunedPayload, recipientPublicKey);
-                                    } catch (PublishPayloadException ex) {
-                                        LOGGER.warn(
-                                                "Unable to publish payload to recipient {} during resend",
-                                                recipientPublicKey.encodeToBase64());
-                                    }
-                                });
-
-                offset += maxResult;
+            final int batchSize = 10000;
+
+            try (Stream<EncryptedTransaction> transactions =
+                    encryptedTransactionDAO.streamTransactionsForKey(recipientPublicKey, batchSize)) {
+
+                final Iterator<EncodedPayload> payloads =
+                        transactions
+                                .map(EncryptedTransaction::getEncodedPayload)
+                                .map(payloadEncoder::decode)
+                                .filter(
+                                        payload -> {
+                                            final boolean isRecipient =
+                                                    payload.getRecipientKeys().contains(recipientPublicKey);
+                                            final boolean isSender =
+                                                    Objects.equals(payload.getSenderKey(), recipientPublicKey);
+                                            return isRecipient || isSender;
+                                        })
+                                .iterator();
+
+                while (payloads.hasNext()) {
+                    final List<EncodedPayload> chunk = new ArrayList<>();
+                    while (payloads.hasNext() && chunk.size() < ENCLAVE_BATCH_SIZE) {
+                        chunk.add(payloads.next());
+                    }
+                    resendAll(chunk, recipientPublicKey);
+                }
             }
 
             return new ResendResponse();
@@ -271,8 +275,11 @@ public class TransactionManagerImpl implements TransactionManager {
 
             final EncodedPayload returnValue;
             if (Objects.equals(payload.getSenderKey(), recipientPublicKey)) {
-                final PublicKey decryptedKey = searchForRecipientKey(payload).orElseThrow(RuntimeException::new);
-                payload.getRecipientKeys().add(decryptedKey);
+                final PublicKey decryptedKey =
+                        searchForRecipientKey(payload, enclave.getPublicKeys()).orElseThrow(RuntimeException::new);
+                if (!payload.getRecipientKeys().contains(decryptedKey)) {
+                    payload.getRecipientKeys().add(decryptedKey);
+                }
                 returnValue = payload;
             } else {
                 // this is our tx
@@ -283,6 +290,68 @@ public class TransactionManagerImpl implements TransactionManager {
         }
     }
 
+    /*
+     * Fails if a recipient that is not one of this node's own keys has no known
+     * node, as publishing to it would.
+     */
+    private void resolveRecipient(final PublicKey recipient) {
+        if (enclave.getPublicKeys().contains(recipient)) {
+            return;
+        }
+        if (!partyInfoService.findRecipient(recipient).isPresent()) {
+            throw new com.quorum.tessera.encryption.KeyNotFoundException(
+                    "Recipient not found for key: " + recipient.encodeToBase64());
+        }
+    }
+
+    private void resendAll(final List<EncodedPayload> payloads, final PublicKey recipientPublicKey) {
+
+        // payloads the recipient sent us are searched for the local key they were sent to as one batch
+        final List<EncodedPayload> sentByRecipient =
+                payloads.stream()
+                        .filter(payload -> Objects.equals(payload.getSenderKey(), recipientPublicKey))
+                        .collect(Collectors.toList());
+
+        final Map<EncodedPayload, PublicKey> decryptedKeys =
+                sentByRecipient.isEmpty()
+                        ? emptyMap()
+                        : searchForRecipientKeys(sentByRecipient, enclave.getPublicKeys());
+
+        for (final EncodedPayload payload : payloads) {
+            final EncodedPayload prunedPayload;
+
+            if (Objects.equals(payload.getSenderKey(), recipientPublicKey)) {
+                final PublicKey decryptedKey =
+                        Optional.ofNullable(decryptedKeys.get(payload))
+                                .orElseThrow(
+                                        () -> {
+                                            final MessageHash hash =
+                                                    MessageHashFactory.create()
+                                                            .createFromCipherText(payload.getCipherText());
+                                            return new KeyNotFoundException(
+                                                    "No key found as recipient of message " + hash);
+                                        });
+                if (!payload.getRecipientKeys().contains(decryptedKey)) {
+                    payload.getRecipientKeys().add(decryptedKey);
+                }
+
+                // This payload does not need to be pruned as it was not sent by this node and
+                // so does not contain any other node's data
+                prunedPayload = payload;
+            } else {
+                prunedPayload = payloadEncoder.forRecipient(payload, recipientPublicKey);
+            }
+
+            try {
+                partyInfoService.publishPayload(prunedPayload, recipientPublicKey);
+            } catch (PublishPayloadException ex) {
+                LOGGER.warn(
+                        "Unable to publish payload to recipient {} during resend",
+                        recipientPublicKey.encodeToBase64());
+            }
+        }
+    }
+
     @Override
     public MessageHash storePayload(byte[] input) {
 
@@ -294,28 +363,45 @@ public class TransactionManagerImpl implements TransactionManager {
                         .map(messageHashFactory::createFromCipherText)
                         .get();
 
-        if (enclave.getPublicKeys().contains(payload.getSenderKey())) {
+        final Set<PublicKey> localKeys = enclave.getPublicKeys();
+
+        if (localKeys.contains(payload.getSenderKey())) {
 
             this.resendManager.acceptOwnMessage(input);
 
+            // an existing transaction may have been given a new recipient
+            this.payloadCache.invalidate(transactionHash);
+
         } else {
 
-            // this is a tx from someone else
-            this.encryptedTransactionDAO.save(new EncryptedTransaction(transactionHash, input));
+            // this is a tx from someone else, which records the key it was sent to so that receives need not search
+            final byte[] stored =
+                    recordedRecipientKey(payload, localKeys).isPresent()
+                            ? input
+                            : searchForRecipientKey(payload, localKeys)
+                                    .map(key -> withRecipientKey(payload, key))
+                                    .map(payloadEncoder::encode)
+                                    .orElse(input);
+
+            this.encryptedTransactionDAO.save(new EncryptedTransaction(transactionHash, stored));
             LOGGER.info("Stored payload with hash {}", transactionHash);
         }
 
         return transactionHash;
     }
 
+    /*
+    Not transactional so that the cached payload is only invalidated once the delete has been committed,
+    otherwise a concurrent receive could cache the transaction again before the delete is visible.
+    */
     @Override
-    @Transactional
     public void delete(DeleteRequest request) {
         final byte[] hashBytes = base64Decoder.decode(request.getKey());
         final MessageHash messageHash = new MessageHash(hashBytes);
 
         LOGGER.info("Received request to delete message with hash {}", messageHash);
         this.encryptedTransactionDAO.delete(messageHash);
+        this.payloadCache.invalidate(messageHash);
     }
 
     @Override
@@ -330,35 +416,118 @@ public class TransactionManagerImpl implements TransactionManager {
         final MessageHash hash = new MessageHash(key);
         LOGGER.info("Lookup transaction {}", hash);
 
-        final EncryptedTransaction encryptedTransaction =
-                encryptedTransactionDAO
-                        .retrieveByHash(hash)
+        final EncodedPayload payload =
+                payloadCache
+                        .get(hash, encryptedTransactionDAO::retrieveByHash)
                         .orElseThrow(
                                 () -> new TransactionNotFoundException("Message with hash " + hash + " was not found"));
 
-        final EncodedPayload payload =
-                Optional.of(encryptedTransaction)
-                        .map(EncryptedTransaction::getEncodedPayload)
-                        .map(payloadEncoder::decode)
-                        .orElseThrow(() -> new IllegalStateException("Unable to decode previously encoded payload"));
-
-        PublicKey recipientKey =
-                to.map(PublicKey::from)
-                        .orElse(
-                                searchForRecipientKey(payload)
-                                        .orElseThrow(
-                                                () ->
-                                                        new NoRecipientKeyFoundException(
-                                                                "No suitable recipient keys found to decrypt payload for : "
-                                                                        + hash)));
-
-        byte[] response = enclave.unencryptTransaction(payload, recipientKey);
-
-        return new ReceiveResponse(response);
+        return new ReceiveResponse(decrypt(hash, payload, to));
+    }
+
+    @Override
+    @Transactional
+    public ReceiveBatchResponse receiveBatch(ReceiveBatchRequest request) {
+
+        final List<MessageHash> hashes =
+                Stream.of(request.getKeys())
+                        .map(base64Decoder::decode)
+                        .map(MessageHash::new)
+                        .collect(Collectors.toList());
+
+        final Optional<byte[]> to =
+                Optional.ofNullable(request.getTo()).filter(str -> !str.isEmpty()).map(base64Decoder::decode);
+
+        LOGGER.info("Lookup batch of {} transactions", hashes.size());
+
+        final Map<MessageHash, EncodedPayload> payloads =
+                payloadCache.getAll(hashes, encryptedTransactionDAO::retrieveByHashes);
+
+        final List<EncodedPayload> batch = new ArrayList<>(hashes.size());
+        final List<PublicKey> recipientKeys = new ArrayList<>(hashes.size());
+        for (final MessageHash hash : hashes) {
+            final EncodedPayload payload =
+                    Optional.ofNullable(payloads.get(hash))
+                            .orElseThrow(
+                                    () ->
+                                            new TransactionNotFoundException(
+                                                    "Message with hash " + hash + " was not found"));
+            batch.add(payload);
+            recipientKeys.add(recipientKey(hash, payload, to));
+        }
+
+        final ReceiveResponse[] responses =
+                enclave.unencryptTransactions(batch, recipientKeys).stream()
+                        .map(ReceiveResponse::new)
+                        .toArray(ReceiveResponse[]::new);
+
+        return new ReceiveBatchResponse(responses);
+    }
+
+    private byte[] decrypt(final MessageHash hash, final EncodedPayload payload, final Optional<byte[]> to) {
+        return enclave.unencryptTransaction(payload, recipientKey(hash, payload, to));
+    }
+
+    private PublicKey recipientKey(final MessageHash hash, final EncodedPayload payload, final Optional<byte[]> to) {
+        return to.map(PublicKey::from).orElseGet(() -> recipientKeyOf(hash, payload));
     }
 
-    private Optional<PublicKey> searchForRecipientKey(final EncodedPayload payload) {
-        for (final PublicKey potentialMatchingKey : enclave.getPublicKeys()) {
+    /*
+    The enclave decrypts our own payloads with their sender key whichever key it is given. Payloads from other nodes
+    record the local key they were sent to when they are stored, those stored before that was done are searched once
+    and then updated to record the key.
+    */
+    private PublicKey recipientKeyOf(final MessageHash hash, final EncodedPayload payload) {
+        final Set<PublicKey> localKeys = enclave.getPublicKeys();
+
+        if (localKeys.contains(payload.getSenderKey())) {
+            return payload.getSenderKey();
+        }
+
+        final Optional<PublicKey> recorded = recordedRecipientKey(payload, localKeys);
+        if (recorded.isPresent()) {
+            return recorded.get();
+        }
+
+        final PublicKey recipientKey =
+                searchForRecipientKey(payload, localKeys)
+                        .orElseThrow(
+                                () ->
+                                        new NoRecipientKeyFoundException(
+                                                "No suitable recipient keys found to decrypt payload for : " + hash));
+
+        final byte[] updated = payloadEncoder.encode(withRecipientKey(payload, recipientKey));
+        if (encryptedTransactionDAO.update(new EncryptedTransaction(hash, updated))) {
+            LOGGER.debug("Recorded recipient key of transaction {}", hash);
+        }
+        this.payloadCache.invalidate(hash);
+
+        return recipientKey;
+    }
+
+    private static Optional<PublicKey> recordedRecipientKey(
+            final EncodedPayload payload, final Set<PublicKey> localKeys) {
+        return payload.getRecipientKeys().stream().filter(localKeys::contains).findFirst();
+    }
+
+    /* A copy of a payload from another node recording the local key it was sent to, the cached payload is shared */
+    private static EncodedPayload withRecipientKey(final EncodedPayload payload, final PublicKey recipientKey) {
+        return new EncodedPayload(
+                payload.getSenderKey(),
+                payload.getCipherText(),
+                payload.getCipherTextNonce(),
+                payload.getRecipientBoxes(),
+                payload.getRecipientNonce(),
+                singletonList(recipientKey));
+    }
+
+    private Optional<PublicKey> searchForRecipientKey(final EncodedPayload payload, final Set<PublicKey> localKeys) {
+        final Optional<PublicKey> recorded = recordedRecipientKey(payload, localKeys);
+        if (recorded.isPresent()) {
+            return recorded;
+        }
+
+        for (final PublicKey potentialMatchingKey : localKeys) {
             try {
                 enclave.unencryptTransaction(payload, potentialMatchingKey);
                 return Optional.of(potentialMatchingKey);
@@ -369,6 +538,43 @@ public class TransactionManagerImpl implements TransactionManager {
         return Optional.empty();
     }
 
+    /*
+    Payloads from the same node were mostly sent to the same local key, so each local key is tried on all the payloads
+    in a single call to the enclave. Any batch in which no key opens every payload is searched one payload at a time.
+    */
+    private Map<EncodedPayload, PublicKey> searchForRecipientKeys(
+            final List<EncodedPayload> payloads, final Set<PublicKey> localKeys) {
+        final Map<EncodedPayload, PublicKey> found = new IdentityHashMap<>();
+
+        final List<EncodedPayload> unrecorded = new ArrayList<>();
+        for (final EncodedPayload payload : payloads) {
+            final Optional<PublicKey> recorded = recordedRecipientKey(payload, localKeys);
+            if (recorded.isPresent()) {
+                found.put(payload, recorded.get());
+            } else {
+                unrecorded.add(payload);
+            }
+        }
+
+        if (unrecorded.size() > 1) {
+            for (final PublicKey potentialMatchingKey : localKeys) {
+                try {
+                    enclave.unencryptTransactions(
+                            unrecorded, Collections.nCopies(unrecorded.size(), potentialMatchingKey));
+                    unrecorded.forEach(payload -> found.put(payload, potentialMatchingKey));
+                    return found;
+                } catch (EnclaveException | IndexOutOfBoundsException | NaclException ex) {
+                    LOGGER.debug("Attempted batch decryption using a key that does not open every payload.");
+                }
+            }
+        }
+
+        for (final EncodedPayload payload : unrecorded) {
+            searchForRecipientKey(payload, localKeys).ifPresent(key -> found.put(payload, key));
+        }
+        return found;
+    }
+
     @Override
     @Transactional
     public StoreRawResponse store(StoreRawRequest storeRequest) {
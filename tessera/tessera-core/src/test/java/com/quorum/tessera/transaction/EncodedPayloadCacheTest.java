@@ -0,0 +1,219 @@
+package com.quorum.tessera.transaction;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+public class EncodedPayloadCacheTest {
+
+    private static final int PAYLOAD_SIZE = 100;
+
+    private static final long ENTRY_SIZE = PAYLOAD_SIZE + EncodedPayloadCache.ENTRY_OVERHEAD_BYTES;
+
+    private PayloadEncoder payloadEncoder;
+
+    private Function<MessageHash, Optional<EncryptedTransaction>> loader;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void onSetUp() {
+        this.payloadEncoder = mock(PayloadEncoder.class);
+        this.loader = mock(Function.class);
+
+        when(payloadEncoder.decode(any(byte[].class))).thenAnswer(invocation -> mock(EncodedPayload.class));
+        when(loader.apply(any(MessageHash.class)))
+                .thenAnswer(
+                        invocation -> {
+                            final MessageHash hash = invocation.getArgument(0);
+                            return Optional.of(new EncryptedTransaction(hash, new byte[PAYLOAD_SIZE]));
+                        });
+    }
+
+    @After
+    public void onTearDown() {
+        verifyNoMoreInteractions(loader);
+    }
+
+    @Test
+    public void secondLookupIsServedFromCache() {
+        final EncodedPayloadCache cache = new EncodedPayloadCache(payloadEncoder, ENTRY_SIZE);
+        final MessageHash hash = hash(1);
+
+        final Optional<EncodedPayload> first = cache.get(hash, loader);
+        final Optional<EncodedPayload> second = cache.get(hash, loader);
+
+        assertThat(first).isPresent();
+        assertThat(second.get()).isSameAs(first.get());
+
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getEntryCount()).isEqualTo(1);
+        assertThat(cache.getSizeInBytes()).isEqualTo(ENTRY_SIZE);
+
+        verify(loader).apply(hash);
+        verify(payloadEncoder).decode(any(byte[].class));
+    }
+
+    @Test
+    public void leastRecentlyUsedPayloadIsEvictedOnceCeilingIsReached() {
+        final EncodedPayloadCache cache = new EncodedPayloadCache(payloadEncoder, 2 * ENTRY_SIZE);
+
+        cache.get(hash(1), loader);
+        cache.get(hash(2), loader);
+        cache.get(hash(1), loader);
+        cache.get(hash(3), loader);
+
+        assertThat(cache.getEntryCount()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.getSizeInBytes()).isEqualTo(2 * ENTRY_SIZE);
+
+        cache.get(hash(1), loader);
+        cache.get(hash(2), loader);
+
+        verify(loader).apply(hash(1));
+        verify(loader, times(2)).apply(hash(2));
+        verify(loader).apply(hash(3));
+    }
+
+    @Test
+    public void invalidatedPayloadIsLoadedAgain() {
+        final EncodedPayloadCache cache = new EncodedPayloadCache(payloadEncoder, ENTRY_SIZE);
+        final MessageHash hash = hash(1);
+
+        cache.get(hash, loader);
+        cache.invalidate(hash);
+
+        assertThat(cache.getEntryCount()).isZero();
+        assertThat(cache.getSizeInBytes()).isZero();
+
+        cache.get(hash, loader);
+
+        assertThat(cache.getMissCount()).isEqualTo(2);
+        verify(loader, times(2)).apply(hash);
+    }
+
+    @Test
+    public void payloadLoadedDuringInvalidationIsNotCached() {
+        final EncodedPayloadCache cache = new EncodedPayloadCache(payloadEncoder, ENTRY_SIZE);
+        final MessageHash hash = hash(1);
+
+        final Function<MessageHash, Optional<EncryptedTransaction>> invalidatingLoader =
+                h -> {
+                    cache.invalidate(h);
+                    return loader.apply(h);
+                };
+
+        assertThat(cache.get(hash, invalidatingLoader)).isPresent();
+        assertThat(cache.getEntryCount()).isZero();
+
+        verify(loader).apply(hash);
+    }
+
+    @Test
+    public void zeroCeilingDisablesCaching() {
+        final EncodedPayloadCache cache = new EncodedPayloadCache(payloadEncoder, 0);
+        final MessageHash hash = hash(1);
+
+        cache.get(hash, loader);
+        cache.get(hash, loader);
+
+        assertThat(cache.getEntryCount()).isZero();
+        assertThat(cache.getHitCount()).isZero();
+        assertThat(cache.getMissCount()).isEqualTo(2);
+
+        verify(loader, times(2)).apply(hash);
+    }
+
+    @Test
+    public void missingTransactionIsNotCached() {
+        final EncodedPayloadCache cache = new EncodedPayloadCache(payloadEncoder, ENTRY_SIZE);
+        final MessageHash hash = hash(1);
+
+        when(loader.apply(hash)).thenReturn(Optional.empty());
+
+        assertThat(cache.get(hash, loader)).isEmpty();
+        assertThat(cache.getEntryCount()).isZero();
+
+        verify(loader).apply(hash);
+    }
+
+    @Test
+    public void undecodablePayloadThrowsIllegalStateException() {
+        final EncodedPayloadCache cache = new EncodedPayloadCache(payloadEncoder, ENTRY_SIZE);
+        final MessageHash hash = hash(1);
+
+        when(payloadEncoder.decode(any(byte[].class))).thenReturn(null);
+
+        final Throwable throwable = catchThrowable(() -> cache.get(hash, loader));
+
+        assertThat(throwable).isInstanceOf(IllegalStateException.class);
+        assertThat(cache.getEntryCount()).isZero();
+
+        verify(loader).apply(hash);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getAllOnlyLoadsPayloadsThatAreNotCached() {
+        final EncodedPayloadCache cache = new EncodedPayloadCache(payloadEncoder, 3 * ENTRY_SIZE);
+        final Function<Collection<MessageHash>, List<EncryptedTransaction>> batchLoader = mock(Function.class);
+        when(batchLoader.apply(anyCollection()))
+                .thenReturn(singletonList(new EncryptedTransaction(hash(2), new byte[PAYLOAD_SIZE])));
+
+        final EncodedPayload cached = cache.get(hash(1), loader).get();
+
+        final Map<MessageHash, EncodedPayload> payloads =
+                cache.getAll(Arrays.asList(hash(1), hash(2), hash(3)), batchLoader);
+
+        assertThat(payloads).containsOnlyKeys(hash(1), hash(2));
+        assertThat(payloads.get(hash(1))).isSameAs(cached);
+        assertThat(cache.getEntryCount()).isEqualTo(2);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(3);
+
+        verify(loader).apply(hash(1));
+        verify(batchLoader).apply(new HashSet<>(Arrays.asList(hash(2), hash(3))));
+        verifyNoMoreInteractions(batchLoader);
+    }
+
+    @Test
+    public void metricsAreRegisteredWithPlatformMBeanServer() throws Exception {
+        final EncodedPayloadCache cache = new EncodedPayloadCache(payloadEncoder, ENTRY_SIZE);
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = new ObjectName(EncodedPayloadCache.OBJECT_NAME);
+
+        cache.register();
+        try {
+            assertThat(mBeanServer.getAttribute(objectName, "MaxSizeInBytes")).isEqualTo(ENTRY_SIZE);
+            assertThat(mBeanServer.getAttribute(objectName, "HitCount")).isEqualTo(0L);
+        } finally {
+            cache.unregister();
+        }
+
+        assertThat(mBeanServer.isRegistered(objectName)).isFalse();
+    }
+
+    private static MessageHash hash(final int id) {
+        return new MessageHash(new byte[] {(byte) id});
+    }
+}
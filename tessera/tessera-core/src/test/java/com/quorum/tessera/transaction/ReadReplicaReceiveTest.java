@@ -0,0 +1,194 @@
+package com.quorum.tessera.transaction;
+
+import com.quorum.tessera.api.model.ReceiveRequest;
+import com.quorum.tessera.data.EncryptedRawTransactionDAO;
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.EncryptedTransactionDAOImpl;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.ReadReplicaDataSource;
+import com.quorum.tessera.data.ReadReplicaEncryptedTransactionDAO;
+import com.quorum.tessera.data.StorageCodec;
+import com.quorum.tessera.enclave.Enclave;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadBuilder;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.partyinfo.PartyInfoService;
+import com.quorum.tessera.partyinfo.ResendManager;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.EclipseLinkJpaDialect;
+import org.springframework.orm.jpa.vendor.EclipseLinkJpaVendorAdapter;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Receives a transaction through the transactional proxy of the transaction manager, with the JPA wiring used in
+ * production: the primary's entity manager takes a connection as soon as the transaction begins, and lookups go
+ * through the entity manager of the read replica persistence unit.
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = ReadReplicaReceiveTest.ReadReplicaConfig.class)
+public class ReadReplicaReceiveTest {
+
+    private static final MessageHash HASH = new MessageHash("hash".getBytes());
+
+    private static final PublicKey KEY = PublicKey.from("key".getBytes());
+
+    @Inject private TransactionManager transactionManager;
+
+    @Inject
+    @Named("entityManagerFactory")
+    private EntityManagerFactory primary;
+
+    @Inject
+    @Named("replicaEntityManagerFactory")
+    private EntityManagerFactory replica;
+
+    @Inject private Enclave enclave;
+
+    @Test
+    public void receiveInsideTransactionReadsFromReplica() {
+        store(primary, "stored on the primary");
+        store(replica, "stored on the replica");
+
+        when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class)))
+                .thenAnswer(invocation -> invocation.<EncodedPayload>getArgument(0).getCipherText());
+
+        final ReceiveRequest request = new ReceiveRequest();
+        request.setKey(Base64.getEncoder().encodeToString(HASH.getHashBytes()));
+        request.setTo(Base64.getEncoder().encodeToString(KEY.getKeyBytes()));
+
+        assertThat(transactionManager.receive(request).getPayload()).isEqualTo("stored on the replica".getBytes());
+    }
+
+    private static void store(final EntityManagerFactory entityManagerFactory, final String cipherText) {
+        final EncodedPayload payload =
+                EncodedPayloadBuilder.create()
+                        .withSenderKey(KEY)
+                        .withCipherText(cipherText.getBytes())
+                        .withCipherTextNonce("nonce".getBytes())
+                        .withRecipientBoxes(Collections.singletonList("box".getBytes()))
+                        .withRecipientNonce("nonce".getBytes())
+                        .withRecipientKeys(KEY)
+                        .build();
+
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.persist(new EncryptedTransaction(HASH, PayloadEncoder.create().encode(payload)));
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    public static class ReadReplicaConfig {
+
+        @Bean
+        public DataSource primaryDataSource() {
+            return new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(EmbeddedDatabaseType.H2).build();
+        }
+
+        @Bean
+        public ReadReplicaDataSource replicaDataSource() {
+            final DataSource replica =
+                    new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(EmbeddedDatabaseType.H2).build();
+            return new ReadReplicaDataSource(primaryDataSource(), Collections.singletonList(replica));
+        }
+
+        @Bean
+        public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+            final LocalContainerEntityManagerFactoryBean factory = entityManagerFactory(primaryDataSource());
+            factory.setPersistenceUnitName("tessera");
+            return factory;
+        }
+
+        @Bean
+        public LocalContainerEntityManagerFactoryBean replicaEntityManagerFactory() {
+            final LocalContainerEntityManagerFactoryBean factory = entityManagerFactory(replicaDataSource());
+            factory.setPersistenceXmlLocation("classpath:META-INF/replica-persistence.xml");
+            factory.setPersistenceUnitName("tessera-replica");
+            return factory;
+        }
+
+        @Bean
+        public JpaTransactionManager jpaTransactionManager(
+                @Named("entityManagerFactory") final EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        public EncryptedTransactionDAO primaryEncryptedTransactionDAO() {
+            return new EncryptedTransactionDAOImpl();
+        }
+
+        @Bean
+        public EncryptedTransactionDAO encryptedTransactionDAO(
+                @Named("replicaEntityManagerFactory") final EntityManagerFactory replicaEntityManagerFactory) {
+            return ReadReplicaEncryptedTransactionDAO.create(
+                    primaryEncryptedTransactionDAO(),
+                    new StorageCodec(),
+                    SharedEntityManagerCreator.createSharedEntityManager(replicaEntityManagerFactory, null, false),
+                    true);
+        }
+
+        @Bean
+        public Enclave enclave() {
+            return mock(Enclave.class);
+        }
+
+        @Bean
+        public TransactionManager transactionManager(
+                @Named("encryptedTransactionDAO") final EncryptedTransactionDAO encryptedTransactionDAO) {
+            return new TransactionManagerImpl(
+                    encryptedTransactionDAO,
+                    enclave(),
+                    mock(EncryptedRawTransactionDAO.class),
+                    mock(ResendManager.class),
+                    mock(PartyInfoService.class),
+                    new EncodedPayloadCache(0),
+                    new RecipientFanOut(0, true));
+        }
+
+        private static LocalContainerEntityManagerFactoryBean entityManagerFactory(final DataSource dataSource) {
+            final LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setJpaDialect(new EclipseLinkJpaDialect());
+            factory.setJpaVendorAdapter(new EclipseLinkJpaVendorAdapter());
+
+            final Map<String, String> properties = new HashMap<>();
+            properties.put("eclipselink.weaving", "false");
+            properties.put("eclipselink.cache.shared.default", "false");
+            properties.put("javax.persistence.schema-generation.database.action", "create");
+            factory.setJpaPropertyMap(properties);
+            return factory;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.quorum.tessera.transaction;
+
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.partyinfo.PublishPayloadException;
+import com.quorum.tessera.transaction.exception.KeyNotFoundException;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class RecipientFanOutTest {
+
+    private final Set<PublicKey> published = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+    private RecipientFanOut fanOut;
+
+    @After
+    public void onTearDown() {
+        if (fanOut != null) {
+            fanOut.shutdown();
+        }
+    }
+
+    @Test
+    public void recipientsArePublishedToConcurrently() {
+        fanOut = new RecipientFanOut(4, true);
+
+        // each publish only returns once all four have started
+        final CyclicBarrier barrier = new CyclicBarrier(4);
+
+        fanOut.publish(
+                recipients(4),
+                recipient -> {
+                    await(barrier);
+                    publish(recipient);
+                });
+
+        assertThat(published).containsExactlyInAnyOrderElementsOf(recipients(4));
+        assertThat(threadNames).hasSize(4).allMatch(name -> name.startsWith("recipient-fan-out-"));
+    }
+
+    @Test
+    public void zeroThreadsPublishesOnCallingThread() {
+        fanOut = new RecipientFanOut(0, false);
+
+        fanOut.publish(recipients(20), this::publish);
+
+        assertThat(published).containsExactlyInAnyOrderElementsOf(recipients(20));
+        assertThat(threadNames).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void recipientsArePublishedToOnCallingThreadAfterShutdown() {
+        fanOut = new RecipientFanOut(4, true);
+        fanOut.shutdown();
+
+        fanOut.publish(recipients(20), this::publish);
+
+        assertThat(published).hasSize(20);
+        assertThat(threadNames).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void failuresAreThrownOnceEveryRecipientIsPublishedTo() {
+        fanOut = new RecipientFanOut(4, true);
+
+        final List<PublicKey> recipients = recipients(20);
+
+        final Throwable throwable =
+                catchThrowable(
+                        () ->
+                                fanOut.publish(
+                                        recipients,
+                                        recipient -> {
+                                            publish(recipient);
+                                            failFor(recipients, recipient);
+                                        }));
+
+        assertThat(published).hasSize(20);
+        assertThat(throwable).isInstanceOf(KeyNotFoundException.class).hasMessage("0");
+        assertThat(throwable.getSuppressed()).hasSize(1);
+        assertThat(throwable.getSuppressed()[0]).isInstanceOf(PublishPayloadException.class).hasMessage("10");
+    }
+
+    @Test
+    public void failuresAreThrownWhenPublishingOnCallingThread() {
+        fanOut = new RecipientFanOut(0, true);
+
+        final List<PublicKey> recipients = recipients(20);
+
+        final Throwable throwable =
+                catchThrowable(
+                        () ->
+                                fanOut.publish(
+                                        recipients,
+                                        recipient -> {
+                                            publish(recipient);
+                                            failFor(recipients, recipient);
+                                        }));
+
+        assertThat(published).hasSize(20);
+        assertThat(throwable).isInstanceOf(KeyNotFoundException.class);
+        assertThat(throwable.getSuppressed()).hasSize(1);
+    }
+
+    @Test
+    public void publishReturnsBeforeDeliveryWhenNotAwaited() throws Exception {
+        fanOut = new RecipientFanOut(4, false);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch delivered = new CountDownLatch(8);
+
+        fanOut.publish(
+                recipients(8),
+                recipient -> {
+                    await(release);
+                    publish(recipient);
+                    delivered.countDown();
+                    throw new PublishPayloadException("failures are only logged");
+                });
+
+        assertThat(published).isEmpty();
+
+        release.countDown();
+
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(published).containsExactlyInAnyOrderElementsOf(recipients(8));
+    }
+
+    @Test
+    public void unresolvedRecipientFailsBeforeAnyArePublishedToWhenNotAwaited() {
+        fanOut = new RecipientFanOut(4, false);
+
+        final List<PublicKey> recipients = recipients(8);
+
+        final Throwable throwable =
+                catchThrowable(
+                        () ->
+                                fanOut.publish(
+                                        recipients,
+                                        recipient -> failFor(recipients, recipient),
+                                        this::publish));
+
+        assertThat(throwable).isInstanceOf(KeyNotFoundException.class).hasMessage("0");
+        assertThat(published).isEmpty();
+    }
+
+    @Test
+    public void publishingStartsOnceTransactionCommitsWhenNotAwaited() throws Exception {
+        fanOut = new RecipientFanOut(4, false);
+
+        final CountDownLatch delivered = new CountDownLatch(8);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            fanOut.publish(
+                    recipients(8),
+                    recipient -> {
+                        publish(recipient);
+                        delivered.countDown();
+                    });
+
+            assertThat(delivered.await(100, TimeUnit.MILLISECONDS)).isFalse();
+            assertThat(published).isEmpty();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(published).containsExactlyInAnyOrderElementsOf(recipients(8));
+    }
+
+    @Test
+    public void nothingIsPublishedIfTransactionRollsBackWhenNotAwaited() throws Exception {
+        fanOut = new RecipientFanOut(4, false);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            fanOut.publish(recipients(8), this::publish);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        fanOut.shutdown();
+        assertThat(published).isEmpty();
+    }
+
+    private void publish(final PublicKey recipient) {
+        threadNames.add(Thread.currentThread().getName());
+        published.add(recipient);
+    }
+
+    private static void failFor(final List<PublicKey> recipients, final PublicKey recipient) {
+        final int index = recipients.indexOf(recipient);
+        if (index == 0) {
+            throw new KeyNotFoundException("0");
+        }
+        if (index == 10) {
+            throw new PublishPayloadException("10");
+        }
+    }
+
+    private static List<PublicKey> recipients(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> PublicKey.from(new byte[] {(byte) i}))
+                .collect(Collectors.toList());
+    }
+
+    private static void await(final CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (final Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
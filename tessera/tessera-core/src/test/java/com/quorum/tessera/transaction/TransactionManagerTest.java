@@ -58,6 +58,53 @@ public class TransactionManagerTest {
 
     private Enclave enclave;
 
+    @Test
+    public void sendWithoutAwaitingDeliveryFailsForUnknownRecipientBeforePublishing() {
+
+        EncodedPayload encodedPayload = mock(EncodedPayload.class);
+
+        when(encodedPayload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+
+        PublicKey senderKey = PublicKey.from("SENDER".getBytes());
+        PublicKey receiverKey = PublicKey.from("RECEIVER".getBytes());
+
+        when(enclave.encryptPayload(any(), any(), any())).thenReturn(encodedPayload);
+        when(enclave.getPublicKeys()).thenReturn(singleton(senderKey));
+        when(partyInfoService.findRecipient(receiverKey)).thenReturn(Optional.empty());
+
+        RecipientFanOut recipientFanOut = new RecipientFanOut(4, false);
+        TransactionManager tm =
+                new TransactionManagerImpl(
+                        Base64Decoder.create(),
+                        payloadEncoder,
+                        encryptedTransactionDAO,
+                        partyInfoService,
+                        enclave,
+                        encryptedRawTransactionDAO,
+                        resendManager,
+                        new EncodedPayloadCache(payloadEncoder, 0),
+                        recipientFanOut);
+
+        SendRequest sendRequest = new SendRequest();
+        sendRequest.setFrom(senderKey.encodeToBase64());
+        sendRequest.setTo(receiverKey.encodeToBase64());
+        sendRequest.setPayload(Base64.getEncoder().encode("PAYLOAD".getBytes()));
+
+        final Throwable throwable = catchThrowable(() -> tm.send(sendRequest));
+        recipientFanOut.shutdown();
+
+        assertThat(throwable)
+                .isInstanceOf(com.quorum.tessera.encryption.KeyNotFoundException.class)
+                .hasMessageContaining(receiverKey.encodeToBase64());
+
+        verify(enclave).encryptPayload(any(), any(), any());
+        verify(enclave).getForwardingKeys();
+        verify(enclave).getPublicKeys();
+        verify(payloadEncoder).encode(encodedPayload);
+        verify(encryptedTransactionDAO).save(any(EncryptedTransaction.class));
+        verify(partyInfoService).findRecipient(receiverKey);
+    }
+
     private MessageHashFactory messageHashFactory = MessageHashFactory.create();
 
     @Before
@@ -78,7 +125,9 @@ public class TransactionManagerTest {
                         partyInfoService,
                         enclave,
                         encryptedRawTransactionDAO,
-                        resendManager);
+                        resendManager,
+                        new EncodedPayloadCache(payloadEncoder, 0),
+                        new RecipientFanOut(0, true));
     }
 
     @After
@@ -118,6 +167,37 @@ public class TransactionManagerTest {
         verify(enclave).getForwardingKeys();
     }
 
+    @Test
+    public void sendPublishesToEveryRecipientBeforeThrowingFailure() {
+
+        EncodedPayload encodedPayload = mock(EncodedPayload.class);
+
+        when(encodedPayload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+
+        when(enclave.encryptPayload(any(), any(), any())).thenReturn(encodedPayload);
+        when(payloadEncoder.forRecipient(any(EncodedPayload.class), any(PublicKey.class))).thenReturn(encodedPayload);
+
+        PublicKey receiverKey = PublicKey.from("RECEIVER".getBytes());
+        doThrow(new PublishPayloadException("msg")).when(partyInfoService).publishPayload(encodedPayload, receiverKey);
+
+        SendRequest sendRequest = new SendRequest();
+        sendRequest.setFrom(Base64.getEncoder().encodeToString("SENDER".getBytes()));
+        sendRequest.setTo(receiverKey.encodeToBase64());
+        sendRequest.setPayload(Base64.getEncoder().encode("PAYLOAD".getBytes()));
+
+        final Throwable throwable = catchThrowable(() -> transactionManager.send(sendRequest));
+
+        assertThat(throwable).isInstanceOf(PublishPayloadException.class);
+
+        verify(enclave).encryptPayload(any(), any(), any());
+        verify(payloadEncoder).encode(encodedPayload);
+        verify(payloadEncoder, times(2)).forRecipient(eq(encodedPayload), any(PublicKey.class));
+        verify(encryptedTransactionDAO).save(any(EncryptedTransaction.class));
+        verify(partyInfoService).publishPayload(encodedPayload, receiverKey);
+        verify(partyInfoService).publishPayload(encodedPayload, PublicKey.from("SENDER".getBytes()));
+        verify(enclave).getForwardingKeys();
+    }
+
     @Test
     public void sendSignedTransaction() {
 
@@ -238,8 +318,8 @@ public class TransactionManagerTest {
 
         when(payload.getSenderKey()).thenReturn(senderKey);
         when(payload.getRecipientKeys()).thenReturn(new ArrayList<>());
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.streamTransactionsForKey(any(PublicKey.class), anyInt()))
+                .thenReturn(Stream.of(tx));
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
         when(enclave.getPublicKeys()).thenReturn(singleton(recipientKey));
         when(enclave.unencryptTransaction(payload, recipientKey)).thenReturn(new byte[0]);
@@ -252,8 +332,7 @@ public class TransactionManagerTest {
 
         assertThat(result).isNotNull();
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).streamTransactionsForKey(any(PublicKey.class), anyInt());
         verify(payloadEncoder).decode(encodedData);
         verify(partyInfoService).publishPayload(any(EncodedPayload.class), eq(senderKey));
         verify(enclave).getPublicKeys();
@@ -271,8 +350,8 @@ public class TransactionManagerTest {
         final EncodedPayload payload = mock(EncodedPayload.class);
         when(payload.getRecipientKeys()).thenReturn(emptyList());
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.streamTransactionsForKey(any(PublicKey.class), anyInt()))
+                .thenReturn(Stream.of(tx));
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
 
         final ResendRequest resendRequest = new ResendRequest();
@@ -283,8 +362,7 @@ public class TransactionManagerTest {
 
         assertThat(result).isNotNull();
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).streamTransactionsForKey(any(PublicKey.class), anyInt());
         verify(payloadEncoder).decode(encodedData);
     }
 
@@ -297,8 +375,8 @@ public class TransactionManagerTest {
         final EncodedPayload payload = mock(EncodedPayload.class);
         when(payload.getRecipientKeys()).thenReturn(singletonList(recipientKey));
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.streamTransactionsForKey(any(PublicKey.class), anyInt()))
+                .thenReturn(Stream.of(tx));
 
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
         when(payloadEncoder.forRecipient(payload, recipientKey)).thenReturn(payload);
@@ -311,8 +389,7 @@ public class TransactionManagerTest {
 
         assertThat(result).isNotNull();
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).streamTransactionsForKey(any(PublicKey.class), anyInt());
         verify(payloadEncoder).decode(encodedData);
         verify(payloadEncoder).forRecipient(payload, recipientKey);
         verify(partyInfoService).publishPayload(any(EncodedPayload.class), eq(recipientKey));
@@ -340,8 +417,8 @@ public class TransactionManagerTest {
         when(payload.getRecipientKeys()).thenReturn(recipients);
         when(payload.getRecipientBoxes()).thenReturn(recipientBoxes);
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.streamTransactionsForKey(any(PublicKey.class), anyInt()))
+                .thenReturn(Stream.of(tx));
 
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
 
@@ -359,8 +436,7 @@ public class TransactionManagerTest {
         assertThat(result).isNotNull();
         verify(partyInfoService).publishPayload(eq(prunedPayload), eq(recipientKey));
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).streamTransactionsForKey(any(PublicKey.class), anyInt());
         verify(payloadEncoder).forRecipient(payload, recipientKey);
         verify(payloadEncoder).decode(encodedData);
     }
@@ -385,8 +461,8 @@ public class TransactionManagerTest {
         when(payload.getRecipientKeys()).thenReturn(recipients);
         when(payload.getRecipientBoxes()).thenReturn(recipientBoxes);
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.streamTransactionsForKey(any(PublicKey.class), anyInt()))
+                .thenReturn(Stream.of(tx));
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
         when(enclave.getPublicKeys()).thenReturn(singleton(localKey));
 
@@ -400,8 +476,7 @@ public class TransactionManagerTest {
         verify(partyInfoService).publishPayload(eq(payload), eq(senderKey));
         verify(payloadEncoder, never()).forRecipient(any(EncodedPayload.class), any(PublicKey.class));
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).streamTransactionsForKey(any(PublicKey.class), anyInt());
         verify(payloadEncoder).decode(encodedData);
         verify(enclave).getPublicKeys();
         verify(enclave).unencryptTransaction(payload, localKey);
@@ -417,8 +492,8 @@ public class TransactionManagerTest {
 
         when(payload.getSenderKey()).thenReturn(senderKey);
         when(payload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.streamTransactionsForKey(any(PublicKey.class), anyInt()))
+                .thenReturn(Stream.of(tx));
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
         when(payload.getRecipientKeys()).thenReturn(new ArrayList<>());
         when(enclave.getPublicKeys()).thenReturn(emptySet());
@@ -433,8 +508,7 @@ public class TransactionManagerTest {
                 .isInstanceOf(KeyNotFoundException.class)
                 .hasMessage("No key found as recipient of message Q0lQSEVSVEVYVA==");
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(1)).transactionCount();
+        verify(encryptedTransactionDAO).streamTransactionsForKey(any(PublicKey.class), anyInt());
         verify(payloadEncoder).decode(encodedData);
         verify(enclave).getPublicKeys();
     }
@@ -445,8 +519,8 @@ public class TransactionManagerTest {
         EncryptedTransaction encryptedTransaction = mock(EncryptedTransaction.class);
         List<EncryptedTransaction> allDbTransactions = Collections.singletonList(encryptedTransaction);
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(allDbTransactions);
-        when(encryptedTransactionDAO.transactionCount()).thenReturn((long) allDbTransactions.size());
+        when(encryptedTransactionDAO.streamTransactionsForKey(any(PublicKey.class), anyInt()))
+                .thenReturn(allDbTransactions.stream());
 
         byte[] transactionBytes = "TRANSACTION".getBytes();
         when(encryptedTransaction.getEncodedPayload()).thenReturn(transactionBytes);
@@ -472,8 +546,7 @@ public class TransactionManagerTest {
         verify(partyInfoService).publishPayload(encodedPayload, publicKey);
         verify(payloadEncoder).decode(any(byte[].class));
         verify(payloadEncoder).forRecipient(any(EncodedPayload.class), any(PublicKey.class));
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).streamTransactionsForKey(any(PublicKey.class), anyInt());
     }
 
     @Test
@@ -482,8 +555,8 @@ public class TransactionManagerTest {
         EncryptedTransaction otherEncryptedTransaction = mock(EncryptedTransaction.class);
         List<EncryptedTransaction> allDbTransactions = Arrays.asList(encryptedTransaction, otherEncryptedTransaction);
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(allDbTransactions);
-        when(encryptedTransactionDAO.transactionCount()).thenReturn((long) allDbTransactions.size());
+        when(encryptedTransactionDAO.streamTransactionsForKey(any(PublicKey.class), anyInt()))
+                .thenReturn(allDbTransactions.stream());
 
         byte[] transactionBytes = "TRANSACTION".getBytes();
         byte[] otherTransactionBytes = "OTHER_TRANSACTION".getBytes();
@@ -517,8 +590,7 @@ public class TransactionManagerTest {
         verify(partyInfoService).publishPayload(otherEncodedPayload, publicKey);
         verify(payloadEncoder, times(2)).decode(any(byte[].class));
         verify(payloadEncoder, times(2)).forRecipient(any(EncodedPayload.class), any(PublicKey.class));
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).streamTransactionsForKey(any(PublicKey.class), anyInt());
     }
 
     @Test
@@ -527,8 +599,8 @@ public class TransactionManagerTest {
         EncryptedTransaction otherEncryptedTransaction = mock(EncryptedTransaction.class);
         List<EncryptedTransaction> allDbTransactions = Arrays.asList(encryptedTransaction, otherEncryptedTransaction);
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(allDbTransactions);
-        when(encryptedTransactionDAO.transactionCount()).thenReturn((long) allDbTransactions.size());
+        when(encryptedTransactionDAO.streamTransactionsForKey(any(PublicKey.class), anyInt()))
+                .thenReturn(allDbTransactions.stream());
 
         byte[] transactionBytes = "TRANSACTION".getBytes();
         byte[] otherTransactionBytes = "OTHER_TRANSACTION".getBytes();
@@ -561,8 +633,7 @@ public class TransactionManagerTest {
 
         transactionManager.resend(resendRequest);
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).streamTransactionsForKey(any(PublicKey.class), anyInt());
         verify(partyInfoService).publishPayload(encodedPayload, publicKey);
         verify(partyInfoService).publishPayload(otherEncodedPayload, publicKey);
         verify(payloadEncoder, times(2)).decode(any(byte[].class));
@@ -570,6 +641,48 @@ public class TransactionManagerTest {
         verify(partyInfoService, times(2)).publishPayload(any(EncodedPayload.class), any(PublicKey.class));
     }
 
+    @Test
+    public void resendAllSearchesPayloadsFromRequesterForLocalKeyInOneBatch() {
+        final PublicKey senderKey = PublicKey.from("SENDER".getBytes());
+        final PublicKey otherKey = PublicKey.from("OTHER".getBytes());
+        final PublicKey localKey = PublicKey.from("LOCAL".getBytes());
+
+        final EncodedPayload first =
+                new EncodedPayload(senderKey, null, null, emptyList(), null, new ArrayList<>());
+        final EncodedPayload second =
+                new EncodedPayload(senderKey, null, null, emptyList(), null, new ArrayList<>());
+
+        when(encryptedTransactionDAO.streamTransactionsForKey(any(PublicKey.class), anyInt()))
+                .thenReturn(
+                        Stream.of(
+                                new EncryptedTransaction(mock(MessageHash.class), "FIRST".getBytes()),
+                                new EncryptedTransaction(mock(MessageHash.class), "SECOND".getBytes())));
+        when(payloadEncoder.decode("FIRST".getBytes())).thenReturn(first);
+        when(payloadEncoder.decode("SECOND".getBytes())).thenReturn(second);
+        when(enclave.getPublicKeys()).thenReturn(new LinkedHashSet<>(Arrays.asList(otherKey, localKey)));
+        when(enclave.unencryptTransactions(Arrays.asList(first, second), Arrays.asList(otherKey, otherKey)))
+                .thenThrow(NaclException.class);
+        when(enclave.unencryptTransactions(Arrays.asList(first, second), Arrays.asList(localKey, localKey)))
+                .thenReturn(Arrays.asList(new byte[0], new byte[0]));
+
+        final ResendRequest resendRequest = new ResendRequest();
+        resendRequest.setPublicKey(senderKey.encodeToBase64());
+        resendRequest.setType(ResendRequestType.ALL);
+
+        transactionManager.resend(resendRequest);
+
+        assertThat(first.getRecipientKeys()).containsExactly(localKey);
+        assertThat(second.getRecipientKeys()).containsExactly(localKey);
+
+        verify(encryptedTransactionDAO).streamTransactionsForKey(any(PublicKey.class), anyInt());
+        verify(payloadEncoder, times(2)).decode(any(byte[].class));
+        verify(enclave).getPublicKeys();
+        verify(enclave).unencryptTransactions(Arrays.asList(first, second), Arrays.asList(otherKey, otherKey));
+        verify(enclave).unencryptTransactions(Arrays.asList(first, second), Arrays.asList(localKey, localKey));
+        verify(partyInfoService).publishPayload(first, senderKey);
+        verify(partyInfoService).publishPayload(second, senderKey);
+    }
+
     @Test
     public void resendIndividualNoExistingTransactionFound() {
 
@@ -699,9 +812,6 @@ public class TransactionManagerTest {
 
         when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class))).thenReturn(expectedOutcome);
 
-        PublicKey publicKey = mock(PublicKey.class);
-        when(enclave.getPublicKeys()).thenReturn(Collections.singleton(publicKey));
-
         ReceiveResponse receiveResponse = transactionManager.receive(receiveRequest);
 
         assertThat(receiveResponse).isNotNull();
@@ -710,8 +820,7 @@ public class TransactionManagerTest {
 
         verify(payloadEncoder).decode(any(byte[].class));
         verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-        verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-        verify(enclave).getPublicKeys();
+        verify(enclave).unencryptTransaction(payload, PublicKey.from("recipient".getBytes()));
     }
 
     @Test
@@ -739,7 +848,7 @@ public class TransactionManagerTest {
     }
 
     @Test
-    public void receiveNoRecipientKeyFound() {
+    public void receiveWithRecipientThatCannotDecryptDoesNotSearchOtherKeys() {
 
         byte[] keyData = Base64.getEncoder().encode("KEY".getBytes());
         String recipient = Base64.getEncoder().encodeToString("recipient".getBytes());
@@ -759,21 +868,16 @@ public class TransactionManagerTest {
         when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
                 .thenReturn(Optional.of(encryptedTransaction));
 
-        PublicKey publicKey = mock(PublicKey.class);
-        when(enclave.getPublicKeys()).thenReturn(Collections.singleton(publicKey));
-
         when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class)))
                 .thenThrow(NaclException.class);
 
-        try {
-            transactionManager.receive(receiveRequest);
-            failBecauseExceptionWasNotThrown(NoRecipientKeyFoundException.class);
-        } catch (NoRecipientKeyFoundException ex) {
-            verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-            verify(enclave).getPublicKeys();
-            verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-            verify(payloadEncoder).decode(any(byte[].class));
-        }
+        final Throwable throwable = catchThrowable(() -> transactionManager.receive(receiveRequest));
+
+        assertThat(throwable).isInstanceOf(NaclException.class);
+
+        verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
+        verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+        verify(payloadEncoder).decode(any(byte[].class));
     }
 
     @Test
@@ -881,6 +985,354 @@ public class TransactionManagerTest {
         }
     }
 
+    @Test
+    public void receiveSameTransactionTwiceOnlyRetrievesItOnce() {
+
+        final TransactionManager cachingTransactionManager = transactionManagerWithCache();
+
+        byte[] keyData = Base64.getEncoder().encode("KEY".getBytes());
+        String recipient = Base64.getEncoder().encodeToString("recipient".getBytes());
+
+        ReceiveRequest receiveRequest = new ReceiveRequest();
+        receiveRequest.setKey(new String(keyData));
+        receiveRequest.setTo(recipient);
+
+        EncryptedTransaction encryptedTransaction = new EncryptedTransaction(new MessageHash(keyData), keyData);
+
+        EncodedPayload payload = mock(EncodedPayload.class);
+
+        when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
+
+        when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+                .thenReturn(Optional.of(encryptedTransaction));
+
+        byte[] expectedOutcome = "Encrypted payload".getBytes();
+
+        when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class))).thenReturn(expectedOutcome);
+
+        assertThat(cachingTransactionManager.receive(receiveRequest).getPayload()).isEqualTo(expectedOutcome);
+        assertThat(cachingTransactionManager.receive(receiveRequest).getPayload()).isEqualTo(expectedOutcome);
+
+        verify(payloadEncoder).decode(any(byte[].class));
+        verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
+        verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+    }
+
+    @Test
+    public void receiveAfterDeleteRetrievesTransactionAgain() {
+
+        final TransactionManager cachingTransactionManager = transactionManagerWithCache();
+
+        byte[] keyData = Base64.getEncoder().encode("KEY".getBytes());
+        String recipient = Base64.getEncoder().encodeToString("recipient".getBytes());
+
+        ReceiveRequest receiveRequest = new ReceiveRequest();
+        receiveRequest.setKey(new String(keyData));
+        receiveRequest.setTo(recipient);
+
+        DeleteRequest deleteRequest = new DeleteRequest();
+        deleteRequest.setKey(new String(keyData));
+
+        EncryptedTransaction encryptedTransaction = new EncryptedTransaction(new MessageHash(keyData), keyData);
+
+        EncodedPayload payload = mock(EncodedPayload.class);
+
+        when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
+
+        when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+                .thenReturn(Optional.of(encryptedTransaction))
+                .thenReturn(Optional.empty());
+
+        when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class)))
+                .thenReturn("Encrypted payload".getBytes());
+
+        cachingTransactionManager.receive(receiveRequest);
+        cachingTransactionManager.delete(deleteRequest);
+
+        final Throwable throwable = catchThrowable(() -> cachingTransactionManager.receive(receiveRequest));
+
+        assertThat(throwable).isInstanceOf(TransactionNotFoundException.class);
+
+        verify(payloadEncoder).decode(any(byte[].class));
+        verify(encryptedTransactionDAO, times(2)).retrieveByHash(any(MessageHash.class));
+        verify(encryptedTransactionDAO).delete(any(MessageHash.class));
+        verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+    }
+
+    @Test
+    public void receiveBatch() {
+
+        final String firstKey = Base64.getEncoder().encodeToString("KEY1".getBytes());
+        final String secondKey = Base64.getEncoder().encodeToString("KEY2".getBytes());
+        final String recipient = Base64.getEncoder().encodeToString("recipient".getBytes());
+
+        final ReceiveBatchRequest receiveBatchRequest = new ReceiveBatchRequest();
+        receiveBatchRequest.setKeys(secondKey, firstKey);
+        receiveBatchRequest.setTo(recipient);
+
+        final EncodedPayload firstPayload = mock(EncodedPayload.class);
+        final EncodedPayload secondPayload = mock(EncodedPayload.class);
+
+        when(payloadEncoder.decode("ONE".getBytes())).thenReturn(firstPayload);
+        when(payloadEncoder.decode("TWO".getBytes())).thenReturn(secondPayload);
+
+        when(encryptedTransactionDAO.retrieveByHashes(anyCollection()))
+                .thenReturn(
+                        Arrays.asList(
+                                new EncryptedTransaction(new MessageHash("KEY1".getBytes()), "ONE".getBytes()),
+                                new EncryptedTransaction(new MessageHash("KEY2".getBytes()), "TWO".getBytes())));
+
+        final PublicKey recipientKey = PublicKey.from("recipient".getBytes());
+        when(enclave.unencryptTransactions(
+                        Arrays.asList(secondPayload, firstPayload), Arrays.asList(recipientKey, recipientKey)))
+                .thenReturn(Arrays.asList("second".getBytes(), "first".getBytes()));
+
+        final ReceiveBatchResponse response = transactionManager.receiveBatch(receiveBatchRequest);
+
+        assertThat(response.getTransactions())
+                .extracting(ReceiveResponse::getPayload)
+                .containsExactly("second".getBytes(), "first".getBytes());
+
+        verify(payloadEncoder, times(2)).decode(any(byte[].class));
+        verify(encryptedTransactionDAO).retrieveByHashes(anyCollection());
+        verify(enclave)
+                .unencryptTransactions(
+                        Arrays.asList(secondPayload, firstPayload), Arrays.asList(recipientKey, recipientKey));
+    }
+
+    @Test
+    public void receiveBatchOnlyRetrievesTransactionsThatAreNotCached() {
+
+        final TransactionManager cachingTransactionManager = transactionManagerWithCache();
+
+        final String firstKey = Base64.getEncoder().encodeToString("KEY1".getBytes());
+        final String secondKey = Base64.getEncoder().encodeToString("KEY2".getBytes());
+
+        final ReceiveRequest receiveRequest = new ReceiveRequest();
+        receiveRequest.setKey(firstKey);
+
+        final ReceiveBatchRequest receiveBatchRequest = new ReceiveBatchRequest();
+        receiveBatchRequest.setKeys(firstKey, secondKey);
+
+        final MessageHash secondHash = new MessageHash("KEY2".getBytes());
+        final PublicKey localKey = PublicKey.from("LOCAL".getBytes());
+
+        final EncodedPayload payload = mock(EncodedPayload.class);
+        when(payload.getRecipientKeys()).thenReturn(singletonList(localKey));
+        when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
+
+        final EncryptedTransaction first =
+                new EncryptedTransaction(new MessageHash("KEY1".getBytes()), "ONE".getBytes());
+
+        when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class))).thenReturn(Optional.of(first));
+        when(encryptedTransactionDAO.retrieveByHashes(anyCollection()))
+                .thenReturn(singletonList(new EncryptedTransaction(secondHash, "TWO".getBytes())));
+
+        when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class)))
+                .thenReturn("Encrypted payload".getBytes());
+        when(enclave.unencryptTransactions(anyList(), anyList()))
+                .thenReturn(Arrays.asList("Encrypted payload".getBytes(), "Encrypted payload".getBytes()));
+
+        when(enclave.getPublicKeys()).thenReturn(singleton(localKey));
+
+        cachingTransactionManager.receive(receiveRequest);
+        final ReceiveBatchResponse response = cachingTransactionManager.receiveBatch(receiveBatchRequest);
+
+        assertThat(response.getTransactions()).hasSize(2);
+
+        verify(payloadEncoder, times(2)).decode(any(byte[].class));
+        verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
+        verify(encryptedTransactionDAO).retrieveByHashes(singleton(secondHash));
+        verify(enclave).unencryptTransaction(payload, localKey);
+        verify(enclave).unencryptTransactions(Arrays.asList(payload, payload), Arrays.asList(localKey, localKey));
+        verify(enclave, times(3)).getPublicKeys();
+    }
+
+    @Test
+    public void receiveBatchWithMissingTransactionThrowsNotFound() {
+
+        final String key = Base64.getEncoder().encodeToString("KEY1".getBytes());
+
+        final ReceiveBatchRequest receiveBatchRequest = new ReceiveBatchRequest();
+        receiveBatchRequest.setKeys(key);
+
+        when(encryptedTransactionDAO.retrieveByHashes(anyCollection())).thenReturn(emptyList());
+
+        final Throwable throwable = catchThrowable(() -> transactionManager.receiveBatch(receiveBatchRequest));
+
+        assertThat(throwable).isInstanceOf(TransactionNotFoundException.class);
+
+        verify(encryptedTransactionDAO).retrieveByHashes(anyCollection());
+    }
+
+    @Test
+    public void storePayloadAsRecipientRecordsKeyItWasSentTo() {
+        final PublicKey senderKey = PublicKey.from("SENDER".getBytes());
+        final PublicKey otherKey = PublicKey.from("OTHER".getBytes());
+        final PublicKey localKey = PublicKey.from("LOCAL".getBytes());
+
+        final byte[] input = "SOMEDATA".getBytes();
+        final EncodedPayload payload =
+                new EncodedPayload(
+                        senderKey, "CIPHERTEXT".getBytes(), null, singletonList("BOX".getBytes()), null, emptyList());
+
+        when(payloadEncoder.decode(input)).thenReturn(payload);
+        when(payloadEncoder.encode(any(EncodedPayload.class))).thenReturn("RECORDED".getBytes());
+        when(enclave.getPublicKeys()).thenReturn(new LinkedHashSet<>(Arrays.asList(otherKey, localKey)));
+        when(enclave.unencryptTransaction(payload, otherKey)).thenThrow(NaclException.class);
+        when(enclave.unencryptTransaction(payload, localKey)).thenReturn("DECRYPTED".getBytes());
+
+        transactionManager.storePayload(input);
+
+        final ArgumentCaptor<EncodedPayload> encoded = ArgumentCaptor.forClass(EncodedPayload.class);
+        final ArgumentCaptor<EncryptedTransaction> saved = ArgumentCaptor.forClass(EncryptedTransaction.class);
+
+        verify(payloadEncoder).decode(input);
+        verify(payloadEncoder).encode(encoded.capture());
+        verify(encryptedTransactionDAO).save(saved.capture());
+        verify(enclave).getPublicKeys();
+        verify(enclave).unencryptTransaction(payload, otherKey);
+        verify(enclave).unencryptTransaction(payload, localKey);
+
+        assertThat(encoded.getValue().getRecipientKeys()).containsExactly(localKey);
+        assertThat(encoded.getValue().getRecipientBoxes()).isSameAs(payload.getRecipientBoxes());
+        assertThat(saved.getValue().getEncodedPayload()).isEqualTo("RECORDED".getBytes());
+        assertThat(payload.getRecipientKeys()).isEmpty();
+    }
+
+    @Test
+    public void receiveUsesRecordedRecipientKeyWithoutSearching() {
+        final PublicKey senderKey = PublicKey.from("SENDER".getBytes());
+        final PublicKey localKey = PublicKey.from("LOCAL".getBytes());
+
+        final ReceiveRequest receiveRequest = new ReceiveRequest();
+        receiveRequest.setKey(Base64.getEncoder().encodeToString("KEY".getBytes()));
+
+        final EncodedPayload payload =
+                new EncodedPayload(senderKey, null, null, emptyList(), null, singletonList(localKey));
+
+        when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+                .thenReturn(
+                        Optional.of(new EncryptedTransaction(new MessageHash("KEY".getBytes()), "DATA".getBytes())));
+        when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
+        when(enclave.getPublicKeys()).thenReturn(singleton(localKey));
+        when(enclave.unencryptTransaction(payload, localKey)).thenReturn("DECRYPTED".getBytes());
+
+        assertThat(transactionManager.receive(receiveRequest).getPayload()).isEqualTo("DECRYPTED".getBytes());
+
+        verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
+        verify(payloadEncoder).decode(any(byte[].class));
+        verify(enclave).getPublicKeys();
+        verify(enclave).unencryptTransaction(payload, localKey);
+    }
+
+    @Test
+    public void receiveOwnPayloadUsesSenderKeyWithoutSearching() {
+        final PublicKey senderKey = PublicKey.from("SENDER".getBytes());
+
+        final ReceiveRequest receiveRequest = new ReceiveRequest();
+        receiveRequest.setKey(Base64.getEncoder().encodeToString("KEY".getBytes()));
+
+        final EncodedPayload payload =
+                new EncodedPayload(
+                        senderKey, null, null, emptyList(), null, singletonList(PublicKey.from("OTHER".getBytes())));
+
+        when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+                .thenReturn(
+                        Optional.of(new EncryptedTransaction(new MessageHash("KEY".getBytes()), "DATA".getBytes())));
+        when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
+        when(enclave.getPublicKeys()).thenReturn(singleton(senderKey));
+        when(enclave.unencryptTransaction(payload, senderKey)).thenReturn("DECRYPTED".getBytes());
+
+        assertThat(transactionManager.receive(receiveRequest).getPayload()).isEqualTo("DECRYPTED".getBytes());
+
+        verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
+        verify(payloadEncoder).decode(any(byte[].class));
+        verify(enclave).getPublicKeys();
+        verify(enclave).unencryptTransaction(payload, senderKey);
+    }
+
+    @Test
+    public void receiveLegacyPayloadRecordsRecipientKeyOnceFound() {
+        final TransactionManager cachingTransactionManager = transactionManagerWithCache();
+
+        final PublicKey senderKey = PublicKey.from("SENDER".getBytes());
+        final PublicKey localKey = PublicKey.from("LOCAL".getBytes());
+        final MessageHash hash = new MessageHash("KEY".getBytes());
+
+        final ReceiveRequest receiveRequest = new ReceiveRequest();
+        receiveRequest.setKey(Base64.getEncoder().encodeToString("KEY".getBytes()));
+
+        final EncodedPayload legacy = new EncodedPayload(senderKey, null, null, emptyList(), null, emptyList());
+        final EncodedPayload recorded =
+                new EncodedPayload(senderKey, null, null, emptyList(), null, singletonList(localKey));
+
+        when(encryptedTransactionDAO.retrieveByHash(hash))
+                .thenReturn(Optional.of(new EncryptedTransaction(hash, "LEGACY".getBytes())))
+                .thenReturn(Optional.of(new EncryptedTransaction(hash, "RECORDED".getBytes())));
+        when(encryptedTransactionDAO.update(any(EncryptedTransaction.class))).thenReturn(true);
+        when(payloadEncoder.decode("LEGACY".getBytes())).thenReturn(legacy);
+        when(payloadEncoder.decode("RECORDED".getBytes())).thenReturn(recorded);
+        when(payloadEncoder.encode(any(EncodedPayload.class))).thenReturn("RECORDED".getBytes());
+        when(enclave.getPublicKeys()).thenReturn(singleton(localKey));
+        when(enclave.unencryptTransaction(any(EncodedPayload.class), eq(localKey))).thenReturn("DECRYPTED".getBytes());
+
+        cachingTransactionManager.receive(receiveRequest);
+        cachingTransactionManager.receive(receiveRequest);
+
+        final ArgumentCaptor<EncodedPayload> encoded = ArgumentCaptor.forClass(EncodedPayload.class);
+        final ArgumentCaptor<EncryptedTransaction> updated = ArgumentCaptor.forClass(EncryptedTransaction.class);
+
+        verify(encryptedTransactionDAO, times(2)).retrieveByHash(hash);
+        verify(encryptedTransactionDAO).update(updated.capture());
+        verify(payloadEncoder).decode("LEGACY".getBytes());
+        verify(payloadEncoder).decode("RECORDED".getBytes());
+        verify(payloadEncoder).encode(encoded.capture());
+        verify(enclave, times(2)).getPublicKeys();
+        verify(enclave, times(2)).unencryptTransaction(legacy, localKey);
+        verify(enclave).unencryptTransaction(recorded, localKey);
+
+        assertThat(encoded.getValue().getRecipientKeys()).containsExactly(localKey);
+        assertThat(updated.getValue().getHash()).isEqualTo(hash);
+        assertThat(updated.getValue().getEncodedPayload()).isEqualTo("RECORDED".getBytes());
+    }
+
+    @Test
+    public void resendIndividualAsSenderWithRecordedKeyDoesNotSearch() {
+        final PublicKey senderKey = PublicKey.from("PUBLICKEY".getBytes());
+        final PublicKey recipientKey = PublicKey.from("RECIPIENTKEY".getBytes());
+
+        final EncodedPayload encodedPayload =
+                new EncodedPayload(
+                        senderKey,
+                        null,
+                        null,
+                        singletonList("RECIPIENTBOX".getBytes()),
+                        null,
+                        new ArrayList<>(singletonList(recipientKey)));
+
+        when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+                .thenReturn(Optional.of(new EncryptedTransaction(null, "DATA".getBytes())));
+        when(payloadEncoder.decode("DATA".getBytes())).thenReturn(encodedPayload);
+        when(payloadEncoder.encode(encodedPayload)).thenReturn("SUCCESS".getBytes());
+        when(enclave.getPublicKeys()).thenReturn(singleton(recipientKey));
+
+        final ResendRequest resendRequest = new ResendRequest();
+        resendRequest.setKey(Base64.getEncoder().encodeToString("KEY".getBytes()));
+        resendRequest.setPublicKey(senderKey.encodeToBase64());
+        resendRequest.setType(ResendRequestType.INDIVIDUAL);
+
+        final ResendResponse result = transactionManager.resend(resendRequest);
+
+        assertThat(result.getPayload()).contains("SUCCESS".getBytes());
+        assertThat(encodedPayload.getRecipientKeys()).containsExactly(recipientKey);
+
+        verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
+        verify(payloadEncoder).decode("DATA".getBytes());
+        verify(payloadEncoder).encode(encodedPayload);
+        verify(enclave).getPublicKeys();
+    }
+
     @Test
     public void storeRaw() {
         byte[] sender = "SENDER".getBytes();
@@ -969,8 +1421,27 @@ public class TransactionManagerTest {
 
         TransactionManager tm =
                 new TransactionManagerImpl(
-                        encryptedTransactionDAO, enclave, encryptedRawTransactionDAO, resendManager, partyInfoService);
+                        encryptedTransactionDAO,
+                        enclave,
+                        encryptedRawTransactionDAO,
+                        resendManager,
+                        partyInfoService,
+                        new EncodedPayloadCache(0),
+                        new RecipientFanOut(0, true));
 
         assertThat(tm).isNotNull();
     }
+
+    private TransactionManager transactionManagerWithCache() {
+        return new TransactionManagerImpl(
+                Base64Decoder.create(),
+                payloadEncoder,
+                encryptedTransactionDAO,
+                partyInfoService,
+                enclave,
+                encryptedRawTransactionDAO,
+                resendManager,
+                new EncodedPayloadCache(payloadEncoder, 1024),
+                new RecipientFanOut(0, true));
+    }
 }
@@ -0,0 +1,58 @@
+package com.quorum.tessera.data;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily streams transactions fetched a batch at a time using keyset pagination: each batch seeks directly to the first
+ * hash after the previous batch, rather than skipping over an ever growing offset.
+ */
+final class BatchedStream {
+
+    private BatchedStream() {}
+
+    /**
+     * @param nextBatch fetches the batch of transactions ordered by hash that follows the given hash, or the first
+     *     batch when given {@code null}
+     * @param batchSize the size of a full batch; a shorter batch is taken to be the last one
+     */
+    static Stream<EncryptedTransaction> of(
+            final Function<MessageHash, List<EncryptedTransaction>> nextBatch, final int batchSize) {
+
+        final Iterator<EncryptedTransaction> iterator =
+                new Iterator<EncryptedTransaction>() {
+
+                    private List<EncryptedTransaction> batch;
+
+                    private int position;
+
+                    @Override
+                    public boolean hasNext() {
+                        if (batch == null) {
+                            batch = nextBatch.apply(null);
+                        } else if (position == batch.size() && batch.size() == batchSize) {
+                            batch = nextBatch.apply(batch.get(batch.size() - 1).getHash());
+                            position = 0;
+                        }
+                        return position < batch.size();
+                    }
+
+                    @Override
+                    public EncryptedTransaction next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return batch.get(position++);
+                    }
+                };
+
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
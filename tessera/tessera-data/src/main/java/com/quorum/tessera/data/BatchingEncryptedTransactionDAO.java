@@ -0,0 +1,265 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.encryption.PublicKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An {@link EncryptedTransactionDAO} that groups concurrent saves into batches, so that many transactions share a
+ * single database commit.
+ *
+ * <p>A save is queued and the calling thread blocks until the batch containing it has been committed, so a successful
+ * return still means the transaction is durably stored. A batch is written once it reaches the batch size, or once
+ * the linger time has passed since its first save was queued. If a batch fails, each of its saves is retried on its
+ * own so that one bad entity does not fail the others.
+ *
+ * <p>Because saves are committed by a separate writer thread, they are not part of any database transaction the
+ * caller may have open. A save that returns stays stored even if the caller's transaction is later rolled back, for
+ * example when a send stores its payload and then fails to publish it to a recipient. This is a deliberate change from
+ * saving directly, which is why batching is off unless a batch size greater than 1 is configured. A batch size of 1
+ * disables batching and saves directly on the calling thread.
+ *
+ * <p>A save waits at most the save timeout for its batch to be committed. Once the DAO has stopped, or its writer has
+ * died, new saves are rejected and those still queued fail. A save that times out while its batch is being written may
+ * still be stored.
+ *
+ * <p>All other operations are passed directly to the delegate.
+ */
+public class BatchingEncryptedTransactionDAO implements EncryptedTransactionDAO {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchingEncryptedTransactionDAO.class);
+
+    static final long DEFAULT_SAVE_TIMEOUT_MILLIS = 30000L;
+
+    private final EncryptedTransactionDAO delegate;
+
+    private final int batchSize;
+
+    private final long lingerMillis;
+
+    private final long saveTimeoutMillis;
+
+    private final BlockingQueue<PendingSave> queue = new LinkedBlockingQueue<>();
+
+    private final ExecutorService writer;
+
+    private volatile boolean stopped;
+
+    public BatchingEncryptedTransactionDAO(
+            final EncryptedTransactionDAO delegate, final int batchSize, final long lingerMillis) {
+        this(delegate, batchSize, lingerMillis, Executors.newSingleThreadExecutor());
+    }
+
+    public BatchingEncryptedTransactionDAO(
+            final EncryptedTransactionDAO delegate,
+            final int batchSize,
+            final long lingerMillis,
+            final ExecutorService writer) {
+        this(delegate, batchSize, lingerMillis, writer, DEFAULT_SAVE_TIMEOUT_MILLIS);
+    }
+
+    public BatchingEncryptedTransactionDAO(
+            final EncryptedTransactionDAO delegate,
+            final int batchSize,
+            final long lingerMillis,
+            final ExecutorService writer,
+            final long saveTimeoutMillis) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.writer = Objects.requireNonNull(writer);
+        this.saveTimeoutMillis = saveTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (isBatching()) {
+            LOGGER.info("Batching transaction saves, batch size {} linger {}ms", batchSize, lingerMillis);
+            writer.submit(this::writeBatches);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        writer.shutdownNow();
+        failQueuedSaves();
+    }
+
+    @Override
+    public EncryptedTransaction save(final EncryptedTransaction entity) {
+        if (!isBatching()) {
+            return delegate.save(entity);
+        }
+
+        if (stopped) {
+            throw new PersistenceException("Transaction writer has stopped");
+        }
+
+        final PendingSave pendingSave = new PendingSave(entity);
+        queue.add(pendingSave);
+
+        // the writer may have stopped after the check above, without seeing this save
+        if (stopped) {
+            failQueuedSaves();
+        }
+
+        try {
+            return pendingSave.result.get(saveTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new PersistenceException(ex.getCause());
+        } catch (final TimeoutException ex) {
+            queue.remove(pendingSave);
+            throw new PersistenceException("Transaction was not saved within " + saveTimeoutMillis + "ms");
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            queue.remove(pendingSave);
+            throw new PersistenceException(ex);
+        }
+    }
+
+    @Override
+    public List<EncryptedTransaction> saveAll(final List<EncryptedTransaction> entities) {
+        return delegate.saveAll(entities);
+    }
+
+    @Override
+    public boolean update(final EncryptedTransaction entity) {
+        return delegate.update(entity);
+    }
+
+    @Override
+    public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+        return delegate.retrieveByHash(hash);
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveByHashes(final Collection<MessageHash> hashes) {
+        return delegate.retrieveByHashes(hashes);
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+        return delegate.retrieveTransactions(offset, maxResult);
+    }
+
+    @Override
+    public Stream<EncryptedTransaction> streamTransactions(final int batchSize) {
+        return delegate.streamTransactions(batchSize);
+    }
+
+    @Override
+    public Stream<EncryptedTransaction> streamTransactionsForKey(final PublicKey key, final int batchSize) {
+        return delegate.streamTransactionsForKey(key, batchSize);
+    }
+
+    @Override
+    public Optional<MessageHash> indexRecipients(final MessageHash lastHash, final int maxResult) {
+        return delegate.indexRecipients(lastHash, maxResult);
+    }
+
+    @Override
+    public long transactionCount() {
+        return delegate.transactionCount();
+    }
+
+    @Override
+    public void delete(final MessageHash hash) {
+        delegate.delete(hash);
+    }
+
+    private boolean isBatching() {
+        return batchSize > 1;
+    }
+
+    private void writeBatches() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                write(nextBatch());
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped = true;
+            failQueuedSaves();
+        }
+    }
+
+    private void failQueuedSaves() {
+        final List<PendingSave> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(
+                p -> p.result.completeExceptionally(new PersistenceException("Transaction writer has stopped")));
+    }
+
+    private List<PendingSave> nextBatch() throws InterruptedException {
+        final List<PendingSave> batch = new ArrayList<>(batchSize);
+        batch.add(queue.take());
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        while (batch.size() < batchSize) {
+            final PendingSave next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+
+        return batch;
+    }
+
+    private void write(final List<PendingSave> batch) {
+        final List<EncryptedTransaction> entities =
+                batch.stream().map(p -> p.entity).collect(Collectors.toList());
+
+        try {
+            delegate.saveAll(entities);
+            batch.forEach(p -> p.result.complete(p.entity));
+            return;
+        } catch (final RuntimeException ex) {
+            LOGGER.warn("Unable to save batch of {} transactions, saving individually", batch.size());
+            LOGGER.debug("Unable to save batch", ex);
+        }
+
+        for (final PendingSave pendingSave : batch) {
+            try {
+                pendingSave.result.complete(delegate.save(pendingSave.entity));
+            } catch (final RuntimeException ex) {
+                pendingSave.result.completeExceptionally(ex);
+            }
+        }
+    }
+
+    private static final class PendingSave {
+
+        private final EncryptedTransaction entity;
+
+        private final CompletableFuture<EncryptedTransaction> result = new CompletableFuture<>();
+
+        private PendingSave(final EncryptedTransaction entity) {
+            this.entity = entity;
+        }
+    }
+}
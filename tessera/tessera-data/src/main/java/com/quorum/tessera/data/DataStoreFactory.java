@@ -0,0 +1,46 @@
+package com.quorum.tessera.data;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/** Chooses between the JPA and the log store implementations of the data access objects */
+public final class DataStoreFactory {
+
+    static final String TRANSACTIONS_DIRECTORY = "transactions";
+
+    static final String RAW_TRANSACTIONS_DIRECTORY = "raw-transactions";
+
+    private DataStoreFactory() {}
+
+    /**
+     * @param useLogStore whether transactions are kept in a log store rather than the database
+     * @param logStorePath the directory holding the log stores, required when a log store is used
+     * @param jpaDAO the database implementation, returned when a log store is not used
+     */
+    public static EncryptedTransactionDAO encryptedTransactionDAO(
+            final boolean useLogStore, final Path logStorePath, final EncryptedTransactionDAO jpaDAO) {
+        if (!useLogStore) {
+            return jpaDAO;
+        }
+        return new LogStoreEncryptedTransactionDAO(new LogStore(resolve(logStorePath, TRANSACTIONS_DIRECTORY)));
+    }
+
+    /**
+     * @param useLogStore whether raw transactions are kept in a log store rather than the database
+     * @param logStorePath the directory holding the log stores, required when a log store is used
+     * @param jpaDAO the database implementation, returned when a log store is not used
+     */
+    public static EncryptedRawTransactionDAO encryptedRawTransactionDAO(
+            final boolean useLogStore, final Path logStorePath, final EncryptedRawTransactionDAO jpaDAO) {
+        if (!useLogStore) {
+            return jpaDAO;
+        }
+        return new LogStoreEncryptedRawTransactionDAO(
+                new LogStore(resolve(logStorePath, RAW_TRANSACTIONS_DIRECTORY)));
+    }
+
+    private static Path resolve(final Path logStorePath, final String directory) {
+        return Objects.requireNonNull(logStorePath, "logStorePath is required when using the LOG storage type")
+                .resolve(directory);
+    }
+}
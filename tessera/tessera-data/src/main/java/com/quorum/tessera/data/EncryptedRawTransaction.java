@@ -10,7 +10,9 @@ import java.util.Objects;
 
 /** The JPA entity that contains the raw transaction information */
 @Entity
-@Table(name = "ENCRYPTED_RAW_TRANSACTION")
+@Table(
+        name = "ENCRYPTED_RAW_TRANSACTION",
+        indexes = @Index(name = "ENCRYPTED_RAW_TRANSACTION_TIMESTAMP", columnList = "TIMESTAMP"))
 public class EncryptedRawTransaction implements Serializable {
 
     @EmbeddedId
@@ -94,6 +96,10 @@ public class EncryptedRawTransaction implements Serializable {
         return this.timestamp;
     }
 
+    void setTimestamp(final long timestamp) {
+        this.timestamp = timestamp;
+    }
+
     public byte[] getSender() {
         return sender;
     }
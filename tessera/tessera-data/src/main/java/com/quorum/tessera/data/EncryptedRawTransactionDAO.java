@@ -1,5 +1,6 @@
 package com.quorum.tessera.data;
 
+import java.util.List;
 import java.util.Optional;
 
 /** A data store for transactions that need to be retrieved later */
@@ -28,4 +29,32 @@ public interface EncryptedRawTransactionDAO {
      * @throws javax.persistence.EntityNotFoundException
      */
     void delete(MessageHash hash);
+
+    /**
+     * Retrieve the transactions that were stored before the given time, oldest first. Transactions stored without a
+     * timestamp, by versions before 0.7, are always included.
+     *
+     * @param timestamp the time in milliseconds since the epoch
+     * @param maxResult the maximum number of transactions to retrieve
+     * @return the transactions stored before the given time
+     */
+    List<EncryptedRawTransaction> retrieveStoredBefore(long timestamp, int maxResult);
+
+    /**
+     * Retrieve the hashes of the transactions that were stored before the given time, oldest first. Unlike {@link
+     * #retrieveStoredBefore(long, int)} the transactions themselves are not read.
+     *
+     * @param timestamp the time in milliseconds since the epoch
+     * @param maxResult the maximum number of hashes to retrieve
+     * @return the hashes of the transactions stored before the given time
+     */
+    List<MessageHash> retrieveHashesStoredBefore(long timestamp, int maxResult);
+
+    /**
+     * Deletes all the transactions with the given hashes together, ignoring hashes that are not present
+     *
+     * @param hashes the hashes of the transactions to be deleted
+     * @return the number of transactions that were deleted
+     */
+    int deleteAll(List<MessageHash> hashes);
 }
@@ -7,6 +7,9 @@ import org.slf4j.LoggerFactory;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.transaction.Transactional;
+import java.util.List;
 import java.util.Optional;
 
 /** A JPA implementation of {@link EncryptedTransactionDAO} */
@@ -14,6 +17,18 @@ public class EncryptedRawTransactionDAOImpl implements EncryptedRawTransactionDA
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EncryptedRawTransactionDAOImpl.class);
 
+    /* rows stored before timestamps were recorded have none, and are older than any given time */
+    private static final String FIND_STORED_BEFORE =
+            "SELECT rt FROM EncryptedRawTransaction rt "
+                    + "WHERE rt.timestamp < :timestamp OR rt.timestamp IS NULL ORDER BY rt.timestamp";
+
+    private static final String FIND_HASHES_STORED_BEFORE =
+            "SELECT rt.hash FROM EncryptedRawTransaction rt "
+                    + "WHERE rt.timestamp < :timestamp OR rt.timestamp IS NULL ORDER BY rt.timestamp";
+
+    private static final String DELETE_HASH_EQUAL =
+            "DELETE FROM EncryptedRawTransaction rt WHERE rt.hash.hashBytes = :hash";
+
     @PersistenceContext(unitName = "tessera")
     private EntityManager entityManager;
 
@@ -45,6 +60,47 @@ public class EncryptedRawTransactionDAOImpl implements EncryptedRawTransactionDA
         entityManager.remove(retrieveByHash(hash).orElseThrow(EntityNotFoundException::new));
     }
 
+    @Override
+    @Transactional
+    public List<EncryptedRawTransaction> retrieveStoredBefore(final long timestamp, final int maxResult) {
+        LOGGER.debug("Retrieving up to {} raw transactions stored before {}", maxResult, timestamp);
+
+        return entityManager
+                .createQuery(FIND_STORED_BEFORE, EncryptedRawTransaction.class)
+                .setParameter("timestamp", timestamp)
+                .setMaxResults(maxResult)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional
+    public List<MessageHash> retrieveHashesStoredBefore(final long timestamp, final int maxResult) {
+        LOGGER.debug("Retrieving up to {} hashes of raw transactions stored before {}", maxResult, timestamp);
+
+        return entityManager
+                .createQuery(FIND_HASHES_STORED_BEFORE, MessageHash.class)
+                .setParameter("timestamp", timestamp)
+                .setMaxResults(maxResult)
+                .getResultList();
+    }
+
+    /*
+     * Each transaction is deleted by its primary key, so only the rows being deleted are locked.
+     */
+    @Override
+    @Transactional
+    public int deleteAll(final List<MessageHash> hashes) {
+        LOGGER.info("Deleting {} raw transactions", hashes.size());
+
+        final Query query = entityManager.createQuery(DELETE_HASH_EQUAL);
+
+        int deleted = 0;
+        for (final MessageHash hash : hashes) {
+            deleted += query.setParameter("hash", hash.getHashBytes()).executeUpdate();
+        }
+        return deleted;
+    }
+
     private String toHexString(byte[] val) {
         if (null == val) {
             return "null";
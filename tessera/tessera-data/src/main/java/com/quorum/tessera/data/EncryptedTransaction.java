@@ -59,6 +59,10 @@ public class EncryptedTransaction implements Serializable {
         return this.timestamp;
     }
 
+    void setTimestamp(final long timestamp) {
+        this.timestamp = timestamp;
+    }
+
     @Override
     public int hashCode() {
         return 47 * 3 + Objects.hashCode(this.hash);
@@ -1,7 +1,11 @@
 package com.quorum.tessera.data;
 
+import com.quorum.tessera.encryption.PublicKey;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /** A data store for transactions that need to be retrieved later */
 public interface EncryptedTransactionDAO {
@@ -9,11 +13,32 @@ public interface EncryptedTransactionDAO {
     /**
      * Save a new Encrypted Transaction All fields are required to be non-null on the entity
      *
+     * <p>The sender and recipients of the encoded payload are also added to the recipient index, so that the
+     * transaction can later be found by {@link #streamTransactionsForKey(PublicKey, int)}
+     *
      * @param entity The entity to be persisted
      * @return The entity that was persisted
      */
     EncryptedTransaction save(EncryptedTransaction entity);
 
+    /**
+     * Save several new Encrypted Transactions in a single database transaction, indexing each as {@link
+     * #save(EncryptedTransaction)} does. Either all of the entities are persisted or none are.
+     *
+     * @param entities The entities to be persisted
+     * @return The entities that were persisted
+     */
+    List<EncryptedTransaction> saveAll(List<EncryptedTransaction> entities);
+
+    /**
+     * Replaces the encoded payload of a stored transaction, and brings its recipient index entries up to date with
+     * the new payload
+     *
+     * @param entity the entity holding the hash of the stored transaction and its new payload
+     * @return whether a transaction with the entity's hash was stored, nothing is stored if there was none
+     */
+    boolean update(EncryptedTransaction entity);
+
     /**
      * Retrieve a transaction based on its hash
      *
@@ -22,6 +47,15 @@ public interface EncryptedTransactionDAO {
      */
     Optional<EncryptedTransaction> retrieveByHash(MessageHash hash);
 
+    /**
+     * Retrieve the transactions with any of the given hashes, fetching many at once rather than one at a time
+     *
+     * @param hashes the hashes of the transactions to retrieve
+     * @return the stored transactions with the given hashes in no particular order, hashes that are not stored have no
+     *     transaction in the list
+     */
+    List<EncryptedTransaction> retrieveByHashes(Collection<MessageHash> hashes);
+
     /**
      * Retrieves a list of transactions stored in the database
      *
@@ -31,6 +65,39 @@ public interface EncryptedTransactionDAO {
      */
     List<EncryptedTransaction> retrieveTransactions(int offset, int maxResult);
 
+    /**
+     * Lazily streams every transaction stored in the database.
+     *
+     * <p>Rows are fetched in batches of the given size, each batch continuing from the last hash returned by the
+     * previous one, so the cost of each fetch does not grow with the position in the table and only a single batch is
+     * held in memory at a time.
+     *
+     * @param batchSize the maximum number of rows to fetch from the database at once
+     * @return a stream over all stored transactions, ordered by hash
+     */
+    Stream<EncryptedTransaction> streamTransactions(int batchSize);
+
+    /**
+     * Lazily streams every transaction for which the given key is either the sender or one of the recipients, as
+     * recorded in the recipient index. Rows are fetched in batches in the same manner as {@link
+     * #streamTransactions(int)}
+     *
+     * @param key the public key that the transactions must involve
+     * @param batchSize the maximum number of rows to fetch from the database at once
+     * @return a stream over the matching transactions, ordered by hash
+     */
+    Stream<EncryptedTransaction> streamTransactionsForKey(PublicKey key, int batchSize);
+
+    /**
+     * Adds recipient index entries for stored transactions that have none, such as those stored before the index
+     * existed. Transactions are examined in hash order, starting after the given hash.
+     *
+     * @param lastHash the hash to continue after, or {@code null} to start from the first transaction
+     * @param maxResult the maximum number of transactions to examine
+     * @return the hash of the last transaction examined, or empty if there were no more to examine
+     */
+    Optional<MessageHash> indexRecipients(MessageHash lastHash, int maxResult);
+
     /**
      * Retrieve the total transaction count.
      *
@@ -39,7 +106,7 @@ public interface EncryptedTransactionDAO {
     long transactionCount();
 
     /**
-     * Deletes a transaction that has the given hash as its digest
+     * Deletes a transaction that has the given hash as its digest, along with its recipient index entries
      *
      * @param hash The hash of the message to be deleted
      * @throws javax.persistence.EntityNotFoundException
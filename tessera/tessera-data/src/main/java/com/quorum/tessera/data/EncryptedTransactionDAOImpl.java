@@ -1,13 +1,25 @@
 package com.quorum.tessera.data;
 
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.PublicKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.transaction.Transactional;
@@ -18,30 +30,131 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EncryptedTransactionDAOImpl.class);
 
-    private static final String FIND_HASH_EQUAL =
-            "SELECT et FROM EncryptedTransaction et WHERE et.hash.hashBytes = :hash";
-
     private static final String FIND_ALL = "SELECT et FROM EncryptedTransaction et ORDER BY et.timestamp,et.hash";
 
+    private static final String FIND_RECIPIENTS_HASH_EQUAL =
+            "SELECT tr FROM TransactionRecipient tr WHERE tr.id.hash = :hash";
+
+    private static final String DELETE_RECIPIENTS_HASH_EQUAL =
+            "DELETE FROM TransactionRecipient tr WHERE tr.id.hash = :hash";
+
+    private static final String FIND_ALL_BY_HASH = "SELECT * FROM ENCRYPTED_TRANSACTION ORDER BY HASH";
+
+    private static final String FIND_ALL_AFTER_HASH =
+            "SELECT * FROM ENCRYPTED_TRANSACTION WHERE HASH > ?1 ORDER BY HASH";
+
+    private static final String FIND_ALL_FOR_KEY =
+            "SELECT et.* FROM ENCRYPTED_TRANSACTION et JOIN TRANSACTION_RECIPIENT tr ON tr.HASH = et.HASH "
+                    + "WHERE tr.PUBLIC_KEY = ?1 ORDER BY et.HASH";
+
+    private static final String FIND_ALL_FOR_KEY_AFTER_HASH =
+            "SELECT et.* FROM ENCRYPTED_TRANSACTION et JOIN TRANSACTION_RECIPIENT tr ON tr.HASH = et.HASH "
+                    + "WHERE tr.PUBLIC_KEY = ?1 AND et.HASH > ?2 ORDER BY et.HASH";
+
+    private static final String FIND_UNINDEXED =
+            "SELECT * FROM ENCRYPTED_TRANSACTION et "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM TRANSACTION_RECIPIENT tr WHERE tr.HASH = et.HASH) "
+                    + "ORDER BY et.HASH";
+
+    private static final String FIND_UNINDEXED_AFTER_HASH =
+            "SELECT * FROM ENCRYPTED_TRANSACTION et "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM TRANSACTION_RECIPIENT tr WHERE tr.HASH = et.HASH) "
+                    + "AND et.HASH > ?1 ORDER BY et.HASH";
+
+    private static final String FIND_HASH_IN = "SELECT * FROM ENCRYPTED_TRANSACTION WHERE HASH IN (%s)";
+
+    /* Kept well below the 1000 element limit some databases put on IN lists */
+    static final int MAX_HASHES_PER_QUERY = 500;
+
+    private final PayloadEncoder payloadEncoder = PayloadEncoder.create();
+
+    private final StorageCodec storageCodec;
+
     @PersistenceContext(unitName = "tessera")
     private EntityManager entityManager;
 
+    public EncryptedTransactionDAOImpl(final StorageCodec storageCodec) {
+        this.storageCodec = Objects.requireNonNull(storageCodec);
+    }
+
+    public EncryptedTransactionDAOImpl() {
+        this(new StorageCodec());
+    }
+
+    /** For instances that are not managed by a container, which then cannot inject the entity manager */
+    EncryptedTransactionDAOImpl(final StorageCodec storageCodec, final EntityManager entityManager) {
+        this(storageCodec);
+        this.entityManager = Objects.requireNonNull(entityManager);
+    }
+
     @Override
     public EncryptedTransaction save(final EncryptedTransaction entity) {
-        entityManager.persist(entity);
+        persist(entity);
+        saveRecipients(entity);
         LOGGER.info("Stored transaction {}", entity.getHash());
         return entity;
     }
 
+    @Override
+    public List<EncryptedTransaction> saveAll(final List<EncryptedTransaction> entities) {
+        entities.forEach(
+                entity -> {
+                    persist(entity);
+                    saveRecipients(entity);
+                });
+        LOGGER.info("Stored batch of {} transactions", entities.size());
+        return entities;
+    }
+
+    @Override
+    public boolean update(final EncryptedTransaction entity) {
+        final EncryptedTransaction stored = entityManager.find(EncryptedTransaction.class, entity.getHash());
+        if (stored == null) {
+            return false;
+        }
+
+        stored.setEncodedPayload(storageCodec.encode(entity.getEncodedPayload()));
+
+        final Set<TransactionRecipientId> recipients = recipientIds(entity);
+        entityManager
+                .createQuery(FIND_RECIPIENTS_HASH_EQUAL, TransactionRecipient.class)
+                .setParameter("hash", entity.getHash().getHashBytes())
+                .getResultList()
+                .stream()
+                .filter(recipient -> !recipients.remove(recipient.getId()))
+                .forEach(entityManager::remove);
+        recipients.stream().map(TransactionRecipient::new).forEach(entityManager::persist);
+
+        LOGGER.info("Updated transaction {}", entity.getHash());
+        return true;
+    }
+
     @Override
     public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
         LOGGER.info("Retrieving payload with hash {}", hash);
 
-        return entityManager
-                .createQuery(FIND_HASH_EQUAL, EncryptedTransaction.class)
-                .setParameter("hash", hash.getHashBytes())
-                .getResultStream()
-                .findAny();
+        return Optional.ofNullable(entityManager.find(EncryptedTransaction.class, hash)).map(this::decompressed);
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveByHashes(final Collection<MessageHash> hashes) {
+        LOGGER.info("Retrieving {} payloads by hash", hashes.size());
+
+        final List<byte[]> hashBytes =
+                hashes.stream().map(MessageHash::getHashBytes).collect(Collectors.toList());
+
+        final List<EncryptedTransaction> transactions = new ArrayList<>(hashBytes.size());
+        for (int start = 0; start < hashBytes.size(); start += MAX_HASHES_PER_QUERY) {
+            final List<byte[]> chunk =
+                    hashBytes.subList(start, Math.min(start + MAX_HASHES_PER_QUERY, hashBytes.size()));
+
+            final String placeholders =
+                    IntStream.rangeClosed(1, chunk.size()).mapToObj(i -> "?" + i).collect(Collectors.joining(","));
+
+            transactions.addAll(
+                    retrieveBatch(String.format(FIND_HASH_IN, placeholders), chunk.size(), chunk.toArray()));
+        }
+        return transactions;
     }
 
     @Override
@@ -52,7 +165,129 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
                 .createQuery(FIND_ALL, EncryptedTransaction.class)
                 .setFirstResult(offset)
                 .setMaxResults(maxResult)
-                .getResultList();
+                .getResultStream()
+                .map(this::decompressed)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<EncryptedTransaction> streamTransactions(final int batchSize) {
+        LOGGER.info("Streaming EncryptedTransaction database rows in batches of {}", batchSize);
+
+        return BatchedStream.of(
+                lastHash ->
+                        Optional.ofNullable(lastHash)
+                                .map(h -> retrieveBatch(FIND_ALL_AFTER_HASH, batchSize, h.getHashBytes()))
+                                .orElseGet(() -> retrieveBatch(FIND_ALL_BY_HASH, batchSize)),
+                batchSize);
+    }
+
+    @Override
+    public Stream<EncryptedTransaction> streamTransactionsForKey(final PublicKey key, final int batchSize) {
+        LOGGER.info("Streaming EncryptedTransaction database rows for key {} in batches of {}", key, batchSize);
+
+        final byte[] keyBytes = key.getKeyBytes();
+
+        return BatchedStream.of(
+                lastHash ->
+                        Optional.ofNullable(lastHash)
+                                .map(
+                                        h ->
+                                                retrieveBatch(
+                                                        FIND_ALL_FOR_KEY_AFTER_HASH,
+                                                        batchSize,
+                                                        keyBytes,
+                                                        h.getHashBytes()))
+                                .orElseGet(() -> retrieveBatch(FIND_ALL_FOR_KEY, batchSize, keyBytes)),
+                batchSize);
+    }
+
+    @Override
+    public Optional<MessageHash> indexRecipients(final MessageHash lastHash, final int maxResult) {
+        LOGGER.debug("Indexing recipients of batch(after:{},maxResult:{}) of rows", lastHash, maxResult);
+
+        final List<EncryptedTransaction> batch =
+                Optional.ofNullable(lastHash)
+                        .map(h -> retrieveBatch(FIND_UNINDEXED_AFTER_HASH, maxResult, h.getHashBytes()))
+                        .orElseGet(() -> retrieveBatch(FIND_UNINDEXED, maxResult));
+
+        batch.forEach(this::saveRecipients);
+
+        return batch.stream().reduce((first, second) -> second).map(EncryptedTransaction::getHash);
+    }
+
+    /* Records the sender and each recipient of the entity's payload in the recipient index */
+    private void saveRecipients(final EncryptedTransaction entity) {
+        recipientIds(entity).stream().map(TransactionRecipient::new).forEach(entityManager::persist);
+    }
+
+    /*
+     * The recipient index entries of the sender and each recipient of the entity's payload. Payloads that cannot be
+     * decoded have a single placeholder entry rather than failing the save.
+     */
+    private Set<TransactionRecipientId> recipientIds(final EncryptedTransaction entity) {
+        final byte[] hash = entity.getHash().getHashBytes();
+
+        final EncodedPayload payload;
+        try {
+            payload = payloadEncoder.decode(entity.getEncodedPayload());
+        } catch (final RuntimeException ex) {
+            LOGGER.warn("Unable to decode transaction {}, indexing it without keys", entity.getHash());
+            LOGGER.debug("Unable to decode transaction", ex);
+            return Stream.of(new TransactionRecipientId(hash, TransactionRecipientId.UNDECODABLE_KEY))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+
+        return Stream.concat(Stream.of(payload.getSenderKey()), payload.getRecipientKeys().stream())
+                .map(key -> new TransactionRecipientId(hash, key.getKeyBytes()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /*
+     * The returned entities are detached so that the persistence context does not grow with the number of rows
+     * streamed.
+     */
+    @SuppressWarnings("unchecked")
+    private List<EncryptedTransaction> retrieveBatch(final String sql, final int maxResult, final Object... params) {
+        final Query query = entityManager.createNativeQuery(sql, EncryptedTransaction.class);
+        for (int i = 0; i < params.length; i++) {
+            query.setParameter(i + 1, params[i]);
+        }
+
+        final List<EncryptedTransaction> batch = query.setMaxResults(maxResult).getResultList();
+        batch.forEach(entityManager::detach);
+        return batch.stream().map(this::decompressed).collect(Collectors.toList());
+    }
+
+    /*
+     * Persists the entity, or a compressed copy of it when compression makes the payload smaller. The caller's
+     * entity keeps its uncompressed payload either way.
+     */
+    private void persist(final EncryptedTransaction entity) {
+        final byte[] stored = storageCodec.encode(entity.getEncodedPayload());
+        if (stored == entity.getEncodedPayload()) {
+            entityManager.persist(entity);
+            return;
+        }
+
+        final EncryptedTransaction compressed = new EncryptedTransaction(entity.getHash(), stored);
+        entityManager.persist(compressed);
+        entity.setTimestamp(compressed.getTimestamp());
+    }
+
+    /*
+     * Stored entities, which may be managed, are never modified. A compressed row is returned as a new entity holding
+     * the encoded payload, legacy and uncompressed rows are returned as they are.
+     */
+    private EncryptedTransaction decompressed(final EncryptedTransaction stored) {
+        if (!storageCodec.isCompressed(stored.getEncodedPayload())) {
+            return stored;
+        }
+
+        final EncryptedTransaction entity =
+                new EncryptedTransaction(stored.getHash(), storageCodec.decode(stored.getEncodedPayload()));
+        entity.setTimestamp(stored.getTimestamp());
+        return entity;
     }
 
     @Override
@@ -71,13 +306,14 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
         LOGGER.info("Deleting transaction with hash {}", hash);
 
         final EncryptedTransaction message =
-                entityManager
-                        .createQuery(FIND_HASH_EQUAL, EncryptedTransaction.class)
-                        .setParameter("hash", hash.getHashBytes())
-                        .getResultStream()
-                        .findAny()
+                Optional.ofNullable(entityManager.find(EncryptedTransaction.class, hash))
                         .orElseThrow(EntityNotFoundException::new);
 
+        entityManager
+                .createQuery(DELETE_RECIPIENTS_HASH_EQUAL)
+                .setParameter("hash", hash.getHashBytes())
+                .executeUpdate();
+
         entityManager.remove(message);
     }
 }
@@ -0,0 +1,615 @@
+package com.quorum.tessera.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * A key/value store kept as an append-only log split over segment files in a single directory.
+ *
+ * <p>Every write appends a frame holding one or more records to the newest segment and syncs it to disk before
+ * returning. A frame carries a length and checksum, so a frame that was only partly written when the process stopped
+ * is detected and discarded when the log is replayed, and the records of a frame are applied all together or not at
+ * all. Once a segment reaches its maximum size it is sealed and memory-mapped for reading, and writes continue in a
+ * new segment.
+ *
+ * <p>The location of the latest value of every key is held in an index that is rebuilt by replaying the log on
+ * startup, so a lookup is a single read from a known position. Deleting a key appends a tombstone record.
+ *
+ * <p>Once less than half of the data in the sealed segments is still live, the live values are copied to the end of
+ * the log and the sealed segments are removed. Writes wait while this happens.
+ */
+public class LogStore implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStore.class);
+
+    public static final long DEFAULT_MAX_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("segment-(\\d+)\\.log");
+
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private static final int RECORD_HEADER_SIZE = 9;
+
+    private static final int MAX_COMPACTION_FRAME_SIZE = 1024 * 1024;
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE = 2;
+
+    private final Path directory;
+
+    private final long maxSegmentSize;
+
+    private final NavigableMap<Key, Location> index = new TreeMap<>();
+
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment active;
+
+    public LogStore(final Path directory) {
+        this(directory, DEFAULT_MAX_SEGMENT_SIZE);
+    }
+
+    public LogStore(final Path directory, final long maxSegmentSize) {
+        this.directory = Objects.requireNonNull(directory, "logStorePath is required");
+        if (maxSegmentSize <= FRAME_HEADER_SIZE || maxSegmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maximum segment size must be between 9 bytes and 2GB");
+        }
+        this.maxSegmentSize = maxSegmentSize;
+
+        try {
+            open();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException("Unable to open log store at " + directory, ex);
+        }
+    }
+
+    /**
+     * Returns the latest value stored for the given key
+     *
+     * @param key the key to look up
+     * @return the value, or empty if the key is not present
+     */
+    public Optional<byte[]> get(final byte[] key) {
+        final Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            final Location location = index.get(new Key(key));
+            if (location == null) {
+                return Optional.empty();
+            }
+            return Optional.of(location.segment.read(location.valueOffset, location.valueLength));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public boolean contains(final byte[] key) {
+        final Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return index.containsKey(new Key(key));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public void put(final byte[] key, final byte[] value) {
+        putAll(Collections.singletonList(new AbstractMap.SimpleImmutableEntry<>(key, value)));
+    }
+
+    /**
+     * Stores all of the given key/value pairs in a single frame, so that after a crash either all of them or none of
+     * them are present.
+     */
+    public void putAll(final List<Map.Entry<byte[], byte[]>> entries) {
+        write(toRecords(entries));
+    }
+
+    /**
+     * Stores the given value unless the key is already present
+     *
+     * @return whether the value was stored
+     */
+    public boolean putIfAbsent(final byte[] key, final byte[] value) {
+        return putAllIfAbsent(Collections.singletonList(new AbstractMap.SimpleImmutableEntry<>(key, value)));
+    }
+
+    /**
+     * Stores all of the given key/value pairs in a single frame, unless any of the keys is already present or is
+     * given more than once, in which case none of them are stored
+     *
+     * @return whether the pairs were stored
+     */
+    public boolean putAllIfAbsent(final List<Map.Entry<byte[], byte[]>> entries) {
+        final List<Record> records = toRecords(entries);
+
+        final Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            final Set<Key> keys = new HashSet<>();
+            for (final Record record : records) {
+                final Key key = new Key(record.key);
+                if (!keys.add(key) || index.containsKey(key)) {
+                    return false;
+                }
+            }
+            append(records);
+            return true;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the given key from the store
+     *
+     * @param key the key to remove
+     * @return whether the key was present
+     */
+    public boolean delete(final byte[] key) {
+        final Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            if (!index.containsKey(new Key(key))) {
+                return false;
+            }
+            append(Collections.singletonList(new Record(DELETE, key, new byte[0])));
+            compactIfWasteful();
+            return true;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns keys in ascending unsigned byte order, starting after the given key
+     *
+     * @param after the key to continue after, or {@code null} to start from the first key
+     * @param maxResult the maximum number of keys to return
+     */
+    public List<byte[]> keys(final byte[] after, final int maxResult) {
+        final Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            final NavigableMap<Key, Location> tail = (after == null) ? index : index.tailMap(new Key(after), false);
+            return tail.keySet().stream().limit(maxResult).map(k -> k.bytes.clone()).collect(Collectors.toList());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** Returns keys in ascending unsigned byte order, skipping the given number of keys */
+    public List<byte[]> keys(final int offset, final int maxResult) {
+        final Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return index.keySet().stream()
+                    .skip(offset)
+                    .limit(maxResult)
+                    .map(k -> k.bytes.clone())
+                    .collect(Collectors.toList());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int size() {
+        final Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return index.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** Copies the live values out of all sealed segments and removes them */
+    public void compact() {
+        final Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            compactSealedSegments();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    int segmentCount() {
+        final Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return segments.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        final Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            for (final Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+            segments.clear();
+            index.clear();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static List<Record> toRecords(final List<Map.Entry<byte[], byte[]>> entries) {
+        return entries.stream().map(e -> new Record(PUT, e.getKey(), e.getValue())).collect(Collectors.toList());
+    }
+
+    private void write(final List<Record> records) {
+        final Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            final boolean overwrites = records.stream().map(r -> new Key(r.key)).anyMatch(index::containsKey);
+            append(records);
+            if (overwrites) {
+                compactIfWasteful();
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.log")) {
+            for (final Path file : files) {
+                final Matcher matcher = SEGMENT_FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    final long id = Long.parseLong(matcher.group(1));
+                    segments.put(id, new Segment(id, file));
+                }
+            }
+        }
+
+        for (final Segment segment : segments.values()) {
+            replay(segment);
+        }
+
+        if (segments.isEmpty()) {
+            active = createSegment(0);
+        } else {
+            active = segments.lastEntry().getValue();
+            for (final Segment segment : segments.headMap(active.id).values()) {
+                segment.seal();
+            }
+        }
+
+        LOGGER.info("Opened log store at {} with {} keys in {} segments", directory, index.size(), segments.size());
+    }
+
+    /*
+     * Applies every complete frame in the segment to the index. Anything after the last complete frame was never
+     * acknowledged to a caller, so it is truncated and later writes append after the last complete frame.
+     */
+    private void replay(final Segment segment) throws IOException {
+        final long fileSize = segment.channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+
+        long position = 0;
+        while (position + FRAME_HEADER_SIZE <= fileSize) {
+            header.clear();
+            readFully(segment.channel, header, position);
+            header.flip();
+
+            final int length = header.getInt();
+            final int checksum = header.getInt();
+            if (length < 0 || position + FRAME_HEADER_SIZE + length > fileSize) {
+                break;
+            }
+
+            final ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(segment.channel, body, position + FRAME_HEADER_SIZE);
+            if (checksum(body.array()) != checksum) {
+                break;
+            }
+
+            apply(segment, position + FRAME_HEADER_SIZE, body.array());
+            position += FRAME_HEADER_SIZE + length;
+        }
+
+        if (position < fileSize) {
+            LOGGER.warn("Discarding {} bytes of incomplete writes from {}", fileSize - position, segment.path);
+            segment.channel.truncate(position);
+            segment.channel.force(true);
+        }
+
+        segment.size = position;
+    }
+
+    private void append(final List<Record> records) throws IOException {
+        final int bodyLength = records.stream().mapToInt(Record::size).sum();
+        final ByteBuffer body = ByteBuffer.allocate(bodyLength);
+        for (final Record record : records) {
+            body.put(record.type).putInt(record.key.length).put(record.key).putInt(record.value.length);
+            body.put(record.value);
+        }
+
+        final long frameSize = (long) FRAME_HEADER_SIZE + bodyLength;
+        if (frameSize > maxSegmentSize) {
+            throw new IllegalArgumentException("Write of " + frameSize + " bytes is larger than a log segment");
+        }
+        if (active.size > 0 && active.size + frameSize > maxSegmentSize) {
+            roll();
+        }
+
+        final ByteBuffer frame = ByteBuffer.allocate((int) frameSize);
+        frame.putInt(bodyLength).putInt(checksum(body.array())).put(body.array());
+        frame.flip();
+
+        final long position = active.size;
+        while (frame.hasRemaining()) {
+            active.channel.write(frame, position + frame.position());
+        }
+        active.channel.force(false);
+        active.size += frameSize;
+
+        apply(active, position + FRAME_HEADER_SIZE, body.array());
+    }
+
+    private void apply(final Segment segment, final long bodyOffset, final byte[] body) {
+        final ByteBuffer buffer = ByteBuffer.wrap(body);
+        while (buffer.hasRemaining()) {
+            final int recordStart = buffer.position();
+            final byte type = buffer.get();
+            final byte[] key = new byte[buffer.getInt()];
+            buffer.get(key);
+            final int valueLength = buffer.getInt();
+            final long valueOffset = bodyOffset + buffer.position();
+            buffer.position(buffer.position() + valueLength);
+
+            final Location previous;
+            if (type == PUT) {
+                final Location location =
+                        new Location(segment, valueOffset, valueLength, buffer.position() - recordStart);
+                segment.liveBytes += location.recordSize;
+                previous = index.put(new Key(key), location);
+            } else {
+                previous = index.remove(new Key(key));
+            }
+
+            if (previous != null) {
+                previous.segment.liveBytes -= previous.recordSize;
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        active.seal();
+        active = createSegment(active.id + 1);
+    }
+
+    private Segment createSegment(final long id) throws IOException {
+        final Segment segment = new Segment(id, directory.resolve(String.format("segment-%010d.log", id)));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void compactIfWasteful() throws IOException {
+        final Map<Long, Segment> sealed = segments.headMap(active.id);
+        final long sealedSize = sealed.values().stream().mapToLong(s -> s.size).sum();
+        final long liveSize = sealed.values().stream().mapToLong(s -> s.liveBytes).sum();
+
+        if (sealedSize > 0 && liveSize * 2 < sealedSize) {
+            compactSealedSegments();
+        }
+    }
+
+    /*
+     * Live values are copied before any segment is removed, and segments are removed oldest first, so a tombstone is
+     * never removed while an older value it hides is still on disk.
+     */
+    private void compactSealedSegments() throws IOException {
+        final long firstUnsealed = active.id;
+        final List<Segment> sealed = new ArrayList<>(segments.headMap(firstUnsealed).values());
+        if (sealed.isEmpty()) {
+            return;
+        }
+
+        LOGGER.info("Compacting {} log segments in {}", sealed.size(), directory);
+
+        final long maxFrameBody = Math.min(MAX_COMPACTION_FRAME_SIZE, maxSegmentSize - FRAME_HEADER_SIZE);
+        final List<Record> copies = new ArrayList<>();
+        long copiesSize = 0;
+        for (final Map.Entry<Key, Location> entry : new ArrayList<>(index.entrySet())) {
+            final Location location = entry.getValue();
+            if (location.segment.id >= firstUnsealed) {
+                continue;
+            }
+
+            final byte[] value = location.segment.read(location.valueOffset, location.valueLength);
+            final Record copy = new Record(PUT, entry.getKey().bytes, value);
+            if (!copies.isEmpty() && copiesSize + copy.size() > maxFrameBody) {
+                append(copies);
+                copies.clear();
+                copiesSize = 0;
+            }
+            copies.add(copy);
+            copiesSize += copy.size();
+        }
+        if (!copies.isEmpty()) {
+            append(copies);
+        }
+
+        for (final Segment segment : sealed) {
+            segments.remove(segment.id);
+            segment.channel.close();
+            Files.delete(segment.path);
+        }
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of log segment");
+            }
+        }
+    }
+
+    private static int checksum(final byte[] data) {
+        final CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static final class Record {
+
+        private final byte type;
+
+        private final byte[] key;
+
+        private final byte[] value;
+
+        private Record(final byte type, final byte[] key, final byte[] value) {
+            this.type = type;
+            this.key = Objects.requireNonNull(key);
+            this.value = Objects.requireNonNull(value);
+        }
+
+        private int size() {
+            return RECORD_HEADER_SIZE + key.length + value.length;
+        }
+    }
+
+    private static final class Location {
+
+        private final Segment segment;
+
+        private final long valueOffset;
+
+        private final int valueLength;
+
+        private final int recordSize;
+
+        private Location(final Segment segment, final long valueOffset, final int valueLength, final int recordSize) {
+            this.segment = segment;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.recordSize = recordSize;
+        }
+    }
+
+    private static final class Segment {
+
+        private final long id;
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private long size;
+
+        private long liveBytes;
+
+        private volatile MappedByteBuffer mapped;
+
+        private Segment(final long id, final Path path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel =
+                    FileChannel.open(
+                            path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        private void seal() throws IOException {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        private byte[] read(final long offset, final int length) throws IOException {
+            final byte[] value = new byte[length];
+            final MappedByteBuffer buffer = mapped;
+            if (buffer != null) {
+                final ByteBuffer view = buffer.duplicate();
+                view.position((int) offset);
+                view.get(value);
+            } else {
+                readFully(channel, ByteBuffer.wrap(value), offset);
+            }
+            return value;
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+
+        private final byte[] bytes;
+
+        private Key(final byte[] bytes) {
+            this.bytes = bytes.clone();
+        }
+
+        @Override
+        public int compareTo(final Key other) {
+            final int length = Math.min(bytes.length, other.bytes.length);
+            for (int i = 0; i < length; i++) {
+                final int difference = (bytes[i] & 0xff) - (other.bytes[i] & 0xff);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return bytes.length - other.bytes.length;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return (obj instanceof Key) && Arrays.equals(bytes, ((Key) obj).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(bytes);
+        }
+    }
+}
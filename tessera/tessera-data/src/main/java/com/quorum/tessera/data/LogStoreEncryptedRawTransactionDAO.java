@@ -0,0 +1,191 @@
+package com.quorum.tessera.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityExistsException;
+import javax.persistence.EntityNotFoundException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * An implementation of {@link EncryptedRawTransactionDAO} backed by a {@link LogStore}
+ *
+ * <p>As with the database, saving a transaction whose hash is already stored fails with an
+ * {@link EntityExistsException}. The log is not indexed by time, so the time each transaction was stored is read once
+ * when the DAO is created and then kept in memory, for finding the transactions stored before a given time.
+ *
+ * <p>The log store is owned by this DAO and is closed when it is shut down.
+ */
+public class LogStoreEncryptedRawTransactionDAO implements EncryptedRawTransactionDAO {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStoreEncryptedRawTransactionDAO.class);
+
+    private static final int SCAN_BATCH_SIZE = 1000;
+
+    private final LogStore logStore;
+
+    private final TimestampIndex storedAt = new TimestampIndex();
+
+    public LogStoreEncryptedRawTransactionDAO(final LogStore logStore) {
+        this.logStore = Objects.requireNonNull(logStore, "logStore is required");
+        indexTimestamps();
+    }
+
+    @Override
+    public EncryptedRawTransaction save(final EncryptedRawTransaction entity) {
+        LOGGER.debug("Persisting EncryptedRawTransaction with hash {}", entity.getHash());
+
+        if (!logStore.putIfAbsent(entity.getHash().getHashBytes(), encode(entity))) {
+            throw new EntityExistsException("Raw transaction " + entity.getHash() + " is already stored");
+        }
+        storedAt.add(entity.getHash(), entity.getTimestamp());
+        return entity;
+    }
+
+    @Override
+    public Optional<EncryptedRawTransaction> retrieveByHash(final MessageHash hash) {
+        LOGGER.info("Retrieving payload with hash {}", hash);
+
+        return logStore.get(hash.getHashBytes()).map(value -> decode(hash, value));
+    }
+
+    @Override
+    public void delete(final MessageHash hash) {
+        LOGGER.info("Deleting transaction with hash {}", hash);
+
+        if (!logStore.delete(hash.getHashBytes())) {
+            throw new EntityNotFoundException();
+        }
+        storedAt.remove(hash);
+    }
+
+    @Override
+    public List<EncryptedRawTransaction> retrieveStoredBefore(final long timestamp, final int maxResult) {
+        final List<EncryptedRawTransaction> transactions = new ArrayList<>();
+        for (final MessageHash hash : retrieveHashesStoredBefore(timestamp, maxResult)) {
+            logStore.get(hash.getHashBytes()).map(value -> decode(hash, value)).ifPresent(transactions::add);
+        }
+        return transactions;
+    }
+
+    @Override
+    public List<MessageHash> retrieveHashesStoredBefore(final long timestamp, final int maxResult) {
+        return storedAt.before(timestamp, maxResult);
+    }
+
+    @Override
+    public int deleteAll(final List<MessageHash> hashes) {
+        LOGGER.info("Deleting {} raw transactions", hashes.size());
+
+        int deleted = 0;
+        for (final MessageHash hash : hashes) {
+            if (logStore.delete(hash.getHashBytes())) {
+                storedAt.remove(hash);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @PreDestroy
+    public void close() {
+        logStore.close();
+    }
+
+    private void indexTimestamps() {
+        byte[] after = null;
+        List<byte[]> keys;
+        do {
+            keys = logStore.keys(after, SCAN_BATCH_SIZE);
+            for (final byte[] key : keys) {
+                logStore.get(key)
+                        .map(value -> ByteBuffer.wrap(value).getLong())
+                        .ifPresent(stored -> storedAt.add(new MessageHash(key), stored));
+            }
+            after = keys.isEmpty() ? after : keys.get(keys.size() - 1);
+        } while (keys.size() == SCAN_BATCH_SIZE);
+    }
+
+    private static byte[] encode(final EncryptedRawTransaction entity) {
+        if (entity.getTimestamp() == 0) {
+            entity.onPersist();
+        }
+
+        final byte[][] fields = {
+            entity.getEncryptedPayload(), entity.getEncryptedKey(), entity.getNonce(), entity.getSender()
+        };
+
+        int size = Long.BYTES;
+        for (final byte[] field : fields) {
+            size += Integer.BYTES + field.length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size).putLong(entity.getTimestamp());
+        for (final byte[] field : fields) {
+            buffer.putInt(field.length).put(field);
+        }
+        return buffer.array();
+    }
+
+    private static EncryptedRawTransaction decode(final MessageHash hash, final byte[] value) {
+        final ByteBuffer buffer = ByteBuffer.wrap(value);
+        final long timestamp = buffer.getLong();
+
+        final EncryptedRawTransaction transaction =
+                new EncryptedRawTransaction(hash, next(buffer), next(buffer), next(buffer), next(buffer));
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+
+    private static byte[] next(final ByteBuffer buffer) {
+        final byte[] field = new byte[buffer.getInt()];
+        buffer.get(field);
+        return field;
+    }
+
+    /** The hashes of the stored transactions, ordered by the time they were stored */
+    private static final class TimestampIndex {
+
+        private final NavigableMap<Long, Set<MessageHash>> hashes = new TreeMap<>();
+
+        private final Map<MessageHash, Long> timestamps = new HashMap<>();
+
+        private synchronized void add(final MessageHash hash, final long timestamp) {
+            remove(hash);
+            timestamps.put(hash, timestamp);
+            hashes.computeIfAbsent(timestamp, t -> new LinkedHashSet<>()).add(hash);
+        }
+
+        private synchronized void remove(final MessageHash hash) {
+            final Long timestamp = timestamps.remove(hash);
+            if (timestamp == null) {
+                return;
+            }
+
+            final Set<MessageHash> stored = hashes.get(timestamp);
+            stored.remove(hash);
+            if (stored.isEmpty()) {
+                hashes.remove(timestamp);
+            }
+        }
+
+        private synchronized List<MessageHash> before(final long timestamp, final int maxResult) {
+            return hashes.headMap(timestamp, false).values().stream()
+                    .flatMap(Set::stream)
+                    .limit(maxResult)
+                    .collect(Collectors.toList());
+        }
+    }
+}
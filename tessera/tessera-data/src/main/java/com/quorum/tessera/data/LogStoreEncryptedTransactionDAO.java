@@ -0,0 +1,195 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.PublicKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityExistsException;
+import javax.persistence.EntityNotFoundException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An implementation of {@link EncryptedTransactionDAO} backed by a {@link LogStore}
+ *
+ * <p>As with the database, saving a transaction whose hash is already stored fails with an
+ * {@link EntityExistsException} and leaves the stored transaction as it was. There is no separate recipient index, so
+ * finding the transactions for a key decodes each stored payload in turn.
+ *
+ * <p>The log store is owned by this DAO and is closed when it is shut down.
+ */
+public class LogStoreEncryptedTransactionDAO implements EncryptedTransactionDAO {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStoreEncryptedTransactionDAO.class);
+
+    private final LogStore logStore;
+
+    private final PayloadEncoder payloadEncoder = PayloadEncoder.create();
+
+    public LogStoreEncryptedTransactionDAO(final LogStore logStore) {
+        this.logStore = Objects.requireNonNull(logStore, "logStore is required");
+    }
+
+    @Override
+    public EncryptedTransaction save(final EncryptedTransaction entity) {
+        if (!logStore.putIfAbsent(entity.getHash().getHashBytes(), encode(entity))) {
+            throw new EntityExistsException("Transaction " + entity.getHash() + " is already stored");
+        }
+        LOGGER.info("Stored transaction {}", entity.getHash());
+        return entity;
+    }
+
+    @Override
+    public List<EncryptedTransaction> saveAll(final List<EncryptedTransaction> entities) {
+        final List<Map.Entry<byte[], byte[]>> entries =
+                entities.stream()
+                        .map(e -> new AbstractMap.SimpleImmutableEntry<>(e.getHash().getHashBytes(), encode(e)))
+                        .collect(Collectors.toList());
+
+        if (!logStore.putAllIfAbsent(entries)) {
+            throw new EntityExistsException("A transaction in the batch is already stored");
+        }
+        LOGGER.info("Stored batch of {} transactions", entities.size());
+        return entities;
+    }
+
+    @Override
+    public boolean update(final EncryptedTransaction entity) {
+        if (!logStore.contains(entity.getHash().getHashBytes())) {
+            return false;
+        }
+        logStore.put(entity.getHash().getHashBytes(), encode(entity));
+        LOGGER.info("Updated transaction {}", entity.getHash());
+        return true;
+    }
+
+    @Override
+    public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+        LOGGER.info("Retrieving payload with hash {}", hash);
+
+        return logStore.get(hash.getHashBytes()).map(value -> decode(hash, value));
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveByHashes(final Collection<MessageHash> hashes) {
+        LOGGER.info("Retrieving {} payloads by hash", hashes.size());
+
+        return retrieveAll(hashes.stream().map(MessageHash::getHashBytes).collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+        LOGGER.info("Fetching batch(offset:{},maxResult:{}) of stored transactions", offset, maxResult);
+
+        return retrieveAll(logStore.keys(offset, maxResult));
+    }
+
+    @Override
+    public Stream<EncryptedTransaction> streamTransactions(final int batchSize) {
+        LOGGER.info("Streaming stored transactions in batches of {}", batchSize);
+
+        return BatchedStream.of(lastHash -> retrieveBatch(lastHash, batchSize), batchSize);
+    }
+
+    @Override
+    public Stream<EncryptedTransaction> streamTransactionsForKey(final PublicKey key, final int batchSize) {
+        LOGGER.info("Streaming stored transactions for key {} in batches of {}", key, batchSize);
+
+        return streamTransactions(batchSize).filter(transaction -> involves(transaction, key));
+    }
+
+    @Override
+    public Optional<MessageHash> indexRecipients(final MessageHash lastHash, final int maxResult) {
+        return Optional.empty();
+    }
+
+    @Override
+    public long transactionCount() {
+        return logStore.size();
+    }
+
+    @Override
+    public void delete(final MessageHash hash) {
+        LOGGER.info("Deleting transaction with hash {}", hash);
+
+        if (!logStore.delete(hash.getHashBytes())) {
+            throw new EntityNotFoundException();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        logStore.close();
+    }
+
+    /*
+     * Keys may be deleted between listing and reading them, so the listing continues until a full batch has been read
+     * or there are no more keys.
+     */
+    private List<EncryptedTransaction> retrieveBatch(final MessageHash lastHash, final int batchSize) {
+        final List<EncryptedTransaction> batch = new ArrayList<>(batchSize);
+
+        byte[] after = Optional.ofNullable(lastHash).map(MessageHash::getHashBytes).orElse(null);
+        while (batch.size() < batchSize) {
+            final int wanted = batchSize - batch.size();
+            final List<byte[]> keys = logStore.keys(after, wanted);
+            batch.addAll(retrieveAll(keys));
+            if (keys.size() < wanted) {
+                break;
+            }
+            after = keys.get(keys.size() - 1);
+        }
+
+        return batch;
+    }
+
+    private List<EncryptedTransaction> retrieveAll(final List<byte[]> keys) {
+        final List<EncryptedTransaction> transactions = new ArrayList<>(keys.size());
+        for (final byte[] key : keys) {
+            logStore.get(key).map(value -> decode(new MessageHash(key), value)).ifPresent(transactions::add);
+        }
+        return transactions;
+    }
+
+    private boolean involves(final EncryptedTransaction transaction, final PublicKey key) {
+        final EncodedPayload payload;
+        try {
+            payload = payloadEncoder.decode(transaction.getEncodedPayload());
+        } catch (final RuntimeException ex) {
+            LOGGER.debug("Unable to decode transaction {}", transaction.getHash(), ex);
+            return false;
+        }
+        return Objects.equals(payload.getSenderKey(), key) || payload.getRecipientKeys().contains(key);
+    }
+
+    private static byte[] encode(final EncryptedTransaction entity) {
+        if (entity.getTimestamp() == 0) {
+            entity.onPersist();
+        }
+
+        final byte[] payload = entity.getEncodedPayload();
+        return ByteBuffer.allocate(Long.BYTES + payload.length).putLong(entity.getTimestamp()).put(payload).array();
+    }
+
+    private static EncryptedTransaction decode(final MessageHash hash, final byte[] value) {
+        final ByteBuffer buffer = ByteBuffer.wrap(value);
+        final long timestamp = buffer.getLong();
+        final byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+
+        final EncryptedTransaction transaction = new EncryptedTransaction(hash, payload);
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+}
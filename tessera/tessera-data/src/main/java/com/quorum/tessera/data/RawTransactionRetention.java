@@ -0,0 +1,236 @@
+package com.quorum.tessera.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Removes raw transactions that have been stored for longer than the configured maximum age, such as those stored
+ * with {@code storeraw} that were never followed by {@code sendsignedtx}.
+ *
+ * <p>Expired transactions are removed oldest first in batches, each deleted in its own short database transaction so
+ * that locks are only held on the rows of one batch at a time. If an archive directory is given, each batch is
+ * appended to an archive file and synced to disk before it is deleted.
+ */
+public class RawTransactionRetention implements Runnable, RawTransactionRetentionMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RawTransactionRetention.class);
+
+    static final String OBJECT_NAME = "com.quorum.tessera:type=RawTransactionRetention";
+
+    private final EncryptedRawTransactionDAO encryptedRawTransactionDAO;
+
+    private final long maxAgeMillis;
+
+    private final int batchSize;
+
+    private final Path archivePath;
+
+    private final LongSupplier clock;
+
+    private final AtomicLong deletedCount = new AtomicLong();
+
+    private final AtomicLong archivedCount = new AtomicLong();
+
+    private final AtomicLong lastRunDeletedCount = new AtomicLong();
+
+    private final AtomicLong lastRunTimestamp = new AtomicLong();
+
+    private final AtomicLong failedRunCount = new AtomicLong();
+
+    /**
+     * @param encryptedRawTransactionDAO the store of raw transactions
+     * @param maxAgeMillis the age after which a transaction expires, 0 disables removal
+     * @param batchSize the maximum number of transactions removed in one database transaction
+     * @param archivePath the directory expired transactions are archived to before being deleted, or {@code null} to
+     *     only delete them
+     */
+    public RawTransactionRetention(
+            final EncryptedRawTransactionDAO encryptedRawTransactionDAO,
+            final long maxAgeMillis,
+            final int batchSize,
+            final Path archivePath) {
+        this(encryptedRawTransactionDAO, maxAgeMillis, batchSize, archivePath, System::currentTimeMillis);
+    }
+
+    RawTransactionRetention(
+            final EncryptedRawTransactionDAO encryptedRawTransactionDAO,
+            final long maxAgeMillis,
+            final int batchSize,
+            final Path archivePath,
+            final LongSupplier clock) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.encryptedRawTransactionDAO = Objects.requireNonNull(encryptedRawTransactionDAO);
+        this.maxAgeMillis = maxAgeMillis;
+        this.batchSize = batchSize;
+        this.archivePath = archivePath;
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    @PostConstruct
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (final JMException ex) {
+            LOGGER.warn("Unable to register raw transaction retention metrics as {}", OBJECT_NAME);
+            LOGGER.debug("Unable to register raw transaction retention metrics", ex);
+        }
+    }
+
+    @PreDestroy
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (final JMException ex) {
+            LOGGER.debug("Unable to unregister raw transaction retention metrics", ex);
+        }
+    }
+
+    /** Removes every transaction that has expired, a batch at a time */
+    @Override
+    public void run() {
+        if (maxAgeMillis <= 0) {
+            return;
+        }
+
+        final long now = clock.getAsLong();
+        final long expiry = now - maxAgeMillis;
+        final Path archiveFile =
+                Objects.isNull(archivePath) ? null : archivePath.resolve("raw-transactions-" + now + ".archive");
+
+        long deleted = 0;
+        try {
+            int reclaimed;
+            do {
+                reclaimed = Objects.isNull(archiveFile) ? deleteBatch(expiry) : archiveBatch(expiry, archiveFile);
+                deleted += reclaimed;
+            } while (reclaimed == batchSize);
+        } catch (final RuntimeException ex) {
+            failedRunCount.incrementAndGet();
+            throw ex;
+        } finally {
+            lastRunDeletedCount.set(deleted);
+            lastRunTimestamp.set(now);
+        }
+
+        if (deleted > 0) {
+            LOGGER.info("Removed {} raw transactions stored before {}", deleted, expiry);
+        }
+    }
+
+    private int deleteBatch(final long expiry) {
+        final List<MessageHash> hashes = encryptedRawTransactionDAO.retrieveHashesStoredBefore(expiry, batchSize);
+        if (hashes.isEmpty()) {
+            return 0;
+        }
+
+        final int deleted = encryptedRawTransactionDAO.deleteAll(hashes);
+        deletedCount.addAndGet(deleted);
+        return deleted;
+    }
+
+    private int archiveBatch(final long expiry, final Path archiveFile) {
+        final List<EncryptedRawTransaction> expired =
+                encryptedRawTransactionDAO.retrieveStoredBefore(expiry, batchSize);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        append(archiveFile, expired);
+        archivedCount.addAndGet(expired.size());
+
+        final List<MessageHash> hashes =
+                expired.stream().map(EncryptedRawTransaction::getHash).collect(Collectors.toList());
+        final int deleted = encryptedRawTransactionDAO.deleteAll(hashes);
+        deletedCount.addAndGet(deleted);
+        return deleted;
+    }
+
+    /*
+     * Each transaction is written as one line of its base64 encoded hash, timestamp, encrypted payload, encrypted
+     * key, nonce and sender, separated by spaces.
+     */
+    private static void append(final Path archiveFile, final List<EncryptedRawTransaction> transactions) {
+        final Base64.Encoder encoder = Base64.getEncoder();
+
+        final StringBuilder lines = new StringBuilder();
+        for (final EncryptedRawTransaction transaction : transactions) {
+            lines.append(encoder.encodeToString(transaction.getHash().getHashBytes()))
+                    .append(' ')
+                    .append(transaction.getTimestamp())
+                    .append(' ')
+                    .append(encoder.encodeToString(transaction.getEncryptedPayload()))
+                    .append(' ')
+                    .append(encoder.encodeToString(transaction.getEncryptedKey()))
+                    .append(' ')
+                    .append(encoder.encodeToString(transaction.getNonce()))
+                    .append(' ')
+                    .append(encoder.encodeToString(transaction.getSender()))
+                    .append('\n');
+        }
+
+        try {
+            Files.createDirectories(archiveFile.getParent());
+            try (FileChannel channel =
+                    FileChannel.open(
+                            archiveFile,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.APPEND)) {
+                final ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException("Unable to archive expired raw transactions to " + archiveFile, ex);
+        }
+    }
+
+    @Override
+    public long getDeletedCount() {
+        return deletedCount.get();
+    }
+
+    @Override
+    public long getArchivedCount() {
+        return archivedCount.get();
+    }
+
+    @Override
+    public long getLastRunDeletedCount() {
+        return lastRunDeletedCount.get();
+    }
+
+    @Override
+    public long getLastRunTimestamp() {
+        return lastRunTimestamp.get();
+    }
+
+    @Override
+    public long getFailedRunCount() {
+        return failedRunCount.get();
+    }
+}
@@ -0,0 +1,15 @@
+package com.quorum.tessera.data;
+
+/** Statistics of the expired raw transactions reclaimed by a {@link RawTransactionRetention}, exposed over JMX */
+public interface RawTransactionRetentionMXBean {
+
+    long getDeletedCount();
+
+    long getArchivedCount();
+
+    long getLastRunDeletedCount();
+
+    long getLastRunTimestamp();
+
+    long getFailedRunCount();
+}
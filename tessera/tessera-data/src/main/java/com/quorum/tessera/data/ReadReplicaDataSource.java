@@ -0,0 +1,214 @@
+package com.quorum.tessera.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link DataSource} that spreads its connections across the healthy read replicas of the primary database. It backs
+ * a persistence unit of its own that is only read from, so that reads made through it use a replica even while a
+ * database transaction holds a connection to the primary.
+ *
+ * <p>A replica that fails to hand out a connection is not used again until {@link #run()} finds it valid. Connections
+ * come from the primary while no replica is healthy.
+ */
+public class ReadReplicaDataSource implements DataSource, Runnable, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadReplicaDataSource.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param primary the database that is written to, which is not closed with the replicas
+     * @param replicas the read replicas of the primary, which may be empty
+     */
+    public ReadReplicaDataSource(final DataSource primary, final List<DataSource> replicas) {
+        this.primary = Objects.requireNonNull(primary);
+        this.replicas = replicas.stream().map(Replica::new).collect(Collectors.toList());
+    }
+
+    /**
+     * Builds the settings of a connection pool to a read replica, in the form accepted by pools that are configured
+     * from properties, such as Hikari.
+     *
+     * @param url the JDBC url of the replica
+     * @param username the user to connect as, if any
+     * @param password the password of the user, if any
+     * @param statementCacheSize the number of statements the driver caches per connection, see {@link
+     *     StatementCacheProperties}
+     * @return the pool settings, with driver properties prefixed by {@code dataSource.}
+     */
+    public static Properties poolProperties(
+            final String url, final String username, final String password, final int statementCacheSize) {
+        final Properties properties = new Properties();
+        properties.setProperty("jdbcUrl", url);
+        if (username != null) {
+            properties.setProperty("username", username);
+        }
+        if (password != null) {
+            properties.setProperty("password", password);
+        }
+        properties.setProperty("readOnly", "true");
+        StatementCacheProperties.forUrl(url, statementCacheSize)
+                .forEach((key, value) -> properties.put("dataSource." + key, value));
+        return properties;
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final Connection connection = replicaConnection();
+        if (connection != null) {
+            return connection;
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        final Connection connection = replicaConnection();
+        if (connection != null) {
+            return connection;
+        }
+        return primary.getConnection(username, password);
+    }
+
+    private Connection replicaConnection() {
+        if (replicas.isEmpty()) {
+            return null;
+        }
+
+        final int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            final int index = (start + i) % replicas.size();
+            final Replica replica = replicas.get(index);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (final SQLException ex) {
+                replica.healthy = false;
+                LOGGER.warn("Unable to connect to read replica {}, trying the others", index);
+                LOGGER.debug("Unable to connect to read replica", ex);
+            }
+        }
+        return null;
+    }
+
+    /** Checks every replica, so that a replica that failed is used again once it is valid */
+    @Override
+    public void run() {
+        for (int i = 0; i < replicas.size(); i++) {
+            final Replica replica = replicas.get(i);
+
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (final SQLException ex) {
+                LOGGER.debug("Read replica {} failed its check", i, ex);
+                healthy = false;
+            }
+
+            if (healthy != replica.healthy) {
+                LOGGER.info("Read replica {} is now {}", i, healthy ? "healthy" : "unhealthy");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    /** Closes the replicas, the primary being closed by its owner */
+    @Override
+    public void close() throws Exception {
+        final List<DataSource> dataSources =
+                replicas.stream().map(replica -> replica.dataSource).collect(Collectors.toList());
+
+        Exception failure = null;
+        for (final DataSource dataSource : dataSources) {
+            if (!(dataSource instanceof AutoCloseable)) {
+                continue;
+            }
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (final Exception ex) {
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> type) throws SQLException {
+        if (type.isInstance(this)) {
+            return type.cast(this);
+        }
+        return primary.unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> type) throws SQLException {
+        return type.isInstance(this) || primary.isWrapperFor(type);
+    }
+
+    private static final class Replica {
+
+        private final DataSource dataSource;
+
+        private volatile boolean healthy = true;
+
+        private Replica(final DataSource dataSource) {
+            this.dataSource = Objects.requireNonNull(dataSource);
+        }
+    }
+}
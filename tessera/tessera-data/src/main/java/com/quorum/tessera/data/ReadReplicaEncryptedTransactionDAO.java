@@ -0,0 +1,131 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.encryption.PublicKey;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An {@link EncryptedTransactionDAO} that sends lookups to a DAO reading from the read replicas of the database.
+ *
+ * <p>The replica DAO has an entity manager of its own, from a persistence unit backed by a {@link
+ * ReadReplicaDataSource}. It never joins the database transaction of the caller, so lookups made inside a transaction
+ * on the primary still read from a replica.
+ *
+ * <p>A replica may lag behind the primary, so a transaction that was just stored may not be on it yet. Lookups by hash
+ * that find nothing on a replica are therefore repeated on the primary. Saves, updates, deletes, indexing and the
+ * transaction count always use the primary.
+ */
+public class ReadReplicaEncryptedTransactionDAO implements EncryptedTransactionDAO {
+
+    private final EncryptedTransactionDAO delegate;
+
+    private final EncryptedTransactionDAO replica;
+
+    /**
+     * @param delegate the DAO of the primary database
+     * @param replica the DAO of the read replicas
+     */
+    public ReadReplicaEncryptedTransactionDAO(
+            final EncryptedTransactionDAO delegate, final EncryptedTransactionDAO replica) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.replica = Objects.requireNonNull(replica);
+    }
+
+    /**
+     * @param delegate the DAO of the primary database
+     * @param storageCodec the codec that stored payloads are read with
+     * @param replicaEntityManager an entity manager of the persistence unit backed by the read replicas, which must
+     *     not take part in the transactions of the primary
+     * @param hasReplicas whether any read replicas are configured
+     * @return a DAO that reads from the replicas, or the delegate if there are none
+     */
+    public static EncryptedTransactionDAO create(
+            final EncryptedTransactionDAO delegate,
+            final StorageCodec storageCodec,
+            final EntityManager replicaEntityManager,
+            final boolean hasReplicas) {
+        if (!hasReplicas) {
+            return delegate;
+        }
+        return new ReadReplicaEncryptedTransactionDAO(
+                delegate, new EncryptedTransactionDAOImpl(storageCodec, replicaEntityManager));
+    }
+
+    @Override
+    public EncryptedTransaction save(final EncryptedTransaction entity) {
+        return delegate.save(entity);
+    }
+
+    @Override
+    public List<EncryptedTransaction> saveAll(final List<EncryptedTransaction> entities) {
+        return delegate.saveAll(entities);
+    }
+
+    @Override
+    public boolean update(final EncryptedTransaction entity) {
+        return delegate.update(entity);
+    }
+
+    @Override
+    public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+        final Optional<EncryptedTransaction> replicated = replica.retrieveByHash(hash);
+        if (replicated.isPresent()) {
+            return replicated;
+        }
+        return delegate.retrieveByHash(hash);
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveByHashes(final Collection<MessageHash> hashes) {
+        final List<EncryptedTransaction> transactions = new ArrayList<>(replica.retrieveByHashes(hashes));
+
+        final Set<MessageHash> found =
+                transactions.stream().map(EncryptedTransaction::getHash).collect(Collectors.toSet());
+        final Set<MessageHash> missing =
+                hashes.stream().filter(hash -> !found.contains(hash)).collect(Collectors.toCollection(HashSet::new));
+
+        if (!missing.isEmpty()) {
+            transactions.addAll(delegate.retrieveByHashes(missing));
+        }
+        return transactions;
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+        return replica.retrieveTransactions(offset, maxResult);
+    }
+
+    @Override
+    public Stream<EncryptedTransaction> streamTransactions(final int batchSize) {
+        return replica.streamTransactions(batchSize);
+    }
+
+    @Override
+    public Stream<EncryptedTransaction> streamTransactionsForKey(final PublicKey key, final int batchSize) {
+        return replica.streamTransactionsForKey(key, batchSize);
+    }
+
+    @Override
+    public Optional<MessageHash> indexRecipients(final MessageHash lastHash, final int maxResult) {
+        return delegate.indexRecipients(lastHash, maxResult);
+    }
+
+    @Override
+    public long transactionCount() {
+        return delegate.transactionCount();
+    }
+
+    @Override
+    public void delete(final MessageHash hash) {
+        delegate.delete(hash);
+    }
+}
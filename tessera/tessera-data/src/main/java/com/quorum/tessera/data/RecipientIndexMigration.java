@@ -0,0 +1,86 @@
+package com.quorum.tessera.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Backfills the recipient index for transactions that were stored before the index existed, or that were inserted
+ * directly into the database by the data migration tool.
+ *
+ * <p>The backfill runs on a thread of its own once started, so that a large store does not hold up startup. Each batch
+ * is indexed in its own database transaction, so a large store is never held in one long running transaction.
+ * Transactions whose payload cannot be decoded are indexed under a placeholder key, so that they are not looked at
+ * again on the next start.
+ */
+public class RecipientIndexMigration implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecipientIndexMigration.class);
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final EncryptedTransactionDAO encryptedTransactionDAO;
+
+    private final int batchSize;
+
+    private final ExecutorService executor;
+
+    public RecipientIndexMigration(final EncryptedTransactionDAO encryptedTransactionDAO) {
+        this(encryptedTransactionDAO, DEFAULT_BATCH_SIZE);
+    }
+
+    public RecipientIndexMigration(final EncryptedTransactionDAO encryptedTransactionDAO, final int batchSize) {
+        this(encryptedTransactionDAO, batchSize, Executors.newSingleThreadExecutor());
+    }
+
+    public RecipientIndexMigration(
+            final EncryptedTransactionDAO encryptedTransactionDAO,
+            final int batchSize,
+            final ExecutorService executor) {
+        this.encryptedTransactionDAO = Objects.requireNonNull(encryptedTransactionDAO);
+        this.batchSize = batchSize;
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.execute(
+                () -> {
+                    try {
+                        run();
+                    } catch (final RuntimeException ex) {
+                        LOGGER.error("Unable to backfill the recipient index, it will be retried on the next start");
+                        LOGGER.debug("Unable to backfill the recipient index", ex);
+                    }
+                });
+        executor.shutdown();
+    }
+
+    /** Stops the backfill after the batch being indexed, the remainder is indexed on the next start */
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void run() {
+        LOGGER.info("Checking for transactions missing from the recipient index");
+
+        Optional<MessageHash> lastHash = encryptedTransactionDAO.indexRecipients(null, batchSize);
+        while (lastHash.isPresent()) {
+            if (Thread.currentThread().isInterrupted()) {
+                LOGGER.info("Stopped indexing recipients after transaction {}", lastHash.get());
+                return;
+            }
+            lastHash = encryptedTransactionDAO.indexRecipients(lastHash.get(), batchSize);
+        }
+
+        LOGGER.info("Recipient index is up to date");
+    }
+}
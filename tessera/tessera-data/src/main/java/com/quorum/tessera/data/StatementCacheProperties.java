@@ -0,0 +1,44 @@
+package com.quorum.tessera.data;
+
+import java.util.Properties;
+
+/**
+ * Builds the JDBC driver properties that enable prepared statement caching on each pooled connection.
+ *
+ * <p>Connection pools hand the same few statements to the driver over and over, but each driver has its own switch to
+ * keep them prepared, so the properties are chosen from the JDBC url. Drivers without such a switch, or that cache by
+ * default, are given no properties.
+ */
+public final class StatementCacheProperties {
+
+    private StatementCacheProperties() {}
+
+    /**
+     * @param url the JDBC url of the database
+     * @param size the number of statements to cache per connection, 0 or less leaves the driver defaults
+     * @return the driver properties to connect with
+     */
+    public static Properties forUrl(final String url, final int size) {
+        final Properties properties = new Properties();
+        if (url == null || size <= 0) {
+            return properties;
+        }
+
+        final String cacheSize = String.valueOf(size);
+        if (url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:")) {
+            properties.setProperty("cachePrepStmts", "true");
+            properties.setProperty("useServerPrepStmts", "true");
+            properties.setProperty("prepStmtCacheSize", cacheSize);
+            properties.setProperty("prepStmtCacheSqlLimit", "2048");
+        } else if (url.startsWith("jdbc:postgresql:")) {
+            properties.setProperty("preparedStatementCacheQueries", cacheSize);
+            properties.setProperty("prepareThreshold", "1");
+        } else if (url.startsWith("jdbc:oracle:")) {
+            properties.setProperty("oracle.jdbc.implicitStatementCacheSize", cacheSize);
+        } else if (url.startsWith("jdbc:h2:")) {
+            properties.setProperty("QUERY_CACHE_SIZE", cacheSize);
+        }
+
+        return properties;
+    }
+}
@@ -0,0 +1,145 @@
+package com.quorum.tessera.data;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses encoded payloads on their way into the database and restores them on the way out.
+ *
+ * <p>A compressed value is a version byte, the uncompressed length and a zlib stream that was deflated with a preset
+ * dictionary of the payload framing. Encoded payloads start with the 8 byte length of the sender key, so their first
+ * byte is always 0 and values that do not start with a known version are returned as they were stored. This keeps
+ * rows written before compression was enabled, or written while it is disabled, readable.
+ */
+public class StorageCodec {
+
+    static final byte DEFLATE_VERSION = 1;
+
+    /* version byte followed by the uncompressed length */
+    private static final int HEADER_LENGTH = 5;
+
+    /* first byte of a zlib stream using a 32K window */
+    private static final byte ZLIB_HEADER = 0x78;
+
+    /*
+     * Every field of an encoded payload is prefixed with an 8 byte length, mostly those of the 32 byte keys, 24 byte
+     * nonces and 48 byte recipient boxes, and the recipient section ends with a count and a run of key lengths. The
+     * dictionary holds that framing so that even the first occurrence in a payload is a back reference.
+     */
+    private static final byte[] DICTIONARY = dictionary(24, 48, 1, 2, 3, 24, 32, 32, 32, 32, 24, 48, 1, 32);
+
+    private static final ThreadLocal<Deflater> DEFLATER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final boolean compress;
+
+    /**
+     * @param compress whether values passed to {@link #encode(byte[])} are compressed, stored values are decoded
+     *     either way
+     */
+    public StorageCodec(final boolean compress) {
+        this.compress = compress;
+    }
+
+    public StorageCodec() {
+        this(false);
+    }
+
+    /**
+     * Returns the value to store for the given encoded payload. The payload itself is returned when compression is
+     * disabled or would not make it smaller.
+     *
+     * @param value the encoded payload
+     * @return the value to store
+     */
+    public byte[] encode(final byte[] value) {
+        if (!compress || value == null || value.length <= HEADER_LENGTH) {
+            return value;
+        }
+
+        final Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(value);
+        deflater.finish();
+
+        final byte[] buffer = new byte[value.length];
+        final ByteBuffer output = ByteBuffer.wrap(buffer).put(DEFLATE_VERSION).putInt(value.length);
+        while (!deflater.finished() && output.hasRemaining()) {
+            final int written = deflater.deflate(buffer, output.position(), output.remaining());
+            output.position(output.position() + written);
+        }
+
+        if (!deflater.finished() || !output.hasRemaining()) {
+            return value;
+        }
+
+        final byte[] encoded = new byte[output.position()];
+        System.arraycopy(buffer, 0, encoded, 0, encoded.length);
+        return encoded;
+    }
+
+    /**
+     * Returns the encoded payload held by a stored value.
+     *
+     * @param value the stored value
+     * @return the encoded payload
+     * @throws IllegalStateException if the value is compressed but cannot be decompressed
+     */
+    public byte[] decode(final byte[] value) {
+        if (!isCompressed(value)) {
+            return value;
+        }
+
+        final int length = ByteBuffer.wrap(value, 1, Integer.BYTES).getInt();
+
+        final Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(value, HEADER_LENGTH, value.length - HEADER_LENGTH);
+
+        final byte[] decoded = new byte[length];
+        int position = 0;
+        try {
+            while (!inflater.finished()) {
+                final int read = inflater.inflate(decoded, position, length - position);
+                if (read == 0 && inflater.needsDictionary()) {
+                    inflater.setDictionary(DICTIONARY);
+                } else if (read == 0 && (inflater.needsInput() || position == length)) {
+                    throw new DataFormatException("Compressed payload does not match its recorded length");
+                }
+                position += read;
+            }
+        } catch (final DataFormatException ex) {
+            throw new IllegalStateException("Unable to decompress stored payload", ex);
+        }
+
+        if (position != length) {
+            throw new IllegalStateException("Unable to decompress stored payload, expected " + length + " bytes");
+        }
+
+        return decoded;
+    }
+
+    /**
+     * @param value a stored value
+     * @return whether the value is compressed and so differs from the encoded payload it holds
+     */
+    public boolean isCompressed(final byte[] value) {
+        return value != null
+                && value.length > HEADER_LENGTH
+                && value[0] == DEFLATE_VERSION
+                && value[HEADER_LENGTH] == ZLIB_HEADER;
+    }
+
+    private static byte[] dictionary(final int... lengths) {
+        final ByteBuffer buffer = ByteBuffer.allocate(lengths.length * Long.BYTES);
+        for (final int length : lengths) {
+            buffer.putLong(length);
+        }
+        return buffer.array();
+    }
+}
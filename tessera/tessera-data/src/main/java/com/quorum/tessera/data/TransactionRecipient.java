@@ -0,0 +1,42 @@
+package com.quorum.tessera.data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The JPA entity that indexes which public keys are party to a stored {@link EncryptedTransaction}
+ *
+ * <p>One row exists for the sender and for each recipient of the transaction, so that transactions involving a given
+ * key can be found without decoding every stored payload
+ */
+@Entity
+@Table(name = "TRANSACTION_RECIPIENT", indexes = @Index(name = "TRANSACTION_RECIPIENT_KEY", columnList = "PUBLIC_KEY"))
+public class TransactionRecipient implements Serializable {
+
+    @EmbeddedId private TransactionRecipientId id;
+
+    public TransactionRecipient(final TransactionRecipientId id) {
+        this.id = id;
+    }
+
+    public TransactionRecipient() {}
+
+    public TransactionRecipientId getId() {
+        return id;
+    }
+
+    public void setId(final TransactionRecipientId id) {
+        this.id = id;
+    }
+
+    @Override
+    public int hashCode() {
+        return 47 * 3 + Objects.hashCode(this.id);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return (obj instanceof TransactionRecipient) && Objects.equals(this.id, ((TransactionRecipient) obj).id);
+    }
+}
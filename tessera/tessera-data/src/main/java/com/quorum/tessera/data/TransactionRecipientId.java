@@ -0,0 +1,63 @@
+package com.quorum.tessera.data;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.Lob;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/** The composite key of a {@link TransactionRecipient}, made up of the transaction hash and a party's public key */
+@Embeddable
+public class TransactionRecipientId implements Serializable {
+
+    /**
+     * The key under which a transaction whose payload cannot be decoded is indexed, so that it is not picked up again
+     * as missing from the index. It is shorter than any real public key, so no lookup by key finds it.
+     */
+    static final byte[] UNDECODABLE_KEY = new byte[] {0};
+
+    @Lob
+    @Column(name = "HASH", nullable = false, updatable = false)
+    private byte[] hash;
+
+    @Lob
+    @Column(name = "PUBLIC_KEY", nullable = false, updatable = false)
+    private byte[] publicKey;
+
+    public TransactionRecipientId(final byte[] hash, final byte[] publicKey) {
+        this.hash = Arrays.copyOf(hash, hash.length);
+        this.publicKey = Arrays.copyOf(publicKey, publicKey.length);
+    }
+
+    public TransactionRecipientId() {}
+
+    public byte[] getHash() {
+        return Arrays.copyOf(hash, hash.length);
+    }
+
+    public void setHash(final byte[] hash) {
+        this.hash = Arrays.copyOf(hash, hash.length);
+    }
+
+    public byte[] getPublicKey() {
+        return Arrays.copyOf(publicKey, publicKey.length);
+    }
+
+    public void setPublicKey(final byte[] publicKey) {
+        this.publicKey = Arrays.copyOf(publicKey, publicKey.length);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (!(o instanceof TransactionRecipientId)) {
+            return false;
+        }
+        final TransactionRecipientId other = (TransactionRecipientId) o;
+        return Arrays.equals(hash, other.hash) && Arrays.equals(publicKey, other.publicKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(hash) + Arrays.hashCode(publicKey);
+    }
+}
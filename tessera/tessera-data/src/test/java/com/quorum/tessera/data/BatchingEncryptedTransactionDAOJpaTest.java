@@ -0,0 +1,74 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.data.jpatest.JpaH2Config;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Shows the guarantee a batched save gives a caller that has a database transaction open: the save is committed by
+ * the writer thread and is kept when the caller's transaction rolls back, unlike a direct save.
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = BatchingEncryptedTransactionDAOJpaTest.TransactionalH2Config.class)
+public class BatchingEncryptedTransactionDAOJpaTest {
+
+    @Inject private EncryptedTransactionDAO encryptedTransactionDAO;
+
+    @Inject private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void batchedSaveIsKeptWhenCallersTransactionRollsBack() {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+
+        saveAndRollBack(new BatchingEncryptedTransactionDAO(encryptedTransactionDAO, 10, 0L), hash);
+
+        assertThat(encryptedTransactionDAO.retrieveByHash(hash)).isPresent();
+    }
+
+    @Test
+    public void directSaveIsRolledBackWithCallersTransaction() {
+        final MessageHash hash = new MessageHash(new byte[] {2});
+
+        saveAndRollBack(new BatchingEncryptedTransactionDAO(encryptedTransactionDAO, 1, 0L), hash);
+
+        assertThat(encryptedTransactionDAO.retrieveByHash(hash)).isEmpty();
+    }
+
+    private void saveAndRollBack(final BatchingEncryptedTransactionDAO dao, final MessageHash hash) {
+        dao.start();
+        try {
+            new TransactionTemplate(transactionManager)
+                    .execute(
+                            status -> {
+                                dao.save(new EncryptedTransaction(hash, new byte[] {5}));
+                                status.setRollbackOnly();
+                                return null;
+                            });
+        } finally {
+            dao.stop();
+        }
+    }
+
+    @EnableTransactionManagement
+    public static class TransactionalH2Config extends JpaH2Config {
+
+        @Bean
+        @Override
+        public DataSource dataSource() {
+            return new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(EmbeddedDatabaseType.H2).build();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.encryption.PublicKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.persistence.PersistenceException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+public class BatchingEncryptedTransactionDAOTest {
+
+    private EncryptedTransactionDAO delegate;
+
+    private ExecutorService callers;
+
+    @Before
+    public void onSetUp() {
+        this.delegate = mock(EncryptedTransactionDAO.class);
+        this.callers = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void onTearDown() throws Exception {
+        callers.shutdownNow();
+        callers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void saveWithBatchSizeOfOneSavesDirectly() {
+        final BatchingEncryptedTransactionDAO dao = new BatchingEncryptedTransactionDAO(delegate, 1, 5);
+        dao.start();
+
+        final EncryptedTransaction entity = transaction(1);
+        when(delegate.save(entity)).thenReturn(entity);
+
+        assertThat(dao.save(entity)).isSameAs(entity);
+
+        verify(delegate).save(entity);
+        verifyNoMoreInteractions(delegate);
+
+        dao.stop();
+    }
+
+    @Test
+    public void concurrentSavesAreWrittenInOneBatch() throws Exception {
+        final BatchingEncryptedTransactionDAO dao = new BatchingEncryptedTransactionDAO(delegate, 2, 60000);
+        dao.start();
+
+        final EncryptedTransaction first = transaction(1);
+        final EncryptedTransaction second = transaction(2);
+
+        final CompletableFuture<EncryptedTransaction> firstResult =
+                CompletableFuture.supplyAsync(() -> dao.save(first), callers);
+        final CompletableFuture<EncryptedTransaction> secondResult =
+                CompletableFuture.supplyAsync(() -> dao.save(second), callers);
+
+        assertThat(firstResult.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        assertThat(secondResult.get(5, TimeUnit.SECONDS)).isSameAs(second);
+
+        verify(delegate).saveAll(argThat(l -> l.containsAll(Arrays.asList(first, second)) && l.size() == 2));
+        verifyNoMoreInteractions(delegate);
+
+        dao.stop();
+    }
+
+    @Test
+    public void singleSaveIsWrittenOnceLingerTimeHasPassed() {
+        final BatchingEncryptedTransactionDAO dao = new BatchingEncryptedTransactionDAO(delegate, 10, 5);
+        dao.start();
+
+        final EncryptedTransaction entity = transaction(1);
+
+        assertThat(dao.save(entity)).isSameAs(entity);
+
+        verify(delegate).saveAll(singletonList(entity));
+        verifyNoMoreInteractions(delegate);
+
+        dao.stop();
+    }
+
+    @Test
+    public void failedBatchIsRetriedIndividuallyAndOnlyFailingSaveThrows() throws Exception {
+        final BatchingEncryptedTransactionDAO dao = new BatchingEncryptedTransactionDAO(delegate, 2, 60000);
+        dao.start();
+
+        final EncryptedTransaction good = transaction(1);
+        final EncryptedTransaction bad = transaction(2);
+
+        final PersistenceException exception = new PersistenceException("duplicate");
+        doThrow(exception).when(delegate).saveAll(anyList());
+        when(delegate.save(good)).thenReturn(good);
+        when(delegate.save(bad)).thenThrow(exception);
+
+        final CompletableFuture<EncryptedTransaction> goodResult =
+                CompletableFuture.supplyAsync(() -> dao.save(good), callers);
+        final CompletableFuture<Throwable> badResult =
+                CompletableFuture.supplyAsync(() -> catchThrowable(() -> dao.save(bad)), callers);
+
+        assertThat(goodResult.get(5, TimeUnit.SECONDS)).isSameAs(good);
+        assertThat(badResult.get(5, TimeUnit.SECONDS)).isSameAs(exception);
+
+        verify(delegate).saveAll(anyList());
+        verify(delegate).save(good);
+        verify(delegate).save(bad);
+        verifyNoMoreInteractions(delegate);
+
+        dao.stop();
+    }
+
+    @Test
+    public void saveAfterStopIsRejected() {
+        final BatchingEncryptedTransactionDAO dao = new BatchingEncryptedTransactionDAO(delegate, 2, 5);
+        dao.start();
+        dao.stop();
+
+        final Throwable throwable = catchThrowable(() -> dao.save(transaction(1)));
+
+        assertThat(throwable).isInstanceOf(PersistenceException.class).hasMessage("Transaction writer has stopped");
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    public void queuedSavesFailWhenStopped() throws Exception {
+        // never started, so saves stay queued until stopped
+        final BatchingEncryptedTransactionDAO dao = new BatchingEncryptedTransactionDAO(delegate, 2, 5);
+
+        final CompletableFuture<Throwable> result =
+                CompletableFuture.supplyAsync(() -> catchThrowable(() -> dao.save(transaction(1))), callers);
+
+        // give the save time to be queued, a save made after stopping fails the same way
+        Thread.sleep(100);
+        dao.stop();
+
+        assertThat(result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(PersistenceException.class)
+                .hasMessage("Transaction writer has stopped");
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    public void saveFailsIfNotWrittenWithinTimeout() {
+        final ExecutorService writer = Executors.newSingleThreadExecutor();
+        final BatchingEncryptedTransactionDAO dao = new BatchingEncryptedTransactionDAO(delegate, 2, 5, writer, 50);
+
+        final Throwable throwable = catchThrowable(() -> dao.save(transaction(1)));
+
+        assertThat(throwable)
+                .isInstanceOf(PersistenceException.class)
+                .hasMessage("Transaction was not saved within 50ms");
+
+        // the timed out save is no longer queued, so is not written once the writer starts
+        dao.start();
+        dao.stop();
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    public void otherOperationsAreDelegated() {
+        final BatchingEncryptedTransactionDAO dao = new BatchingEncryptedTransactionDAO(delegate, 2, 5);
+
+        final MessageHash hash = new MessageHash(new byte[] {1});
+        final PublicKey key = PublicKey.from("KEY".getBytes());
+        final List<EncryptedTransaction> entities = singletonList(transaction(1));
+
+        when(delegate.retrieveByHash(hash)).thenReturn(Optional.empty());
+        when(delegate.streamTransactions(10)).thenReturn(Stream.empty());
+        when(delegate.streamTransactionsForKey(key, 10)).thenReturn(Stream.empty());
+        when(delegate.indexRecipients(hash, 10)).thenReturn(Optional.empty());
+
+        dao.saveAll(entities);
+        dao.update(transaction(1));
+        dao.retrieveByHash(hash);
+        dao.retrieveByHashes(singletonList(hash));
+        dao.retrieveTransactions(0, 10);
+        dao.streamTransactions(10);
+        dao.streamTransactionsForKey(key, 10);
+        dao.indexRecipients(hash, 10);
+        dao.transactionCount();
+        dao.delete(hash);
+
+        verify(delegate).saveAll(entities);
+        verify(delegate).update(transaction(1));
+        verify(delegate).retrieveByHash(hash);
+        verify(delegate).retrieveByHashes(singletonList(hash));
+        verify(delegate).retrieveTransactions(0, 10);
+        verify(delegate).streamTransactions(10);
+        verify(delegate).streamTransactionsForKey(key, 10);
+        verify(delegate).indexRecipients(hash, 10);
+        verify(delegate).transactionCount();
+        verify(delegate).delete(hash);
+        verifyNoMoreInteractions(delegate);
+    }
+
+    private static EncryptedTransaction transaction(final int id) {
+        return new EncryptedTransaction(new MessageHash(new byte[] {(byte) id}), new byte[] {(byte) id});
+    }
+}
@@ -0,0 +1,49 @@
+package com.quorum.tessera.data;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+
+public class DataStoreFactoryTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void jpaImplementationsAreUsedUnlessLogStoreIsChosen() {
+        final EncryptedTransactionDAO jpaDAO = mock(EncryptedTransactionDAO.class);
+        final EncryptedRawTransactionDAO jpaRawDAO = mock(EncryptedRawTransactionDAO.class);
+
+        assertThat(DataStoreFactory.encryptedTransactionDAO(false, null, jpaDAO)).isSameAs(jpaDAO);
+        assertThat(DataStoreFactory.encryptedRawTransactionDAO(false, null, jpaRawDAO)).isSameAs(jpaRawDAO);
+    }
+
+    @Test
+    public void logStoreImplementationsUseSeparateDirectories() throws Exception {
+        final Path directory = folder.newFolder().toPath();
+
+        final EncryptedTransactionDAO dao =
+                DataStoreFactory.encryptedTransactionDAO(true, directory, mock(EncryptedTransactionDAO.class));
+        final EncryptedRawTransactionDAO rawDAO =
+                DataStoreFactory.encryptedRawTransactionDAO(true, directory, mock(EncryptedRawTransactionDAO.class));
+
+        assertThat(dao).isExactlyInstanceOf(LogStoreEncryptedTransactionDAO.class);
+        assertThat(rawDAO).isExactlyInstanceOf(LogStoreEncryptedRawTransactionDAO.class);
+        assertThat(directory.resolve(DataStoreFactory.TRANSACTIONS_DIRECTORY)).isDirectory();
+        assertThat(directory.resolve(DataStoreFactory.RAW_TRANSACTIONS_DIRECTORY)).isDirectory();
+    }
+
+    @Test
+    public void logStoreRequiresPath() {
+        final EncryptedTransactionDAO jpaDAO = mock(EncryptedTransactionDAO.class);
+
+        final Throwable throwable = catchThrowable(() -> DataStoreFactory.encryptedTransactionDAO(true, null, jpaDAO));
+
+        assertThat(throwable).isInstanceOf(NullPointerException.class).hasMessageContaining("logStorePath");
+    }
+}
@@ -17,6 +17,7 @@ import javax.persistence.EntityNotFoundException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.PersistenceException;
 import javax.transaction.Transactional;
+import java.util.Arrays;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -273,6 +274,64 @@ public class EncryptedRawTransactionDAOTest {
             assertThat(retrieved).isNotNull();
             assertThat(retrieved.getTimestamp()).isNotZero();
         }
+
+        @Test
+        public void retrieveStoredBeforeFindsOnlyOlderTransactions() {
+            final EncryptedRawTransaction encryptedRawTransaction =
+                    new EncryptedRawTransaction(
+                            new MessageHash(new byte[] {1}),
+                            new byte[] {5},
+                            "key".getBytes(),
+                            "nonce".getBytes(),
+                            "from".getBytes());
+            encryptedRawTransactionDAO.save(encryptedRawTransaction);
+
+            final long timestamp = encryptedRawTransaction.getTimestamp();
+
+            assertThat(encryptedRawTransactionDAO.retrieveStoredBefore(timestamp, 10)).isEmpty();
+            assertThat(encryptedRawTransactionDAO.retrieveStoredBefore(timestamp + 1, 10))
+                    .containsExactly(encryptedRawTransaction);
+            assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(timestamp, 10)).isEmpty();
+            assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(timestamp + 1, 10))
+                    .containsExactly(new MessageHash(new byte[] {1}));
+        }
+
+        @Test
+        public void retrieveHashesStoredBeforeIncludesTransactionsWithoutTimestamp() {
+            encryptedRawTransactionDAO.save(
+                    new EncryptedRawTransaction(
+                            new MessageHash(new byte[] {1}),
+                            new byte[] {5},
+                            "key".getBytes(),
+                            "nonce".getBytes(),
+                            "from".getBytes()));
+            entityManager.flush();
+            entityManager.createNativeQuery("UPDATE ENCRYPTED_RAW_TRANSACTION SET TIMESTAMP = NULL").executeUpdate();
+            entityManager.clear();
+
+            assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(1, 10))
+                    .containsExactly(new MessageHash(new byte[] {1}));
+        }
+
+        @Test
+        public void deleteAllRemovesPresentTransactions() {
+            final EncryptedRawTransaction encryptedRawTransaction =
+                    new EncryptedRawTransaction(
+                            new MessageHash(new byte[] {1}),
+                            new byte[] {5},
+                            "key".getBytes(),
+                            "nonce".getBytes(),
+                            "from".getBytes());
+            encryptedRawTransactionDAO.save(encryptedRawTransaction);
+
+            final int deleted =
+                    encryptedRawTransactionDAO.deleteAll(
+                            Arrays.asList(new MessageHash(new byte[] {1}), new MessageHash(new byte[] {2})));
+
+            assertThat(deleted).isEqualTo(1);
+            entityManager.clear();
+            assertThat(entityManager.find(EncryptedRawTransaction.class, new MessageHash(new byte[] {1}))).isNull();
+        }
     }
 
     @Transactional
@@ -519,6 +578,64 @@ public class EncryptedRawTransactionDAOTest {
             assertThat(retrieved).isNotNull();
             assertThat(retrieved.getTimestamp()).isNotZero();
         }
+
+        @Test
+        public void retrieveStoredBeforeFindsOnlyOlderTransactions() {
+            final EncryptedRawTransaction encryptedRawTransaction =
+                    new EncryptedRawTransaction(
+                            new MessageHash(new byte[] {1}),
+                            new byte[] {5},
+                            "key".getBytes(),
+                            "nonce".getBytes(),
+                            "from".getBytes());
+            encryptedRawTransactionDAO.save(encryptedRawTransaction);
+
+            final long timestamp = encryptedRawTransaction.getTimestamp();
+
+            assertThat(encryptedRawTransactionDAO.retrieveStoredBefore(timestamp, 10)).isEmpty();
+            assertThat(encryptedRawTransactionDAO.retrieveStoredBefore(timestamp + 1, 10))
+                    .containsExactly(encryptedRawTransaction);
+            assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(timestamp, 10)).isEmpty();
+            assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(timestamp + 1, 10))
+                    .containsExactly(new MessageHash(new byte[] {1}));
+        }
+
+        @Test
+        public void retrieveHashesStoredBeforeIncludesTransactionsWithoutTimestamp() {
+            encryptedRawTransactionDAO.save(
+                    new EncryptedRawTransaction(
+                            new MessageHash(new byte[] {1}),
+                            new byte[] {5},
+                            "key".getBytes(),
+                            "nonce".getBytes(),
+                            "from".getBytes()));
+            entityManager.flush();
+            entityManager.createNativeQuery("UPDATE ENCRYPTED_RAW_TRANSACTION SET TIMESTAMP = NULL").executeUpdate();
+            entityManager.clear();
+
+            assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(1, 10))
+                    .containsExactly(new MessageHash(new byte[] {1}));
+        }
+
+        @Test
+        public void deleteAllRemovesPresentTransactions() {
+            final EncryptedRawTransaction encryptedRawTransaction =
+                    new EncryptedRawTransaction(
+                            new MessageHash(new byte[] {1}),
+                            new byte[] {5},
+                            "key".getBytes(),
+                            "nonce".getBytes(),
+                            "from".getBytes());
+            encryptedRawTransactionDAO.save(encryptedRawTransaction);
+
+            final int deleted =
+                    encryptedRawTransactionDAO.deleteAll(
+                            Arrays.asList(new MessageHash(new byte[] {1}), new MessageHash(new byte[] {2})));
+
+            assertThat(deleted).isEqualTo(1);
+            entityManager.clear();
+            assertThat(entityManager.find(EncryptedRawTransaction.class, new MessageHash(new byte[] {1}))).isNull();
+        }
     }
 
     @Transactional
@@ -762,5 +879,63 @@ public class EncryptedRawTransactionDAOTest {
             assertThat(retrieved).isNotNull();
             assertThat(retrieved.getTimestamp()).isNotZero();
         }
+
+        @Test
+        public void retrieveStoredBeforeFindsOnlyOlderTransactions() {
+            final EncryptedRawTransaction encryptedRawTransaction =
+                    new EncryptedRawTransaction(
+                            new MessageHash(new byte[] {1}),
+                            new byte[] {5},
+                            "key".getBytes(),
+                            "nonce".getBytes(),
+                            "from".getBytes());
+            encryptedRawTransactionDAO.save(encryptedRawTransaction);
+
+            final long timestamp = encryptedRawTransaction.getTimestamp();
+
+            assertThat(encryptedRawTransactionDAO.retrieveStoredBefore(timestamp, 10)).isEmpty();
+            assertThat(encryptedRawTransactionDAO.retrieveStoredBefore(timestamp + 1, 10))
+                    .containsExactly(encryptedRawTransaction);
+            assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(timestamp, 10)).isEmpty();
+            assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(timestamp + 1, 10))
+                    .containsExactly(new MessageHash(new byte[] {1}));
+        }
+
+        @Test
+        public void retrieveHashesStoredBeforeIncludesTransactionsWithoutTimestamp() {
+            encryptedRawTransactionDAO.save(
+                    new EncryptedRawTransaction(
+                            new MessageHash(new byte[] {1}),
+                            new byte[] {5},
+                            "key".getBytes(),
+                            "nonce".getBytes(),
+                            "from".getBytes()));
+            entityManager.flush();
+            entityManager.createNativeQuery("UPDATE ENCRYPTED_RAW_TRANSACTION SET TIMESTAMP = NULL").executeUpdate();
+            entityManager.clear();
+
+            assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(1, 10))
+                    .containsExactly(new MessageHash(new byte[] {1}));
+        }
+
+        @Test
+        public void deleteAllRemovesPresentTransactions() {
+            final EncryptedRawTransaction encryptedRawTransaction =
+                    new EncryptedRawTransaction(
+                            new MessageHash(new byte[] {1}),
+                            new byte[] {5},
+                            "key".getBytes(),
+                            "nonce".getBytes(),
+                            "from".getBytes());
+            encryptedRawTransactionDAO.save(encryptedRawTransaction);
+
+            final int deleted =
+                    encryptedRawTransactionDAO.deleteAll(
+                            Arrays.asList(new MessageHash(new byte[] {1}), new MessageHash(new byte[] {2})));
+
+            assertThat(deleted).isEqualTo(1);
+            entityManager.clear();
+            assertThat(entityManager.find(EncryptedRawTransaction.class, new MessageHash(new byte[] {1}))).isNull();
+        }
     }
 }
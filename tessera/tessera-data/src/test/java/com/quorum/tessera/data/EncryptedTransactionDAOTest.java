@@ -3,6 +3,10 @@ package com.quorum.tessera.data;
 import com.quorum.tessera.data.jpatest.JpaHsqlConfig;
 import com.quorum.tessera.data.jpatest.JpaSqliteConfig;
 import com.quorum.tessera.data.jpatest.JpaH2Config;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.nacl.Nonce;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -17,13 +21,16 @@ import javax.persistence.EntityNotFoundException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.PersistenceException;
 import javax.transaction.Transactional;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static java.util.Collections.emptyList;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
@@ -138,6 +145,149 @@ public class EncryptedTransactionDAOTest {
             assertThat(retrievedList).hasSameElementsAs(payloads);
         }
 
+        @Test
+        public void streamingAllTransactionsReturnsAllAcrossBatches() {
+
+            final List<EncryptedTransaction> payloads =
+                    IntStream.range(0, 50)
+                            .mapToObj(
+                                    i ->
+                                            new EncryptedTransaction(
+                                                    new MessageHash(new byte[] {(byte) i}), new byte[] {(byte) i}))
+                            .peek(entityManager::persist)
+                            .collect(Collectors.toList());
+
+            final List<EncryptedTransaction> streamedList =
+                    encryptedTransactionDAO.streamTransactions(7).collect(Collectors.toList());
+
+            assertThat(streamedList).hasSameSizeAs(payloads);
+            assertThat(streamedList).hasSameElementsAs(payloads);
+        }
+
+        @Test
+        public void streamingTransactionsWhenNoneStoredReturnsEmptyStream() {
+            assertThat(encryptedTransactionDAO.streamTransactions(10)).isEmpty();
+        }
+
+        @Test
+        public void streamingTransactionsForKeyReturnsOnlyThoseInvolvingKey() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+            final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+            final PublicKey other = PublicKey.from("OTHER".getBytes());
+
+            final EncryptedTransaction sentToRecipient =
+                    new EncryptedTransaction(new MessageHash(new byte[] {1}), encodedPayload(sender, recipient));
+            final EncryptedTransaction sentToOther =
+                    new EncryptedTransaction(new MessageHash(new byte[] {2}), encodedPayload(sender, other));
+            final EncryptedTransaction sentFromRecipient =
+                    new EncryptedTransaction(new MessageHash(new byte[] {3}), encodedPayload(recipient, other));
+
+            encryptedTransactionDAO.save(sentToRecipient);
+            encryptedTransactionDAO.save(sentToOther);
+            encryptedTransactionDAO.save(sentFromRecipient);
+
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(recipient, 1))
+                    .containsExactly(sentToRecipient, sentFromRecipient);
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10))
+                    .containsExactly(sentToRecipient, sentToOther);
+        }
+
+        @Test
+        public void saveAllPersistsAndIndexesEveryTransaction() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+
+            final List<EncryptedTransaction> transactions =
+                    IntStream.range(0, 5)
+                            .mapToObj(
+                                    i ->
+                                            new EncryptedTransaction(
+                                                    new MessageHash(new byte[] {(byte) i}), encodedPayload(sender)))
+                            .collect(Collectors.toList());
+
+            encryptedTransactionDAO.saveAll(transactions);
+
+            assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(transactions.size());
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10))
+                    .containsExactlyElementsOf(transactions);
+        }
+
+        @Test
+        public void deletingTransactionRemovesItFromRecipientIndex() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+            final MessageHash hash = new MessageHash(new byte[] {1});
+
+            encryptedTransactionDAO.save(new EncryptedTransaction(hash, encodedPayload(sender)));
+            encryptedTransactionDAO.delete(hash);
+
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10)).isEmpty();
+        }
+
+        @Test
+        public void updateReplacesPayloadAndRecipientIndex() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+            final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+            final MessageHash hash = new MessageHash(new byte[] {1});
+
+            encryptedTransactionDAO.save(new EncryptedTransaction(hash, encodedPayload(sender)));
+
+            final EncryptedTransaction updated = new EncryptedTransaction(hash, encodedPayload(sender, recipient));
+            assertThat(encryptedTransactionDAO.update(updated)).isTrue();
+
+            assertThat(encryptedTransactionDAO.retrieveByHash(hash).get().getEncodedPayload())
+                    .isEqualTo(updated.getEncodedPayload());
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(recipient, 10))
+                    .extracting(EncryptedTransaction::getHash)
+                    .containsExactly(hash);
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10))
+                    .extracting(EncryptedTransaction::getHash)
+                    .containsExactly(hash);
+        }
+
+        @Test
+        public void updateOfUnknownHashStoresNothing() {
+            final MessageHash hash = new MessageHash(new byte[] {1});
+
+            assertThat(encryptedTransactionDAO.update(new EncryptedTransaction(hash, new byte[] {5}))).isFalse();
+            assertThat(encryptedTransactionDAO.retrieveByHash(hash)).isEmpty();
+        }
+
+        @Test
+        public void indexRecipientsAddsTransactionsMissingFromIndex() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+
+            final List<EncryptedTransaction> unindexed =
+                    IntStream.range(0, 5)
+                            .mapToObj(
+                                    i ->
+                                            new EncryptedTransaction(
+                                                    new MessageHash(new byte[] {(byte) i}), encodedPayload(sender)))
+                            .peek(entityManager::persist)
+                            .collect(Collectors.toList());
+
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10)).isEmpty();
+
+            final Optional<MessageHash> first = encryptedTransactionDAO.indexRecipients(null, 3);
+            assertThat(first).contains(new MessageHash(new byte[] {2}));
+
+            final Optional<MessageHash> second = encryptedTransactionDAO.indexRecipients(first.get(), 3);
+            assertThat(second).contains(new MessageHash(new byte[] {4}));
+
+            assertThat(encryptedTransactionDAO.indexRecipients(second.get(), 3)).isEmpty();
+            assertThat(encryptedTransactionDAO.indexRecipients(null, 3)).isEmpty();
+
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10))
+                    .containsExactlyElementsOf(unindexed);
+        }
+
+        @Test
+        public void indexRecipientsDoesNotRetryTransactionsThatCannotBeDecoded() {
+            final MessageHash hash = new MessageHash(new byte[] {1});
+            entityManager.persist(new EncryptedTransaction(hash, new byte[] {5}));
+
+            assertThat(encryptedTransactionDAO.indexRecipients(null, 3)).contains(hash);
+            assertThat(encryptedTransactionDAO.indexRecipients(null, 3)).isEmpty();
+        }
+
         @Test
         public void deleteTransactionRemovesFromDatabaseAndReturnsTrue() {
 
@@ -192,6 +342,24 @@ public class EncryptedTransactionDAOTest {
             assertThat(retrieved.isPresent()).isFalse();
         }
 
+        @Test
+        public void retrieveByHashesReturnsTransactionsThatArePresentAcrossQueries() {
+            final List<MessageHash> hashes =
+                    IntStream.range(0, EncryptedTransactionDAOImpl.MAX_HASHES_PER_QUERY + 10)
+                            .mapToObj(i -> new MessageHash(new byte[] {(byte) (i >> 8), (byte) i}))
+                            .collect(Collectors.toList());
+            hashes.forEach(hash -> entityManager.persist(new EncryptedTransaction(hash, new byte[] {5})));
+            entityManager.flush();
+
+            final List<MessageHash> searchHashes = new ArrayList<>(hashes);
+            searchHashes.add(new MessageHash(new byte[] {9, 9, 9}));
+
+            final List<EncryptedTransaction> retrieved = encryptedTransactionDAO.retrieveByHashes(searchHashes);
+
+            assertThat(retrieved).extracting(EncryptedTransaction::getHash).hasSameElementsAs(hashes);
+            assertThat(encryptedTransactionDAO.retrieveByHashes(emptyList())).isEmpty();
+        }
+
         @Test
         public void persistAddsTimestampToEntity() {
             final EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
@@ -314,6 +482,149 @@ public class EncryptedTransactionDAOTest {
             assertThat(retrievedList).hasSameElementsAs(payloads);
         }
 
+        @Test
+        public void streamingAllTransactionsReturnsAllAcrossBatches() {
+
+            final List<EncryptedTransaction> payloads =
+                    IntStream.range(0, 50)
+                            .mapToObj(
+                                    i ->
+                                            new EncryptedTransaction(
+                                                    new MessageHash(new byte[] {(byte) i}), new byte[] {(byte) i}))
+                            .peek(entityManager::persist)
+                            .collect(Collectors.toList());
+
+            final List<EncryptedTransaction> streamedList =
+                    encryptedTransactionDAO.streamTransactions(7).collect(Collectors.toList());
+
+            assertThat(streamedList).hasSameSizeAs(payloads);
+            assertThat(streamedList).hasSameElementsAs(payloads);
+        }
+
+        @Test
+        public void streamingTransactionsWhenNoneStoredReturnsEmptyStream() {
+            assertThat(encryptedTransactionDAO.streamTransactions(10)).isEmpty();
+        }
+
+        @Test
+        public void streamingTransactionsForKeyReturnsOnlyThoseInvolvingKey() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+            final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+            final PublicKey other = PublicKey.from("OTHER".getBytes());
+
+            final EncryptedTransaction sentToRecipient =
+                    new EncryptedTransaction(new MessageHash(new byte[] {1}), encodedPayload(sender, recipient));
+            final EncryptedTransaction sentToOther =
+                    new EncryptedTransaction(new MessageHash(new byte[] {2}), encodedPayload(sender, other));
+            final EncryptedTransaction sentFromRecipient =
+                    new EncryptedTransaction(new MessageHash(new byte[] {3}), encodedPayload(recipient, other));
+
+            encryptedTransactionDAO.save(sentToRecipient);
+            encryptedTransactionDAO.save(sentToOther);
+            encryptedTransactionDAO.save(sentFromRecipient);
+
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(recipient, 1))
+                    .containsExactly(sentToRecipient, sentFromRecipient);
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10))
+                    .containsExactly(sentToRecipient, sentToOther);
+        }
+
+        @Test
+        public void saveAllPersistsAndIndexesEveryTransaction() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+
+            final List<EncryptedTransaction> transactions =
+                    IntStream.range(0, 5)
+                            .mapToObj(
+                                    i ->
+                                            new EncryptedTransaction(
+                                                    new MessageHash(new byte[] {(byte) i}), encodedPayload(sender)))
+                            .collect(Collectors.toList());
+
+            encryptedTransactionDAO.saveAll(transactions);
+
+            assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(transactions.size());
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10))
+                    .containsExactlyElementsOf(transactions);
+        }
+
+        @Test
+        public void deletingTransactionRemovesItFromRecipientIndex() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+            final MessageHash hash = new MessageHash(new byte[] {1});
+
+            encryptedTransactionDAO.save(new EncryptedTransaction(hash, encodedPayload(sender)));
+            encryptedTransactionDAO.delete(hash);
+
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10)).isEmpty();
+        }
+
+        @Test
+        public void updateReplacesPayloadAndRecipientIndex() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+            final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+            final MessageHash hash = new MessageHash(new byte[] {1});
+
+            encryptedTransactionDAO.save(new EncryptedTransaction(hash, encodedPayload(sender)));
+
+            final EncryptedTransaction updated = new EncryptedTransaction(hash, encodedPayload(sender, recipient));
+            assertThat(encryptedTransactionDAO.update(updated)).isTrue();
+
+            assertThat(encryptedTransactionDAO.retrieveByHash(hash).get().getEncodedPayload())
+                    .isEqualTo(updated.getEncodedPayload());
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(recipient, 10))
+                    .extracting(EncryptedTransaction::getHash)
+                    .containsExactly(hash);
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10))
+                    .extracting(EncryptedTransaction::getHash)
+                    .containsExactly(hash);
+        }
+
+        @Test
+        public void updateOfUnknownHashStoresNothing() {
+            final MessageHash hash = new MessageHash(new byte[] {1});
+
+            assertThat(encryptedTransactionDAO.update(new EncryptedTransaction(hash, new byte[] {5}))).isFalse();
+            assertThat(encryptedTransactionDAO.retrieveByHash(hash)).isEmpty();
+        }
+
+        @Test
+        public void indexRecipientsAddsTransactionsMissingFromIndex() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+
+            final List<EncryptedTransaction> unindexed =
+                    IntStream.range(0, 5)
+                            .mapToObj(
+                                    i ->
+                                            new EncryptedTransaction(
+                                                    new MessageHash(new byte[] {(byte) i}), encodedPayload(sender)))
+                            .peek(entityManager::persist)
+                            .collect(Collectors.toList());
+
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10)).isEmpty();
+
+            final Optional<MessageHash> first = encryptedTransactionDAO.indexRecipients(null, 3);
+            assertThat(first).contains(new MessageHash(new byte[] {2}));
+
+            final Optional<MessageHash> second = encryptedTransactionDAO.indexRecipients(first.get(), 3);
+            assertThat(second).contains(new MessageHash(new byte[] {4}));
+
+            assertThat(encryptedTransactionDAO.indexRecipients(second.get(), 3)).isEmpty();
+            assertThat(encryptedTransactionDAO.indexRecipients(null, 3)).isEmpty();
+
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10))
+                    .containsExactlyElementsOf(unindexed);
+        }
+
+        @Test
+        public void indexRecipientsDoesNotRetryTransactionsThatCannotBeDecoded() {
+            final MessageHash hash = new MessageHash(new byte[] {1});
+            entityManager.persist(new EncryptedTransaction(hash, new byte[] {5}));
+
+            assertThat(encryptedTransactionDAO.indexRecipients(null, 3)).contains(hash);
+            assertThat(encryptedTransactionDAO.indexRecipients(null, 3)).isEmpty();
+        }
+
         @Test
         public void deleteTransactionRemovesFromDatabaseAndReturnsTrue() {
 
@@ -368,6 +679,24 @@ public class EncryptedTransactionDAOTest {
             assertThat(retrieved.isPresent()).isFalse();
         }
 
+        @Test
+        public void retrieveByHashesReturnsTransactionsThatArePresentAcrossQueries() {
+            final List<MessageHash> hashes =
+                    IntStream.range(0, EncryptedTransactionDAOImpl.MAX_HASHES_PER_QUERY + 10)
+                            .mapToObj(i -> new MessageHash(new byte[] {(byte) (i >> 8), (byte) i}))
+                            .collect(Collectors.toList());
+            hashes.forEach(hash -> entityManager.persist(new EncryptedTransaction(hash, new byte[] {5})));
+            entityManager.flush();
+
+            final List<MessageHash> searchHashes = new ArrayList<>(hashes);
+            searchHashes.add(new MessageHash(new byte[] {9, 9, 9}));
+
+            final List<EncryptedTransaction> retrieved = encryptedTransactionDAO.retrieveByHashes(searchHashes);
+
+            assertThat(retrieved).extracting(EncryptedTransaction::getHash).hasSameElementsAs(hashes);
+            assertThat(encryptedTransactionDAO.retrieveByHashes(emptyList())).isEmpty();
+        }
+
         @Test
         public void persistAddsTimestampToEntity() {
             final EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
@@ -490,6 +819,149 @@ public class EncryptedTransactionDAOTest {
             assertThat(retrievedList).hasSameElementsAs(payloads);
         }
 
+        @Test
+        public void streamingAllTransactionsReturnsAllAcrossBatches() {
+
+            final List<EncryptedTransaction> payloads =
+                    IntStream.range(0, 50)
+                            .mapToObj(
+                                    i ->
+                                            new EncryptedTransaction(
+                                                    new MessageHash(new byte[] {(byte) i}), new byte[] {(byte) i}))
+                            .peek(entityManager::persist)
+                            .collect(Collectors.toList());
+
+            final List<EncryptedTransaction> streamedList =
+                    encryptedTransactionDAO.streamTransactions(7).collect(Collectors.toList());
+
+            assertThat(streamedList).hasSameSizeAs(payloads);
+            assertThat(streamedList).hasSameElementsAs(payloads);
+        }
+
+        @Test
+        public void streamingTransactionsWhenNoneStoredReturnsEmptyStream() {
+            assertThat(encryptedTransactionDAO.streamTransactions(10)).isEmpty();
+        }
+
+        @Test
+        public void streamingTransactionsForKeyReturnsOnlyThoseInvolvingKey() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+            final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+            final PublicKey other = PublicKey.from("OTHER".getBytes());
+
+            final EncryptedTransaction sentToRecipient =
+                    new EncryptedTransaction(new MessageHash(new byte[] {1}), encodedPayload(sender, recipient));
+            final EncryptedTransaction sentToOther =
+                    new EncryptedTransaction(new MessageHash(new byte[] {2}), encodedPayload(sender, other));
+            final EncryptedTransaction sentFromRecipient =
+                    new EncryptedTransaction(new MessageHash(new byte[] {3}), encodedPayload(recipient, other));
+
+            encryptedTransactionDAO.save(sentToRecipient);
+            encryptedTransactionDAO.save(sentToOther);
+            encryptedTransactionDAO.save(sentFromRecipient);
+
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(recipient, 1))
+                    .containsExactly(sentToRecipient, sentFromRecipient);
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10))
+                    .containsExactly(sentToRecipient, sentToOther);
+        }
+
+        @Test
+        public void saveAllPersistsAndIndexesEveryTransaction() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+
+            final List<EncryptedTransaction> transactions =
+                    IntStream.range(0, 5)
+                            .mapToObj(
+                                    i ->
+                                            new EncryptedTransaction(
+                                                    new MessageHash(new byte[] {(byte) i}), encodedPayload(sender)))
+                            .collect(Collectors.toList());
+
+            encryptedTransactionDAO.saveAll(transactions);
+
+            assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(transactions.size());
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10))
+                    .containsExactlyElementsOf(transactions);
+        }
+
+        @Test
+        public void deletingTransactionRemovesItFromRecipientIndex() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+            final MessageHash hash = new MessageHash(new byte[] {1});
+
+            encryptedTransactionDAO.save(new EncryptedTransaction(hash, encodedPayload(sender)));
+            encryptedTransactionDAO.delete(hash);
+
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10)).isEmpty();
+        }
+
+        @Test
+        public void updateReplacesPayloadAndRecipientIndex() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+            final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+            final MessageHash hash = new MessageHash(new byte[] {1});
+
+            encryptedTransactionDAO.save(new EncryptedTransaction(hash, encodedPayload(sender)));
+
+            final EncryptedTransaction updated = new EncryptedTransaction(hash, encodedPayload(sender, recipient));
+            assertThat(encryptedTransactionDAO.update(updated)).isTrue();
+
+            assertThat(encryptedTransactionDAO.retrieveByHash(hash).get().getEncodedPayload())
+                    .isEqualTo(updated.getEncodedPayload());
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(recipient, 10))
+                    .extracting(EncryptedTransaction::getHash)
+                    .containsExactly(hash);
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10))
+                    .extracting(EncryptedTransaction::getHash)
+                    .containsExactly(hash);
+        }
+
+        @Test
+        public void updateOfUnknownHashStoresNothing() {
+            final MessageHash hash = new MessageHash(new byte[] {1});
+
+            assertThat(encryptedTransactionDAO.update(new EncryptedTransaction(hash, new byte[] {5}))).isFalse();
+            assertThat(encryptedTransactionDAO.retrieveByHash(hash)).isEmpty();
+        }
+
+        @Test
+        public void indexRecipientsAddsTransactionsMissingFromIndex() {
+            final PublicKey sender = PublicKey.from("SENDER".getBytes());
+
+            final List<EncryptedTransaction> unindexed =
+                    IntStream.range(0, 5)
+                            .mapToObj(
+                                    i ->
+                                            new EncryptedTransaction(
+                                                    new MessageHash(new byte[] {(byte) i}), encodedPayload(sender)))
+                            .peek(entityManager::persist)
+                            .collect(Collectors.toList());
+
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10)).isEmpty();
+
+            final Optional<MessageHash> first = encryptedTransactionDAO.indexRecipients(null, 3);
+            assertThat(first).contains(new MessageHash(new byte[] {2}));
+
+            final Optional<MessageHash> second = encryptedTransactionDAO.indexRecipients(first.get(), 3);
+            assertThat(second).contains(new MessageHash(new byte[] {4}));
+
+            assertThat(encryptedTransactionDAO.indexRecipients(second.get(), 3)).isEmpty();
+            assertThat(encryptedTransactionDAO.indexRecipients(null, 3)).isEmpty();
+
+            assertThat(encryptedTransactionDAO.streamTransactionsForKey(sender, 10))
+                    .containsExactlyElementsOf(unindexed);
+        }
+
+        @Test
+        public void indexRecipientsDoesNotRetryTransactionsThatCannotBeDecoded() {
+            final MessageHash hash = new MessageHash(new byte[] {1});
+            entityManager.persist(new EncryptedTransaction(hash, new byte[] {5}));
+
+            assertThat(encryptedTransactionDAO.indexRecipients(null, 3)).contains(hash);
+            assertThat(encryptedTransactionDAO.indexRecipients(null, 3)).isEmpty();
+        }
+
         @Test
         public void deleteTransactionRemovesFromDatabaseAndReturnsTrue() {
 
@@ -544,6 +1016,24 @@ public class EncryptedTransactionDAOTest {
             assertThat(retrieved.isPresent()).isFalse();
         }
 
+        @Test
+        public void retrieveByHashesReturnsTransactionsThatArePresentAcrossQueries() {
+            final List<MessageHash> hashes =
+                    IntStream.range(0, EncryptedTransactionDAOImpl.MAX_HASHES_PER_QUERY + 10)
+                            .mapToObj(i -> new MessageHash(new byte[] {(byte) (i >> 8), (byte) i}))
+                            .collect(Collectors.toList());
+            hashes.forEach(hash -> entityManager.persist(new EncryptedTransaction(hash, new byte[] {5})));
+            entityManager.flush();
+
+            final List<MessageHash> searchHashes = new ArrayList<>(hashes);
+            searchHashes.add(new MessageHash(new byte[] {9, 9, 9}));
+
+            final List<EncryptedTransaction> retrieved = encryptedTransactionDAO.retrieveByHashes(searchHashes);
+
+            assertThat(retrieved).extracting(EncryptedTransaction::getHash).hasSameElementsAs(hashes);
+            assertThat(encryptedTransactionDAO.retrieveByHashes(emptyList())).isEmpty();
+        }
+
         @Test
         public void persistAddsTimestampToEntity() {
             final EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
@@ -560,4 +1050,17 @@ public class EncryptedTransactionDAOTest {
             assertThat(retrieved.getTimestamp()).isNotZero();
         }
     }
+
+    private static byte[] encodedPayload(final PublicKey sender, final PublicKey... recipients) {
+        final EncodedPayload payload =
+                new EncodedPayload(
+                        sender,
+                        "CIPHERTEXT".getBytes(),
+                        new Nonce("NONCE".getBytes()),
+                        emptyList(),
+                        new Nonce("RECIPIENT_NONCE".getBytes()),
+                        Stream.of(recipients).collect(Collectors.toList()));
+
+        return PayloadEncoder.create().encode(payload);
+    }
 }
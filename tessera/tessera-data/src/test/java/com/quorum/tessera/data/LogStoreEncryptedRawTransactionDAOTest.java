@@ -0,0 +1,158 @@
+package com.quorum.tessera.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.persistence.EntityExistsException;
+import javax.persistence.EntityNotFoundException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class LogStoreEncryptedRawTransactionDAOTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    private LogStore logStore;
+
+    private EncryptedRawTransactionDAO encryptedRawTransactionDAO;
+
+    @Before
+    public void onSetUp() throws Exception {
+        this.directory = folder.newFolder().toPath();
+        this.logStore = new LogStore(directory);
+        this.encryptedRawTransactionDAO = new LogStoreEncryptedRawTransactionDAO(logStore);
+    }
+
+    @After
+    public void onTearDown() {
+        logStore.close();
+    }
+
+    @Test
+    public void savedTransactionCanBeRetrievedAfterReopening() {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+        final EncryptedRawTransaction saved =
+                new EncryptedRawTransaction(
+                        hash, "payload".getBytes(), "key".getBytes(), "nonce".getBytes(), "from".getBytes());
+        encryptedRawTransactionDAO.save(saved);
+
+        logStore.close();
+        logStore = new LogStore(directory);
+        encryptedRawTransactionDAO = new LogStoreEncryptedRawTransactionDAO(logStore);
+
+        final EncryptedRawTransaction retrieved = encryptedRawTransactionDAO.retrieveByHash(hash).get();
+
+        assertThat(retrieved.getHash()).isEqualTo(hash);
+        assertThat(retrieved.getEncryptedPayload()).isEqualTo("payload".getBytes());
+        assertThat(retrieved.getEncryptedKey()).isEqualTo("key".getBytes());
+        assertThat(retrieved.getNonce()).isEqualTo("nonce".getBytes());
+        assertThat(retrieved.getSender()).isEqualTo("from".getBytes());
+        assertThat(retrieved.getTimestamp()).isEqualTo(saved.getTimestamp()).isNotZero();
+    }
+
+    @Test
+    public void deletedTransactionIsNoLongerRetrievable() {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+        encryptedRawTransactionDAO.save(
+                new EncryptedRawTransaction(hash, new byte[] {1}, new byte[] {2}, new byte[] {3}, new byte[] {4}));
+
+        encryptedRawTransactionDAO.delete(hash);
+
+        assertThat(encryptedRawTransactionDAO.retrieveByHash(hash)).isEmpty();
+    }
+
+    @Test
+    public void deletingUnknownHashThrowsEntityNotFoundException() {
+        final Throwable throwable =
+                catchThrowable(() -> encryptedRawTransactionDAO.delete(new MessageHash(new byte[] {1})));
+
+        assertThat(throwable).isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    public void transactionsStoredBeforeGivenTimeAreFoundOldestFirst() {
+        final EncryptedRawTransaction older = rawTransaction(2, 100);
+        final EncryptedRawTransaction newer = rawTransaction(1, 200);
+        encryptedRawTransactionDAO.save(newer);
+        encryptedRawTransactionDAO.save(older);
+        encryptedRawTransactionDAO.save(rawTransaction(3, 300));
+
+        assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(300, 10))
+                .containsExactly(older.getHash(), newer.getHash());
+        assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(300, 1)).containsExactly(older.getHash());
+        assertThat(encryptedRawTransactionDAO.retrieveStoredBefore(300, 10))
+                .extracting(EncryptedRawTransaction::getTimestamp)
+                .containsExactly(100L, 200L);
+    }
+
+    @Test
+    public void storedTimesAreReadWhenReopened() {
+        encryptedRawTransactionDAO.save(rawTransaction(1, 200));
+        encryptedRawTransactionDAO.save(rawTransaction(2, 100));
+
+        logStore.close();
+        logStore = new LogStore(directory);
+        encryptedRawTransactionDAO = new LogStoreEncryptedRawTransactionDAO(logStore);
+
+        assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(300, 10))
+                .containsExactly(new MessageHash(new byte[] {2}), new MessageHash(new byte[] {1}));
+    }
+
+    @Test
+    public void deletedTransactionsAreNoLongerFoundAsStoredBefore() {
+        encryptedRawTransactionDAO.save(rawTransaction(1, 100));
+        encryptedRawTransactionDAO.save(rawTransaction(2, 100));
+        encryptedRawTransactionDAO.save(rawTransaction(3, 200));
+
+        encryptedRawTransactionDAO.delete(new MessageHash(new byte[] {1}));
+        encryptedRawTransactionDAO.deleteAll(Arrays.asList(new MessageHash(new byte[] {3})));
+
+        assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(300, 10))
+                .containsExactly(new MessageHash(new byte[] {2}));
+    }
+
+    @Test
+    public void savingStoredHashThrowsEntityExistsException() {
+        encryptedRawTransactionDAO.save(rawTransaction(1, 100));
+
+        final Throwable throwable = catchThrowable(() -> encryptedRawTransactionDAO.save(rawTransaction(1, 200)));
+
+        assertThat(throwable).isInstanceOf(EntityExistsException.class);
+        assertThat(encryptedRawTransactionDAO.retrieveByHash(new MessageHash(new byte[] {1})).get().getTimestamp())
+                .isEqualTo(100L);
+        assertThat(encryptedRawTransactionDAO.retrieveHashesStoredBefore(150, 10))
+                .containsExactly(new MessageHash(new byte[] {1}));
+    }
+
+    @Test
+    public void deleteAllRemovesPresentTransactions() {
+        encryptedRawTransactionDAO.save(rawTransaction(1, 100));
+
+        final int deleted =
+                encryptedRawTransactionDAO.deleteAll(
+                        Arrays.asList(new MessageHash(new byte[] {1}), new MessageHash(new byte[] {2})));
+
+        assertThat(deleted).isEqualTo(1);
+        assertThat(encryptedRawTransactionDAO.retrieveByHash(new MessageHash(new byte[] {1}))).isEmpty();
+    }
+
+    private static EncryptedRawTransaction rawTransaction(final int hash, final long timestamp) {
+        final EncryptedRawTransaction transaction =
+                new EncryptedRawTransaction(
+                        new MessageHash(new byte[] {(byte) hash}),
+                        new byte[] {1},
+                        new byte[] {2},
+                        new byte[] {3},
+                        new byte[] {4});
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+}
@@ -0,0 +1,239 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.nacl.Nonce;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.persistence.EntityExistsException;
+import javax.persistence.EntityNotFoundException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class LogStoreEncryptedTransactionDAOTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    private LogStore logStore;
+
+    private EncryptedTransactionDAO encryptedTransactionDAO;
+
+    @Before
+    public void onSetUp() throws Exception {
+        this.directory = folder.newFolder().toPath();
+        this.logStore = new LogStore(directory);
+        this.encryptedTransactionDAO = new LogStoreEncryptedTransactionDAO(logStore);
+    }
+
+    @After
+    public void onTearDown() {
+        logStore.close();
+    }
+
+    @Test
+    public void savedTransactionCanBeRetrievedAfterReopening() {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+        encryptedTransactionDAO.save(new EncryptedTransaction(hash, new byte[] {5}));
+
+        logStore.close();
+        logStore = new LogStore(directory);
+        encryptedTransactionDAO = new LogStoreEncryptedTransactionDAO(logStore);
+
+        final EncryptedTransaction retrieved = encryptedTransactionDAO.retrieveByHash(hash).get();
+
+        assertThat(retrieved.getHash()).isEqualTo(hash);
+        assertThat(retrieved.getEncodedPayload()).isEqualTo(new byte[] {5});
+        assertThat(retrieved.getTimestamp()).isNotZero();
+    }
+
+    @Test
+    public void savingStoredHashThrowsEntityExistsExceptionAndKeepsStoredPayload() {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+        encryptedTransactionDAO.save(new EncryptedTransaction(hash, new byte[] {5}));
+
+        final Throwable throwable =
+                catchThrowable(() -> encryptedTransactionDAO.save(new EncryptedTransaction(hash, new byte[] {6})));
+
+        assertThat(throwable).isInstanceOf(EntityExistsException.class);
+        assertThat(encryptedTransactionDAO.retrieveByHash(hash).get().getEncodedPayload()).isEqualTo(new byte[] {5});
+    }
+
+    @Test
+    public void saveAllWithStoredHashStoresNothing() {
+        encryptedTransactionDAO.save(new EncryptedTransaction(new MessageHash(new byte[] {1}), new byte[] {5}));
+
+        final Throwable throwable =
+                catchThrowable(
+                        () ->
+                                encryptedTransactionDAO.saveAll(
+                                        Arrays.asList(
+                                                new EncryptedTransaction(
+                                                        new MessageHash(new byte[] {2}), new byte[] {6}),
+                                                new EncryptedTransaction(
+                                                        new MessageHash(new byte[] {1}), new byte[] {6}))));
+
+        assertThat(throwable).isInstanceOf(EntityExistsException.class);
+        assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(1);
+        assertThat(encryptedTransactionDAO.retrieveByHash(new MessageHash(new byte[] {1})).get().getEncodedPayload())
+                .isEqualTo(new byte[] {5});
+    }
+
+    @Test
+    public void closingTheDaoClosesTheLogStore() {
+        encryptedTransactionDAO.save(new EncryptedTransaction(new MessageHash(new byte[] {1}), new byte[] {5}));
+
+        ((LogStoreEncryptedTransactionDAO) encryptedTransactionDAO).close();
+
+        assertThat(logStore.size()).isZero();
+        assertThat(logStore.segmentCount()).isZero();
+    }
+
+    @Test
+    public void updateReplacesStoredPayload() {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+        encryptedTransactionDAO.save(new EncryptedTransaction(hash, new byte[] {5}));
+
+        assertThat(encryptedTransactionDAO.update(new EncryptedTransaction(hash, new byte[] {6}))).isTrue();
+
+        assertThat(encryptedTransactionDAO.retrieveByHash(hash).get().getEncodedPayload()).isEqualTo(new byte[] {6});
+        assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void updateOfUnknownHashStoresNothing() {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+
+        assertThat(encryptedTransactionDAO.update(new EncryptedTransaction(hash, new byte[] {6}))).isFalse();
+
+        assertThat(encryptedTransactionDAO.retrieveByHash(hash)).isEmpty();
+    }
+
+    @Test
+    public void retrievingUnknownHashReturnsEmpty() {
+        assertThat(encryptedTransactionDAO.retrieveByHash(new MessageHash(new byte[] {1}))).isEmpty();
+    }
+
+    @Test
+    public void retrievingSeveralHashesReturnsOnlyThoseStored() {
+        IntStream.range(0, 3)
+                .mapToObj(i -> new EncryptedTransaction(new MessageHash(new byte[] {(byte) i}), new byte[] {5}))
+                .forEach(encryptedTransactionDAO::save);
+
+        final List<EncryptedTransaction> retrieved =
+                encryptedTransactionDAO.retrieveByHashes(
+                        Arrays.asList(new MessageHash(new byte[] {2}), new MessageHash(new byte[] {7})));
+
+        assertThat(retrieved)
+                .extracting(EncryptedTransaction::getHash)
+                .containsExactly(new MessageHash(new byte[] {2}));
+        assertThat(retrieved.get(0).getEncodedPayload()).isEqualTo(new byte[] {5});
+    }
+
+    @Test
+    public void saveAllStoresEveryTransaction() {
+        final List<EncryptedTransaction> transactions =
+                IntStream.range(0, 3)
+                        .mapToObj(i -> new EncryptedTransaction(new MessageHash(new byte[] {(byte) i}), new byte[] {5}))
+                        .collect(Collectors.toList());
+
+        encryptedTransactionDAO.saveAll(transactions);
+
+        assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(3);
+        assertThat(encryptedTransactionDAO.retrieveTransactions(1, 5))
+                .extracting(EncryptedTransaction::getHash)
+                .containsExactly(new MessageHash(new byte[] {1}), new MessageHash(new byte[] {2}));
+    }
+
+    @Test
+    public void streamingTransactionsReturnsAllInHashOrderAcrossBatches() {
+        IntStream.of(4, 2, 0, 3, 1)
+                .mapToObj(i -> new EncryptedTransaction(new MessageHash(new byte[] {(byte) i}), new byte[] {5}))
+                .forEach(encryptedTransactionDAO::save);
+
+        try (Stream<EncryptedTransaction> stream = encryptedTransactionDAO.streamTransactions(2)) {
+            assertThat(stream.map(EncryptedTransaction::getHash).collect(Collectors.toList()))
+                    .containsExactly(
+                            new MessageHash(new byte[] {0}),
+                            new MessageHash(new byte[] {1}),
+                            new MessageHash(new byte[] {2}),
+                            new MessageHash(new byte[] {3}),
+                            new MessageHash(new byte[] {4}));
+        }
+    }
+
+    @Test
+    public void streamingTransactionsForKeyReturnsOnlyThoseInvolvingKey() {
+        final PublicKey sender = PublicKey.from("SENDER".getBytes());
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PublicKey other = PublicKey.from("OTHER".getBytes());
+
+        final MessageHash sent = new MessageHash(new byte[] {1});
+        final MessageHash received = new MessageHash(new byte[] {2});
+        final MessageHash unrelated = new MessageHash(new byte[] {3});
+
+        encryptedTransactionDAO.saveAll(
+                Arrays.asList(
+                        new EncryptedTransaction(sent, encodedPayload(recipient, other)),
+                        new EncryptedTransaction(received, encodedPayload(sender, recipient)),
+                        new EncryptedTransaction(unrelated, encodedPayload(sender, other))));
+
+        try (Stream<EncryptedTransaction> stream = encryptedTransactionDAO.streamTransactionsForKey(recipient, 1)) {
+            assertThat(stream.map(EncryptedTransaction::getHash).collect(Collectors.toList()))
+                    .containsExactly(sent, received);
+        }
+    }
+
+    @Test
+    public void deletedTransactionIsNoLongerRetrievable() {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+        encryptedTransactionDAO.save(new EncryptedTransaction(hash, new byte[] {5}));
+
+        encryptedTransactionDAO.delete(hash);
+
+        assertThat(encryptedTransactionDAO.retrieveByHash(hash)).isEmpty();
+        assertThat(encryptedTransactionDAO.transactionCount()).isZero();
+    }
+
+    @Test
+    public void deletingUnknownHashThrowsEntityNotFoundException() {
+        final Throwable throwable =
+                catchThrowable(() -> encryptedTransactionDAO.delete(new MessageHash(new byte[] {1})));
+
+        assertThat(throwable).isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    public void thereIsNothingToIndex() {
+        encryptedTransactionDAO.save(new EncryptedTransaction(new MessageHash(new byte[] {1}), new byte[] {5}));
+
+        assertThat(encryptedTransactionDAO.indexRecipients(null, 10)).isEmpty();
+    }
+
+    private static byte[] encodedPayload(final PublicKey sender, final PublicKey... recipients) {
+        final EncodedPayload payload =
+                new EncodedPayload(
+                        sender,
+                        "CIPHERTEXT".getBytes(),
+                        new Nonce("NONCE".getBytes()),
+                        emptyList(),
+                        new Nonce("RECIPIENT_NONCE".getBytes()),
+                        Stream.of(recipients).collect(Collectors.toList()));
+
+        return PayloadEncoder.create().encode(payload);
+    }
+}
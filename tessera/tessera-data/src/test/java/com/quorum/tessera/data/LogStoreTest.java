@@ -0,0 +1,246 @@
+package com.quorum.tessera.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class LogStoreTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    private LogStore logStore;
+
+    @Before
+    public void onSetUp() throws Exception {
+        this.directory = folder.newFolder().toPath();
+        this.logStore = new LogStore(directory, 256);
+    }
+
+    @After
+    public void onTearDown() {
+        logStore.close();
+    }
+
+    @Test
+    public void storedValueCanBeRetrieved() {
+        logStore.put(bytes(1), bytes(10, 11));
+
+        assertThat(logStore.get(bytes(1))).hasValueSatisfying(v -> assertThat(v).containsExactly(bytes(10, 11)));
+        assertThat(logStore.contains(bytes(1))).isTrue();
+        assertThat(logStore.get(bytes(2))).isEmpty();
+        assertThat(logStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void latestValueIsReturnedAfterOverwrite() {
+        logStore.put(bytes(1), bytes(10));
+        logStore.put(bytes(1), bytes(20));
+
+        assertThat(logStore.get(bytes(1))).hasValueSatisfying(v -> assertThat(v).containsExactly(bytes(20)));
+        assertThat(logStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void putIfAbsentKeepsStoredValue() {
+        assertThat(logStore.putIfAbsent(bytes(1), bytes(10))).isTrue();
+        assertThat(logStore.putIfAbsent(bytes(1), bytes(20))).isFalse();
+
+        assertThat(logStore.get(bytes(1))).hasValueSatisfying(v -> assertThat(v).containsExactly(bytes(10)));
+    }
+
+    @Test
+    public void putAllIfAbsentStoresNothingIfAnyKeyIsPresentOrRepeated() {
+        logStore.put(bytes(1), bytes(10));
+
+        final boolean storedWithPresentKey =
+                logStore.putAllIfAbsent(
+                        Arrays.asList(
+                                new AbstractMap.SimpleImmutableEntry<>(bytes(2), bytes(20)),
+                                new AbstractMap.SimpleImmutableEntry<>(bytes(1), bytes(20))));
+        final boolean storedWithRepeatedKey =
+                logStore.putAllIfAbsent(
+                        Arrays.asList(
+                                new AbstractMap.SimpleImmutableEntry<>(bytes(3), bytes(30)),
+                                new AbstractMap.SimpleImmutableEntry<>(bytes(3), bytes(31))));
+
+        assertThat(storedWithPresentKey).isFalse();
+        assertThat(storedWithRepeatedKey).isFalse();
+        assertThat(logStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void deletedValueIsNoLongerPresent() {
+        logStore.put(bytes(1), bytes(10));
+
+        assertThat(logStore.delete(bytes(1))).isTrue();
+        assertThat(logStore.delete(bytes(1))).isFalse();
+
+        assertThat(logStore.get(bytes(1))).isEmpty();
+        assertThat(logStore.size()).isZero();
+    }
+
+    @Test
+    public void keysAreReturnedInUnsignedOrder() {
+        Stream.of(3, 200, 1, 2).forEach(i -> logStore.put(bytes(i), bytes(i)));
+
+        assertThat(logStore.keys(null, 10)).containsExactly(bytes(1), bytes(2), bytes(3), bytes(200));
+        assertThat(logStore.keys(bytes(2), 1)).containsExactly(bytes(3));
+        assertThat(logStore.keys(1, 2)).containsExactly(bytes(2), bytes(3));
+    }
+
+    @Test
+    public void valuesAreRecoveredByReplayAfterReopening() {
+        logStore.put(bytes(1), bytes(10));
+        logStore.put(bytes(2), bytes(20));
+        logStore.put(bytes(1), bytes(11));
+        logStore.delete(bytes(2));
+        logStore.close();
+
+        logStore = new LogStore(directory, 256);
+
+        assertThat(logStore.get(bytes(1))).hasValueSatisfying(v -> assertThat(v).containsExactly(bytes(11)));
+        assertThat(logStore.get(bytes(2))).isEmpty();
+        assertThat(logStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void incompleteWriteIsDiscardedOnReplay() throws Exception {
+        logStore.put(bytes(1), bytes(10));
+        logStore.close();
+
+        final Path segment = Files.list(directory).findFirst().get();
+        final long completeSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 50, 1, 2}));
+        }
+
+        logStore = new LogStore(directory, 256);
+
+        assertThat(logStore.get(bytes(1))).hasValueSatisfying(v -> assertThat(v).containsExactly(bytes(10)));
+        assertThat(Files.size(segment)).isEqualTo(completeSize);
+
+        logStore.put(bytes(2), bytes(20));
+        logStore.close();
+        logStore = new LogStore(directory, 256);
+
+        assertThat(logStore.get(bytes(2))).hasValueSatisfying(v -> assertThat(v).containsExactly(bytes(20)));
+    }
+
+    @Test
+    public void corruptFrameIsDiscardedOnReplay() throws Exception {
+        logStore.put(bytes(1), bytes(10));
+        logStore.put(bytes(2), bytes(20));
+        logStore.close();
+
+        final Path segment = Files.list(directory).findFirst().get();
+        final byte[] data = Files.readAllBytes(segment);
+        data[data.length - 1] ^= 1;
+        Files.write(segment, data);
+
+        logStore = new LogStore(directory, 256);
+
+        assertThat(logStore.get(bytes(1))).isPresent();
+        assertThat(logStore.get(bytes(2))).isEmpty();
+    }
+
+    @Test
+    public void allValuesOfABatchAreStoredTogether() {
+        final List<Map.Entry<byte[], byte[]>> entries =
+                Arrays.asList(
+                        new AbstractMap.SimpleImmutableEntry<>(bytes(1), bytes(10)),
+                        new AbstractMap.SimpleImmutableEntry<>(bytes(2), bytes(20)));
+
+        logStore.putAll(entries);
+
+        assertThat(logStore.size()).isEqualTo(2);
+        assertThat(logStore.get(bytes(2))).hasValueSatisfying(v -> assertThat(v).containsExactly(bytes(20)));
+    }
+
+    @Test
+    public void writesRollOverToNewSegmentsAndRemainReadable() {
+        for (int i = 0; i < 20; i++) {
+            logStore.put(bytes(i), new byte[40]);
+        }
+
+        assertThat(logStore.segmentCount()).isGreaterThan(1);
+        for (int i = 0; i < 20; i++) {
+            assertThat(logStore.get(bytes(i))).hasValueSatisfying(v -> assertThat(v).hasSize(40));
+        }
+    }
+
+    @Test
+    public void deletingMostValuesCompactsSealedSegments() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            logStore.put(bytes(i), new byte[40]);
+        }
+        final int segmentsBefore = logStore.segmentCount();
+
+        for (int i = 0; i < 18; i++) {
+            logStore.delete(bytes(i));
+        }
+
+        assertThat(logStore.segmentCount()).isLessThan(segmentsBefore);
+        assertThat(logStore.size()).isEqualTo(2);
+        assertThat(logStore.get(bytes(18))).isPresent();
+        assertThat(logStore.get(bytes(19))).isPresent();
+
+        logStore.close();
+        logStore = new LogStore(directory, 256);
+
+        assertThat(logStore.keys(null, 10)).containsExactly(bytes(18), bytes(19));
+    }
+
+    @Test
+    public void compactionKeepsLiveValuesAndRemovesSealedSegments() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            logStore.put(bytes(i), bytes(i, i));
+        }
+        logStore.put(new byte[] {100}, new byte[200]);
+
+        logStore.compact();
+
+        final List<String> files =
+                Files.list(directory).map(p -> p.getFileName().toString()).collect(Collectors.toList());
+        assertThat(files).doesNotContain("segment-0000000000.log");
+        for (int i = 0; i < 10; i++) {
+            final int value = i;
+            assertThat(logStore.get(bytes(i)))
+                    .hasValueSatisfying(v -> assertThat(v).containsExactly(bytes(value, value)));
+        }
+    }
+
+    @Test
+    public void writeLargerThanASegmentIsRejected() {
+        final Throwable throwable = catchThrowable(() -> logStore.put(bytes(1), new byte[300]));
+
+        assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+        assertThat(logStore.size()).isZero();
+    }
+
+    private static byte[] bytes(final int... values) {
+        final byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
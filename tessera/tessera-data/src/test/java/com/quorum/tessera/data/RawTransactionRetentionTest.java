@@ -0,0 +1,162 @@
+package com.quorum.tessera.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+public class RawTransactionRetentionTest {
+
+    private static final long NOW = 10_000L;
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private EncryptedRawTransactionDAO encryptedRawTransactionDAO;
+
+    @Before
+    public void onSetUp() {
+        this.encryptedRawTransactionDAO = mock(EncryptedRawTransactionDAO.class);
+    }
+
+    @After
+    public void onTearDown() {
+        verifyNoMoreInteractions(encryptedRawTransactionDAO);
+    }
+
+    @Test
+    public void nothingIsRemovedWhenRetentionIsDisabled() {
+        final RawTransactionRetention retention = retention(0, 2, null);
+
+        retention.run();
+
+        assertThat(retention.getLastRunTimestamp()).isZero();
+    }
+
+    @Test
+    public void expiredTransactionsAreDeletedInBatchesUntilNoneRemain() {
+        final List<MessageHash> first = Arrays.asList(hash(1), hash(2));
+        final List<MessageHash> second = singletonList(hash(3));
+        when(encryptedRawTransactionDAO.retrieveHashesStoredBefore(9000L, 2)).thenReturn(first, second);
+        when(encryptedRawTransactionDAO.deleteAll(first)).thenReturn(2);
+        when(encryptedRawTransactionDAO.deleteAll(second)).thenReturn(1);
+
+        final RawTransactionRetention retention = retention(1000, 2, null);
+        retention.run();
+
+        verify(encryptedRawTransactionDAO, times(2)).retrieveHashesStoredBefore(9000L, 2);
+        verify(encryptedRawTransactionDAO).deleteAll(first);
+        verify(encryptedRawTransactionDAO).deleteAll(second);
+
+        assertThat(retention.getDeletedCount()).isEqualTo(3);
+        assertThat(retention.getLastRunDeletedCount()).isEqualTo(3);
+        assertThat(retention.getLastRunTimestamp()).isEqualTo(NOW);
+        assertThat(retention.getArchivedCount()).isZero();
+    }
+
+    @Test
+    public void nothingIsDeletedWhenNoTransactionHasExpired() {
+        when(encryptedRawTransactionDAO.retrieveHashesStoredBefore(9000L, 2)).thenReturn(emptyList());
+
+        final RawTransactionRetention retention = retention(1000, 2, null);
+        retention.run();
+
+        verify(encryptedRawTransactionDAO).retrieveHashesStoredBefore(9000L, 2);
+        assertThat(retention.getDeletedCount()).isZero();
+    }
+
+    @Test
+    public void expiredTransactionsAreArchivedBeforeBeingDeleted() throws Exception {
+        final Path archivePath = folder.getRoot().toPath().resolve("archive");
+        final EncryptedRawTransaction transaction =
+                new EncryptedRawTransaction(hash(1), new byte[] {2}, new byte[] {3}, new byte[] {4}, new byte[] {5});
+        transaction.setTimestamp(500);
+        when(encryptedRawTransactionDAO.retrieveStoredBefore(9000L, 2)).thenReturn(singletonList(transaction));
+        when(encryptedRawTransactionDAO.deleteAll(singletonList(hash(1)))).thenReturn(1);
+
+        final RawTransactionRetention retention = retention(1000, 2, archivePath);
+        retention.run();
+
+        verify(encryptedRawTransactionDAO).retrieveStoredBefore(9000L, 2);
+        verify(encryptedRawTransactionDAO).deleteAll(singletonList(hash(1)));
+
+        final List<Path> archives = Files.list(archivePath).collect(Collectors.toList());
+        assertThat(archives).hasSize(1);
+
+        final Base64.Encoder encoder = Base64.getEncoder();
+        assertThat(Files.readAllLines(archives.get(0)))
+                .containsExactly(
+                        String.join(
+                                " ",
+                                encoder.encodeToString(new byte[] {1}),
+                                "500",
+                                encoder.encodeToString(new byte[] {2}),
+                                encoder.encodeToString(new byte[] {3}),
+                                encoder.encodeToString(new byte[] {4}),
+                                encoder.encodeToString(new byte[] {5})));
+        assertThat(retention.getArchivedCount()).isEqualTo(1);
+        assertThat(retention.getDeletedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void transactionsAreNotDeletedWhenTheyCannotBeArchived() throws Exception {
+        final Path archivePath = folder.newFile().toPath();
+        final EncryptedRawTransaction transaction =
+                new EncryptedRawTransaction(hash(1), new byte[] {2}, new byte[] {3}, new byte[] {4}, new byte[] {5});
+        when(encryptedRawTransactionDAO.retrieveStoredBefore(9000L, 2)).thenReturn(singletonList(transaction));
+
+        final RawTransactionRetention retention = retention(1000, 2, archivePath);
+        final Throwable throwable = catchThrowable(retention::run);
+
+        assertThat(throwable).isNotNull();
+        verify(encryptedRawTransactionDAO).retrieveStoredBefore(9000L, 2);
+        verify(encryptedRawTransactionDAO, never()).deleteAll(anyList());
+        assertThat(retention.getFailedRunCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void batchSizeMustBePositive() {
+        final Throwable throwable = catchThrowable(() -> retention(1000, 0, null));
+
+        assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void metricsAreRegisteredWithThePlatformMBeanServer() throws Exception {
+        final RawTransactionRetention retention = retention(0, 2, null);
+        final ObjectName objectName = new ObjectName(RawTransactionRetention.OBJECT_NAME);
+
+        retention.register();
+        try {
+            assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "DeletedCount"))
+                    .isEqualTo(0L);
+        } finally {
+            retention.unregister();
+        }
+
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)).isFalse();
+    }
+
+    private RawTransactionRetention retention(final long maxAgeMillis, final int batchSize, final Path archivePath) {
+        return new RawTransactionRetention(encryptedRawTransactionDAO, maxAgeMillis, batchSize, archivePath, () -> NOW);
+    }
+
+    private static MessageHash hash(final int value) {
+        return new MessageHash(new byte[] {(byte) value});
+    }
+}
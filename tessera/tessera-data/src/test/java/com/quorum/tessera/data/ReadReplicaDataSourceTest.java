@@ -0,0 +1,130 @@
+package com.quorum.tessera.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+public class ReadReplicaDataSourceTest {
+
+    private DataSource primary;
+
+    private DataSource firstReplica;
+
+    private DataSource secondReplica;
+
+    private ReadReplicaDataSource dataSource;
+
+    @Before
+    public void onSetUp() throws SQLException {
+        this.primary = mockDataSource();
+        this.firstReplica = mockDataSource();
+        this.secondReplica = mockDataSource();
+        this.dataSource = new ReadReplicaDataSource(primary, Arrays.asList(firstReplica, secondReplica));
+    }
+
+    @Test
+    public void connectionsAreSpreadAcrossReplicas() throws SQLException {
+        final Connection first = dataSource.getConnection();
+        final Connection second = dataSource.getConnection();
+
+        assertThat(Arrays.asList(first, second))
+                .containsExactlyInAnyOrder(firstReplica.getConnection(), secondReplica.getConnection());
+        verifyZeroInteractions(primary);
+    }
+
+    @Test
+    public void failedReplicaIsSkippedUntilItPassesACheck() throws SQLException {
+        final Connection healthy = secondReplica.getConnection();
+        final Connection recovered = firstReplica.getConnection();
+        when(firstReplica.getConnection()).thenThrow(new SQLException("down")).thenReturn(recovered);
+
+        assertThat(dataSource.getConnection()).isSameAs(healthy);
+        assertThat(dataSource.getConnection()).isSameAs(healthy);
+
+        dataSource.run();
+
+        assertThat(Arrays.asList(dataSource.getConnection(), dataSource.getConnection()))
+                .containsExactlyInAnyOrder(healthy, recovered);
+    }
+
+    @Test
+    public void connectionsComeFromThePrimaryWhenNoReplicaIsHealthy() throws SQLException {
+        when(firstReplica.getConnection()).thenThrow(new SQLException("down"));
+        when(secondReplica.getConnection()).thenThrow(new SQLException("down"));
+
+        assertThat(dataSource.getConnection()).isSameAs(primary.getConnection());
+    }
+
+    @Test
+    public void invalidReplicaIsMarkedUnhealthyByCheck() throws SQLException {
+        final Connection invalid = firstReplica.getConnection();
+        when(invalid.isValid(anyInt())).thenReturn(false);
+
+        dataSource.run();
+
+        assertThat(dataSource.getConnection()).isSameAs(secondReplica.getConnection());
+        assertThat(dataSource.getConnection()).isSameAs(secondReplica.getConnection());
+    }
+
+    @Test
+    public void withoutReplicasConnectionsComeFromThePrimary() throws SQLException {
+        final ReadReplicaDataSource primaryOnly = new ReadReplicaDataSource(primary, emptyList());
+
+        assertThat(primaryOnly.hasReplicas()).isFalse();
+        assertThat(primaryOnly.getConnection()).isSameAs(primary.getConnection());
+    }
+
+    @Test
+    public void closeClosesEveryReplicaThatCanBeClosedButNotThePrimary() throws Exception {
+        final ClosableDataSource closablePrimary = mock(ClosableDataSource.class);
+        final ClosableDataSource first = mock(ClosableDataSource.class);
+        final ClosableDataSource second = mock(ClosableDataSource.class);
+        final IllegalStateException suppressed = new IllegalStateException("second");
+        doThrow(new IllegalStateException("first")).when(first).close();
+        doThrow(suppressed).when(second).close();
+
+        final ReadReplicaDataSource closing = new ReadReplicaDataSource(closablePrimary, Arrays.asList(first, second));
+
+        final Throwable throwable = catchThrowable(closing::close);
+
+        assertThat(throwable).hasMessage("first");
+        assertThat(throwable.getSuppressed()).containsExactly(suppressed);
+        verify(first).close();
+        verify(second).close();
+        verify(closablePrimary, never()).close();
+    }
+
+    @Test
+    public void poolPropertiesConnectReadOnlyWithDriverProperties() {
+        final Properties properties =
+                ReadReplicaDataSource.poolProperties("jdbc:postgresql://replica/tessera", "user", null, 100);
+
+        assertThat(properties)
+                .containsEntry("jdbcUrl", "jdbc:postgresql://replica/tessera")
+                .containsEntry("username", "user")
+                .containsEntry("readOnly", "true")
+                .containsEntry("dataSource.preparedStatementCacheQueries", "100")
+                .doesNotContainKey("password");
+    }
+
+    private static DataSource mockDataSource() throws SQLException {
+        final Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+
+    interface ClosableDataSource extends DataSource, AutoCloseable {}
+}
@@ -0,0 +1,140 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.encryption.PublicKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ReadReplicaEncryptedTransactionDAOTest {
+
+    private EncryptedTransactionDAO delegate;
+
+    private EncryptedTransactionDAO replica;
+
+    private ReadReplicaEncryptedTransactionDAO dao;
+
+    @Before
+    public void onSetUp() {
+        this.delegate = mock(EncryptedTransactionDAO.class);
+        this.replica = mock(EncryptedTransactionDAO.class);
+        this.dao = new ReadReplicaEncryptedTransactionDAO(delegate, replica);
+    }
+
+    @After
+    public void onTearDown() {
+        verifyNoMoreInteractions(delegate, replica);
+    }
+
+    @Test
+    public void lookupFoundOnReplicaIsNotRepeated() {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+        when(replica.retrieveByHash(hash)).thenReturn(Optional.of(transaction(1)));
+
+        assertThat(dao.retrieveByHash(hash)).contains(transaction(1));
+
+        verify(replica).retrieveByHash(hash);
+    }
+
+    @Test
+    public void lookupMissingOnReplicaIsRepeatedOnPrimary() {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+        when(replica.retrieveByHash(hash)).thenReturn(Optional.empty());
+        when(delegate.retrieveByHash(hash)).thenReturn(Optional.of(transaction(1)));
+
+        assertThat(dao.retrieveByHash(hash)).contains(transaction(1));
+
+        verify(replica).retrieveByHash(hash);
+        verify(delegate).retrieveByHash(hash);
+    }
+
+    @Test
+    public void onlyHashesMissingOnReplicaAreLookedUpOnPrimary() {
+        final MessageHash first = new MessageHash(new byte[] {1});
+        final MessageHash second = new MessageHash(new byte[] {2});
+        when(replica.retrieveByHashes(Arrays.asList(first, second))).thenReturn(singletonList(transaction(1)));
+        when(delegate.retrieveByHashes(Collections.singleton(second))).thenReturn(singletonList(transaction(2)));
+
+        final List<EncryptedTransaction> transactions = dao.retrieveByHashes(Arrays.asList(first, second));
+
+        assertThat(transactions).containsExactly(transaction(1), transaction(2));
+
+        verify(replica).retrieveByHashes(Arrays.asList(first, second));
+        verify(delegate).retrieveByHashes(Collections.singleton(second));
+    }
+
+    @Test
+    public void withoutReplicasTheDelegateIsUsedAsItIs() {
+        final EncryptedTransactionDAO created =
+                ReadReplicaEncryptedTransactionDAO.create(delegate, new StorageCodec(), mock(EntityManager.class), false);
+
+        assertThat(created).isSameAs(delegate);
+    }
+
+    @Test
+    public void withReplicasLookupsAreWrapped() {
+        final EncryptedTransactionDAO created =
+                ReadReplicaEncryptedTransactionDAO.create(delegate, new StorageCodec(), mock(EntityManager.class), true);
+
+        assertThat(created).isInstanceOf(ReadReplicaEncryptedTransactionDAO.class);
+    }
+
+    @Test
+    public void streamedTransactionsAreFetchedFromReplica() {
+        final PublicKey key = PublicKey.from("KEY".getBytes());
+        when(replica.streamTransactionsForKey(key, 10)).thenReturn(Stream.of(transaction(1), transaction(2)));
+        when(replica.streamTransactions(10)).thenReturn(Stream.empty());
+
+        assertThat(dao.streamTransactionsForKey(key, 10).collect(Collectors.toList()))
+                .containsExactly(transaction(1), transaction(2));
+        assertThat(dao.streamTransactions(10)).isEmpty();
+
+        verify(replica).streamTransactionsForKey(key, 10);
+        verify(replica).streamTransactions(10);
+    }
+
+    @Test
+    public void pagesAreReadFromReplica() {
+        when(replica.retrieveTransactions(0, 10)).thenReturn(emptyList());
+
+        dao.retrieveTransactions(0, 10);
+
+        verify(replica).retrieveTransactions(0, 10);
+    }
+
+    @Test
+    public void writesAndCountGoToPrimary() {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+        final List<EncryptedTransaction> entities = singletonList(transaction(1));
+
+        dao.save(transaction(1));
+        dao.saveAll(entities);
+        dao.update(transaction(1));
+        dao.indexRecipients(hash, 10);
+        dao.transactionCount();
+        dao.delete(hash);
+
+        verify(delegate).save(transaction(1));
+        verify(delegate).saveAll(entities);
+        verify(delegate).update(transaction(1));
+        verify(delegate).indexRecipients(hash, 10);
+        verify(delegate).transactionCount();
+        verify(delegate).delete(hash);
+    }
+
+    private static EncryptedTransaction transaction(final int id) {
+        return new EncryptedTransaction(new MessageHash(new byte[] {(byte) id}), new byte[] {(byte) id});
+    }
+}
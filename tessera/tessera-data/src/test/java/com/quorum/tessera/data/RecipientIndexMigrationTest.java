@@ -0,0 +1,96 @@
+package com.quorum.tessera.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.mockito.Mockito.*;
+
+public class RecipientIndexMigrationTest {
+
+    private EncryptedTransactionDAO encryptedTransactionDAO;
+
+    private ExecutorService executor;
+
+    private RecipientIndexMigration recipientIndexMigration;
+
+    @Before
+    public void onSetUp() {
+        this.encryptedTransactionDAO = mock(EncryptedTransactionDAO.class);
+        this.executor = mock(ExecutorService.class);
+        this.recipientIndexMigration = new RecipientIndexMigration(encryptedTransactionDAO, 10, executor);
+    }
+
+    @After
+    public void onTearDown() {
+        verifyNoMoreInteractions(encryptedTransactionDAO, executor);
+    }
+
+    @Test
+    public void startRunsInTheBackground() {
+        doAnswer(
+                        invocation -> {
+                            invocation.<Runnable>getArgument(0).run();
+                            return null;
+                        })
+                .when(executor)
+                .execute(any(Runnable.class));
+        when(encryptedTransactionDAO.indexRecipients(null, 10)).thenThrow(new IllegalStateException("OUCH"));
+
+        recipientIndexMigration.start();
+
+        verify(executor).execute(any(Runnable.class));
+        verify(executor).shutdown();
+        verify(encryptedTransactionDAO).indexRecipients(null, 10);
+    }
+
+    @Test
+    public void stopInterruptsTheBackfill() {
+        recipientIndexMigration.stop();
+
+        verify(executor).shutdownNow();
+    }
+
+    @Test
+    public void runStopsWhenInterrupted() {
+        final MessageHash first = new MessageHash(new byte[] {1});
+        when(encryptedTransactionDAO.indexRecipients(null, 10)).thenReturn(Optional.of(first));
+
+        Thread.currentThread().interrupt();
+        try {
+            recipientIndexMigration.run();
+        } finally {
+            Thread.interrupted();
+        }
+
+        verify(encryptedTransactionDAO).indexRecipients(null, 10);
+    }
+
+    @Test
+    public void runContinuesFromLastHashUntilNoneRemain() {
+        final MessageHash first = new MessageHash(new byte[] {1});
+        final MessageHash second = new MessageHash(new byte[] {2});
+
+        when(encryptedTransactionDAO.indexRecipients(null, 10)).thenReturn(Optional.of(first));
+        when(encryptedTransactionDAO.indexRecipients(first, 10)).thenReturn(Optional.of(second));
+        when(encryptedTransactionDAO.indexRecipients(second, 10)).thenReturn(Optional.empty());
+
+        recipientIndexMigration.run();
+
+        verify(encryptedTransactionDAO).indexRecipients(null, 10);
+        verify(encryptedTransactionDAO).indexRecipients(first, 10);
+        verify(encryptedTransactionDAO).indexRecipients(second, 10);
+    }
+
+    @Test
+    public void runWithNothingToIndex() {
+        when(encryptedTransactionDAO.indexRecipients(null, 10)).thenReturn(Optional.empty());
+
+        recipientIndexMigration.run();
+
+        verify(encryptedTransactionDAO).indexRecipients(null, 10);
+    }
+}
@@ -0,0 +1,54 @@
+package com.quorum.tessera.data;
+
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StatementCachePropertiesTest {
+
+    @Test
+    public void mysqlCachesServerPreparedStatements() {
+        final Properties properties = StatementCacheProperties.forUrl("jdbc:mysql://localhost/tessera", 250);
+
+        assertThat(properties)
+                .containsEntry("cachePrepStmts", "true")
+                .containsEntry("useServerPrepStmts", "true")
+                .containsEntry("prepStmtCacheSize", "250");
+    }
+
+    @Test
+    public void postgresqlPreparesStatementsOnFirstUse() {
+        final Properties properties = StatementCacheProperties.forUrl("jdbc:postgresql://localhost/tessera", 250);
+
+        assertThat(properties)
+                .containsEntry("preparedStatementCacheQueries", "250")
+                .containsEntry("prepareThreshold", "1");
+    }
+
+    @Test
+    public void oracleUsesImplicitStatementCache() {
+        final Properties properties = StatementCacheProperties.forUrl("jdbc:oracle:thin:@localhost:1521:tessera", 250);
+
+        assertThat(properties).containsOnlyKeys("oracle.jdbc.implicitStatementCacheSize");
+    }
+
+    @Test
+    public void h2SizesItsQueryCache() {
+        final Properties properties = StatementCacheProperties.forUrl("jdbc:h2:mem:tessera", 250);
+
+        assertThat(properties).containsOnlyKeys("QUERY_CACHE_SIZE");
+    }
+
+    @Test
+    public void driverDefaultsAreKeptWhenNoSizeIsGiven() {
+        assertThat(StatementCacheProperties.forUrl("jdbc:mysql://localhost/tessera", 0)).isEmpty();
+        assertThat(StatementCacheProperties.forUrl(null, 250)).isEmpty();
+    }
+
+    @Test
+    public void unknownDriversAreGivenNoProperties() {
+        assertThat(StatementCacheProperties.forUrl("jdbc:sqlite:tessera.db", 250)).isEmpty();
+    }
+}
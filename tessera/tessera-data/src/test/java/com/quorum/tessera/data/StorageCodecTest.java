@@ -0,0 +1,108 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.nacl.Nonce;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class StorageCodecTest {
+
+    private final StorageCodec compressing = new StorageCodec(true);
+
+    @Test
+    public void compressedPayloadIsSmallerAndDecodesToOriginal() {
+        final byte[] payload = encodedPayload();
+
+        final byte[] stored = compressing.encode(payload);
+
+        assertThat(stored.length).isLessThan(payload.length);
+        assertThat(stored[0]).isEqualTo(StorageCodec.DEFLATE_VERSION);
+        assertThat(compressing.isCompressed(stored)).isTrue();
+        assertThat(compressing.decode(stored)).isEqualTo(payload);
+    }
+
+    @Test
+    public void compressedPayloadIsReadableWhenCompressionIsDisabled() {
+        final byte[] payload = encodedPayload();
+
+        final byte[] stored = compressing.encode(payload);
+
+        assertThat(new StorageCodec().decode(stored)).isEqualTo(payload);
+    }
+
+    @Test
+    public void payloadIsStoredAsItIsWhenCompressionIsDisabled() {
+        final byte[] payload = encodedPayload();
+
+        assertThat(new StorageCodec(false).encode(payload)).isSameAs(payload);
+    }
+
+    @Test
+    public void uncompressedPayloadIsReturnedAsItIs() {
+        final byte[] payload = encodedPayload();
+
+        assertThat(compressing.isCompressed(payload)).isFalse();
+        assertThat(compressing.decode(payload)).isSameAs(payload);
+    }
+
+    @Test
+    public void incompressibleValueIsStoredAsItIs() {
+        final byte[] value = new byte[100];
+        new Random(1).nextBytes(value);
+        value[0] = 0;
+
+        assertThat(compressing.encode(value)).isSameAs(value);
+        assertThat(compressing.encode(new byte[] {5})).containsExactly(5);
+        assertThat(compressing.encode(null)).isNull();
+    }
+
+    @Test
+    public void corruptCompressedPayloadCannotBeDecoded() {
+        final byte[] stored = compressing.encode(encodedPayload());
+        stored[stored.length - 1] ^= 1;
+
+        final Throwable throwable = catchThrowable(() -> compressing.decode(stored));
+
+        assertThat(throwable).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void truncatedCompressedPayloadCannotBeDecoded() {
+        final byte[] stored = compressing.encode(encodedPayload());
+        final byte[] truncated = Arrays.copyOf(stored, stored.length - 3);
+
+        final Throwable throwable = catchThrowable(() -> compressing.decode(truncated));
+
+        assertThat(throwable).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static byte[] encodedPayload() {
+        final Random random = new Random(1);
+        final PublicKey sender = PublicKey.from(randomBytes(random, 32));
+        final PublicKey recipient = PublicKey.from(randomBytes(random, 32));
+
+        final EncodedPayload payload =
+                new EncodedPayload(
+                        sender,
+                        randomBytes(random, 200),
+                        new Nonce(randomBytes(random, 24)),
+                        Arrays.asList(randomBytes(random, 48), randomBytes(random, 48)),
+                        new Nonce(randomBytes(random, 24)),
+                        Arrays.asList(sender, recipient));
+
+        return PayloadEncoder.create().encode(payload);
+    }
+
+    private static byte[] randomBytes(final Random random, final int length) {
+        final byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
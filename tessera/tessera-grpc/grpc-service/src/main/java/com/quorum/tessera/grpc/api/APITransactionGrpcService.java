@@ -73,4 +73,25 @@ public class APITransactionGrpcService extends APITransactionGrpc.APITransaction
 
     }
 
+    @Override
+    public void receiveBatch(ReceiveBatchRequest grpcRequest, StreamObserver<ReceiveBatchResponse> responseObserver) {
+
+        StreamObserverTemplate template = new StreamObserverTemplate(responseObserver);
+
+        template.handle(() -> {
+
+            com.quorum.tessera.api.model.ReceiveBatchRequest request = Convertor.toModel(grpcRequest);
+            Set<ConstraintViolation<com.quorum.tessera.api.model.ReceiveBatchRequest>> violations =
+                    validator.validate(request);
+            if (!violations.isEmpty()) {
+                throw new ConstraintViolationException(violations);
+            }
+
+            com.quorum.tessera.api.model.ReceiveBatchResponse response = transactionManager.receiveBatch(request);
+
+            return Convertor.toGrpc(response);
+        });
+
+    }
+
 }
@@ -43,6 +43,27 @@ public class Convertor {
             .build();
     }
 
+    public static com.quorum.tessera.api.model.ReceiveBatchRequest toModel(
+        com.quorum.tessera.grpc.api.ReceiveBatchRequest grpcObject) {
+        com.quorum.tessera.api.model.ReceiveBatchRequest receiveBatchRequest =
+            new com.quorum.tessera.api.model.ReceiveBatchRequest();
+        receiveBatchRequest.setKeys(grpcObject.getKeysList().toArray(new String[0]));
+        if (!grpcObject.getTo().isEmpty()) {
+            receiveBatchRequest.setTo(grpcObject.getTo());
+        }
+        return receiveBatchRequest;
+    }
+
+    public static ReceiveBatchResponse toGrpc(com.quorum.tessera.api.model.ReceiveBatchResponse response) {
+        ReceiveBatchResponse.Builder builder = ReceiveBatchResponse.newBuilder();
+        Arrays.stream(response.getTransactions())
+            .map(transaction -> ReceiveResponse.newBuilder()
+                .setPayload(ByteString.copyFrom(transaction.getPayload()))
+                .build())
+            .forEach(builder::addTransactions);
+        return builder.build();
+    }
+
     public static SendResponse toGrpc(com.quorum.tessera.api.model.SendResponse response) {
         return SendResponse.newBuilder()
             .setKey(response.getKey())
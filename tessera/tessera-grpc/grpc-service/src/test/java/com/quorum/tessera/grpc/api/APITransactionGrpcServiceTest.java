@@ -21,6 +21,9 @@ public class APITransactionGrpcServiceTest {
 
     @Mock
     private StreamObserver<ReceiveResponse> receiveResponseObserver;
+
+    @Mock
+    private StreamObserver<ReceiveBatchResponse> receiveBatchResponseObserver;
     
     @Mock
     private TransactionManagerImpl enclaveMediator;
@@ -35,7 +38,7 @@ public class APITransactionGrpcServiceTest {
 
     @After
     public void onTearDown() {
-        verifyNoMoreInteractions(sendResponseObserver, receiveResponseObserver);
+        verifyNoMoreInteractions(sendResponseObserver, receiveResponseObserver, receiveBatchResponseObserver);
     }
 
     @Test
@@ -114,6 +117,62 @@ public class APITransactionGrpcServiceTest {
         verify(receiveResponseObserver).onError(any());
     }
 
+    @Test
+    public void testReceiveBatch() {
+
+        com.quorum.tessera.api.model.ReceiveBatchResponse r = new com.quorum.tessera.api.model.ReceiveBatchResponse(
+                new com.quorum.tessera.api.model.ReceiveResponse("FIRST".getBytes()),
+                new com.quorum.tessera.api.model.ReceiveResponse("SECOND".getBytes()));
+
+        when(enclaveMediator.receiveBatch(any())).thenReturn(r);
+
+        ReceiveBatchRequest request = ReceiveBatchRequest.newBuilder()
+                .setTo("cmVjaXBpZW50MQ==")
+                .addKeys("ROAZBWtSacxXQrOe3FGAqJDyJjFePR5ce4TSIzmJ0Bc=")
+                .addKeys("cmVjaXBpZW50MQ==")
+                .build();
+
+        service.receiveBatch(request, receiveBatchResponseObserver);
+
+        verify(enclaveMediator).receiveBatch(any());
+
+        ArgumentCaptor<ReceiveBatchResponse> responseCaptor = ArgumentCaptor.forClass(ReceiveBatchResponse.class);
+        verify(receiveBatchResponseObserver).onNext(responseCaptor.capture());
+        ReceiveBatchResponse response = responseCaptor.getValue();
+
+        assertThat(response.getTransactionsList())
+                .extracting(t -> t.getPayload().toStringUtf8())
+                .containsExactly("FIRST", "SECOND");
+        verify(receiveBatchResponseObserver).onCompleted();
+    }
+
+    @Test
+    public void invalidReceiveBatchRequest() {
+
+        ReceiveBatchRequest request = ReceiveBatchRequest.newBuilder()
+                .setTo("cmVjaXBpZW50MQ==")
+                .build();
+
+        service.receiveBatch(request, receiveBatchResponseObserver);
+
+        verify(receiveBatchResponseObserver).onError(any());
+
+    }
+
+    @Test
+    public void receiveBatchRequestWithTooManyKeys() {
+
+        ReceiveBatchRequest.Builder request = ReceiveBatchRequest.newBuilder().setTo("cmVjaXBpZW50MQ==");
+        for (int i = 0; i <= com.quorum.tessera.api.model.ReceiveBatchRequest.MAX_KEYS; i++) {
+            request.addKeys("ROAZBWtSacxXQrOe3FGAqJDyJjFePR5ce4TSIzmJ0Bc=");
+        }
+
+        service.receiveBatch(request.build(), receiveBatchResponseObserver);
+
+        verify(receiveBatchResponseObserver).onError(any());
+        verifyZeroInteractions(enclaveMediator);
+    }
+
     @Test
     public void invalidSendRequest() {
 
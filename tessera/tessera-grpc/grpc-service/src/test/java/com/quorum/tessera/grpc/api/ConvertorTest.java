@@ -63,6 +63,34 @@ public class ConvertorTest {
 
     }
 
+    @Test
+    public void toModelReceiveBatchRequest() {
+
+        ReceiveBatchRequest receiveBatchRequest = ReceiveBatchRequest.newBuilder()
+                .addKeys("First Key").addKeys("Second Key")
+                .build();
+
+        com.quorum.tessera.api.model.ReceiveBatchRequest result = Convertor.toModel(receiveBatchRequest);
+
+        assertThat(result.getKeys()).containsExactly("First Key", "Second Key");
+        assertThat(result.getTo()).isNull();
+
+    }
+
+    @Test
+    public void toGrpcReceiveBatchResponse() {
+
+        com.quorum.tessera.api.model.ReceiveBatchResponse response =
+                new com.quorum.tessera.api.model.ReceiveBatchResponse(
+                        new com.quorum.tessera.api.model.ReceiveResponse("PAYLOAD".getBytes()));
+
+        ReceiveBatchResponse result = Convertor.toGrpc(response);
+
+        assertThat(result.getTransactionsCount()).isEqualTo(1);
+        assertThat(result.getTransactions(0).getPayload().toByteArray()).isEqualTo("PAYLOAD".getBytes());
+
+    }
+
     @Test
     public void toGrpcSendRequest() {
 
@@ -3,6 +3,7 @@ package com.quorum.tessera.p2p;
 import com.quorum.tessera.partyinfo.PartyInfoParser;
 import com.quorum.tessera.partyinfo.PartyInfoService;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
+import com.quorum.tessera.partyinfo.model.PartyInfoDelta;
 import com.quorum.tessera.partyinfo.model.Recipient;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.EncodedPayload;
@@ -24,6 +25,7 @@ import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -99,6 +101,75 @@ public class PartyInfoResource {
             return Response.ok(returnData).build();
         }
 
+        final PartyInfo modifiedPartyInfo = this.validate(partyInfo, true);
+
+        partyInfoService.updatePartyInfo(modifiedPartyInfo);
+
+        return Response.ok().build();
+    }
+
+    /**
+     * Applies the changes another node has made to its node information since the version this node last applied,
+     * validating any changed keys in the same way as {@link #partyInfo(byte[])}
+     *
+     * <p>A delta without keys has nothing to validate, so it is only applied if a key hosted at the requester's URL
+     * has already been validated. Otherwise the requester is asked to send all of its node information, which is
+     * validated in full.
+     *
+     * @param payload The encoded changes from the requester
+     * @return the version of the requester's node information that this node now holds, or 0 if the requester must
+     *     send all of its node information
+     */
+    @POST
+    @Path("delta")
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    @ApiOperation(value = "Send changes to public key/url of other nodes", produces = "version held")
+    @ApiResponses({@ApiResponse(code = 200, message = "Version of the PartyInfo held", response = byte[].class)})
+    public Response partyInfoDelta(@ApiParam(required = true) final byte[] payload) {
+
+        final PartyInfoDelta delta = partyInfoParser.fromDelta(payload);
+
+        if (enableKeyValidation && !delta.isFull() && !hasValidatedKeys(delta.getPartyInfo())) {
+            LOGGER.debug("No validated keys are held for {}, requesting everything", delta.getPartyInfo().getUrl());
+            return Response.ok(ByteBuffer.allocate(Long.BYTES).putLong(0L).array()).build();
+        }
+
+        final PartyInfoDelta validatedDelta =
+                enableKeyValidation ? delta.withPartyInfo(this.validate(delta.getPartyInfo(), delta.isFull())) : delta;
+
+        final long version = partyInfoService.updatePartyInfoDelta(validatedDelta);
+
+        return Response.ok(ByteBuffer.allocate(Long.BYTES).putLong(version).array()).build();
+    }
+
+    /**
+     * @param partyInfo the changed node information from the requester
+     * @return whether the changes carry keys to validate, or a key at the requester's URL is already held
+     */
+    private boolean hasValidatedKeys(final PartyInfo partyInfo) {
+        if (!partyInfo.getRecipients().isEmpty()) {
+            return true;
+        }
+        final String url = partyInfo.getUrl();
+        return partyInfoService.getPartyInfo().getRecipients().stream().anyMatch(r -> r.getUrl().equalsIgnoreCase(url));
+    }
+
+    /**
+     * Keeps only the recipients which are hosted at the sender's URL and which the sender can prove it holds the
+     * private key for
+     *
+     * @param partyInfo the node information from the requester
+     * @param requireRecipients whether the requester must have a valid key even if it sent none
+     * @return the node information with only the valid recipients
+     * @throws SecurityException if no key was valid
+     */
+    private PartyInfo validate(final PartyInfo partyInfo, final boolean requireRecipients) {
+
+        if (!requireRecipients && partyInfo.getRecipients().isEmpty()) {
+            return partyInfo;
+        }
+
         // Start validation stuff
         final PublicKey sender = enclave.defaultPublicKey();
 
@@ -152,12 +223,8 @@ public class PartyInfoResource {
             throw new SecurityException("No key found for url " + url);
         }
 
-        final PartyInfo modifiedPartyInfo = new PartyInfo(url, recipients, partyInfo.getParties());
-
         // End validation stuff
-        partyInfoService.updatePartyInfo(modifiedPartyInfo);
-
-        return Response.ok().build();
+        return new PartyInfo(url, recipients, partyInfo.getParties());
     }
 
     @GET
@@ -2,6 +2,7 @@ package com.quorum.tessera.p2p;
 
 import com.quorum.tessera.partyinfo.P2pClient;
 import com.quorum.tessera.partyinfo.ResendRequest;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Entity;
@@ -49,6 +50,28 @@ public class RestP2pClient implements P2pClient {
         return Objects.nonNull(response.readEntity(byte[].class));
     }
 
+    @Override
+    public long sendPartyInfoDelta(String targetUrl, byte[] data) {
+        final Response response =
+                client.target(targetUrl)
+                        .path("/partyinfo")
+                        .path("delta")
+                        .request()
+                        .post(Entity.entity(data, MediaType.APPLICATION_OCTET_STREAM_TYPE));
+
+        // nodes from before deltas were introduced have no such resource
+        if (Response.Status.NOT_FOUND.getStatusCode() == response.getStatus()
+                || Response.Status.METHOD_NOT_ALLOWED.getStatusCode() == response.getStatus()) {
+            return DELTA_UNSUPPORTED;
+        }
+
+        if (Response.Status.OK.getStatusCode() != response.getStatus()) {
+            return 0L;
+        }
+
+        return ByteBuffer.wrap(response.readEntity(byte[].class)).getLong();
+    }
+
     @Override
     public boolean makeResendRequest(String targetUrl, ResendRequest request) {
         final Response response =
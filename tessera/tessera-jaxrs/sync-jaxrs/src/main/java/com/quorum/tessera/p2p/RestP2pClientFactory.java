@@ -11,16 +11,34 @@ import javax.ws.rs.client.Client;
 
 public class RestP2pClientFactory implements P2pClientFactory {
 
+    /** The Jersey client properties for connect and read timeouts, in milliseconds */
+    static final String CONNECT_TIMEOUT = "jersey.config.client.connectTimeout";
+
+    static final String READ_TIMEOUT = "jersey.config.client.readTimeout";
+
     @Override
     public P2pClient create(Config config) {
+        return new RestP2pClient(buildClient(config));
+    }
+
+    @Override
+    public P2pClient create(Config config, long timeoutMillis) {
+        int timeout = Math.toIntExact(timeoutMillis);
+
+        Client client = buildClient(config)
+                .property(CONNECT_TIMEOUT, timeout)
+                .property(READ_TIMEOUT, timeout);
+
+        return new RestP2pClient(client);
+    }
+
+    private static Client buildClient(Config config) {
 
         SSLContextFactory clientSSLContextFactory = ClientSSLContextFactory.create();
 
         ClientFactory clientFactory = new ClientFactory(clientSSLContextFactory);
 
-        Client client = clientFactory.buildFrom(config.getP2PServerConfig());
-
-        return new RestP2pClient(client);
+        return clientFactory.buildFrom(config.getP2PServerConfig());
     }
 
     @Override
@@ -4,6 +4,7 @@ import com.quorum.tessera.partyinfo.PartyInfoParser;
 import com.quorum.tessera.partyinfo.PartyInfoService;
 import com.quorum.tessera.partyinfo.model.Party;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
+import com.quorum.tessera.partyinfo.model.PartyInfoDelta;
 import com.quorum.tessera.partyinfo.model.Recipient;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.EncodedPayload;
@@ -20,6 +21,7 @@ import javax.json.Json;
 import javax.json.JsonReader;
 import javax.ws.rs.core.Response;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -34,6 +36,8 @@ import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
 
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -351,4 +355,95 @@ public class PartyInfoResourceTest {
         verify(partyInfoService).updatePartyInfo(partyInfo);
         verify(partyInfoService).getPartyInfo();
     }
+
+    @Test
+    public void partyInfoDeltaWithoutChangedKeysIsNotValidated() {
+
+        final byte[] payload = "Test message".getBytes();
+
+        final PartyInfo partyInfo =
+                new PartyInfo("http://www.bogus.com", emptySet(), singleton(new Party("http://other.com")));
+        final PartyInfoDelta delta = new PartyInfoDelta(7L, 3L, 5L, partyInfo);
+
+        final Recipient validated = new Recipient(PublicKey.from("validatedKey".getBytes()), "http://www.bogus.com");
+        when(partyInfoService.getPartyInfo())
+                .thenReturn(new PartyInfo("http://own.com", singleton(validated), emptySet()));
+        when(partyInfoParser.fromDelta(payload)).thenReturn(delta);
+        when(partyInfoService.updatePartyInfoDelta(delta)).thenReturn(5L);
+
+        final Response result = partyInfoResource.partyInfoDelta(payload);
+
+        assertThat(result.getStatus()).isEqualTo(200);
+        assertThat(ByteBuffer.wrap((byte[]) result.getEntity()).getLong()).isEqualTo(5L);
+
+        verify(partyInfoParser).fromDelta(payload);
+        verify(partyInfoService).getPartyInfo();
+        verify(partyInfoService).updatePartyInfoDelta(delta);
+    }
+
+    @Test
+    public void partyInfoDeltaWithoutKeysFromSenderWithoutValidatedKeysRequestsEverything() {
+
+        final byte[] payload = "Test message".getBytes();
+
+        final PartyInfo partyInfo =
+                new PartyInfo("http://www.bogus.com", emptySet(), singleton(new Party("http://other.com")));
+
+        final Recipient elsewhere = new Recipient(PublicKey.from("otherKey".getBytes()), "http://other.com");
+        when(partyInfoService.getPartyInfo())
+                .thenReturn(new PartyInfo("http://own.com", singleton(elsewhere), emptySet()));
+        when(partyInfoParser.fromDelta(payload)).thenReturn(new PartyInfoDelta(7L, 3L, 5L, partyInfo));
+
+        final Response result = partyInfoResource.partyInfoDelta(payload);
+
+        assertThat(result.getStatus()).isEqualTo(200);
+        assertThat(ByteBuffer.wrap((byte[]) result.getEntity()).getLong()).isZero();
+
+        verify(partyInfoParser).fromDelta(payload);
+        verify(partyInfoService).getPartyInfo();
+    }
+
+    @Test
+    public void fullPartyInfoDeltaWithoutKeysIsRejected() {
+
+        final byte[] payload = "Test message".getBytes();
+
+        final PartyInfo partyInfo = new PartyInfo("http://www.bogus.com", emptySet(), emptySet());
+
+        when(partyInfoParser.fromDelta(payload)).thenReturn(new PartyInfoDelta(7L, 0L, 5L, partyInfo));
+        when(enclave.defaultPublicKey()).thenReturn(PublicKey.from("myKey".getBytes()));
+
+        final Throwable throwable = catchThrowable(() -> partyInfoResource.partyInfoDelta(payload));
+
+        assertThat(throwable).isInstanceOf(SecurityException.class);
+
+        verify(partyInfoParser).fromDelta(payload);
+        verify(enclave).defaultPublicKey();
+    }
+
+    @Test
+    public void partyInfoDeltaWithValidationDisabledPassesAllKeysToStore() {
+        this.partyInfoResource =
+                new PartyInfoResource(partyInfoService, partyInfoParser, restClient, enclave, payloadEncoder, false);
+
+        final byte[] payload = "Test message".getBytes();
+
+        final PublicKey recipientKey = PublicKey.from("recipientKey".getBytes());
+        final PartyInfo partyInfo = new PartyInfo(
+                "http://www.bogus.com",
+                singleton(new Recipient(recipientKey, "http://www.randomaddress.com")),
+                emptySet());
+        final PartyInfoDelta delta = new PartyInfoDelta(7L, 0L, 5L, partyInfo);
+
+        when(partyInfoParser.fromDelta(payload)).thenReturn(delta);
+        when(partyInfoService.updatePartyInfoDelta(delta)).thenReturn(0L);
+
+        final Response result = partyInfoResource.partyInfoDelta(payload);
+
+        assertThat(result.getStatus()).isEqualTo(200);
+        assertThat(ByteBuffer.wrap((byte[]) result.getEntity()).getLong()).isZero();
+
+        verify(partyInfoParser).fromDelta(payload);
+        verify(partyInfoService).updatePartyInfoDelta(delta);
+    }
 }
@@ -4,7 +4,11 @@ import com.quorum.tessera.partyinfo.P2pClient;
 import com.quorum.tessera.config.CommunicationType;
 import com.quorum.tessera.config.Config;
 import com.quorum.tessera.config.ServerConfig;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.ProcessingException;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import org.junit.Test;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -16,12 +20,34 @@ public class RestP2pClientFactoryTest {
         RestP2pClientFactory factory = new RestP2pClientFactory();
         assertThat(factory.communicationType()).isEqualTo(CommunicationType.REST);
 
+        P2pClient result = factory.create(config());
+
+        assertThat(result).isNotNull();
+    }
+
+    @Test
+    public void callsToUnresponsivePeerTimeOut() throws Exception {
+        RestP2pClientFactory factory = new RestP2pClientFactory();
+
+        P2pClient client = factory.create(config(), 500L);
+
+        // accepts connections but never answers
+        try (ServerSocket unresponsivePeer = new ServerSocket(0)) {
+            String url = "http://localhost:" + unresponsivePeer.getLocalPort();
+
+            long start = System.nanoTime();
+            Throwable throwable = catchThrowable(() -> client.sendPartyInfo(url, new byte[] {1}));
+
+            assertThat(throwable).isInstanceOf(ProcessingException.class);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5000L);
+        }
+    }
+
+    private static Config config() {
         Config config = mock(Config.class);
         ServerConfig serverConfig = mock(ServerConfig.class);
         when(serverConfig.isSsl()).thenReturn(Boolean.FALSE);
         when(config.getP2PServerConfig()).thenReturn(serverConfig);
-        P2pClient result = factory.create(config);
-
-        assertThat(result).isNotNull();
+        return config;
     }
 }
@@ -1,7 +1,9 @@
 package com.quorum.tessera.p2p;
 
 import com.quorum.tessera.jaxrs.mock.MockClient;
+import com.quorum.tessera.partyinfo.P2pClient;
 import com.quorum.tessera.partyinfo.ResendRequest;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import javax.ws.rs.client.Entity;
@@ -243,4 +245,57 @@ public class RestP2pClientTest {
 
     }
 
+
+    @Test
+    public void sendPartyInfoDelta() {
+
+        Invocation.Builder m = restClient.getWebTarget().getMockInvocationBuilder();
+
+        Response response = mock(Response.class);
+        when(response.readEntity(byte[].class)).thenReturn(ByteBuffer.allocate(Long.BYTES).putLong(42L).array());
+        when(response.getStatus()).thenReturn(200);
+
+        List<Entity> postedEntities = new ArrayList<>();
+        doAnswer((invocation) -> {
+            postedEntities.add(invocation.getArgument(0));
+            return response;
+        }).when(m).post(any(Entity.class));
+
+        byte[] data = "Some Data".getBytes();
+
+        long outcome = client.sendPartyInfoDelta("http://somedomain.com", data);
+
+        assertThat(outcome).isEqualTo(42L);
+        assertThat(postedEntities).hasSize(1);
+
+        Entity entity = postedEntities.get(0);
+        assertThat(entity.getMediaType()).isEqualTo(javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM_TYPE);
+        assertThat(entity.getEntity()).isSameAs(data);
+
+        verify(response).readEntity(byte[].class);
+    }
+
+    @Test
+    public void sendPartyInfoDeltaToNodeWithoutDeltas() {
+
+        Invocation.Builder m = restClient.getWebTarget().getMockInvocationBuilder();
+
+        doAnswer((invocation) -> Response.status(404).build()).when(m).post(any(Entity.class));
+
+        long outcome = client.sendPartyInfoDelta("http://somedomain.com", "Some Data".getBytes());
+
+        assertThat(outcome).isEqualTo(P2pClient.DELTA_UNSUPPORTED);
+    }
+
+    @Test
+    public void sendPartyInfoDeltaFailureAsksForEverything() {
+
+        Invocation.Builder m = restClient.getWebTarget().getMockInvocationBuilder();
+
+        doAnswer((invocation) -> Response.status(500).build()).when(m).post(any(Entity.class));
+
+        long outcome = client.sendPartyInfoDelta("http://somedomain.com", "Some Data".getBytes());
+
+        assertThat(outcome).isZero();
+    }
 }
@@ -175,6 +175,26 @@ public class TransactionResource {
         return Response.status(Status.OK).type(APPLICATION_JSON).entity(response).build();
     }
 
+    @ApiOperation(value = "Returns the decrypted payloads of several transactions back to Quorum")
+    @ApiResponses({
+        @ApiResponse(code = 200, response = ReceiveBatchResponse.class, message = "Receive batch response object"),
+        @ApiResponse(code = 404, message = "If any of the transactions doesn't exist")
+    })
+    @POST
+    @Path("/receive/batch")
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    public Response receiveBatch(
+            @ApiParam(name = "receiveBatchRequest", required = true) @NotNull @Valid
+                    final ReceiveBatchRequest request) {
+
+        LOGGER.debug("Received receive batch request for {} transactions", request.getKeys().length);
+
+        ReceiveBatchResponse response = delegate.receiveBatch(request);
+
+        return Response.status(Status.OK).type(APPLICATION_JSON).entity(response).build();
+    }
+
     @ApiOperation(value = "Submit keys to retrieve payload and decrypt it", produces = "Unencrypted payload")
     @ApiResponses({@ApiResponse(code = 200, message = "Raw payload", response = byte[].class)})
     @GET
@@ -51,6 +51,22 @@ public class TransactionResourceTest {
         verify(transactionManager).receive(any(ReceiveRequest.class));
     }
 
+    @Test
+    public void receiveBatch() {
+
+        ReceiveBatchRequest receiveBatchRequest = new ReceiveBatchRequest();
+        receiveBatchRequest.setKeys("KEY1", "KEY2");
+
+        ReceiveBatchResponse receiveBatchResponse =
+                new ReceiveBatchResponse(new ReceiveResponse("one".getBytes()), new ReceiveResponse("two".getBytes()));
+        when(transactionManager.receiveBatch(receiveBatchRequest)).thenReturn(receiveBatchResponse);
+
+        Response result = transactionResource.receiveBatch(receiveBatchRequest);
+        assertThat(result.getStatus()).isEqualTo(200);
+        assertThat(result.getEntity()).isSameAs(receiveBatchResponse);
+        verify(transactionManager).receiveBatch(receiveBatchRequest);
+    }
+
     @Test
     public void receiveRaw() {
 
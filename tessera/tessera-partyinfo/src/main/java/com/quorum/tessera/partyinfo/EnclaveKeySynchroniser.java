@@ -1,6 +1,7 @@
 package com.quorum.tessera.partyinfo;
 
 import com.quorum.tessera.admin.ConfigService;
+import com.quorum.tessera.enclave.CachingEnclaveClient;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
 import com.quorum.tessera.partyinfo.model.Recipient;
@@ -13,7 +14,8 @@ import static java.util.stream.Collectors.toSet;
 
 /**
  * Fetches local public keys from the Enclave and adds them to the local store. This is useful when the Enclave is
- * remote and can restart with new keys independently of the Transaction Manager
+ * remote and can restart with new keys independently of the Transaction Manager, which is also why a {@link
+ * CachingEnclaveClient} is refreshed first
  */
 public class EnclaveKeySynchroniser implements Runnable {
 
@@ -32,6 +34,10 @@ public class EnclaveKeySynchroniser implements Runnable {
 
     @Override
     public void run() {
+        if (this.enclave instanceof CachingEnclaveClient) {
+            ((CachingEnclaveClient) this.enclave).refresh();
+        }
+
         // fetch keys and create recipients
         final Set<Recipient> ourKeys =
                 this.enclave.getPublicKeys().stream()
@@ -3,10 +3,25 @@ package com.quorum.tessera.partyinfo;
 
 public interface P2pClient {
 
+    /** Returned by {@link #sendPartyInfoDelta} when the target only accepts full party info */
+    long DELTA_UNSUPPORTED = -1L;
+
     byte[] push(String targetUrl, byte[] data);
 
     boolean sendPartyInfo(String targetUrl, byte[] data);
 
+    /**
+     * Sends the encoded changes to this node's party info since a version the target holds
+     *
+     * @param targetUrl the node to send the changes to
+     * @param data the encoded {@link com.quorum.tessera.partyinfo.model.PartyInfoDelta}
+     * @return the version the target now holds, 0 if the target needs everything, or {@link #DELTA_UNSUPPORTED} if
+     *     the target predates deltas and must be sent full party info with {@link #sendPartyInfo}
+     */
+    default long sendPartyInfoDelta(String targetUrl, byte[] data) {
+        return DELTA_UNSUPPORTED;
+    }
+
     boolean makeResendRequest(String targetUrl, ResendRequest request);
  
 }
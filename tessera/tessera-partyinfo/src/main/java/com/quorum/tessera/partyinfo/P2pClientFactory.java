@@ -10,6 +10,19 @@ public interface P2pClientFactory {
 
     P2pClient create(Config config);
 
+    /**
+     * Creates a client whose calls each give up once they have taken about the given time, for callers that must not
+     * be held up by unresponsive peers. Factories that cannot bound their calls return the same as {@link
+     * #create(Config)}.
+     *
+     * @param config the config of this node
+     * @param timeoutMillis how long to wait to connect to a peer, and then for its response
+     * @return the client
+     */
+    default P2pClient create(Config config, long timeoutMillis) {
+        return create(config);
+    }
+
     CommunicationType communicationType();
 
     static P2pClientFactory newFactory(Config config) {
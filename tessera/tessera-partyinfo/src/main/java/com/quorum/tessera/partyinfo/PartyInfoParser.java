@@ -2,12 +2,14 @@ package com.quorum.tessera.partyinfo;
 
 import com.quorum.tessera.partyinfo.model.Party;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
+import com.quorum.tessera.partyinfo.model.PartyInfoDelta;
 import com.quorum.tessera.partyinfo.model.Recipient;
 import com.quorum.tessera.enclave.BinaryEncoder;
 import com.quorum.tessera.encryption.PublicKey;
 import org.apache.commons.lang3.ArrayUtils;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -121,6 +123,46 @@ public interface PartyInfoParser extends BinaryEncoder {
 
     }
 
+    /**
+     * Decodes the changes another node has made to its PartyInfo
+     *
+     * @param encoded the encoded delta, as produced by {@link PartyInfoParser#toDelta(PartyInfoDelta)}
+     * @return the decoded {@link PartyInfoDelta}
+     */
+    default PartyInfoDelta fromDelta(final byte[] encoded) {
+
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(encoded);
+
+        final long epoch = byteBuffer.getLong();
+        final long baseVersion = byteBuffer.getLong();
+        final long version = byteBuffer.getLong();
+
+        final PartyInfo partyInfo = from(Arrays.copyOfRange(encoded, byteBuffer.position(), encoded.length));
+
+        return new PartyInfoDelta(epoch, baseVersion, version, partyInfo);
+    }
+
+    /**
+     * Encodes a {@link PartyInfoDelta} as its epoch, base version and
+     * version, followed by the changes encoded as in
+     * {@link PartyInfoParser#to(PartyInfo)}
+     *
+     * @param delta the changes to encode
+     * @return the encoded result that should be sent to another node
+     */
+    default byte[] toDelta(final PartyInfoDelta delta) {
+
+        final byte[] partyInfo = to(delta.getPartyInfo());
+
+        return ByteBuffer
+            .allocate(3 * Long.BYTES + partyInfo.length)
+            .putLong(delta.getEpoch())
+            .putLong(delta.getBaseVersion())
+            .putLong(delta.getVersion())
+            .put(partyInfo)
+            .array();
+    }
+
     /**
      * Creates a new parser with default settings
      *
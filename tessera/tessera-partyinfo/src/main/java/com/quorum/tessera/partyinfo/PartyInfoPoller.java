@@ -5,31 +5,135 @@ import com.quorum.tessera.partyinfo.model.PartyInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * Polls every so often to all known nodes for any new discoverable nodes. This keeps all nodes up-to date and
  * discoverable by other nodes
+ *
+ * <p>The nodes are contacted concurrently, using at most a fixed number of threads, so that one slow or unreachable
+ * node does not hold up the others. Each round waits a limited time for its polls to complete, and a node that is
+ * still being polled when the next round starts is skipped in that round. Giving up on a poll does not abort its call,
+ * so the client should itself time out calls after about the same time, as those made by
+ * {@link P2pClientFactory#create(com.quorum.tessera.config.Config, long)} do.
  */
-public class PartyInfoPoller implements Runnable {
+public class PartyInfoPoller implements Runnable, PartyInfoPollerMXBean {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PartyInfoPoller.class);
 
+    static final String OBJECT_NAME = "com.quorum.tessera:type=PartyInfoPoller";
+
+    static final int FULL_SYNC_ROUNDS = 30;
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5000L;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
     private final PartyInfoService partyInfoService;
 
     private final PartyInfoParser partyInfoParser;
 
     private final P2pClient p2pClient;
 
+    private final Map<String, Long> acknowledgedVersions = new ConcurrentHashMap<>();
+
+    private final Set<String> fullPartyInfoParties = ConcurrentHashMap.newKeySet();
+
+    private final Executor executor;
+
+    private final long timeoutMillis;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, PeerRoundTrip> roundTrips = new ConcurrentHashMap<>();
+
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    private long rounds;
+
     public PartyInfoPoller(final PartyInfoService partyInfoService, final P2pClient p2pClient) {
         this(partyInfoService, PartyInfoParser.create(), p2pClient);
     }
 
     public PartyInfoPoller(
             final PartyInfoService partyInfoService, final PartyInfoParser partyInfoParser, final P2pClient p2pClient) {
+        this(
+                partyInfoService,
+                partyInfoParser,
+                p2pClient,
+                Executors.newFixedThreadPool(DEFAULT_MAX_CONCURRENCY, PartyInfoPoller::newThread),
+                DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param partyInfoService the source of this node's party info
+     * @param partyInfoParser the encoder of the party info sent to each node
+     * @param p2pClient the client used to contact the nodes
+     * @param executor the executor the nodes are contacted on, whose size bounds how many are contacted at once
+     * @param timeoutMillis how long a round waits for its polls before moving on without them
+     */
+    public PartyInfoPoller(
+            final PartyInfoService partyInfoService,
+            final PartyInfoParser partyInfoParser,
+            final P2pClient p2pClient,
+            final Executor executor,
+            final long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("The poll timeout must be positive");
+        }
         this.partyInfoService = Objects.requireNonNull(partyInfoService);
         this.partyInfoParser = Objects.requireNonNull(partyInfoParser);
         this.p2pClient = Objects.requireNonNull(p2pClient);
+        this.executor = Objects.requireNonNull(executor);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @PostConstruct
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (final JMException ex) {
+            LOGGER.warn("Unable to register party info poller metrics as {}", OBJECT_NAME);
+            LOGGER.debug("Unable to register party info poller metrics", ex);
+        }
+    }
+
+    /** Unregisters the metrics and stops the threads used to contact the nodes, if the poller owns them */
+    @PreDestroy
+    public void stop() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (final JMException ex) {
+            LOGGER.debug("Unable to unregister party info poller metrics", ex);
+        }
+
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
     }
 
     /**
@@ -43,32 +147,146 @@ public class PartyInfoPoller implements Runnable {
      *
      * <p>This call is merely to let its parties know about this node existence, any recipients that want to be added to
      * this node's PartyInfo will need to make their own partyinfo call and validation
+     *
+     * <p>Parties that accept deltas are only sent what has changed since the version they last acknowledged, and
+     * parties that do not are sent the full party info. Every {@link #FULL_SYNC_ROUNDS} rounds the acknowledged
+     * versions are forgotten, so that every party is sent everything again and older parties are asked again whether
+     * they accept deltas.
+     *
+     * <p>Waits at most the timeout for the parties to be contacted. Parties that have not been contacted by then are
+     * not waited for, and those not yet started are not contacted at all.
      */
     @Override
     public void run() {
         final PartyInfo partyInfo = partyInfoService.getPartyInfo();
-        final byte[] encodedPartyInfo = partyInfoParser.to(partyInfo);
+
+        if (rounds++ % FULL_SYNC_ROUNDS == 0) {
+            acknowledgedVersions.clear();
+            fullPartyInfoParties.clear();
+        }
+
+        final Map<Long, byte[]> encodedDeltas = new ConcurrentHashMap<>();
+        final Supplier<byte[]> encodedPartyInfo = memoize(() -> partyInfoParser.to(partyInfo));
 
         final String ourUrl = partyInfo.getUrl();
 
+        final Map<String, CompletableFuture<Void>> polls = new HashMap<>();
         partyInfo.getParties().stream()
                 .map(Party::getUrl)
                 .filter(url -> !ourUrl.equals(url))
-                .forEach(url -> pollSingleParty(url, encodedPartyInfo));
+                .filter(url -> !inFlight.contains(url))
+                .forEach(
+                        url ->
+                                polls.put(
+                                        url,
+                                        CompletableFuture.runAsync(
+                                                () -> pollSingleParty(url, encodedDeltas, encodedPartyInfo),
+                                                executor)));
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        polls.forEach((url, poll) -> await(url, poll, deadline));
+    }
+
+    private void await(final String url, final CompletableFuture<Void> poll, final long deadline) {
+        try {
+            poll.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (final TimeoutException ex) {
+            // a poll that has not started yet will not be started, one that has is left to finish on its own
+            poll.cancel(false);
+            timeoutCount.incrementAndGet();
+            recordRoundTrip(url, PeerRoundTrip::timedOut);
+            LOGGER.warn("Timed out after {}ms when connecting to {}", timeoutMillis, url);
+        } catch (final InterruptedException ex) {
+            poll.cancel(false);
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException ex) {
+            LOGGER.debug(null, ex);
+        }
     }
 
     /**
      * Sends a request for node information to a single target
      *
      * @param url the target URL to call
+     * @param encodedDeltas the deltas encoded so far this round, by the version they are based on
      * @param encodedPartyInfo the encoded current party information
      */
-    private void pollSingleParty(final String url, final byte[] encodedPartyInfo) {
+    private void pollSingleParty(
+            final String url, final Map<Long, byte[]> encodedDeltas, final Supplier<byte[]> encodedPartyInfo) {
+        if (!inFlight.add(url)) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        boolean succeeded = false;
         try {
-            p2pClient.sendPartyInfo(url, encodedPartyInfo);
+            succeeded = send(url, encodedDeltas, encodedPartyInfo);
         } catch (final Exception ex) {
             LOGGER.warn("Error {} when connecting to {}", ex.getMessage(), url);
             LOGGER.debug(null, ex);
+        } finally {
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            final boolean failed = !succeeded;
+            LOGGER.debug("Polled {} in {}ms", url, millis);
+            recordRoundTrip(url, trip -> trip.completed(millis, failed));
+            inFlight.remove(url);
+        }
+    }
+
+    private void recordRoundTrip(final String url, final UnaryOperator<PeerRoundTrip> update) {
+        roundTrips.compute(url, (u, previous) -> update.apply(previous == null ? PeerRoundTrip.NONE : previous));
+    }
+
+    private boolean send(
+            final String url, final Map<Long, byte[]> encodedDeltas, final Supplier<byte[]> encodedPartyInfo) {
+        if (!fullPartyInfoParties.contains(url)) {
+            final long baseVersion = acknowledgedVersions.getOrDefault(url, 0L);
+            final byte[] encodedDelta =
+                    encodedDeltas.computeIfAbsent(
+                            baseVersion, v -> partyInfoParser.toDelta(partyInfoService.getPartyInfoDelta(v)));
+
+            final long acknowledged = p2pClient.sendPartyInfoDelta(url, encodedDelta);
+
+            if (acknowledged != P2pClient.DELTA_UNSUPPORTED) {
+                acknowledgedVersions.put(url, acknowledged);
+                return true;
+            }
+
+            LOGGER.debug("{} does not accept party info deltas, sending full party info", url);
+            fullPartyInfoParties.add(url);
         }
+
+        return p2pClient.sendPartyInfo(url, encodedPartyInfo.get());
+    }
+
+    @Override
+    public Map<String, PeerRoundTrip> getPeerRoundTrips() {
+        return Collections.unmodifiableMap(new HashMap<>(roundTrips));
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /** Computes the value the first time it is asked for, even when asked for by several threads at once */
+    private static <T> Supplier<T> memoize(final Supplier<T> supplier) {
+        final AtomicReference<T> value = new AtomicReference<>();
+        return () -> {
+            if (value.get() == null) {
+                synchronized (value) {
+                    if (value.get() == null) {
+                        value.set(supplier.get());
+                    }
+                }
+            }
+            return value.get();
+        };
+    }
+
+    private static Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, "party-info-poller-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
     }
 }
@@ -0,0 +1,11 @@
+package com.quorum.tessera.partyinfo;
+
+import java.util.Map;
+
+/** Statistics of the peers contacted by a {@link PartyInfoPoller}, exposed over JMX */
+public interface PartyInfoPollerMXBean {
+
+    Map<String, PeerRoundTrip> getPeerRoundTrips();
+
+    long getTimeoutCount();
+}
@@ -2,7 +2,11 @@ package com.quorum.tessera.partyinfo;
 
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
+import com.quorum.tessera.partyinfo.model.PartyInfoDelta;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.partyinfo.model.Recipient;
+
+import java.util.Optional;
 
 public interface PartyInfoService {
 
@@ -22,7 +26,31 @@ public interface PartyInfoService {
      */
     PartyInfo updatePartyInfo(PartyInfo partyInfo);
 
-    // Set<String> getUrlsForKey(PublicKey key);
+    /**
+     * Fetch the changes to this node's PartyInfo since a version another node already holds
+     *
+     * @param sinceVersion the version the other node holds, or 0 if it holds nothing
+     * @return the changes since that version, or everything if that version cannot be used as a base
+     */
+    PartyInfoDelta getPartyInfoDelta(long sinceVersion);
+
+    /**
+     * Update the PartyInfo data store with the changes another node has made since the version last applied from it.
+     * The changes are only applied if they hold everything, or if their base version is the one last applied from the
+     * sender in the same epoch.
+     *
+     * @param delta the changes from another node
+     * @return the version of the sender's PartyInfo now held, or 0 if the sender must send everything
+     */
+    long updatePartyInfoDelta(PartyInfoDelta delta);
+
+    /**
+     * Looks up where a public key is hosted, kept up to date with the party info as it changes
+     *
+     * @param key the public key to look up
+     * @return the recipient for the key, or empty if the key is not known
+     */
+    Optional<Recipient> findRecipient(PublicKey key);
 
     PartyInfo removeRecipient(String uri);
 
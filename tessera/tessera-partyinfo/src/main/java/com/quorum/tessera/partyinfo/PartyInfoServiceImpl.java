@@ -8,13 +8,16 @@ import com.quorum.tessera.encryption.KeyNotFoundException;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.partyinfo.model.Party;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
+import com.quorum.tessera.partyinfo.model.PartyInfoDelta;
 import com.quorum.tessera.partyinfo.model.Recipient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.toSet;
@@ -31,6 +34,8 @@ public class PartyInfoServiceImpl implements PartyInfoService {
 
     private final PayloadPublisher payloadPublisher;
 
+    private final Map<String, AppliedVersion> appliedVersions = new ConcurrentHashMap<>();
+
     public PartyInfoServiceImpl(final PartyInfoServiceFactory partyInfoServiceFactory) {
         this(
                 partyInfoServiceFactory.partyInfoStore(),
@@ -113,6 +118,37 @@ public class PartyInfoServiceImpl implements PartyInfoService {
         return this.getPartyInfo();
     }
 
+    @Override
+    public PartyInfoDelta getPartyInfoDelta(final long sinceVersion) {
+        return partyInfoStore.getPartyInfoDelta(sinceVersion);
+    }
+
+    @Override
+    public long updatePartyInfoDelta(final PartyInfoDelta delta) {
+        final String sender = delta.getPartyInfo().getUrl();
+
+        if (!delta.isFull()) {
+            final AppliedVersion applied = appliedVersions.get(sender);
+
+            if (applied == null || !applied.follows(delta)) {
+                LOGGER.debug("Delta from {} is not based on the version held, requesting everything", sender);
+                appliedVersions.remove(sender);
+                return 0L;
+            }
+        }
+
+        this.updatePartyInfo(delta.getPartyInfo());
+
+        appliedVersions.put(sender, new AppliedVersion(delta.getEpoch(), delta.getVersion()));
+
+        return delta.getVersion();
+    }
+
+    @Override
+    public Optional<Recipient> findRecipient(final PublicKey key) {
+        return partyInfoStore.findRecipient(key);
+    }
+
     @Override
     public PartyInfo removeRecipient(String uri) {
         return partyInfoStore.removeRecipient(uri);
@@ -129,9 +165,8 @@ public class PartyInfoServiceImpl implements PartyInfoService {
         }
 
         final Recipient retrievedRecipientFromStore =
-                partyInfoStore.getPartyInfo().getRecipients().stream()
-                        .filter(recipient -> recipientKey.equals(recipient.getKey()))
-                        .findAny()
+                partyInfoStore
+                        .findRecipient(recipientKey)
                         .orElseThrow(
                                 () ->
                                         new KeyNotFoundException(
@@ -169,4 +204,21 @@ public class PartyInfoServiceImpl implements PartyInfoService {
 
         return true;
     }
+
+    /** The version of another node's PartyInfo that has been applied to this node's store */
+    private static final class AppliedVersion {
+
+        private final long epoch;
+
+        private final long version;
+
+        private AppliedVersion(final long epoch, final long version) {
+            this.epoch = epoch;
+            this.version = version;
+        }
+
+        private boolean follows(final PartyInfoDelta delta) {
+            return epoch == delta.getEpoch() && version == delta.getBaseVersion();
+        }
+    }
 }
@@ -4,38 +4,61 @@ import com.quorum.tessera.admin.ConfigService;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.partyinfo.model.Party;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
+import com.quorum.tessera.partyinfo.model.PartyInfoDelta;
 import com.quorum.tessera.partyinfo.model.Recipient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-
-import static java.util.Collections.unmodifiableSet;
-
-/** Stores a list of all discovered nodes and public keys */
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Stores a list of all discovered nodes and public keys
+ *
+ * <p>The contents are held as an immutable snapshot, which writers replace as a whole (copy-on-write) and readers
+ * fetch without locking or copying. Each replacement is given the next version number, so callers can tell whether
+ * the store has changed since they last read it.
+ *
+ * <p>Each recipient and party also records the version at which it was last changed, so that the changes since any
+ * version can be sent to other nodes as a {@link PartyInfoDelta}. Versions start again when the node restarts, so
+ * they are only meaningful together with the epoch of the store, which is chosen at random on creation.
+ */
 public class PartyInfoStore {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PartyInfoStore.class);
 
     private final String advertisedUrl;
 
-    private final Map<PublicKey, Recipient> recipients;
+    private final long epoch = new SecureRandom().nextLong();
 
-    private final Set<Party> parties;
+    private final AtomicReference<Snapshot> snapshot;
 
     // TODO: Should pull the URI from the config service, where it may be updated in real time
     @Deprecated
     public PartyInfoStore(URI advertisedUrl) {
         // TODO: remove the extra "/" when we deprecate backwards compatibility
         this.advertisedUrl = URLNormalizer.create().normalize(advertisedUrl.toString());
-        this.recipients = new HashMap<>();
-        this.parties = new HashSet<>();
-        this.parties.add(new Party(this.advertisedUrl));
+        this.snapshot = new AtomicReference<>(
+                new Snapshot(
+                        0L,
+                        this.advertisedUrl,
+                        emptyMap(),
+                        emptyMap(),
+                        singleton(new Party(this.advertisedUrl)),
+                        singletonMap(this.advertisedUrl, 0L)));
     }
 
     public PartyInfoStore(final ConfigService configService) {
@@ -47,42 +70,148 @@ public class PartyInfoStore {
      *
      * @param newInfo the incoming information that may contain new nodes/keys
      */
-    public synchronized void store(final PartyInfo newInfo) {
-
-        for (Recipient recipient : newInfo.getRecipients()) {
-            recipients.put(recipient.getKey(), recipient);
-        }
-
-        parties.addAll(newInfo.getParties());
+    public void store(final PartyInfo newInfo) {
 
         // update the sender to have been seen recently
         final Party sender = new Party(newInfo.getUrl());
         sender.setLastContacted(Instant.now());
-        parties.remove(sender);
-        parties.add(sender);
+
+        snapshot.updateAndGet(current -> {
+            final long version = current.version + 1;
+
+            final Map<PublicKey, Recipient> recipients = new HashMap<>(current.recipients);
+            final Map<PublicKey, Long> recipientVersions = new HashMap<>(current.recipientVersions);
+            for (Recipient recipient : newInfo.getRecipients()) {
+                if (!recipient.equals(recipients.put(recipient.getKey(), recipient))) {
+                    recipientVersions.put(recipient.getKey(), version);
+                }
+            }
+
+            final Set<Party> parties = new HashSet<>(current.parties);
+            final Map<String, Long> partyVersions = new HashMap<>(current.partyVersions);
+            for (Party party : newInfo.getParties()) {
+                parties.add(party);
+                partyVersions.putIfAbsent(party.getUrl(), version);
+            }
+            parties.remove(sender);
+            parties.add(sender);
+            partyVersions.putIfAbsent(sender.getUrl(), version);
+
+            return new Snapshot(version, advertisedUrl, recipients, recipientVersions, parties, partyVersions);
+        });
     }
 
     /**
-     * Fetch a copy of all the currently discovered nodes/keys
+     * Fetch the current state of all the discovered nodes/keys
+     *
+     * <p>The same instance is returned until the store is next changed.
      *
-     * @return an immutable copy of the current state of the store
+     * @return an immutable view of the current state of the store
      */
-    public synchronized PartyInfo getPartyInfo() {
-        return new PartyInfo(
-                advertisedUrl,
-                unmodifiableSet(new HashSet<>(recipients.values())),
-                unmodifiableSet(new HashSet<>(parties)));
+    public PartyInfo getPartyInfo() {
+        return snapshot.get().partyInfo;
     }
 
-    public synchronized PartyInfo removeRecipient(final String uri) {
-        recipients.entrySet().stream()
+    /**
+     * @return the version of the current state, which increases each time the store is changed
+     */
+    public long getVersion() {
+        return snapshot.get().version;
+    }
+
+    /**
+     * Fetch the recipients and parties that have changed since the given version
+     *
+     * <p>Only additions and changes are included, as parties and recipients are never removed by merging. If the
+     * version is 0, or is not one this store has reached, everything is included instead and the base version of the
+     * delta is 0.
+     *
+     * @param sinceVersion the version that the receiver of the changes already holds
+     * @return the changes since that version, up to the current version
+     */
+    public PartyInfoDelta getPartyInfoDelta(final long sinceVersion) {
+        final Snapshot current = snapshot.get();
+
+        if (sinceVersion <= 0 || sinceVersion > current.version) {
+            return new PartyInfoDelta(epoch, 0L, current.version, current.partyInfo);
+        }
+
+        final Set<Recipient> recipients = current.recipientVersions.entrySet().stream()
+                .filter(e -> e.getValue() > sinceVersion)
+                .map(e -> current.recipients.get(e.getKey()))
+                .collect(toSet());
+
+        final Set<Party> parties = current.parties.stream()
+                .filter(p -> current.partyVersions.getOrDefault(p.getUrl(), 0L) > sinceVersion)
+                .collect(toSet());
+
+        return new PartyInfoDelta(
+                epoch, sinceVersion, current.version, new PartyInfo(advertisedUrl, recipients, parties));
+    }
+
+    /**
+     * Looks up the recipient for a public key in the current state of the store, without searching every recipient
+     *
+     * @param key the public key to look up
+     * @return the recipient the key is routed to, if the key is known
+     */
+    public Optional<Recipient> findRecipient(final PublicKey key) {
+        return Optional.ofNullable(snapshot.get().recipients.get(key));
+    }
+
+    public PartyInfo removeRecipient(final String uri) {
+        final Snapshot updated = snapshot.updateAndGet(current -> current.recipients.entrySet().stream()
                 .filter(e -> uri.startsWith(e.getValue().getUrl()))
                 .map(Map.Entry::getKey)
                 .findFirst()
-                .ifPresent(recipients::remove);
+                .map(key -> {
+                    final Map<PublicKey, Recipient> recipients = new HashMap<>(current.recipients);
+                    recipients.remove(key);
+                    final Map<PublicKey, Long> recipientVersions = new HashMap<>(current.recipientVersions);
+                    recipientVersions.remove(key);
+                    return new Snapshot(
+                            current.version + 1,
+                            advertisedUrl,
+                            recipients,
+                            recipientVersions,
+                            current.parties,
+                            current.partyVersions);
+                })
+                .orElse(current));
 
         LOGGER.info("Removed recipient {} from local PartyInfo store", uri);
 
-        return this.getPartyInfo();
+        return updated.partyInfo;
+    }
+
+    /** An immutable state of the store, which is never changed once published */
+    private static final class Snapshot {
+
+        private final long version;
+
+        private final Map<PublicKey, Recipient> recipients;
+
+        private final Map<PublicKey, Long> recipientVersions;
+
+        private final Set<Party> parties;
+
+        private final Map<String, Long> partyVersions;
+
+        private final PartyInfo partyInfo;
+
+        private Snapshot(
+                final long version,
+                final String url,
+                final Map<PublicKey, Recipient> recipients,
+                final Map<PublicKey, Long> recipientVersions,
+                final Set<Party> parties,
+                final Map<String, Long> partyVersions) {
+            this.version = version;
+            this.recipients = unmodifiableMap(recipients);
+            this.recipientVersions = unmodifiableMap(recipientVersions);
+            this.partyInfo = new PartyInfo(url, new HashSet<>(recipients.values()), parties);
+            this.parties = partyInfo.getParties();
+            this.partyVersions = unmodifiableMap(partyVersions);
+        }
     }
 }
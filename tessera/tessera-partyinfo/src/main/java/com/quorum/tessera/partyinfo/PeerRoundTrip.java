@@ -0,0 +1,81 @@
+package com.quorum.tessera.partyinfo;
+
+/**
+ * The round trips a {@link PartyInfoPoller} has made to a single peer, including:
+ * - the number of polls that completed, whether or not they succeeded
+ * - the number of those that failed
+ * - the number of polls the poller stopped waiting for, which are counted again when they complete
+ * - the duration of the last and the longest poll, and the average of all of them
+ *
+ * Instances are immutable, each poll producing a new one.
+ */
+public class PeerRoundTrip {
+
+    static final PeerRoundTrip NONE = new PeerRoundTrip(0, 0, 0, 0, 0, 0);
+
+    private final long count;
+
+    private final long failureCount;
+
+    private final long timeoutCount;
+
+    private final long lastMillis;
+
+    private final long maxMillis;
+
+    private final long totalMillis;
+
+    private PeerRoundTrip(
+            final long count,
+            final long failureCount,
+            final long timeoutCount,
+            final long lastMillis,
+            final long maxMillis,
+            final long totalMillis) {
+        this.count = count;
+        this.failureCount = failureCount;
+        this.timeoutCount = timeoutCount;
+        this.lastMillis = lastMillis;
+        this.maxMillis = maxMillis;
+        this.totalMillis = totalMillis;
+    }
+
+    PeerRoundTrip completed(final long millis, final boolean failed) {
+        return new PeerRoundTrip(
+                count + 1,
+                failed ? failureCount + 1 : failureCount,
+                timeoutCount,
+                millis,
+                Math.max(maxMillis, millis),
+                totalMillis + millis);
+    }
+
+    PeerRoundTrip timedOut() {
+        return new PeerRoundTrip(count, failureCount, timeoutCount + 1, lastMillis, maxMillis, totalMillis);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public long getLastMillis() {
+        return lastMillis;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public long getAverageMillis() {
+        return count == 0 ? 0 : totalMillis / count;
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.quorum.tessera.partyinfo.model;
+
+import java.util.Objects;
+
+/**
+ * Contains the changes a node has made to its {@link PartyInfo} between two
+ * versions, including:
+ * - the epoch of the node's store, which changes each time the node starts
+ * - the version the changes are based on, which the receiver must already hold
+ * - the version the receiver holds once the changes are applied
+ * - the recipients and parties that changed in between
+ *
+ * A base version of 0 means the delta holds everything the node knows.
+ */
+public class PartyInfoDelta {
+
+    private final long epoch;
+
+    private final long baseVersion;
+
+    private final long version;
+
+    private final PartyInfo partyInfo;
+
+    public PartyInfoDelta(final long epoch, final long baseVersion, final long version, final PartyInfo partyInfo) {
+        this.epoch = epoch;
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.partyInfo = Objects.requireNonNull(partyInfo);
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public PartyInfo getPartyInfo() {
+        return partyInfo;
+    }
+
+    public boolean isFull() {
+        return baseVersion == 0;
+    }
+
+    /**
+     * @param partyInfo the changes to use instead, such as a filtered copy of these changes
+     * @return a delta between the same versions holding the given changes
+     */
+    public PartyInfoDelta withPartyInfo(final PartyInfo partyInfo) {
+        return new PartyInfoDelta(epoch, baseVersion, version, partyInfo);
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.quorum.tessera.partyinfo;
 
 import com.quorum.tessera.admin.ConfigService;
+import com.quorum.tessera.enclave.CachingEnclaveClient;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.partyinfo.model.Party;
@@ -9,11 +10,13 @@ import com.quorum.tessera.partyinfo.model.Recipient;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -83,4 +86,21 @@ public class EnclaveKeySynchroniserTest {
         verify(enclave).getPublicKeys();
         verify(configService).getServerUri();
     }
+
+    @Test
+    public void cachingEnclaveIsRefreshedBeforeKeysAreFetched() throws URISyntaxException {
+        final CachingEnclaveClient cachingEnclave = mock(CachingEnclaveClient.class);
+        final PublicKey key = PublicKey.from("Key".getBytes());
+        when(cachingEnclave.getPublicKeys()).thenReturn(Collections.singleton(key));
+
+        new EnclaveKeySynchroniser(cachingEnclave, partyInfoStore, configService).run();
+
+        assertThat(partyInfoStore.getPartyInfo().getRecipients()).containsExactly(new Recipient(key, URL));
+
+        final InOrder inOrder = inOrder(cachingEnclave);
+        inOrder.verify(cachingEnclave).refresh();
+        inOrder.verify(cachingEnclave).getPublicKeys();
+        inOrder.verifyNoMoreInteractions();
+        verify(configService, times(2)).getServerUri();
+    }
 }
@@ -4,6 +4,7 @@ import com.quorum.tessera.partyinfo.PartyInfoParserException;
 import com.quorum.tessera.partyinfo.PartyInfoParser;
 import com.quorum.tessera.partyinfo.model.Party;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
+import com.quorum.tessera.partyinfo.model.PartyInfoDelta;
 import com.quorum.tessera.partyinfo.model.Recipient;
 import com.quorum.tessera.encryption.PublicKey;
 import org.junit.Before;
@@ -166,6 +167,30 @@ public class PartyInfoParserTest {
 
     }
 
+    @Test
+    public void deltaRoundTrip() {
+
+        final PartyInfo partyInfo = partyInfoParser.from(dataOne);
+        final PartyInfoDelta delta = new PartyInfoDelta(-12345L, 3L, 8L, partyInfo);
+
+        final byte[] encoded = partyInfoParser.toDelta(delta);
+
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(encoded);
+        assertThat(byteBuffer.getLong()).isEqualTo(-12345L);
+        assertThat(byteBuffer.getLong()).isEqualTo(3L);
+        assertThat(byteBuffer.getLong()).isEqualTo(8L);
+
+        final PartyInfoDelta result = partyInfoParser.fromDelta(encoded);
+
+        assertThat(result.getEpoch()).isEqualTo(-12345L);
+        assertThat(result.getBaseVersion()).isEqualTo(3L);
+        assertThat(result.getVersion()).isEqualTo(8L);
+        assertThat(result.isFull()).isFalse();
+        assertThat(result.getPartyInfo().getUrl()).isEqualTo(partyInfo.getUrl());
+        assertThat(result.getPartyInfo().getRecipients()).isEqualTo(partyInfo.getRecipients());
+        assertThat(result.getPartyInfo().getParties()).isEqualTo(partyInfo.getParties());
+    }
+
     @Test
     public void checkLengthZero() {
         PartyInfoParser.checkLength(0);
@@ -2,13 +2,22 @@ package com.quorum.tessera.partyinfo;
 
 import com.quorum.tessera.partyinfo.model.Party;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
+import com.quorum.tessera.partyinfo.model.PartyInfoDelta;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
@@ -26,6 +35,8 @@ public class PartyInfoPollerTest {
 
     private static final byte[] DATA = "BOGUS".getBytes();
 
+    private static final byte[] DELTA_DATA = "DELTA".getBytes();
+
     private PartyInfoService partyInfoService;
 
     private PartyInfoParser partyInfoParser;
@@ -34,15 +45,20 @@ public class PartyInfoPollerTest {
 
     private P2pClient p2pClient;
 
+    private PartyInfoDelta delta;
+
     @Before
     public void setUp() {
         this.partyInfoService = mock(PartyInfoService.class);
         this.partyInfoParser = mock(PartyInfoParser.class);
         this.p2pClient = mock(P2pClient.class);
+        this.delta = mock(PartyInfoDelta.class);
 
         when(partyInfoParser.to(any(PartyInfo.class))).thenReturn(DATA);
+        when(partyInfoParser.toDelta(delta)).thenReturn(DELTA_DATA);
+        when(partyInfoService.getPartyInfoDelta(anyLong())).thenReturn(delta);
 
-        this.partyInfoPoller = new PartyInfoPoller(partyInfoService, partyInfoParser, p2pClient);
+        this.partyInfoPoller = new PartyInfoPoller(partyInfoService, partyInfoParser, p2pClient, Runnable::run, 1000L);
     }
 
     @After
@@ -54,25 +70,90 @@ public class PartyInfoPollerTest {
     public void run() {
         final PartyInfo partyInfo = new PartyInfo(OWN_URL, emptySet(), singleton(new Party(TARGET_URL)));
         doReturn(partyInfo).when(partyInfoService).getPartyInfo();
-        doReturn(true).when(p2pClient).sendPartyInfo(TARGET_URL, DATA);
+        doReturn(5L).when(p2pClient).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
 
         partyInfoPoller.run();
 
         verify(partyInfoService).getPartyInfo();
-        verify(partyInfoParser).to(partyInfo);
-        verify(p2pClient).sendPartyInfo(TARGET_URL, DATA);
+        verify(partyInfoService).getPartyInfoDelta(0L);
+        verify(partyInfoParser).toDelta(delta);
+        verify(p2pClient).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+    }
+
+    @Test
+    public void laterRoundsSendChangesSinceTheAcknowledgedVersion() {
+        final PartyInfo partyInfo = new PartyInfo(OWN_URL, emptySet(), singleton(new Party(TARGET_URL)));
+        doReturn(partyInfo).when(partyInfoService).getPartyInfo();
+        doReturn(5L).when(p2pClient).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+
+        partyInfoPoller.run();
+        partyInfoPoller.run();
+
+        verify(partyInfoService, times(2)).getPartyInfo();
+        verify(partyInfoService).getPartyInfoDelta(0L);
+        verify(partyInfoService).getPartyInfoDelta(5L);
+        verify(partyInfoParser, times(2)).toDelta(delta);
+        verify(p2pClient, times(2)).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+    }
+
+    @Test
+    public void partiesWithTheSameVersionShareTheEncodedDelta() {
+        final Set<Party> parties = new HashSet<>(Arrays.asList(new Party(TARGET_URL), new Party(TARGET_URL_2)));
+        final PartyInfo partyInfo = new PartyInfo(OWN_URL, emptySet(), parties);
+        doReturn(partyInfo).when(partyInfoService).getPartyInfo();
+
+        partyInfoPoller.run();
+
+        verify(partyInfoService).getPartyInfo();
+        verify(partyInfoService).getPartyInfoDelta(0L);
+        verify(partyInfoParser).toDelta(delta);
+        verify(p2pClient).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+        verify(p2pClient).sendPartyInfoDelta(TARGET_URL_2, DELTA_DATA);
+    }
+
+    @Test
+    public void partiesWithoutDeltasAreSentFullPartyInfo() {
+        final PartyInfo partyInfo = new PartyInfo(OWN_URL, emptySet(), singleton(new Party(TARGET_URL)));
+        doReturn(partyInfo).when(partyInfoService).getPartyInfo();
+        doReturn(P2pClient.DELTA_UNSUPPORTED).when(p2pClient).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+        doReturn(true).when(p2pClient).sendPartyInfo(TARGET_URL, DATA);
+
+        partyInfoPoller.run();
+        partyInfoPoller.run();
+
+        verify(partyInfoService, times(2)).getPartyInfo();
+        verify(partyInfoService).getPartyInfoDelta(0L);
+        verify(partyInfoParser).toDelta(delta);
+        verify(partyInfoParser, times(2)).to(partyInfo);
+        verify(p2pClient).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+        verify(p2pClient, times(2)).sendPartyInfo(TARGET_URL, DATA);
+    }
+
+    @Test
+    public void everythingIsSentAgainAfterTheFullSyncInterval() {
+        final PartyInfo partyInfo = new PartyInfo(OWN_URL, emptySet(), singleton(new Party(TARGET_URL)));
+        doReturn(partyInfo).when(partyInfoService).getPartyInfo();
+        doReturn(5L).when(p2pClient).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+
+        for (int i = 0; i <= PartyInfoPoller.FULL_SYNC_ROUNDS; i++) {
+            partyInfoPoller.run();
+        }
+
+        final int rounds = PartyInfoPoller.FULL_SYNC_ROUNDS + 1;
+        verify(partyInfoService, times(rounds)).getPartyInfo();
+        verify(partyInfoService, times(2)).getPartyInfoDelta(0L);
+        verify(partyInfoService, times(rounds - 2)).getPartyInfoDelta(5L);
+        verify(partyInfoParser, times(rounds)).toDelta(delta);
+        verify(p2pClient, times(rounds)).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
     }
 
     @Test
     public void testWhenURLIsOwn() {
         final PartyInfo partyInfo = new PartyInfo(OWN_URL, emptySet(), singleton(new Party(OWN_URL)));
         doReturn(partyInfo).when(partyInfoService).getPartyInfo();
-        doReturn(DATA).when(partyInfoParser).to(partyInfo);
-        doReturn(true).when(p2pClient).sendPartyInfo(OWN_URL, DATA);
 
         partyInfoPoller.run();
 
-        verify(partyInfoParser).to(partyInfo);
         verify(partyInfoService).getPartyInfo();
     }
 
@@ -81,19 +162,165 @@ public class PartyInfoPollerTest {
         final Set<Party> parties = new HashSet<>(Arrays.asList(new Party(TARGET_URL), new Party(TARGET_URL_2)));
         final PartyInfo partyInfo = new PartyInfo(OWN_URL, emptySet(), parties);
         doReturn(partyInfo).when(partyInfoService).getPartyInfo();
-        doThrow(UnsupportedOperationException.class).when(p2pClient).sendPartyInfo(TARGET_URL, DATA);
+        doThrow(UnsupportedOperationException.class).when(p2pClient).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
 
         final Throwable throwable = catchThrowable(partyInfoPoller::run);
 
         assertThat(throwable).isNull();
-        verify(p2pClient).sendPartyInfo(TARGET_URL, DATA);
-        verify(p2pClient).sendPartyInfo(TARGET_URL_2, DATA);
+        verify(p2pClient).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+        verify(p2pClient).sendPartyInfoDelta(TARGET_URL_2, DELTA_DATA);
         verify(partyInfoService).getPartyInfo();
-        verify(partyInfoParser).to(partyInfo);
+        verify(partyInfoService).getPartyInfoDelta(0L);
+        verify(partyInfoParser).toDelta(delta);
+    }
+
+    @Test
+    public void partiesArePolledConcurrently() throws Exception {
+        final Set<Party> parties = new HashSet<>(Arrays.asList(new Party(TARGET_URL), new Party(TARGET_URL_2)));
+        final PartyInfo partyInfo = new PartyInfo(OWN_URL, emptySet(), parties);
+        doReturn(partyInfo).when(partyInfoService).getPartyInfo();
+
+        // each poll only returns once both have started
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        doAnswer(
+                        invocation -> {
+                            barrier.await(5, TimeUnit.SECONDS);
+                            return 5L;
+                        })
+                .when(p2pClient)
+                .sendPartyInfoDelta(anyString(), any(byte[].class));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final PartyInfoPoller poller =
+                new PartyInfoPoller(partyInfoService, partyInfoParser, p2pClient, executor, 5000L);
+
+        poller.run();
+        executor.shutdown();
+
+        assertThat(poller.getTimeoutCount()).isZero();
+        assertThat(poller.getPeerRoundTrips().get(TARGET_URL).getFailureCount()).isZero();
+        assertThat(poller.getPeerRoundTrips().get(TARGET_URL_2).getFailureCount()).isZero();
+        verify(partyInfoService).getPartyInfo();
+        verify(partyInfoService).getPartyInfoDelta(0L);
+        verify(partyInfoParser).toDelta(delta);
+        verify(p2pClient).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+        verify(p2pClient).sendPartyInfoDelta(TARGET_URL_2, DELTA_DATA);
+    }
+
+    @Test
+    public void partyStillBeingPolledIsSkipped() throws Exception {
+        final PartyInfo partyInfo = new PartyInfo(OWN_URL, emptySet(), singleton(new Party(TARGET_URL)));
+        doReturn(partyInfo).when(partyInfoService).getPartyInfo();
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(
+                        invocation -> {
+                            started.countDown();
+                            return release.await(5, TimeUnit.SECONDS) ? 5L : 0L;
+                        })
+                .when(p2pClient)
+                .sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+
+        // hands each poll to its own thread, and only returns once the poll has reached the client
+        final Thread[] pollThread = new Thread[1];
+        final Executor executor =
+                task -> {
+                    pollThread[0] = new Thread(task);
+                    pollThread[0].start();
+                    awaitUninterruptibly(started);
+                };
+        final PartyInfoPoller poller = new PartyInfoPoller(partyInfoService, partyInfoParser, p2pClient, executor, 10L);
+
+        poller.run();
+        poller.run();
+
+        assertThat(poller.getTimeoutCount()).isEqualTo(1);
+        assertThat(poller.getPeerRoundTrips().get(TARGET_URL).getTimeoutCount()).isEqualTo(1);
+        assertThat(poller.getPeerRoundTrips().get(TARGET_URL).getCount()).isZero();
+
+        release.countDown();
+        pollThread[0].join(5000);
+
+        assertThat(poller.getPeerRoundTrips().get(TARGET_URL).getCount()).isEqualTo(1);
+        verify(partyInfoService, times(2)).getPartyInfo();
+        verify(partyInfoService).getPartyInfoDelta(0L);
+        verify(partyInfoParser).toDelta(delta);
+        verify(p2pClient).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+    }
+
+    @Test
+    public void pollNotStartedBeforeTheTimeoutIsNotMade() {
+        final PartyInfo partyInfo = new PartyInfo(OWN_URL, emptySet(), singleton(new Party(TARGET_URL)));
+        doReturn(partyInfo).when(partyInfoService).getPartyInfo();
+
+        // an executor with no free threads never gets to the poll
+        final PartyInfoPoller poller = new PartyInfoPoller(partyInfoService, partyInfoParser, p2pClient, r -> {}, 10L);
+
+        poller.run();
+
+        assertThat(poller.getTimeoutCount()).isEqualTo(1);
+        assertThat(poller.getPeerRoundTrips().get(TARGET_URL).getCount()).isZero();
+        verify(partyInfoService).getPartyInfo();
+    }
+
+    @Test
+    public void roundTripsAreRecordedForEachParty() {
+        final PartyInfo partyInfo = new PartyInfo(OWN_URL, emptySet(), singleton(new Party(TARGET_URL)));
+        doReturn(partyInfo).when(partyInfoService).getPartyInfo();
+        doReturn(5L)
+                .doThrow(UnsupportedOperationException.class)
+                .when(p2pClient)
+                .sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+
+        partyInfoPoller.run();
+        partyInfoPoller.run();
+
+        final PeerRoundTrip roundTrip = partyInfoPoller.getPeerRoundTrips().get(TARGET_URL);
+        assertThat(roundTrip.getCount()).isEqualTo(2);
+        assertThat(roundTrip.getFailureCount()).isEqualTo(1);
+        assertThat(roundTrip.getTimeoutCount()).isZero();
+        assertThat(roundTrip.getMaxMillis()).isGreaterThanOrEqualTo(roundTrip.getLastMillis());
+        assertThat(partyInfoPoller.getPeerRoundTrips()).containsOnlyKeys(TARGET_URL);
+
+        verify(partyInfoService, times(2)).getPartyInfo();
+        verify(partyInfoService).getPartyInfoDelta(0L);
+        verify(partyInfoService).getPartyInfoDelta(5L);
+        verify(partyInfoParser, times(2)).toDelta(delta);
+        verify(p2pClient, times(2)).sendPartyInfoDelta(TARGET_URL, DELTA_DATA);
+    }
+
+    @Test
+    public void registerAndStop() throws Exception {
+        final ObjectName objectName = new ObjectName(PartyInfoPoller.OBJECT_NAME);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final PartyInfoPoller poller = new PartyInfoPoller(partyInfoService, partyInfoParser, p2pClient, executor, 10L);
+
+        poller.register();
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)).isTrue();
+
+        poller.stop();
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)).isFalse();
+        assertThat(executor.isShutdown()).isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void timeoutMustBePositive() {
+        new PartyInfoPoller(partyInfoService, partyInfoParser, p2pClient, Runnable::run, 0L);
     }
 
     @Test
     public void constructWithMinimalArgs() {
-        assertThat(new PartyInfoPoller(partyInfoService, p2pClient)).isNotNull();
+        final PartyInfoPoller poller = new PartyInfoPoller(partyInfoService, p2pClient);
+        assertThat(poller).isNotNull();
+        poller.stop();
+    }
+
+    private static void awaitUninterruptibly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
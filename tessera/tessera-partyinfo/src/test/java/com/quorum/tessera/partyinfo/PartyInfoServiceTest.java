@@ -10,6 +10,7 @@ import com.quorum.tessera.encryption.KeyNotFoundException;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.partyinfo.model.Party;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
+import com.quorum.tessera.partyinfo.model.PartyInfoDelta;
 import com.quorum.tessera.partyinfo.model.Recipient;
 import org.junit.After;
 import org.junit.Before;
@@ -195,6 +196,63 @@ public class PartyInfoServiceTest {
         verify(configService).featureToggles();
     }
 
+    @Test
+    public void getPartyInfoDelta() {
+
+        final PartyInfoDelta delta = new PartyInfoDelta(1L, 2L, 3L, mock(PartyInfo.class));
+        when(partyInfoStore.getPartyInfoDelta(2L)).thenReturn(delta);
+
+        assertThat(partyInfoService.getPartyInfoDelta(2L)).isSameAs(delta);
+
+        verify(partyInfoStore).getPartyInfoDelta(2L);
+    }
+
+    @Test
+    public void deltasFollowingTheAppliedVersionAreApplied() {
+
+        when(configService.isDisablePeerDiscovery()).thenReturn(false);
+
+        final PartyInfo full = new PartyInfo("http://other-node.com:8080", emptySet(), emptySet());
+        final PartyInfo changes =
+                new PartyInfo("http://other-node.com:8080", emptySet(), singleton(new Party("http://new.com")));
+
+        final long first = partyInfoService.updatePartyInfoDelta(new PartyInfoDelta(9L, 0L, 4L, full));
+        final long second = partyInfoService.updatePartyInfoDelta(new PartyInfoDelta(9L, 4L, 6L, changes));
+
+        assertThat(first).isEqualTo(4L);
+        assertThat(second).isEqualTo(6L);
+
+        verify(partyInfoStore).store(full);
+        verify(partyInfoStore).store(changes);
+        verify(partyInfoStore, times(3)).store(any(PartyInfo.class));
+        verify(partyInfoStore, times(2)).getPartyInfo();
+        verify(configService, times(2)).isDisablePeerDiscovery();
+        verify(configService, times(2)).featureToggles();
+    }
+
+    @Test
+    public void deltasNotFollowingTheAppliedVersionAskForEverything() {
+
+        when(configService.isDisablePeerDiscovery()).thenReturn(false);
+
+        final PartyInfo partyInfo = new PartyInfo("http://other-node.com:8080", emptySet(), emptySet());
+
+        final long unknownSender = partyInfoService.updatePartyInfoDelta(new PartyInfoDelta(9L, 4L, 6L, partyInfo));
+
+        partyInfoService.updatePartyInfoDelta(new PartyInfoDelta(9L, 0L, 4L, partyInfo));
+        final long otherEpoch = partyInfoService.updatePartyInfoDelta(new PartyInfoDelta(10L, 4L, 6L, partyInfo));
+        final long afterReset = partyInfoService.updatePartyInfoDelta(new PartyInfoDelta(9L, 4L, 6L, partyInfo));
+
+        assertThat(unknownSender).isZero();
+        assertThat(otherEpoch).isZero();
+        assertThat(afterReset).isZero();
+
+        verify(partyInfoStore, times(2)).store(any(PartyInfo.class));
+        verify(partyInfoStore).getPartyInfo();
+        verify(configService).isDisablePeerDiscovery();
+        verify(configService).featureToggles();
+    }
+
     @Test
     public void removeRecipient() {
 
@@ -211,16 +269,15 @@ public class PartyInfoServiceTest {
 
         PublicKey recipientKey = PublicKey.from("Some Key Data".getBytes());
 
-        PartyInfo partyInfo = mock(PartyInfo.class);
-        when(partyInfo.getRecipients()).thenReturn(singleton(new Recipient(recipientKey, "http://somehost.com")));
-        when(partyInfoStore.getPartyInfo()).thenReturn(partyInfo);
+        when(partyInfoStore.findRecipient(recipientKey))
+                .thenReturn(Optional.of(new Recipient(recipientKey, "http://somehost.com")));
 
         EncodedPayload payload = mock(EncodedPayload.class);
 
         partyInfoService.publishPayload(payload, recipientKey);
 
         verify(payloadPublisher).publishPayload(payload, "http://somehost.com");
-        verify(partyInfoStore).getPartyInfo();
+        verify(partyInfoStore).findRecipient(recipientKey);
     }
 
     @Test
@@ -243,9 +300,7 @@ public class PartyInfoServiceTest {
 
         PublicKey recipientKey = PublicKey.from("Some Key Data".getBytes());
 
-        PartyInfo partyInfo = mock(PartyInfo.class);
-        when(partyInfo.getRecipients()).thenReturn(Collections.emptySet());
-        when(partyInfoStore.getPartyInfo()).thenReturn(partyInfo);
+        when(partyInfoStore.findRecipient(recipientKey)).thenReturn(Optional.empty());
 
         EncodedPayload payload = mock(EncodedPayload.class);
 
@@ -254,10 +309,21 @@ public class PartyInfoServiceTest {
             failBecauseExceptionWasNotThrown(KeyNotFoundException.class);
         } catch (KeyNotFoundException ex) {
             verifyZeroInteractions(payloadPublisher);
-            verify(partyInfoStore).getPartyInfo();
+            verify(partyInfoStore).findRecipient(recipientKey);
         }
     }
 
+    @Test
+    public void findRecipient() {
+        final PublicKey key = PublicKey.from("Some Key Data".getBytes());
+        final Recipient recipient = new Recipient(key, "http://somehost.com");
+        when(partyInfoStore.findRecipient(key)).thenReturn(Optional.of(recipient));
+
+        assertThat(partyInfoService.findRecipient(key)).contains(recipient);
+
+        verify(partyInfoStore).findRecipient(key);
+    }
+
     @Test
     public void createWithFactoryConstructor() throws Exception {
 
@@ -3,6 +3,7 @@ package com.quorum.tessera.partyinfo;
 import com.quorum.tessera.admin.ConfigService;
 import com.quorum.tessera.partyinfo.model.Party;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
+import com.quorum.tessera.partyinfo.model.PartyInfoDelta;
 import com.quorum.tessera.partyinfo.model.Recipient;
 import com.quorum.tessera.encryption.PublicKey;
 
@@ -13,7 +14,14 @@ import org.junit.Test;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Instant;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
@@ -182,4 +190,120 @@ public class PartyInfoStoreTest {
         assertThat(result).isNotNull();
         assertThat(result.getRecipients()).hasSize(1).containsOnly(new Recipient(someKey, uri));
     }
+
+    @Test
+    public void readsReturnTheSameSnapshotUntilTheNextChange() {
+        final PartyInfo first = partyInfoStore.getPartyInfo();
+
+        assertThat(partyInfoStore.getPartyInfo()).isSameAs(first);
+        assertThat(partyInfoStore.getVersion()).isZero();
+
+        partyInfoStore.store(new PartyInfo(uri, emptySet(), singleton(new Party("example.com/"))));
+
+        assertThat(partyInfoStore.getPartyInfo()).isNotSameAs(first);
+        assertThat(partyInfoStore.getVersion()).isEqualTo(1L);
+        assertThat(first.getParties()).containsExactly(new Party("http://localhost:8080/"));
+    }
+
+    @Test
+    public void removingAnUnknownRecipientDoesNotChangeTheVersion() {
+        final PublicKey someKey = PublicKey.from("someKey".getBytes());
+        partyInfoStore.store(new PartyInfo(uri, singleton(new Recipient(someKey, uri)), emptySet()));
+
+        final PartyInfo result = partyInfoStore.removeRecipient("http://unknown.com");
+
+        assertThat(result).isSameAs(partyInfoStore.getPartyInfo());
+        assertThat(result.getRecipients()).containsExactly(new Recipient(someKey, uri));
+        assertThat(partyInfoStore.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    public void concurrentStoresAreAllKept() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Callable<Void>> tasks = IntStream.range(0, 100)
+                .mapToObj(i -> PublicKey.from(("key" + i).getBytes()))
+                .map(key -> (Callable<Void>) () -> {
+                    partyInfoStore.store(new PartyInfo(uri, singleton(new Recipient(key, uri)), emptySet()));
+                    return null;
+                })
+                .collect(Collectors.toList());
+
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(partyInfoStore.getPartyInfo().getRecipients()).hasSize(100);
+        assertThat(partyInfoStore.getVersion()).isEqualTo(100L);
+    }
+
+    @Test
+    public void findRecipientFollowsUpdatesAndRemovals() {
+        final PublicKey testKey = PublicKey.from("some-key".getBytes());
+
+        assertThat(partyInfoStore.findRecipient(testKey)).isEmpty();
+
+        partyInfoStore.store(new PartyInfo(uri, singleton(new Recipient(testKey, uri)), emptySet()));
+        assertThat(partyInfoStore.findRecipient(testKey)).contains(new Recipient(testKey, uri));
+
+        partyInfoStore.store(new PartyInfo(uri, singleton(new Recipient(testKey, "http://other.com")), emptySet()));
+        assertThat(partyInfoStore.findRecipient(testKey)).contains(new Recipient(testKey, "http://other.com"));
+
+        partyInfoStore.removeRecipient("http://other.com");
+        assertThat(partyInfoStore.findRecipient(testKey)).isEmpty();
+    }
+
+    @Test
+    public void deltaHoldsOnlyWhatChangedSinceTheVersion() {
+        final PublicKey firstKey = PublicKey.from("first-key".getBytes());
+        final PublicKey secondKey = PublicKey.from("second-key".getBytes());
+
+        partyInfoStore.store(new PartyInfo(uri, singleton(new Recipient(firstKey, uri)), emptySet()));
+        final long firstVersion = partyInfoStore.getVersion();
+
+        partyInfoStore.store(new PartyInfo(uri, singleton(new Recipient(firstKey, uri)), emptySet()));
+        partyInfoStore.store(
+                new PartyInfo(uri, singleton(new Recipient(secondKey, uri)), singleton(new Party("example.com/"))));
+
+        final PartyInfoDelta delta = partyInfoStore.getPartyInfoDelta(firstVersion);
+
+        assertThat(delta.isFull()).isFalse();
+        assertThat(delta.getBaseVersion()).isEqualTo(firstVersion);
+        assertThat(delta.getVersion()).isEqualTo(partyInfoStore.getVersion());
+        assertThat(delta.getPartyInfo().getUrl()).isEqualTo(uri + "/");
+        assertThat(delta.getPartyInfo().getRecipients()).containsExactly(new Recipient(secondKey, uri));
+        assertThat(delta.getPartyInfo().getParties()).containsExactly(new Party("example.com/"));
+
+        final PartyInfoDelta none = partyInfoStore.getPartyInfoDelta(partyInfoStore.getVersion());
+
+        assertThat(none.getPartyInfo().getRecipients()).isEmpty();
+        assertThat(none.getPartyInfo().getParties()).isEmpty();
+        assertThat(none.getEpoch()).isEqualTo(delta.getEpoch());
+    }
+
+    @Test
+    public void deltaFromVersionZeroOrAnUnknownVersionHoldsEverything() {
+        final PublicKey testKey = PublicKey.from("some-key".getBytes());
+        partyInfoStore.store(new PartyInfo(uri, singleton(new Recipient(testKey, uri)), emptySet()));
+
+        final PartyInfoDelta fromZero = partyInfoStore.getPartyInfoDelta(0L);
+        final PartyInfoDelta fromUnknown = partyInfoStore.getPartyInfoDelta(partyInfoStore.getVersion() + 1);
+
+        assertThat(fromZero.isFull()).isTrue();
+        assertThat(fromZero.getPartyInfo()).isSameAs(partyInfoStore.getPartyInfo());
+        assertThat(fromUnknown.isFull()).isTrue();
+        assertThat(fromUnknown.getPartyInfo()).isSameAs(partyInfoStore.getPartyInfo());
+    }
+
+    @Test
+    public void changedRecipientUrlIsInTheDelta() {
+        final PublicKey testKey = PublicKey.from("some-key".getBytes());
+        partyInfoStore.store(new PartyInfo(uri, singleton(new Recipient(testKey, uri)), emptySet()));
+        final long version = partyInfoStore.getVersion();
+
+        partyInfoStore.store(new PartyInfo(uri, singleton(new Recipient(testKey, "http://other.com")), emptySet()));
+
+        assertThat(partyInfoStore.getPartyInfoDelta(version).getPartyInfo().getRecipients())
+                .containsExactly(new Recipient(testKey, "http://other.com"));
+    }
 }